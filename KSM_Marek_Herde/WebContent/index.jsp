@@ -11,15 +11,37 @@
 <body>
 	<h1>MOOGLE</h1>
 	<form method="GET" name="search" action="MyServlet">
-	SEARCH <input type="text" name="searchfield"> <input type="submit"
+	SEARCH <input type="text" name="searchfield" list="suggestions" autocomplete="off"> <input type="submit"
 			name="search" /> QUERY TYPE <select
 			name="operator">
 			<option>RANK</option>
 			<option>OR</option>
 			<option>AND</option>
 			<option>PHRASE</option>
+			<option>WILDCARD</option>
+			<option>FUZZY</option>
+			<option>BOOLEAN</option>
 		</select>
+		<datalist id="suggestions"></datalist>
 	</form>
+	<script type="text/javascript">
+		/* requesting completions of the typed prefix with every keystroke */
+		var searchfield = document.search.searchfield;
+		searchfield.oninput = function() {
+			var request = new XMLHttpRequest();
+			request.open("GET", "SuggestServlet?prefix=" + encodeURIComponent(searchfield.value));
+			request.onload = function() {
+				var list = document.getElementById("suggestions");
+				list.innerHTML = "";
+				JSON.parse(request.responseText).forEach(function(completion) {
+					var option = document.createElement("option");
+					option.value = completion;
+					list.appendChild(option);
+				});
+			};
+			request.send();
+		};
+	</script>
 	<br/>
 	<hr size="5" noshade>
 	<div id="result">
@@ -16,8 +16,10 @@ import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.log4j.Logger;
 
+import de.unikassel.ir.vsr.Analyzer;
 import de.unikassel.ir.vsr.Corpus;
 import de.unikassel.ir.vsr.HTMLDocument;
+import de.unikassel.ir.vsr.InvertedIndex;
 
 /**
  * Central Class for the Crawler. With HTTPWorkers the Documents are produced
@@ -71,8 +73,15 @@ public class Crawler {
 
 	private URLFilter urlFilter;
 
+	// analyzer of the text of the crawled pages
+	private Analyzer analyzer;
+
+	// index receiving every processed page, null if there is none
+	private InvertedIndex index;
+
 	/**
-	 * Construct a Crawler
+	 * Construct a Crawler, that splits the text of the pages into lowercased
+	 * terms
 	 * 
 	 * @param nPages
 	 *            = Number of pages to crawl
@@ -82,6 +91,43 @@ public class Crawler {
 	 *            = number of active HTTPWorkers
 	 */
 	public Crawler(int nPages, int nLinkExtractors, int nWorkers) {
+		this(nPages, nLinkExtractors, nWorkers, Analyzer.DEFAULT);
+	}
+
+	/**
+	 * Construct a Crawler
+	 * 
+	 * @param nPages
+	 *            = Number of pages to crawl
+	 * @param nLinkExtractors
+	 *            = number of active LinkExtractors
+	 * @param nWorkers
+	 *            = number of active HTTPWorkers
+	 * @param analyzer
+	 *            = analyzer of the text of the crawled pages
+	 */
+	public Crawler(int nPages, int nLinkExtractors, int nWorkers, Analyzer analyzer) {
+		this(nPages, nLinkExtractors, nWorkers, analyzer, null);
+	}
+
+	/**
+	 * Construct a Crawler, that adds every processed page to an index while
+	 * crawling, e.g. to a SegmentedIndex answering queries meanwhile
+	 * 
+	 * @param nPages
+	 *            = Number of pages to crawl
+	 * @param nLinkExtractors
+	 *            = number of active LinkExtractors
+	 * @param nWorkers
+	 *            = number of active HTTPWorkers
+	 * @param analyzer
+	 *            = analyzer of the text of the crawled pages
+	 * @param index
+	 *            = index receiving the processed pages, null if there is none
+	 */
+	public Crawler(int nPages, int nLinkExtractors, int nWorkers, Analyzer analyzer, InvertedIndex index) {
+		this.analyzer = analyzer;
+		this.index = index;
 		this.nLinkExtractors = nLinkExtractors;
 		this.nWorkers = nWorkers;
 		this.nPages = nPages;
@@ -173,8 +219,17 @@ public class Crawler {
 		if (this.state == State.running) {
 			foundURLs.remove(doc.getURL());
 			if (doc.getParsedHTMLdoc() != null) {
-				completedDocs.put(doc.getURL(), doc);
+				HTMLDocument previous = completedDocs.put(doc.getURL(), doc);
 				log.debug("Marked URL: " + doc.getURL()+" as done.");
+
+				// the page can be found by queries from now on
+				if (this.index != null) {
+					if (previous != null) {
+						this.index.updateDocument(previous, doc);
+					} else {
+						this.index.addDocument(doc);
+					}
+				}
 			}
 
 			/* Checking whether there are URL that can be extracted */
@@ -231,13 +286,22 @@ public class Crawler {
 		log.debug("Stopped.");
 	}
 
+	/**
+	 * Returns the analyzer of the text of the crawled pages
+	 * 
+	 * @return
+	 */
+	public Analyzer getAnalyzer() {
+		return this.analyzer;
+	}
+
 	/**
 	 * Returns the crawled pages as Corpus
 	 * 
 	 * @return
 	 */
 	public synchronized Corpus getDocumentsAsCorpus() {
-		Corpus corpus = new de.unikassel.ir.vsr.CorpusImpl();
+		Corpus corpus = new de.unikassel.ir.vsr.CorpusImpl(this.analyzer);
 		// from the completedDocs add all
 		for (HTMLDocument doc : completedDocs.values()) {
 			corpus.addDocument(doc);
@@ -80,7 +80,7 @@ public class HTTPWorker implements Runnable {
 				/* poll first URL from queue */
 				URL nextUrl = queue.poll();
 				/* create HTMLDocument */
-				HTMLDocument doc = new HTMLDocument(nextUrl);
+				HTMLDocument doc = new HTMLDocument(nextUrl, this.crawler.getAnalyzer());
 				try {
 					if (nextUrl.getProtocol().equals("http")) {
 						/* try to connect */
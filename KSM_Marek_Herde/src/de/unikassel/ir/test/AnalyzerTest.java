@@ -0,0 +1,162 @@
+package de.unikassel.ir.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ir.vsr.Analyzer;
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.LengthFilter;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.QueryParser;
+import de.unikassel.ir.vsr.StemFilter;
+import de.unikassel.ir.vsr.StopWordFilter;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the {@link Analyzer} of documents and queries
+ * 
+ * @author Marek Herde
+ */
+public class AnalyzerTest extends TestCase {
+
+	private Analyzer analyzer;
+
+	public void setUp() throws IOException {
+		analyzer = Analyzer.createEnglishAnalyzer(new File("resources/englishST.txt"));
+	}
+
+	/**
+	 * Test the filters of the english analyzer
+	 */
+	public void testFilters() {
+		assertEquals(Arrays.asList("connect", "bank", "england", "price"),
+				Arrays.asList(analyzer.split("The CONNECTED Bank of England's prices")));
+		assertEquals(0, analyzer.split("the of and a's").length);
+		assertEquals(Arrays.asList("mail", "server"), Arrays.asList(analyzer.split("e-mail servers")));
+
+		Analyzer filters = new Analyzer(new StopWordFilter(Arrays.asList("of")), new LengthFilter(2, 6),
+				new StemFilter());
+		assertEquals(Arrays.asList("head", "state"), Arrays.asList(filters.split("x heads of states abcdefghi")));
+		assertEquals(Arrays.asList("x", "heads", "of"), Arrays.asList(Analyzer.DEFAULT.split("X heads-of")));
+
+		/* single characters are removed */
+		assertEquals(Arrays.asList("vitamin"), Arrays.asList(analyzer.split("Vitamin C")));
+
+		/* stop words are found without creating strings */
+		StopWordFilter stopWords = new StopWordFilter(Arrays.asList("a", "of", "the", "of"));
+		assertEquals(3, stopWords.size());
+		assertEquals(0, stopWords.filter("of".toCharArray(), 2));
+		assertEquals(3, stopWords.filter("off".toCharArray(), 3));
+		assertEquals(2, stopWords.filter("to".toCharArray(), 2));
+		assertEquals(1, new StopWordFilter(Arrays.asList()).filter("a".toCharArray(), 1));
+	}
+
+	/**
+	 * Test that stems are shown as the shortest term of their stem in the
+	 * documents and that contexts show surface forms
+	 * 
+	 * @throws IOException
+	 */
+	public void testSurfaceForms() throws IOException {
+		List<String> surfaceForms = new ArrayList<>();
+		analyzer.analyzeWithSurfaceForms("Connections of the connected",
+				(buffer, length, surface, surfaceLength) -> surfaceForms
+						.add(new String(buffer, 0, length) + "/" + new String(surface, 0, surfaceLength)));
+		assertEquals(Arrays.asList("connect/connections", "connect/connected"), surfaceForms);
+
+		CorpusImpl corpus = new CorpusImpl(analyzer);
+		DocumentImpl connections = new DocumentImpl("connections", analyzer, corpus.getVocabulary());
+		connections.read(new ByteArrayInputStream("connections connected connection".getBytes()));
+		assertEquals("connected", connections.getSurfaceForm("connect"));
+		assertEquals("connected", connections.getSurfaceForm(2));
+		assertEquals("unknownstem", connections.getSurfaceForm("unknownstem"));
+		DocumentImpl connect = new DocumentImpl("connect", analyzer, corpus.getVocabulary());
+		connect.read(new ByteArrayInputStream("connect".getBytes()));
+		assertEquals("connect", connections.getSurfaceForm("connect"));
+		assertEquals("heads", new DocumentImpl("heads", Arrays.asList("heads")).getSurfaceForm("heads"));
+
+		DocumentImpl doc = new DocumentImpl("doc", analyzer);
+		doc.read(new ByteArrayInputStream("Banks of England financing railways".getBytes()));
+		corpus.addDocument(doc);
+		PhraseSearchIndex index = new PhraseSearchIndex(corpus);
+		List<String> context = index.getContext("england", doc, 1);
+		assertEquals("banks", context.get(0));
+		assertEquals("financing railways", context.get(1));
+	}
+
+	/**
+	 * Test that analyzers with other filters have other ids
+	 * 
+	 * @throws IOException
+	 */
+	public void testId() throws IOException {
+		assertEquals(analyzer.getId(), Analyzer.createEnglishAnalyzer(new File("resources/englishST.txt")).getId());
+		assertFalse(analyzer.getId().equals(Analyzer.DEFAULT.getId()));
+		assertFalse(new Analyzer(new StopWordFilter(Arrays.asList("of"))).getId()
+				.equals(new Analyzer(new StopWordFilter(Arrays.asList("the"))).getId()));
+		assertFalse(new Analyzer(new LengthFilter(2, 6)).getId().equals(new Analyzer(new LengthFilter(1, 6)).getId()));
+		assertFalse(new Analyzer(new StemFilter(), new LengthFilter(2, 6)).getId()
+				.equals(new Analyzer(new LengthFilter(2, 6), new StemFilter()).getId()));
+	}
+
+	/**
+	 * Test that stop words are removed from documents without gaps and that
+	 * phrase and boolean queries are analyzed by the analyzer of the corpus
+	 * 
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public void testCorpus() throws IOException, ParseException {
+		DocumentImpl doc = new DocumentImpl("doc", analyzer);
+		doc.read(new ByteArrayInputStream("The head of the Bank of England".getBytes()));
+		assertEquals(3, doc.size());
+		assertEquals(Arrays.asList(1), doc.getTermPositions("bank"));
+		assertNull(doc.getTermPositions("the"));
+
+		Corpus corpus = new CorpusImpl(analyzer);
+		corpus.addDocument(doc);
+		PhraseSearchIndex index = new PhraseSearchIndex(corpus, false);
+		Map<Document, List<Integer>> result = index.searchPhrase("banks of england");
+		assertEquals(Arrays.asList(1), result.get(doc));
+
+		assertEquals("(head AND \"bank england\")",
+				QueryParser.parse("heads AND \"Bank of England\"", corpus.getAnalyzer()).toString());
+		try {
+			QueryParser.parse("head AND the", corpus.getAnalyzer());
+			fail("stop word accepted");
+		} catch (ParseException e) {
+		}
+	}
+
+	/**
+	 * Test that the index of the corpus analyzed by the english analyzer has
+	 * fewer postings
+	 * 
+	 * @throws IOException
+	 */
+	public void testPostings() throws IOException {
+		long[] positions = new long[2];
+		Analyzer[] analyzers = { Analyzer.DEFAULT, analyzer };
+		for (int i = 0; i < analyzers.length; i++) {
+			for (File file : new File("resources/texte").listFiles()) {
+				try (FileInputStream stream = new FileInputStream(file)) {
+					Document doc = new DocumentImpl(file.getName(), analyzers[i]);
+					doc.read(stream);
+					positions[i] += doc.size();
+				}
+			}
+		}
+		assertTrue(Arrays.toString(positions), positions[1] < 0.7 * positions[0]);
+	}
+
+}
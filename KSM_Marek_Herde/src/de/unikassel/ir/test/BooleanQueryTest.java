@@ -0,0 +1,174 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.QueryNode;
+import de.unikassel.ir.vsr.QueryParser;
+import de.unikassel.ir.vsr.QueryPlanner;
+import de.unikassel.ir.vsr.RoaringBitmap;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for parsing, planning and evaluating boolean queries
+ * 
+ * @author Marek Herde
+ */
+public class BooleanQueryTest extends TestCase {
+
+	private Corpus corpus;
+
+	private InvertedIndexImpl index;
+
+	private QueryPlanner planner;
+
+	/**
+	 * read all documents of the corpus and create an index
+	 */
+	public void setUp() throws IOException {
+		corpus = new CorpusImpl();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+			}
+		}
+		index = new InvertedIndexImpl(corpus);
+		planner = new QueryPlanner(index);
+	}
+
+	/**
+	 * Test the query trees created by the parser
+	 */
+	public void testParse() throws ParseException {
+		assertEquals("(a AND (b OR c) AND NOT d)", QueryParser.parse("a AND (b OR c) NOT d").toString());
+		assertEquals("((a AND b) OR c)", QueryParser.parse("a b OR c").toString());
+		assertEquals("(\"crude oil\" AND NOT url:reut_1)", QueryParser.parse("\"Crude Oil\" -url:Reut_1").toString());
+		assertEquals("\"e mail\"", QueryParser.parse("text:e-mail").toString());
+		assertEquals("url:reut 1", QueryParser.parse("url:\"reut 1\"").toString());
+		assertEquals("(oil NEAR/3 price NEAR/3 crude OR coffee ONEAR/10 brazil)",
+				QueryParser.parse("oil NEAR/3 price NEAR/3 crude OR coffee ONEAR brazil").toString());
+		for (String invalid : new String[] { "", "a AND", "(a OR b", "a)", "\"oil", "OR a", "title:oil", "!!", "a NEAR/2 b ONEAR/2 c",
+				"a NEAR/2 \"b c\"", "a NEAR/1 a", "a NEAR/3" }) {
+			try {
+				QueryParser.parse(invalid);
+				fail(invalid);
+			} catch (ParseException e) {
+			}
+		}
+	}
+
+	/**
+	 * Test that the evaluated queries match the same documents as checking
+	 * every document
+	 */
+	public void testSearch() throws ParseException {
+		for (String query : new String[] { "oil", "oil AND price", "oil price export", "oil OR coffee",
+				"oil AND (price OR export) NOT crude", "NOT oil", "-oil -the", "\"crude oil\"",
+				"\"the price of\" OR sugar", "oil url:reut_1", "url:reut_1 NOT oil", "unknownterm OR NOT the",
+				"(oil OR coffee) (price OR export) -(crude OR brazil)", "the AND of AND to AND NOT qqq",
+				"oil NEAR/5 price", "price ONEAR/3 oil", "mln NEAR/2 dlrs NEAR/2 year -oil", "oil ONEAR/0 company" }) {
+			QueryNode root = QueryParser.parse(query);
+			RoaringBitmap expected = new RoaringBitmap();
+			for (Document doc : corpus) {
+				if (matches(root, doc)) {
+					expected.add(corpus.getDocId(doc));
+				}
+			}
+			assertEquals(query, expected, planner.search(root));
+		}
+	}
+
+	/**
+	 * Test that the clauses of a conjunction are evaluated in the order of
+	 * their estimated costs
+	 */
+	public void testPlan() throws ParseException {
+		QueryNode plan = planner.plan(QueryParser.parse("NOT crude the url:reut (oil AND coffee)"));
+		assertEquals("(coffee AND oil AND the AND url:reut AND NOT crude)", plan.toString());
+		assertEquals(index.getCorpusSize(), planner.estimate(QueryParser.parse("url:reut")));
+		assertEquals(index.getDocumentFrequency("oil"), planner.estimate(QueryParser.parse("oil")));
+		assertTrue(planner.estimate(QueryParser.parse("oil coffee")) <= index.getDocumentFrequency("coffee"));
+		assertTrue(planner.estimate(QueryParser.parse("oil OR coffee")) >= index.getDocumentFrequency("oil"));
+	}
+
+	/**
+	 * evaluation of a query on a single document
+	 */
+	private static boolean matches(QueryNode node, Document doc) {
+		if (node instanceof QueryNode.Term) {
+			return doc.getTermCount(((QueryNode.Term) node).getTerm()) > 0;
+		}
+		if (node instanceof QueryNode.Phrase) {
+			List<String> phrase = ((QueryNode.Phrase) node).getPhrase();
+			List<Integer> starts = doc.getTermPositions(phrase.get(0));
+			for (int start = 0; starts != null && start < starts.size(); start++) {
+				int i = 1;
+				while (i < phrase.size() && doc.getTermPositions(phrase.get(i)) != null
+						&& doc.getTermPositions(phrase.get(i)).contains(starts.get(start) + i)) {
+					i++;
+				}
+				if (i == phrase.size()) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (node instanceof QueryNode.Near) {
+			QueryNode.Near near = (QueryNode.Near) node;
+			return getMinimalSpan(doc, near.getNearTerms(), 0, -1, -1, near.isOrdered()) <= near.getMaxDistance();
+		}
+		if (node instanceof QueryNode.Field) {
+			return ((QueryNode.Field) node).matches(doc);
+		}
+		if (node instanceof QueryNode.Not) {
+			return !matches(((QueryNode.Not) node).getChild(), doc);
+		}
+		if (node instanceof QueryNode.And) {
+			for (QueryNode child : ((QueryNode.And) node).getChildren()) {
+				if (!matches(child, doc)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		for (QueryNode child : ((QueryNode.Or) node).getChildren()) {
+			if (matches(child, doc)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * calculation of the minimal span of a window by trying all combinations
+	 * of positions
+	 */
+	private static int getMinimalSpan(Document doc, List<String> terms, int i, int min, int max, boolean ordered) {
+		if (i == terms.size()) {
+			return max - min;
+		}
+		List<Integer> positions = doc.getTermPositions(terms.get(i));
+		int span = Integer.MAX_VALUE;
+		for (int position : positions != null ? positions : new ArrayList<Integer>()) {
+			if (!ordered || position > max) {
+				span = Math.min(span, getMinimalSpan(doc, terms, i + 1, i == 0 ? position : Math.min(min, position),
+						Math.max(max, position), ordered));
+			}
+		}
+		return span;
+	}
+}
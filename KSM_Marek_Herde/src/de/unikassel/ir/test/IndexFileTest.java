@@ -0,0 +1,253 @@
+package de.unikassel.ir.test;
+
+import static de.unikassel.ir.test.IndexTestSupport.checkSameResults;
+import static de.unikassel.ir.test.IndexTestSupport.createCorpus;
+import static de.unikassel.ir.test.IndexTestSupport.readDocuments;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unikassel.ir.vsr.Analyzer;
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.IndexFile;
+import de.unikassel.ir.vsr.MappedPostingList;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for writing an index to a file and opening it again. The opened
+ * index has to give the same results as the written index.
+ *
+ * @author Marek Herde
+ */
+public class IndexFileTest extends TestCase {
+
+	private List<Document> documents;
+
+	private File file;
+
+	/**
+	 * read all documents of the corpus
+	 */
+	public void setUp() throws IOException {
+		documents = readDocuments();
+		file = File.createTempFile("index", ".bin");
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Test writing and opening an index
+	 */
+	public void testWriteAndOpen() throws IOException {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents), true);
+		IndexFile.write(index, file);
+		PhraseSearchIndex stored = IndexFile.open(file);
+
+		assertEquals(index.getCorpusSize(), stored.getCorpusSize());
+		assertEquals(index.getMaxFrequency(), stored.getMaxFrequency());
+		checkSameResults(index, stored);
+
+		/* documents are restored with their terms */
+		Document doc = documents.get(3);
+		Document storedDoc = stored.getCorpus().getDocument(stored.getCorpus().getDocId(doc));
+		assertEquals(doc.getId(), storedDoc.getId());
+		assertEquals(doc.size(), storedDoc.size());
+		for (String term : doc) {
+			assertEquals(doc.getTermPositions(term), storedDoc.getTermPositions(term));
+		}
+		assertEquals(index.getContext("said", doc, 5), stored.getContext("said", storedDoc, 5));
+	}
+
+	/**
+	 * Test writing an opened index to its own file, which has to be replaced
+	 * only after the stored postings were read, and that no temporary files
+	 * are left
+	 */
+	public void testRewrite() throws IOException {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents));
+		IndexFile.write(index, file);
+		File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+		PhraseSearchIndex stored = IndexFile.open(file);
+		stored.removeDocument(documents.get(0));
+		IndexFile.write(stored, file);
+		assertEquals(files.length, file.getAbsoluteFile().getParentFile().listFiles().length);
+
+		PhraseSearchIndex rewritten = IndexFile.open(file);
+		assertEquals(documents.size() - 1, rewritten.getCorpusSize());
+		checkSameResults(new PhraseSearchIndex(createCorpus(documents.subList(1, documents.size()))), rewritten);
+		checkSameResults(stored, rewritten);
+	}
+
+	/**
+	 * Test the index of pairs of frequent terms built from the postings of an
+	 * opened index
+	 */
+	public void testBiwordIndex() throws IOException {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents));
+		IndexFile.write(index, file);
+		PhraseSearchIndex stored = IndexFile.open(file);
+		stored.buildBiwordIndex(50, 100000);
+		assertNotNull(stored.getBiwordIndex().getPostingList("of", "the"));
+
+		for (String phrase : new String[] { "of the", "the head of the", "said it would", "new zealand" }) {
+			Map<String, List<Integer>> expected = new HashMap<>();
+			for (Map.Entry<Document, List<Integer>> match : index.searchPhrase(phrase).entrySet()) {
+				expected.put(match.getKey().getId(), match.getValue());
+			}
+			Map<String, List<Integer>> result = new HashMap<>();
+			for (Map.Entry<Document, List<Integer>> match : stored.searchPhrase(phrase).entrySet()) {
+				result.put(match.getKey().getId(), match.getValue());
+			}
+			assertEquals(expected, result);
+		}
+	}
+
+	/**
+	 * Test that removed documents are not written
+	 */
+	public void testRemovedDocuments() throws IOException {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents));
+		List<Document> remaining = new ArrayList<>();
+		for (int i = 0; i < documents.size(); i++) {
+			if (i % 5 == 0) {
+				index.removeDocument(documents.get(i));
+			} else {
+				remaining.add(documents.get(i));
+			}
+		}
+		IndexFile.write(index, file);
+		PhraseSearchIndex stored = IndexFile.open(file);
+
+		assertEquals(remaining.size(), stored.getCorpus().size());
+		checkSameResults(new PhraseSearchIndex(createCorpus(remaining)), stored);
+
+		/* removing documents from the opened index */
+		assertTrue(stored.removeDocument(remaining.get(0)));
+		assertEquals(remaining.size() - 1, stored.getCorpusSize());
+
+		/* removing enough documents to purge their postings and tokens */
+		int removed = remaining.size() / 3;
+		for (Document doc : remaining.subList(1, removed)) {
+			assertTrue(stored.removeDocument(doc));
+		}
+		List<Document> rest = remaining.subList(removed, remaining.size());
+		assertEquals(rest.size(), stored.getCorpusSize());
+		checkSameResults(new PhraseSearchIndex(createCorpus(rest)), stored);
+	}
+
+	/**
+	 * Test that threads decoding the stored documents at once get the same
+	 * instances
+	 */
+	public void testConcurrentDocuments() throws Exception {
+		IndexFile.write(new PhraseSearchIndex(createCorpus(documents)), file);
+		Corpus corpus = IndexFile.open(file).getCorpus();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Document[]>> results = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				results.add(executor.submit(() -> {
+					Document[] docs = new Document[corpus.size()];
+					for (int docId = 0; docId < docs.length; docId++) {
+						docs[docId] = corpus.getDocument(docId);
+						assertEquals(docId, corpus.getDocId(docs[docId]));
+					}
+					return docs;
+				}));
+			}
+			Document[] docs = results.get(0).get();
+			for (Future<Document[]> result : results) {
+				Document[] threadDocs = result.get();
+				for (int docId = 0; docId < docs.length; docId++) {
+					assertSame(docs[docId], threadDocs[docId]);
+				}
+			}
+			assertEquals(documents.get(7).getId(), docs[7].getId());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Test intersections of the posting lists of an opened index, that skip
+	 * over postings
+	 */
+	public void testIntersection() throws IOException {
+		Corpus corpus = createCorpus(documents);
+		IndexFile.write(new PhraseSearchIndex(corpus), file);
+		PhraseSearchIndex stored = IndexFile.open(file);
+
+		String[][] queries = { { "said", "the" }, { "cocoa", "said" }, { "cocoa", "shipment" }, { "said", "oil", "the" } };
+		for (String[] query : queries) {
+			List<String> expected = new ArrayList<>();
+			for (Document doc : corpus.getDocumentsContainingAll(query)) {
+				expected.add(doc.getId());
+			}
+			List<String> result = new ArrayList<>();
+			for (Document doc : stored.getCorpus().getDocumentsContainingAll(query)) {
+				result.add(doc.getId());
+			}
+			assertEquals(expected, result);
+		}
+		assertTrue(stored.getTokenInfo("said").getPostingList().size() > 2 * MappedPostingList.SKIP_INTERVAL);
+	}
+
+	/**
+	 * Test that other files are rejected
+	 */
+	public void testInvalidFile() throws IOException {
+		try {
+			IndexFile.open(new File("resources/englishST.txt"));
+			fail("no index file");
+		} catch (IOException e) {
+		}
+	}
+
+	/**
+	 * Test that a file is only opened with the analyzer it was written with
+	 */
+	public void testAnalyzer() throws IOException {
+		IndexFile.write(new PhraseSearchIndex(createCorpus(documents.subList(0, 10))), file);
+		Analyzer english = Analyzer.createEnglishAnalyzer(new File("resources/englishST.txt"));
+		try {
+			IndexFile.open(file, english);
+			fail("other analyzer accepted");
+		} catch (IOException e) {
+		}
+
+		Corpus corpus = new CorpusImpl(english);
+		corpus.addDocument(new DocumentImpl("doc", Arrays.asList("bank", "england")));
+		IndexFile.write(new PhraseSearchIndex(corpus), file);
+		PhraseSearchIndex stored = IndexFile.open(file, english);
+		assertEquals(1, stored.getCorpusSize());
+		assertSame(english, stored.getCorpus().getAnalyzer());
+
+		/* surface forms of the stems are stored with the terms */
+		corpus = new CorpusImpl(english);
+		DocumentImpl doc = new DocumentImpl("doc", english);
+		doc.read(new ByteArrayInputStream("connected banks".getBytes()));
+		corpus.addDocument(doc);
+		IndexFile.write(new PhraseSearchIndex(corpus), file);
+		stored = IndexFile.open(file, english);
+		Document storedDoc = stored.getCorpus().getDocument(0);
+		assertEquals("connected", storedDoc.getSurfaceForm("connect"));
+		assertEquals("banks", storedDoc.getSurfaceForm("bank"));
+		assertEquals(Arrays.asList("connected", ""), stored.getContext("bank", storedDoc, 1));
+	}
+
+}
@@ -190,4 +190,31 @@ public class IndexTest extends TestCase {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Test that the top-k results of every evaluation strategy are the k best
+	 * results of the full ranking
+	 */
+	public void testTopKCosineSimilarities() {
+		String[][] queries = { { "november", "rain" }, { "alternative", "daily" }, { "go", "go", "gadget" },
+				{ "the", "cocoa", "of", "said" }, { "the", "a", "to" }, { "said" } };
+		for (String[] query : queries) {
+			for (int k = 1; k <= 12; k++) {
+				for (InvertedIndexImpl.Evaluation evaluation : InvertedIndexImpl.Evaluation.values()) {
+					Iterator<? extends SearchResultItem> allResults = index.getCosineSimilarities(query);
+					Iterator<? extends SearchResultItem> topResults = index.getCosineSimilarities(query, k, evaluation);
+					int n = 0;
+					while (topResults.hasNext()) {
+						// compare scores, documents may differ for equal scores
+						assertEquals(allResults.next().getSimilarityScore(), topResults.next().getSimilarityScore(),
+								1E-10);
+						n++;
+					}
+					assertTrue(n <= k);
+					// fewer than k results only if there are no more documents
+					assertTrue(n == k || !allResults.hasNext());
+				}
+			}
+		}
+	}
+}
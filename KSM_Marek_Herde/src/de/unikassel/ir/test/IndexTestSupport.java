@@ -0,0 +1,147 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndex;
+import de.unikassel.ir.vsr.InvertedIndexImpl.Evaluation;
+import de.unikassel.ir.vsr.PhraseSearch;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.SearchResultItem;
+import de.unikassel.ir.vsr.SegmentedIndex;
+import junit.framework.Assert;
+
+/**
+ * Fixture shared by the tests of indexes, that have to give the same results
+ * as a {@link PhraseSearchIndex} over the same documents, e.g. after being
+ * written to a file, updated or split into segments. Documents are compared
+ * by their ids, so documents decoded from a file match the read ones.
+ * 
+ * @author Marek Herde
+ */
+final class IndexTestSupport {
+
+	/** queries whose results are compared */
+	static final String[][] QUERIES = { { "november", "rain" }, { "alternative", "daily" },
+			{ "go", "go", "gadget" }, { "cocoa" }, { "oil", "prices", "opec", "crude", "barrels" } };
+
+	/** phrases whose matches are compared */
+	static final String[] PHRASES = { "new zealand", "executive committee" };
+
+	/**
+	 * top k search of an index with a given evaluation strategy
+	 */
+	private interface TopKSearch {
+
+		Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k, Evaluation evaluation);
+	}
+
+	private IndexTestSupport() {
+	}
+
+	/**
+	 * read all documents of the test corpus
+	 * 
+	 * @return documents in the order of their files
+	 * @throws IOException
+	 */
+	static List<Document> readDocuments() throws IOException {
+		List<Document> documents = new ArrayList<>();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				documents.add(doc);
+			}
+		}
+		return documents;
+	}
+
+	/**
+	 * create a corpus of documents
+	 * 
+	 * @param docs
+	 * @return corpus containing the documents in their order
+	 */
+	static Corpus createCorpus(List<Document> docs) {
+		Corpus corpus = new CorpusImpl();
+		for (Document doc : docs) {
+			corpus.addDocument(doc);
+		}
+		return corpus;
+	}
+
+	/**
+	 * compare cosine similarities and phrase search results of two indices
+	 */
+	static void checkSameResults(PhraseSearchIndex expected, PhraseSearchIndex index) {
+		checkSameResults(expected, index, index::getCosineSimilarities);
+	}
+
+	/**
+	 * compare cosine similarities and phrase search results of an index and a
+	 * segmented index
+	 */
+	static void checkSameResults(PhraseSearchIndex expected, SegmentedIndex index) {
+		checkSameResults(expected, index, index::getCosineSimilarities);
+	}
+
+	private static <T extends InvertedIndex & PhraseSearch> void checkSameResults(PhraseSearchIndex expected,
+			T index, TopKSearch topK) {
+		for (String[] query : QUERIES) {
+			Map<String, Double> expectedScores = new HashMap<>();
+			Iterator<? extends SearchResultItem> results = expected.getCosineSimilarities(query);
+			while (results.hasNext()) {
+				SearchResultItem item = results.next();
+				expectedScores.put(item.getDocument().getId(), item.getSimilarityScore());
+			}
+			results = index.getCosineSimilarities(query);
+			int n = 0;
+			while (results.hasNext()) {
+				SearchResultItem item = results.next();
+				Assert.assertEquals(expectedScores.get(item.getDocument().getId()), item.getSimilarityScore(), 1E-10);
+				n++;
+			}
+			Assert.assertEquals(expectedScores.size(), n);
+
+			for (Evaluation evaluation : Evaluation.values()) {
+				results = topK.getCosineSimilarities(query, 5, evaluation);
+				Iterator<? extends SearchResultItem> expectedResults = expected.getCosineSimilarities(query, 5,
+						evaluation);
+				while (expectedResults.hasNext()) {
+					Assert.assertEquals(expectedResults.next().getSimilarityScore(),
+							results.next().getSimilarityScore(), 1E-10);
+				}
+				Assert.assertFalse(results.hasNext());
+			}
+		}
+		for (String phrase : PHRASES) {
+			Assert.assertEquals(byId(expected.searchPhrase(phrase)), byId(index.searchPhrase(phrase)));
+		}
+	}
+
+	/**
+	 * key the positions of phrase matches by document id, so the documents of
+	 * a stored index can be compared
+	 */
+	private static Map<String, List<Integer>> byId(Map<Document, List<Integer>> matches) {
+		Map<String, List<Integer>> positions = new HashMap<>();
+		for (Map.Entry<Document, List<Integer>> match : matches.entrySet()) {
+			positions.put(match.getKey().getId(), match.getValue());
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,166 @@
+package de.unikassel.ir.test;
+
+import static de.unikassel.ir.test.IndexTestSupport.QUERIES;
+import static de.unikassel.ir.test.IndexTestSupport.checkSameResults;
+import static de.unikassel.ir.test.IndexTestSupport.createCorpus;
+import static de.unikassel.ir.test.IndexTestSupport.readDocuments;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl.Evaluation;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.SearchResultItem;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for incremental updates of an index. An index changed by adding
+ * and removing documents has to give the same results as an index built from
+ * scratch over the remaining documents.
+ * 
+ * @author Marek Herde
+ */
+public class IndexUpdateTest extends TestCase {
+
+	private List<Document> documents;
+
+	/**
+	 * read all documents of the corpus
+	 */
+	public void setUp() throws IOException {
+		documents = readDocuments();
+	}
+
+	/**
+	 * Test adding the second half of the documents to an index of the first
+	 * half
+	 */
+	public void testAddDocuments() {
+		PhraseSearchIndex expected = new PhraseSearchIndex(createCorpus(documents));
+
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents.subList(0, documents.size() / 2)));
+		for (Document doc : documents.subList(documents.size() / 2, documents.size())) {
+			index.addDocument(doc);
+		}
+
+		assertEquals(expected.getCorpusSize(), index.getCorpusSize());
+		checkSameResults(expected, index);
+	}
+
+	/**
+	 * Test removing and purging documents
+	 */
+	public void testRemoveDocuments() {
+		List<Document> remaining = new ArrayList<>();
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents));
+		for (int i = 0; i < documents.size(); i++) {
+			if (i % 10 == 0) {
+				assertTrue(index.removeDocument(documents.get(i)));
+				assertFalse(index.removeDocument(documents.get(i)));
+			} else {
+				remaining.add(documents.get(i));
+			}
+		}
+		PhraseSearchIndex expected = new PhraseSearchIndex(createCorpus(remaining));
+
+		assertEquals(remaining.size(), index.getCorpusSize());
+		checkSameResults(expected, index);
+
+		index.purgeDeletedDocuments();
+		checkSameResults(expected, index);
+	}
+
+	/**
+	 * Test replacing a document by a new version
+	 */
+	public void testUpdateDocument() throws IOException {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents));
+		Document oldDoc = documents.get(0);
+		Document newDoc = new DocumentImpl(oldDoc.getId());
+		newDoc.read(new java.io.ByteArrayInputStream("unheard of phrase".getBytes()));
+		index.updateDocument(oldDoc, newDoc);
+
+		assertEquals(documents.size(), index.getCorpusSize());
+		assertEquals(1, index.searchPhrase("unheard of phrase").size());
+		assertTrue(index.searchPhrase("unheard of phrase").containsKey(newDoc));
+	}
+
+	/**
+	 * Test that the corpus lookups skip a removed document and that the same
+	 * document can be added again
+	 */
+	public void testReaddDocument() {
+		Corpus corpus = createCorpus(documents);
+		PhraseSearchIndex index = new PhraseSearchIndex(corpus);
+		Document doc = documents.get(0);
+		String term = doc.iterator().next();
+		assertTrue(corpus.getDocumentsContainingAll(term).contains(doc));
+
+		assertTrue(index.removeDocument(doc));
+		assertEquals(-1, corpus.getDocId(doc));
+		assertFalse(corpus.getDocumentsContainingAll(term).contains(doc));
+		assertFalse(corpus.getDocumentsContainingAny(term).contains(doc));
+		for (Document document : corpus) {
+			assertNotSame(doc, document);
+		}
+
+		index.addDocument(doc);
+		assertEquals(documents.size(), corpus.getDocId(doc));
+		assertEquals(documents.size(), index.getCorpusSize());
+		assertTrue(corpus.getDocumentsContainingAll(term).contains(doc));
+		checkSameResults(new PhraseSearchIndex(createCorpus(documents)), index);
+		try {
+			index.addDocument(doc);
+			fail("document indexed twice");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Test that queries running concurrently after a document was added do not
+	 * see partially recalculated weights
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrentQueries() throws Exception {
+		PhraseSearchIndex index = new PhraseSearchIndex(createCorpus(documents.subList(0, documents.size() / 2)));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (Document doc : documents.subList(documents.size() / 2, documents.size() / 2 + 50)) {
+				index.addDocument(doc);
+				List<Future<List<Double>>> results = new ArrayList<>();
+				for (int thread = 0; thread < 4; thread++) {
+					results.add(executor.submit(() -> {
+						List<Double> scores = new ArrayList<>();
+						for (String[] query : QUERIES) {
+							Iterator<? extends SearchResultItem> items = index.getCosineSimilarities(query, 10,
+									Evaluation.EXHAUSTIVE);
+							while (items.hasNext()) {
+								scores.add(items.next().getSimilarityScore());
+							}
+						}
+						return scores;
+					}));
+				}
+				List<Double> expected = results.get(0).get();
+				for (Future<List<Double>> result : results) {
+					assertEquals(expected, result.get());
+					for (double score : result.get()) {
+						assertTrue("score " + score, score >= 0. && score <= 1. + 1E-10);
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
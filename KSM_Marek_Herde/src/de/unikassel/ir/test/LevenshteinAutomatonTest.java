@@ -0,0 +1,105 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.LevenshteinAutomaton;
+import de.unikassel.ir.vsr.TermDictionary;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for matching terms of a dictionary within an edit distance
+ * 
+ * @author Marek Herde
+ */
+public class LevenshteinAutomatonTest extends TestCase {
+
+	private TreeSet<String> terms;
+
+	private InvertedIndexImpl index;
+
+	/**
+	 * read all documents of the corpus and collect their terms
+	 */
+	public void setUp() throws IOException {
+		Corpus corpus = new CorpusImpl();
+		terms = new TreeSet<>();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+				for (String term : doc) {
+					terms.add(term);
+				}
+			}
+		}
+		index = new InvertedIndexImpl(corpus);
+	}
+
+	/**
+	 * Test that the automaton finds the same terms as calculating the edit
+	 * distance to every term
+	 */
+	public void testMatchingTerms() {
+		TermDictionary dictionary = new TermDictionary(terms);
+		for (String term : new String[] { "petrolium", "cofee", "exprot", "oil", "x", "", "govenrment" }) {
+			for (int maxDistance = 0; maxDistance <= 2; maxDistance++) {
+				List<String> expected = new ArrayList<>();
+				for (String candidate : terms) {
+					if (distance(term, candidate) <= maxDistance) {
+						expected.add(candidate);
+					}
+				}
+				LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxDistance);
+				assertEquals(term + "~" + maxDistance, expected, automaton.getMatchingTerms(dictionary));
+				for (String candidate : expected) {
+					assertEquals(distance(term, candidate), automaton.getDistance(candidate));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that closer terms are preferred when expanding a term of an index
+	 */
+	public void testTermsWithinDistance() {
+		List<String> expansions = index.getTermsWithinDistance("cofee", 2, 3);
+		assertEquals(3, expansions.size());
+		assertEquals("coffee", expansions.get(0));
+		assertTrue(index.getTermsWithinDistance("qqqqqqqq", 2, 10).isEmpty());
+		assertEquals(1, LevenshteinAutomaton.getMaxDistance("cofee"));
+		assertEquals(2, LevenshteinAutomaton.getMaxDistance("petrolium"));
+	}
+
+	/**
+	 * calculation of the Levenshtein distance by dynamic programming
+	 */
+	private static int distance(String first, String second) {
+		int[][] distances = new int[first.length() + 1][second.length() + 1];
+		for (int i = 0; i <= first.length(); i++) {
+			for (int j = 0; j <= second.length(); j++) {
+				if (i == 0 || j == 0) {
+					distances[i][j] = i + j;
+				} else {
+					int substitution = distances[i - 1][j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+					distances[i][j] = Math.min(substitution,
+							Math.min(distances[i - 1][j] + 1, distances[i][j - 1] + 1));
+				}
+			}
+		}
+		return distances[first.length()][second.length()];
+	}
+}
@@ -0,0 +1,108 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.unikassel.ir.vsr.BiwordIndex;
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+
+/**
+ * Benchmark comparing the latency of phrase searches merging the postings of
+ * the terms with phrase searches using the postings of pairs of frequent
+ * terms (see {@link BiwordIndex}) for several sizes of the biword index, on
+ * the corpus in resources/texte and on a synthetic corpus with Zipf
+ * distributed terms.
+ * 
+ * Usage: PhraseBenchmark [number of synthetic documents]
+ * 
+ * @author Marek Herde
+ */
+public class PhraseBenchmark {
+
+	/** number of runs over all phrases before measuring */
+	private static final int WARMUP_RUNS = 3;
+
+	/** number of measured runs over all phrases */
+	private static final int RUNS = 10;
+
+	/** configurations of the biword index: number of frequent terms and maximal positions */
+	private static final long[][] CONFIGURATIONS = { { 20, 1000000 }, { 100, 1000000 }, { 100, 50000 },
+			{ 1000, 10000000 } };
+
+	public static void main(String[] args) throws IOException {
+		int syntheticDocuments = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+		System.out.println("corpus resources/texte");
+		Corpus corpus = RankingBenchmark.loadCorpus(new File("resources/texte"));
+		run(corpus, new String[] { "of the", "the head of the", "said it would", "in the first quarter",
+				"mln dlrs in the", "new zealand", "one of the most" });
+
+		System.out.println("synthetic corpus with " + syntheticDocuments + " documents");
+		corpus = RankingBenchmark.createSyntheticCorpus(syntheticDocuments, 50000, 200, new Random(42));
+		run(corpus, new String[] { "t0 t1", "t0 t1 t2", "t3 t0 t5 t1", "t0 t700", "t2 t0 t2 t0" });
+	}
+
+	/**
+	 * measuring the latency of the phrase searches without biword index and
+	 * with every configuration of the biword index
+	 */
+	private static void run(Corpus corpus, String[] phrases) {
+		System.out.println(String.format("  %-24s %10s %12s %12s %12s", "index", "build ms", "pairs", "positions",
+				"ms/phrase"));
+
+		PhraseSearchIndex index = new PhraseSearchIndex(corpus, true);
+		long checksum = measure(index, phrases, "merge of terms", 0);
+
+		for (long[] configuration : CONFIGURATIONS) {
+			long start = System.nanoTime();
+			index.buildBiwordIndex((int) configuration[0], configuration[1]);
+			double buildMillis = (System.nanoTime() - start) / 1E6;
+			String name = String.format("biwords %d/%d", configuration[0], configuration[1]);
+			if (measure(index, phrases, name, buildMillis) != checksum) {
+				throw new IllegalStateException("different results with " + name);
+			}
+		}
+	}
+
+	/**
+	 * measuring the average latency of the phrase searches of an index
+	 * 
+	 * @return number of found occurrences, to compare the results
+	 */
+	private static long measure(PhraseSearchIndex index, String[] phrases, String name, double buildMillis) {
+		long occurrences = 0;
+		for (int run = 0; run < WARMUP_RUNS; run++) {
+			for (String phrase : phrases) {
+				occurrences = consume(index.searchPhrase(phrase));
+			}
+		}
+		occurrences = 0;
+		long start = System.nanoTime();
+		for (int run = 0; run < RUNS; run++) {
+			for (String phrase : phrases) {
+				occurrences += consume(index.searchPhrase(phrase));
+			}
+		}
+		double millis = (System.nanoTime() - start) / 1E6 / (RUNS * phrases.length);
+
+		BiwordIndex biwordIndex = index.getBiwordIndex();
+		System.out.println(String.format("  %-24s %10.1f %12d %12d %12.4f", name, buildMillis,
+				biwordIndex != null ? biwordIndex.size() : 0, biwordIndex != null ? biwordIndex.getPositionCount() : 0,
+				millis));
+		return occurrences;
+	}
+
+	private static long consume(Map<Document, List<Integer>> result) {
+		long occurrences = 0;
+		for (List<Integer> positions : result.values()) {
+			occurrences += positions.size();
+		}
+		return occurrences;
+	}
+
+}
@@ -3,6 +3,7 @@ package de.unikassel.ir.test;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -128,6 +129,107 @@ public class PhraseSearchIndexTest extends TestCase {
 	
 	
 
+	/**
+	 * Test: phrases of common and repeated words, compared with the positions
+	 * of the terms in every document, with plain and compressed postings
+	 */
+	public void testCommonWords() {
+		PhraseSearchIndex compressedIndex = new PhraseSearchIndex(corpus, true);
+		for (String phrase : new String[] { "of the", "said the company", "the the", "mln dlrs in the", "oil" }) {
+			List<String> terms = Arrays.asList(phrase.split(" "));
+			Map<String, int[]> expected = new HashMap<String, int[]>();
+			for (Document doc : corpus) {
+				List<Integer> starts = new ArrayList<Integer>();
+				for (int start = 0; start + terms.size() <= doc.size(); start++) {
+					int i = 0;
+					while (i < terms.size() && doc.getTermPositions(terms.get(i)) != null
+							&& doc.getTermPositions(terms.get(i)).contains(start + i)) {
+						i++;
+					}
+					if (i == terms.size()) {
+						starts.add(start);
+					}
+				}
+				if (!starts.isEmpty()) {
+					expected.put(doc.getId(), starts.stream().mapToInt(Integer::intValue).toArray());
+				}
+			}
+			checkResult(index.searchPhrase(phrase), expected);
+			checkResult(compressedIndex.searchPhrase(phrase), expected);
+		}
+	}
+
+	/**
+	 * Test: phrases found with the postings of pairs of frequent terms are
+	 * the same as without, also after documents were added and removed
+	 */
+	public void testBiwordIndex() {
+		List<Document> documents = new ArrayList<Document>();
+		for (Document doc : corpus) {
+			documents.add(doc);
+		}
+		Corpus plainCorpus = new CorpusImpl();
+		Corpus biwordCorpus = new CorpusImpl();
+		Corpus smallCorpus = new CorpusImpl();
+		for (Document doc : documents.subList(0, 200)) {
+			plainCorpus.addDocument(doc);
+			biwordCorpus.addDocument(doc);
+			smallCorpus.addDocument(doc);
+		}
+		PhraseSearchIndex plainIndex = new PhraseSearchIndex(plainCorpus);
+		PhraseSearchIndex biwordIndex = new PhraseSearchIndex(biwordCorpus, true, 50, 100000);
+		PhraseSearchIndex smallIndex = new PhraseSearchIndex(smallCorpus, false, 20, 500);
+		assertTrue(biwordIndex.getBiwordIndex().size() > smallIndex.getBiwordIndex().size());
+		assertTrue(smallIndex.getBiwordIndex().getPositionCount() <= 500);
+		assertNotNull(biwordIndex.getBiwordIndex().getPostingList("of", "the"));
+
+		String[] phrases = { "of the", "the head of the", "said it would", "in the first quarter", "of of",
+				"new zealand", "the" };
+		checkSamePhrases(plainIndex, biwordIndex, phrases);
+		checkSamePhrases(plainIndex, smallIndex, phrases);
+
+		/* updating both indices */
+		for (Document doc : documents.subList(10, 30)) {
+			plainIndex.removeDocument(doc);
+			biwordIndex.removeDocument(doc);
+			smallIndex.removeDocument(doc);
+		}
+		checkSamePhrases(plainIndex, biwordIndex, phrases);
+		checkSamePhrases(plainIndex, smallIndex, phrases);
+		for (Document doc : documents.subList(200, documents.size())) {
+			plainIndex.addDocument(doc);
+			biwordIndex.addDocument(doc);
+			smallIndex.addDocument(doc);
+		}
+		biwordIndex.purgeDeletedDocuments();
+		checkSamePhrases(plainIndex, biwordIndex, phrases);
+		checkSamePhrases(plainIndex, smallIndex, phrases);
+
+		/* added documents do not exceed the limit, but drop pairs */
+		assertNotNull(smallIndex.getBiwordIndex().getPostingList("of", "the"));
+		for (int i = 0; i < 100 && smallIndex.getBiwordIndex().getPostingList("of", "the") != null; i++) {
+			Document copy = new DocumentImpl("copy" + i, Arrays.asList("of", "the", "bank", "of", "the", "sea"));
+			smallIndex.addDocument(copy);
+			plainIndex.addDocument(copy);
+			assertTrue(smallIndex.getBiwordIndex().getPositionCount() <= 500);
+		}
+		assertNull(smallIndex.getBiwordIndex().getPostingList("of", "the"));
+		checkSamePhrases(plainIndex, smallIndex, phrases);
+	}
+
+	/**
+	 * Compare the results of phrase searches of two indices
+	 */
+	private void checkSamePhrases(PhraseSearchIndex expectedIndex, PhraseSearchIndex index, String[] phrases) {
+		for (String phrase : phrases) {
+			Map<String, int[]> expected = new HashMap<String, int[]>();
+			for (Map.Entry<Document, List<Integer>> entry : expectedIndex.searchPhrase(phrase).entrySet()) {
+				expected.put(entry.getKey().getId(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+			}
+			checkResult(index.searchPhrase(phrase), expected);
+		}
+	}
+
 	/**
 	 * Compare found result with expected result (can differ => check element by element)
 	 * 
@@ -0,0 +1,179 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ir.vsr.CompressedPostingList;
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.IntersectionIterator;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.PostingIterator;
+import de.unikassel.ir.vsr.PostingList;
+import de.unikassel.ir.vsr.PostingListImpl;
+import de.unikassel.ir.vsr.SearchResultItem;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the posting list representations. Checks that compressed and
+ * uncompressed postings contain the same values and that an index with
+ * compressed postings gives the same results.
+ * 
+ * @author Marek Herde
+ */
+public class PostingListTest extends TestCase {
+	private Corpus corpus;
+
+	private PhraseSearchIndex index;
+
+	private PhraseSearchIndex compressedIndex;
+
+	/**
+	 * Make a corpus and both indices
+	 */
+	public void setUp() {
+		corpus = new CorpusImpl();
+
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			try {
+				if (!file.isDirectory()) {
+					FileInputStream stream = new FileInputStream(file);
+					Document doc = new DocumentImpl(file.getName());
+					doc.read(stream);
+					stream.close();
+					corpus.addDocument(doc);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		index = new PhraseSearchIndex(corpus);
+		compressedIndex = new PhraseSearchIndex(corpus, true);
+	}
+
+	/**
+	 * Test that both representations return the added postings, including
+	 * gaps that need more than one byte
+	 */
+	public void testRoundTrip() {
+		PostingList[] lists = { new PostingListImpl(), new CompressedPostingList() };
+		for (PostingList list : lists) {
+			list.addPosting(0, Arrays.asList(3));
+			list.addPosting(200, Arrays.asList(1, 130, 20000));
+			list.addPosting(100000, Arrays.asList(7, 8));
+			list.trimToSize();
+
+			assertEquals(3, list.size());
+			PostingIterator posting = list.iterator();
+			assertTrue(posting.next());
+			assertEquals(0, posting.getDocId());
+			assertEquals(1, posting.getTermCount());
+			assertEquals(3, posting.getPosition(0));
+			assertTrue(posting.next());
+			assertEquals(200, posting.getDocId());
+			assertEquals(3, posting.getTermCount());
+			assertEquals(20000, posting.getPosition(2));
+			assertEquals(130, posting.getPosition(1));
+			assertTrue(posting.next());
+			assertEquals(100000, posting.getDocId());
+			assertEquals(8, posting.getPosition(1));
+			assertFalse(posting.next());
+		}
+	}
+
+	/**
+	 * Test that postings must be added ascending by document id
+	 */
+	public void testAscendingDocIds() {
+		PostingList list = new CompressedPostingList();
+		list.addPosting(5, Arrays.asList(0));
+		try {
+			list.addPosting(5, Arrays.asList(1));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Test that the compressed index gives the same cosine similarities
+	 */
+	public void testCompressedCosineSimilarities() {
+		String[] query = { "november", "rain" };
+		Iterator<? extends SearchResultItem> expected = index.getCosineSimilarities(query);
+		Iterator<? extends SearchResultItem> result = compressedIndex.getCosineSimilarities(query);
+		while (expected.hasNext()) {
+			SearchResultItem expectedItem = expected.next();
+			SearchResultItem resultItem = result.next();
+			assertEquals(expectedItem.getDocument(), resultItem.getDocument());
+			assertEquals(expectedItem.getSimilarityScore(), resultItem.getSimilarityScore(), 1E-12);
+		}
+		assertFalse(result.hasNext());
+	}
+
+	/**
+	 * Test that the compressed index finds the same phrases
+	 */
+	public void testCompressedPhrase() {
+		Map<Document, List<Integer>> expected = index.searchPhrase("executive committee");
+		Map<Document, List<Integer>> result = compressedIndex.searchPhrase("executive committee");
+		assertEquals(4, result.size());
+		assertEquals(expected, result);
+	}
+
+	/**
+	 * Test that advance gives the same postings for both representations,
+	 * also when skipping over several skip intervals
+	 */
+	public void testAdvance() {
+		PostingList[] lists = { new PostingListImpl(), new CompressedPostingList() };
+		for (PostingList list : lists) {
+			for (int docId = 0; docId < 3000; docId += 3) {
+				list.addPosting(docId, Arrays.asList(docId % 7, 10 + docId % 5));
+			}
+			list.trimToSize();
+
+			PostingIterator posting = list.iterator();
+			for (int target : new int[] { 0, 1, 2, 190, 191, 193, 194, 1000, 1000, 2995, 2997 }) {
+				assertTrue(posting.advance(target));
+				int expected = (target + 2) / 3 * 3;
+				assertEquals(expected, posting.getDocId());
+				assertEquals(10 + expected % 5, posting.getPosition(1));
+			}
+			assertFalse(posting.advance(2998));
+		}
+	}
+
+	/**
+	 * Test that the intersection of posting lists contains the documents
+	 * contained in all of them
+	 */
+	public void testIntersection() {
+		PostingList[] lists = { new CompressedPostingList(), new PostingListImpl(), new CompressedPostingList() };
+		int[] steps = { 2, 3, 35 };
+		for (int i = 0; i < lists.length; i++) {
+			for (int docId = 0; docId < 5000; docId += steps[i]) {
+				lists[i].addPosting(docId, Arrays.asList(0));
+			}
+		}
+		IntersectionIterator intersection = new IntersectionIterator(Arrays.asList(lists));
+		int expected = 0;
+		while (intersection.next()) {
+			assertEquals(expected, intersection.getDocId());
+			assertEquals(expected, intersection.getPostingIterator(lists[1]).getDocId());
+			expected += 2 * 3 * 35;
+		}
+		assertTrue(expected >= 5000);
+
+		assertFalse(new IntersectionIterator(Arrays.asList(lists[0], new PostingListImpl())).next());
+		assertFalse(new IntersectionIterator(new ArrayList<PostingList>()).next());
+	}
+}
@@ -0,0 +1,135 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.PostingList;
+import de.unikassel.ir.vsr.ProximityMatcher;
+import de.unikassel.ir.vsr.SearchResultItem;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for NEAR queries and the proximity boost of ranked queries
+ * 
+ * @author Marek Herde
+ */
+public class ProximityMatcherTest extends TestCase {
+
+	private Corpus corpus;
+
+	private InvertedIndexImpl index;
+
+	/**
+	 * read all documents of the corpus and create an index
+	 */
+	public void setUp() throws IOException {
+		corpus = new CorpusImpl();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+			}
+		}
+		index = new InvertedIndexImpl(corpus, true);
+	}
+
+	/**
+	 * Test that the windows found by merging the positions are the same as
+	 * checking all combinations of positions
+	 */
+	public void testWindows() {
+		String[][] queries = { { "oil", "price" }, { "price", "oil" }, { "mln", "dlrs", "year" },
+				{ "the", "of", "said" }, { "coffee", "brazil" } };
+		for (String[] terms : queries) {
+			for (int maxDistance : new int[] { 0, 1, 3, 10 }) {
+				for (boolean ordered : new boolean[] { false, true }) {
+					List<PostingList> postingLists = new ArrayList<>();
+					for (String term : terms) {
+						postingLists.add(index.getTokenInfo(term).getPostingList());
+					}
+					ProximityMatcher matcher = new ProximityMatcher(postingLists, maxDistance, ordered);
+					String query = String.join(ordered ? " ONEAR/" : " NEAR/", terms) + maxDistance;
+					for (Document doc : corpus) {
+						int span = getMinimalSpan(doc, terms, 0, -1, -1, ordered);
+						if (span <= maxDistance) {
+							assertTrue(query + " " + doc.getId(), matcher.next());
+							assertEquals(query, corpus.getDocId(doc), matcher.getDocId());
+							assertEquals(query, span, matcher.getMinimalSpan());
+						}
+					}
+					assertFalse(query, matcher.next());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that documents containing the query terms close to each other are
+	 * ranked higher, but no document is ranked lower
+	 */
+	public void testProximityRanking() {
+		String[] query = { "oil", "prices" };
+		Iterator<? extends SearchResultItem> cosine = index.getCosineSimilarities(query, 1000);
+		double[] scores = new double[corpus.size()];
+		while (cosine.hasNext()) {
+			SearchResultItem item = cosine.next();
+			scores[corpus.getDocId(item.getDocument())] = item.getSimilarityScore();
+		}
+
+		List<SearchResultItem> results = new ArrayList<>();
+		index.getProximityRankedResults(query, 10).forEachRemaining(results::add);
+		assertEquals(10, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			Document doc = results.get(i).getDocument();
+			double expected = scores[corpus.getDocId(doc)];
+			if (doc.getTermCount("oil") > 0 && doc.getTermCount("prices") > 0) {
+				int span = getMinimalSpan(doc, query, 0, -1, -1, false);
+				expected *= 1 + InvertedIndexImpl.PROXIMITY_WEIGHT / span;
+			}
+			assertEquals(expected, results.get(i).getSimilarityScore(), 1e-9);
+			if (i > 0) {
+				assertTrue(results.get(i - 1).getSimilarityScore() >= results.get(i).getSimilarityScore());
+			}
+		}
+		assertEquals(0, ProximityMatcher.getMinimalSpan(new int[][] { { 3, 9 } }, new int[] { 2 }, 1));
+		assertEquals(4, ProximityMatcher.getMinimalSpan(new int[][] { { 1, 8, 20 }, { 5, 10 }, { 0, 12 } },
+				new int[] { 3, 2, 2 }, 3));
+	}
+
+	/**
+	 * calculation of the minimal span of a window by trying all combinations
+	 * of positions
+	 * 
+	 * @return minimal span or Integer.MAX_VALUE, if there is no window
+	 */
+	private static int getMinimalSpan(Document doc, String[] terms, int i, int min, int max, boolean ordered) {
+		if (i == terms.length) {
+			return max - min;
+		}
+		List<Integer> positions = doc.getTermPositions(terms[i]);
+		int span = Integer.MAX_VALUE;
+		for (int position : positions != null ? positions : Arrays.<Integer>asList()) {
+			if (ordered && position <= max) {
+				continue;
+			}
+			int newMin = i == 0 ? position : Math.min(min, position);
+			int newMax = i == 0 ? position : Math.max(max, position);
+			span = Math.min(span, getMinimalSpan(doc, terms, i + 1, newMin, newMax, ordered));
+		}
+		return span;
+	}
+}
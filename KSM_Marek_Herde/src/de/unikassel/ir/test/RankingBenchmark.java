@@ -0,0 +1,157 @@
+package de.unikassel.ir.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.SearchResultItem;
+
+/**
+ * Benchmark comparing the latency of the top-k evaluation strategies of
+ * {@link InvertedIndexImpl} with the full ranking, on the corpus in
+ * resources/texte and on a synthetic corpus with Zipf distributed terms.
+ * 
+ * Usage: RankingBenchmark [number of synthetic documents]
+ * 
+ * @author Marek Herde
+ */
+public class RankingBenchmark {
+
+	/** number of results per query */
+	private static final int K = 10;
+
+	/** number of runs over all queries before measuring */
+	private static final int WARMUP_RUNS = 3;
+
+	/** number of measured runs over all queries */
+	private static final int RUNS = 10;
+
+	public static void main(String[] args) throws IOException {
+		int syntheticDocuments = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+		System.out.println("corpus resources/texte");
+		Corpus corpus = loadCorpus(new File("resources/texte"));
+		run(new InvertedIndexImpl(corpus),
+				new String[][] { { "said" }, { "the" }, { "cocoa" }, { "the", "cocoa" }, { "new", "york" },
+						{ "the", "of", "said" }, { "oil", "prices", "the", "in", "a" } });
+
+		System.out.println("synthetic corpus with " + syntheticDocuments + " documents");
+		corpus = createSyntheticCorpus(syntheticDocuments, 50000, 200, new Random(42));
+		run(new InvertedIndexImpl(corpus),
+				new String[][] { { "t0" }, { "t5" }, { "t500" }, { "t0", "t1000" }, { "t3", "t40" },
+						{ "t0", "t2", "t300" }, { "t0", "t1", "t2", "t3", "t4000" } });
+	}
+
+	/**
+	 * measuring the average latency of the full ranking and of every
+	 * evaluation strategy
+	 */
+	private static void run(InvertedIndexImpl index, String[][] queries) {
+		System.out.println(String.format("  %-20s %12s", "evaluation", "ms/query"));
+
+		/* full ranking sorting all found documents */
+		for (int run = 0; run < WARMUP_RUNS; run++) {
+			for (String[] query : queries) {
+				consume(index.getCosineSimilarities(query));
+			}
+		}
+		long start = System.nanoTime();
+		for (int run = 0; run < RUNS; run++) {
+			for (String[] query : queries) {
+				consume(index.getCosineSimilarities(query));
+			}
+		}
+		print("FULL_RANKING", start, queries.length);
+
+		/* top-k strategies */
+		for (InvertedIndexImpl.Evaluation evaluation : InvertedIndexImpl.Evaluation.values()) {
+			for (int run = 0; run < WARMUP_RUNS; run++) {
+				for (String[] query : queries) {
+					consume(index.getCosineSimilarities(query, K, evaluation));
+				}
+			}
+			start = System.nanoTime();
+			for (int run = 0; run < RUNS; run++) {
+				for (String[] query : queries) {
+					consume(index.getCosineSimilarities(query, K, evaluation));
+				}
+			}
+			print(evaluation.toString(), start, queries.length);
+		}
+	}
+
+	private static void print(String name, long start, int numberOfQueries) {
+		double millis = (System.nanoTime() - start) / 1E6 / (RUNS * numberOfQueries);
+		System.out.println(String.format("  %-20s %12.4f", name, millis));
+	}
+
+	private static double consume(Iterator<? extends SearchResultItem> results) {
+		double sum = 0.;
+		while (results.hasNext()) {
+			sum += results.next().getSimilarityScore();
+		}
+		return sum;
+	}
+
+	/**
+	 * reading all documents of a directory
+	 */
+	static Corpus loadCorpus(File dir) throws IOException {
+		Corpus corpus = new CorpusImpl();
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+			}
+		}
+		return corpus;
+	}
+
+	/**
+	 * creation of documents whose terms t0, t1, ... are drawn from a Zipf
+	 * distribution
+	 * 
+	 * @param numberOfDocuments
+	 * @param vocabularySize
+	 * @param documentLength
+	 *            average number of terms per document
+	 * @param random
+	 */
+	static Corpus createSyntheticCorpus(int numberOfDocuments, int vocabularySize, int documentLength,
+			Random random) throws IOException {
+
+		/* cumulative Zipf distribution over the vocabulary */
+		double[] cumulative = new double[vocabularySize];
+		double sum = 0.;
+		for (int i = 0; i < vocabularySize; i++) {
+			sum += 1. / (i + 1);
+			cumulative[i] = sum;
+		}
+
+		Corpus corpus = new CorpusImpl();
+		for (int d = 0; d < numberOfDocuments; d++) {
+			StringBuilder text = new StringBuilder();
+			int length = documentLength / 2 + random.nextInt(documentLength);
+			for (int i = 0; i < length; i++) {
+				int term = java.util.Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+				text.append('t').append(term < 0 ? -term - 1 : term).append(' ');
+			}
+			Document doc = new DocumentImpl("synthetic_" + d);
+			doc.read(new ByteArrayInputStream(text.toString().getBytes("UTF-8")));
+			corpus.addDocument(doc);
+		}
+		return corpus;
+	}
+
+}
@@ -0,0 +1,122 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.RoaringBitmap;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the compressed document sets and the boolean queries using
+ * them
+ * 
+ * @author Marek Herde
+ */
+public class RoaringBitmapTest extends TestCase {
+
+	/**
+	 * Test the set operations for sparse and dense chunks against a BitSet
+	 */
+	public void testSetOperations() {
+		Random random = new Random(42);
+		for (int run = 0; run < 10; run++) {
+			BitSet first = new BitSet();
+			BitSet second = new BitSet();
+			RoaringBitmap firstBitmap = new RoaringBitmap();
+			RoaringBitmap secondBitmap = new RoaringBitmap();
+
+			/* sparse and dense chunks, added in ascending and random order */
+			for (int i = 0; i < 20000; i++) {
+				int id = random.nextInt(run % 2 == 0 ? 300000 : 70000);
+				first.set(id);
+				firstBitmap.add(id);
+			}
+			for (int id = random.nextInt(100); id < 200000; id += 1 + random.nextInt(run + 2)) {
+				second.set(id);
+				secondBitmap.add(id);
+			}
+
+			assertEquals(first, toBitSet(firstBitmap));
+			assertEquals(first.cardinality(), firstBitmap.getCardinality());
+			assertTrue(firstBitmap.contains(first.nextSetBit(0)));
+			assertFalse(firstBitmap.contains(first.nextClearBit(0)));
+
+			BitSet expected = (BitSet) first.clone();
+			expected.and(second);
+			assertEquals(expected, toBitSet(firstBitmap.and(secondBitmap)));
+			expected = (BitSet) first.clone();
+			expected.or(second);
+			assertEquals(expected, toBitSet(firstBitmap.or(secondBitmap)));
+			expected = (BitSet) first.clone();
+			expected.andNot(second);
+			assertEquals(expected, toBitSet(firstBitmap.andNot(secondBitmap)));
+			expected = (BitSet) second.clone();
+			expected.andNot(first);
+			assertEquals(expected, toBitSet(secondBitmap.andNot(firstBitmap)));
+
+			/* operations do not change their operands */
+			assertEquals(first, toBitSet(firstBitmap));
+		}
+
+		RoaringBitmap range = RoaringBitmap.range(70000);
+		assertEquals(70000, range.getCardinality());
+		assertTrue(range.contains(69999));
+		assertFalse(range.contains(70000));
+		assertTrue(RoaringBitmap.range(0).isEmpty());
+	}
+
+	/**
+	 * Test that the corpus returns every document only once
+	 */
+	public void testCorpusSetSemantics() throws IOException {
+		Corpus corpus = new CorpusImpl();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+			}
+		}
+
+		Collection<Document> docs = corpus.getDocumentsContainingAny("cocoa", "shipment", "cocoa");
+		assertEquals(new HashSet<>(docs).size(), docs.size());
+		assertEquals(corpus.getDocumentsContainingAll("cocoa").size() + corpus.getDocumentsContainingAll("shipment").size()
+				- corpus.getDocumentsContainingAll("cocoa", "shipment").size(), docs.size());
+
+		/* document sets of the index do not contain removed documents */
+		InvertedIndexImpl index = new InvertedIndexImpl(corpus);
+		int cocoaDocs = index.getDocumentSet("cocoa").getCardinality();
+		Document removed = corpus.getDocumentsContainingAll("cocoa").iterator().next();
+		index.removeDocument(removed);
+		assertEquals(cocoaDocs - 1, index.getDocumentSet("cocoa").getCardinality());
+		assertFalse(index.getDocumentSet("cocoa").contains(corpus.getDocId(removed)));
+		assertTrue(index.getDocumentSet("notcontainedterm").isEmpty());
+	}
+
+	private static BitSet toBitSet(RoaringBitmap bitmap) {
+		BitSet bitSet = new BitSet();
+		PrimitiveIterator.OfInt ids = bitmap.iterator();
+		int last = -1;
+		while (ids.hasNext()) {
+			int id = ids.nextInt();
+			assertTrue(id > last);
+			bitSet.set(id);
+			last = id;
+		}
+		return bitSet;
+	}
+}
@@ -0,0 +1,216 @@
+package de.unikassel.ir.test;
+
+import static de.unikassel.ir.test.IndexTestSupport.QUERIES;
+import static de.unikassel.ir.test.IndexTestSupport.checkSameResults;
+import static de.unikassel.ir.test.IndexTestSupport.createCorpus;
+import static de.unikassel.ir.test.IndexTestSupport.readDocuments;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.IndexFile;
+import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.SearchResultItem;
+import de.unikassel.ir.vsr.SegmentedIndex;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for an index split into segments. Flushing and merging segments
+ * must not change the results, so they have to be the same as the results of
+ * one index over all documents.
+ *
+ * @author Marek Herde
+ */
+public class SegmentedIndexTest extends TestCase {
+
+	private List<Document> documents;
+
+	/**
+	 * read all documents of the corpus
+	 */
+	public void setUp() throws IOException {
+		documents = readDocuments();
+	}
+
+	/**
+	 * Test adding all documents one by one, so that segments are flushed and
+	 * merged
+	 */
+	public void testAddDocuments() {
+		SegmentedIndex index = new SegmentedIndex(10, 3, true);
+		for (Document doc : documents) {
+			index.addDocument(doc);
+		}
+
+		/* results have to be correct before and after merging */
+		PhraseSearchIndex expected = new PhraseSearchIndex(createCorpus(documents));
+		checkSameResults(expected, index);
+		index.waitForMerges();
+		checkSameResults(expected, index);
+
+		/* 25 flushed segments are merged into at most 2 per tier */
+		assertTrue(index.getSegmentCount() < 10);
+		assertEquals(documents.size(), index.getCorpusSize());
+		index.close();
+	}
+
+	/**
+	 * Test removing documents from read-only segments and the write segment
+	 */
+	public void testRemoveDocuments() {
+		SegmentedIndex index = new SegmentedIndex(createCorpus(documents.subList(0, 100)), 30, 2, false);
+		for (Document doc : documents.subList(100, documents.size())) {
+			index.addDocument(doc);
+		}
+
+		List<Document> remaining = new ArrayList<>();
+		for (int i = 0; i < documents.size(); i++) {
+			if (i % 7 == 0) {
+				assertTrue(index.removeDocument(documents.get(i)));
+				assertFalse(index.removeDocument(documents.get(i)));
+			} else {
+				remaining.add(documents.get(i));
+			}
+		}
+		index.waitForMerges();
+
+		assertEquals(remaining.size(), index.getCorpusSize());
+		checkSameResults(new PhraseSearchIndex(createCorpus(remaining)), index);
+		index.close();
+	}
+
+	/**
+	 * Test that the postings of all segments are concatenated
+	 */
+	public void testTokenInfo() {
+		SegmentedIndex index = new SegmentedIndex(createCorpus(documents.subList(0, 50)), 20, 3, false);
+		for (Document doc : documents.subList(50, documents.size())) {
+			index.addDocument(doc);
+		}
+		index.flush();
+
+		PhraseSearchIndex expected = new PhraseSearchIndex(createCorpus(documents));
+		for (String token : new String[] { "oil", "said", "cocoa", "unknowntoken" }) {
+			assertEquals(expected.getTokenInfo(token).getPostingList().size(),
+					index.getTokenInfo(token).getPostingList().size());
+			assertEquals(expected.getTokenInfo(token).getTokenOccurrenceList().size(),
+					index.getTokenInfo(token).getTokenOccurrenceList().size());
+		}
+		assertEquals(expected.getMaxFrequency(), index.getMaxFrequency());
+		index.close();
+	}
+
+	/**
+	 * Test that segments are visited and ranked results of all segments are
+	 * merged
+	 */
+	public void testSegments() {
+		SegmentedIndex index = new SegmentedIndex(createCorpus(documents.subList(0, 50)), 20, 10, false);
+		for (Document doc : documents.subList(50, 100)) {
+			index.addDocument(doc);
+		}
+		List<PhraseSearchIndex> segments = new ArrayList<>();
+		index.forEachSegment(segments::add);
+		/* read-only segments and the write segment */
+		assertEquals(index.getSegmentCount() + 1, segments.size());
+		int size = 0;
+		for (PhraseSearchIndex segment : segments) {
+			size += segment.getCorpusSize();
+		}
+		assertEquals(100, size);
+		assertEquals(100, index.getCorpus().size());
+
+		/*
+		 * the candidates of the segments contain the candidates of one index,
+		 * so the results are the same if all documents are candidates and
+		 * can only be better otherwise
+		 */
+		PhraseSearchIndex expected = new PhraseSearchIndex(createCorpus(documents.subList(0, 100)));
+		for (String[] query : QUERIES) {
+			Iterator<? extends SearchResultItem> expectedResults = expected.getProximityRankedResults(query, 25);
+			Iterator<? extends SearchResultItem> results = index.getProximityRankedResults(query, 25);
+			while (expectedResults.hasNext()) {
+				assertEquals(expectedResults.next().getSimilarityScore(), results.next().getSimilarityScore(),
+						1E-10);
+			}
+			assertFalse(results.hasNext());
+
+			expectedResults = expected.getProximityRankedResults(query, 5);
+			results = index.getProximityRankedResults(query, 5);
+			while (expectedResults.hasNext()) {
+				assertTrue(expectedResults.next().getSimilarityScore() <= results.next().getSimilarityScore() + 1E-10);
+			}
+			assertFalse(results.hasNext());
+		}
+		index.close();
+	}
+
+	/**
+	 * Test that the merged index is written and the stored index is the only
+	 * segment of a new index, to which documents are added
+	 * 
+	 * @throws IOException
+	 */
+	public void testWrite() throws IOException {
+		SegmentedIndex index = new SegmentedIndex(createCorpus(documents.subList(0, 40)), 15, 3, true);
+		for (Document doc : documents.subList(40, 100)) {
+			index.addDocument(doc);
+		}
+		index.removeDocument(documents.get(0));
+		File file = File.createTempFile("segments", ".index");
+		try {
+			index.write(file);
+			assertEquals(1, index.getSegmentCount());
+			index.close();
+
+			SegmentedIndex stored = new SegmentedIndex(IndexFile.open(file), 15, 3, true);
+			assertEquals(99, stored.getCorpusSize());
+			checkSameResults(new PhraseSearchIndex(createCorpus(documents.subList(1, 100))), stored);
+			for (Document doc : documents.subList(100, documents.size())) {
+				stored.addDocument(doc);
+			}
+			stored.waitForMerges();
+			checkSameResults(new PhraseSearchIndex(createCorpus(documents.subList(1, documents.size()))), stored);
+			stored.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Test that flushed and merged segments index the pairs of frequent terms
+	 */
+	public void testBiwordIndex() {
+		SegmentedIndex index = new SegmentedIndex(createCorpus(documents.subList(0, 40)), 15, 3, true);
+		index.enableBiwordIndex(20, Long.MAX_VALUE);
+		for (Document doc : documents.subList(40, 100)) {
+			index.addDocument(doc);
+		}
+		index.waitForMerges();
+		checkBiwordIndices(index);
+
+		index.forceMerge();
+		assertEquals(1, index.getSegmentCount());
+		checkBiwordIndices(index);
+		checkSameResults(new PhraseSearchIndex(createCorpus(documents.subList(0, 100))), index);
+		index.close();
+	}
+
+	/**
+	 * check that every read-only segment has a biword index
+	 */
+	private static void checkBiwordIndices(SegmentedIndex index) {
+		List<PhraseSearchIndex> segments = new ArrayList<>();
+		index.forEachSegment(segments::add);
+
+		/* the last segment is the write segment */
+		for (PhraseSearchIndex segment : segments.subList(0, segments.size() - 1)) {
+			assertNotNull(segment.getBiwordIndex());
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unikassel.ir.vsr.StemCache;
+import de.unikassel.ir.vsr.Tokenizer;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the {@link StemCache} in front of the Porter stemmer
+ * 
+ * @author Marek Herde
+ */
+public class StemCacheTest extends TestCase {
+
+	/** all terms of the corpus in their order of occurrence */
+	private List<String> terms;
+
+	/** stem of every term by a cache with a single slot, i.e. mostly misses */
+	private List<String> expectedStems;
+
+	/**
+	 * read all terms of the corpus
+	 */
+	public void setUp() throws IOException {
+		terms = new ArrayList<>();
+		Tokenizer tokenizer = new Tokenizer();
+		for (File file : new File("resources/texte").listFiles()) {
+			try (Reader reader = new InputStreamReader(new FileInputStream(file))) {
+				tokenizer.tokenize(reader, (buffer, length) -> terms.add(new String(buffer, 0, length)));
+			}
+		}
+		expectedStems = stem(new StemCache(1), terms);
+	}
+
+	/**
+	 * Test that cached stems are the stems of the algorithm and that the
+	 * counters sum up to the number of terms
+	 */
+	public void testStems() {
+		StemCache cache = new StemCache();
+		assertEquals(expectedStems, stem(cache, terms));
+		assertEquals(terms.size(), cache.getHits() + cache.getMisses());
+		assertTrue(cache.toString(), cache.getHitRate() > 0.8);
+		assertEquals(StemCache.DEFAULT_CAPACITY, cache.getCapacity());
+		assertEquals(1024, new StemCache(1000).getCapacity());
+		assertEquals(2, new StemCache(1).getCapacity());
+
+		/* the second pass over the corpus is answered by the cache */
+		long misses = cache.getMisses();
+		assertEquals(expectedStems, stem(cache, terms));
+		assertTrue(cache.toString(), cache.getMisses() - misses < misses / 4);
+	}
+
+	/**
+	 * Test that threads sharing a small cache, whose entries are replaced
+	 * often, get the correct stems
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrency() throws Exception {
+		StemCache cache = new StemCache(64);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<String>>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> stem(cache, terms)));
+			}
+			for (Future<List<String>> result : results) {
+				assertEquals(expectedStems, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(4L * terms.size(), cache.getHits() + cache.getMisses());
+	}
+
+	private static List<String> stem(StemCache cache, List<String> terms) {
+		List<String> stems = new ArrayList<>(terms.size());
+		char[] buffer = new char[16];
+		for (String term : terms) {
+			if (buffer.length < term.length()) {
+				buffer = new char[term.length()];
+			}
+			term.getChars(0, term.length(), buffer, 0);
+			stems.add(new String(buffer, 0, cache.stem(buffer, term.length())));
+		}
+		return stems;
+	}
+
+}
@@ -0,0 +1,102 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.unikassel.ir.vsr.Stemmer;
+import de.unikassel.ir.vsr.Tokenizer;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the entry points of the {@link Stemmer} stemming slices of
+ * char arrays and char sequences into buffers of the caller
+ * 
+ * @author Marek Herde
+ */
+public class StemmerTest extends TestCase {
+
+	/** distinct terms of the corpus */
+	private List<String> terms;
+
+	/**
+	 * read all distinct terms of the corpus
+	 */
+	public void setUp() throws IOException {
+		Set<String> distinctTerms = new LinkedHashSet<>();
+		Tokenizer tokenizer = new Tokenizer();
+		for (File file : new File("resources/texte").listFiles()) {
+			try (Reader reader = new InputStreamReader(new FileInputStream(file))) {
+				tokenizer.tokenize(reader, (buffer, length) -> distinctTerms.add(new String(buffer, 0, length)));
+			}
+		}
+		terms = new ArrayList<>(distinctTerms);
+	}
+
+	/**
+	 * Test that stemming slices gives the stems of stemming added characters
+	 */
+	public void testSlices() {
+		Stemmer stemmer = new Stemmer();
+		Stemmer sliceStemmer = Stemmer.getThreadInstance();
+		char[] text = new char[4];
+		char[] result = new char[4];
+		for (String term : terms) {
+			stemmer.add(term.toCharArray(), term.length());
+			stemmer.stem();
+			String expected = stemmer.toString();
+
+			/* slice in the middle of a larger array and separate result */
+			if (text.length < term.length() + 6) {
+				text = new char[2 * (term.length() + 6)];
+				result = new char[text.length];
+			}
+			text[0] = 'x';
+			term.getChars(0, term.length(), text, 3);
+			int length = sliceStemmer.stem(text, 3, term.length(), result);
+			assertEquals(term, expected, new String(result, 0, length));
+
+			/* stemming in place */
+			term.getChars(0, term.length(), text, 0);
+			length = sliceStemmer.stem(text, 0, term.length(), text);
+			assertEquals(term, expected, new String(text, 0, length));
+
+			length = sliceStemmer.stem(term, result);
+			assertEquals(term, expected, new String(result, 0, length));
+		}
+
+		/* words longer than the initial buffer of the stemmer */
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 30; i++) {
+			word.append("connect");
+		}
+		word.append("ions");
+		char[] buffer = new char[word.length()];
+		int length = new Stemmer().stem(word, buffer);
+		assertEquals(word.substring(0, word.length() - 4), new String(buffer, 0, length));
+	}
+
+	/**
+	 * Test that every thread has its own reusable stemmer
+	 * 
+	 * @throws Exception
+	 */
+	public void testThreadInstance() throws Exception {
+		assertSame(Stemmer.getThreadInstance(), Stemmer.getThreadInstance());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertNotSame(Stemmer.getThreadInstance(), executor.submit(Stemmer::getThreadInstance).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
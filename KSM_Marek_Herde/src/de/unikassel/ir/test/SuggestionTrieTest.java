@@ -0,0 +1,91 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.SuggestionTrie;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the completions of prefixes
+ * 
+ * @author Marek Herde
+ */
+public class SuggestionTrieTest extends TestCase {
+
+	private InvertedIndexImpl index;
+
+	/**
+	 * read all documents of the corpus and create the index
+	 */
+	public void setUp() throws IOException {
+		Corpus corpus = new CorpusImpl();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+			}
+		}
+		index = new InvertedIndexImpl(corpus);
+	}
+
+	/**
+	 * Test that the completions are the most frequent terms with the prefix
+	 */
+	public void testSuggestTerms() {
+		SuggestionTrie trie = SuggestionTrie.create(index, 5);
+		for (String prefix : new String[] { "o", "co", "pri", "inter", "xyz" }) {
+			List<String> completions = trie.suggest(prefix);
+			assertTrue(completions.size() <= 5);
+
+			/* every term with the prefix, that is missing, is less frequent */
+			int minimalFrequency = Integer.MAX_VALUE;
+			for (String completion : completions) {
+				assertTrue(completion.startsWith(prefix));
+				assertTrue(trie.getWeight(completion) <= minimalFrequency);
+				minimalFrequency = trie.getWeight(completion);
+			}
+			for (String term : index.getTermsWithPrefix(prefix)) {
+				if (!completions.contains(term)) {
+					assertEquals(5, completions.size());
+					assertTrue(index.getDocumentFrequency(term) <= minimalFrequency);
+				}
+			}
+		}
+		assertTrue(trie.suggest("xyz").isEmpty());
+	}
+
+	/**
+	 * Test completions of phrases and the order of equally frequent
+	 * completions
+	 */
+	public void testSuggestPhrases() {
+		SuggestionTrie trie = SuggestionTrie.create(index, 10);
+		assertTrue(trie.getWeight("new zealand") >= SuggestionTrie.MIN_PHRASE_FREQUENCY);
+		assertTrue(trie.suggest("new z").contains("new zealand"));
+
+		Map<String, Integer> weights = new HashMap<>();
+		weights.put("tea", 2);
+		weights.put("team", 3);
+		weights.put("ten", 2);
+		weights.put("to", 5);
+		trie = new SuggestionTrie(weights, 2);
+		assertEquals(Arrays.asList("to", "team"), trie.suggest(""));
+		assertEquals(Arrays.asList("team", "tea"), trie.suggest("te"));
+		assertEquals(Arrays.asList("ten"), trie.suggest("ten"));
+	}
+}
@@ -0,0 +1,167 @@
+package de.unikassel.ir.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.Document;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.InvertedIndexImpl;
+import de.unikassel.ir.vsr.TermDictionary;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the front coded term dictionary and the term enumeration of
+ * an index
+ * 
+ * @author Marek Herde
+ */
+public class TermDictionaryTest extends TestCase {
+
+	private TreeSet<String> terms;
+
+	private Corpus corpus;
+
+	/**
+	 * read all documents of the corpus and collect their terms
+	 */
+	public void setUp() throws IOException {
+		corpus = new CorpusImpl();
+		terms = new TreeSet<>();
+		File dir = new File("resources/texte");
+		for (File file : dir.listFiles()) {
+			if (!file.isDirectory()) {
+				FileInputStream stream = new FileInputStream(file);
+				Document doc = new DocumentImpl(file.getName());
+				doc.read(stream);
+				stream.close();
+				corpus.addDocument(doc);
+				for (String term : doc) {
+					terms.add(term);
+				}
+			}
+		}
+		terms.addAll(Arrays.asList("straße", "straßen", "😀", "😀😁"));
+	}
+
+	/**
+	 * Test exact lookups and the mapping between terms and ordinals
+	 */
+	public void testOrdinals() {
+		TermDictionary dictionary = new TermDictionary(terms);
+		assertEquals(terms.size(), dictionary.size());
+
+		int ordinal = 0;
+		for (String term : terms) {
+			assertEquals(term, dictionary.getTerm(ordinal));
+			assertEquals(ordinal, dictionary.getOrdinal(term));
+			ordinal++;
+		}
+		assertEquals(-1, dictionary.getOrdinal("notcontainedterm"));
+		assertEquals(-1, dictionary.getOrdinal(""));
+		assertEquals(dictionary.size(), dictionary.ceiling("￿"));
+		assertTrue(dictionary.getByteLength() < terms.size() * 8);
+	}
+
+	/**
+	 * Test looking up the terms of several ordinals in any order at once
+	 */
+	public void testBulkLookup() {
+		TermDictionary dictionary = new TermDictionary(terms);
+		List<String> sortedTerms = new ArrayList<>(terms);
+		int[] ordinals = new int[3 * sortedTerms.size()];
+		Random random = new Random(42);
+		for (int i = 0; i < ordinals.length; i++) {
+			ordinals[i] = random.nextInt(sortedTerms.size());
+		}
+		ordinals[0] = ordinals[ordinals.length - 1];
+
+		String[] result = dictionary.getTerms(ordinals);
+		for (int i = 0; i < ordinals.length; i++) {
+			assertEquals(sortedTerms.get(ordinals[i]), result[i]);
+		}
+		assertSame(result[0], result[ordinals.length - 1]);
+		assertEquals(0, dictionary.getTerms(new int[0]).length);
+		try {
+			dictionary.getTerms(new int[] { 0, -1 });
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	/**
+	 * Test prefix and range enumeration
+	 */
+	public void testPrefixAndRange() {
+		TermDictionary dictionary = new TermDictionary(terms);
+		for (String prefix : new String[] { "", "a", "co", "oil", "stra", "\ud83d", "zz", "~" }) {
+			List<String> expected = new ArrayList<>();
+			for (String term : terms.tailSet(prefix)) {
+				if (!term.startsWith(prefix)) {
+					break;
+				}
+				expected.add(term);
+			}
+			assertEquals(expected, dictionary.getTermsWithPrefix(prefix));
+		}
+		assertEquals(new ArrayList<>(terms.subSet("cocoa", "coffee")), dictionary.getTermsInRange("cocoa", "coffee"));
+		assertEquals(new ArrayList<>(terms.tailSet("x")), dictionary.getTermsInRange("x", null));
+		assertTrue(dictionary.getTermsInRange("b", "a").isEmpty());
+		assertTrue(new TermDictionary(new TreeSet<String>()).getTermsWithPrefix("").isEmpty());
+	}
+
+	/**
+	 * Test the term enumeration of an index, tokens only occurring in removed
+	 * documents are not returned
+	 */
+	public void testIndexTerms() {
+		InvertedIndexImpl index = new InvertedIndexImpl(corpus);
+		assertEquals(new ArrayList<>(terms.subSet("oil", "oim")), index.getTermsWithPrefix("oil"));
+
+		/* removing all documents containing cocoa */
+		for (Document doc : corpus) {
+			if (doc.getTermCount("cocoa") > 0) {
+				index.removeDocument(doc);
+			}
+		}
+		assertFalse(index.getTermsInRange("cocoa", "cocob").contains("cocoa"));
+	}
+
+	/**
+	 * Test the expansion of wildcard patterns, compared with matching all
+	 * terms against a regular expression
+	 */
+	public void testTermsMatching() {
+		InvertedIndexImpl index = new InvertedIndexImpl(corpus);
+		for (String pattern : new String[] { "inter*", "*ing", "te?t", "c*a", "*o?l*", "?", "oil", "*" }) {
+			String regex = pattern.replace("?", ".").replace("*", ".*");
+			List<String> expected = new ArrayList<>();
+			for (String term : terms) {
+				if (term.matches(regex) && index.getDocumentFrequency(term) > 0) {
+					expected.add(term);
+				}
+			}
+			assertEquals(pattern, expected, index.getTermsMatching(pattern, Integer.MAX_VALUE));
+		}
+
+		/* only the most frequent expansions are returned */
+		List<String> expansions = index.getTermsMatching("*ing", 3);
+		assertEquals(3, expansions.size());
+		int minimalFrequency = Integer.MAX_VALUE;
+		for (String term : expansions) {
+			minimalFrequency = Math.min(minimalFrequency, index.getDocumentFrequency(term));
+		}
+		for (String term : index.getTermsMatching("*ing", Integer.MAX_VALUE)) {
+			if (!expansions.contains(term)) {
+				assertTrue(index.getDocumentFrequency(term) <= minimalFrequency);
+			}
+		}
+	}
+}
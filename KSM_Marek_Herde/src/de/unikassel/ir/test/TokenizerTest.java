@@ -0,0 +1,79 @@
+package de.unikassel.ir.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.Tokenizer;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the {@link Tokenizer} of documents and queries
+ * 
+ * @author Marek Herde
+ */
+public class TokenizerTest extends TestCase {
+
+	/**
+	 * Test the tokenization against the former normalization by regular
+	 * expressions for random texts
+	 * 
+	 * @throws IOException
+	 */
+	public void testRegexEquivalence() throws IOException {
+		Random random = new Random(42);
+		String alphabet = "aBz09 -'.,!Ä\t";
+		Tokenizer tokenizer = new Tokenizer();
+		for (int run = 0; run < 1000; run++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(100);
+			for (int i = 0; i < length; i++) {
+				text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+
+			List<String> expected = new ArrayList<>(Arrays.asList(
+					text.toString().toLowerCase().replaceAll("\\t", " ").replaceAll("[^A-Za-z0-9 -]", "").split("\\s+|-")));
+			expected.removeIf(String::isEmpty);
+			assertEquals(text.toString(), expected, Arrays.asList(tokenizer.split(text)));
+
+			/* the same terms streamed from a reader */
+			List<String> streamed = new ArrayList<>();
+			int count = tokenizer.tokenize(new StringReader(text.toString()),
+					(buffer, termLength) -> streamed.add(new String(buffer, 0, termLength)));
+			assertEquals(expected, streamed);
+			assertEquals(expected.size(), count);
+		}
+	}
+
+	/**
+	 * Test kept characters, long terms and the positions of a document
+	 * 
+	 * @throws IOException
+	 */
+	public void testTerms() throws IOException {
+		assertEquals(Arrays.asList("te*t", "w?ld"), Arrays.asList(new Tokenizer("*?").split(" Te*t-W?ld ")));
+		assertEquals(Arrays.asList("tet", "wld"), Arrays.asList(new Tokenizer().split(" Te*t-W?ld ")));
+		assertEquals(0, new Tokenizer().split(" - ").length);
+
+		StringBuilder longTerm = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			longTerm.append((char) ('a' + i % 26));
+		}
+		assertEquals(Arrays.asList("x", longTerm.toString(), "y"),
+				Arrays.asList(new Tokenizer().split("x " + longTerm.toString().toUpperCase() + "\ny")));
+
+		DocumentImpl doc = new DocumentImpl("doc");
+		doc.read(new ByteArrayInputStream("New York's\n\nnew-york  times".getBytes()));
+		assertEquals(5, doc.size());
+		assertEquals(Arrays.asList(0, 2), doc.getTermPositions("new"));
+		assertEquals(Arrays.asList(1), doc.getTermPositions("yorks"));
+		assertEquals(Arrays.asList(3), doc.getTermPositions("york"));
+		assertEquals(Arrays.asList(4), doc.getTermPositions("times"));
+	}
+
+}
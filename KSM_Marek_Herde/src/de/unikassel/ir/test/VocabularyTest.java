@@ -0,0 +1,172 @@
+package de.unikassel.ir.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.unikassel.ir.vsr.Corpus;
+import de.unikassel.ir.vsr.CorpusImpl;
+import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.Vocabulary;
+import junit.framework.TestCase;
+
+/**
+ * TestCase for the {@link Vocabulary} of term ids and the documents storing
+ * the ids of their terms
+ * 
+ * @author Marek Herde
+ */
+public class VocabularyTest extends TestCase {
+
+	/**
+	 * Test that every term gets a single id from strings and buffers
+	 */
+	public void testIds() {
+		Vocabulary vocabulary = new Vocabulary();
+		assertEquals(-1, vocabulary.getId("bank"));
+		int bank = vocabulary.add("bank");
+		char[] buffer = "england bank".toCharArray();
+		int england = vocabulary.add(buffer, 7);
+		assertEquals(0, bank);
+		assertEquals(1, england);
+		assertEquals(bank, vocabulary.add("bank"));
+		assertEquals(england, vocabulary.getId("england"));
+		assertEquals(england, vocabulary.add(buffer, 7));
+		assertEquals("england", vocabulary.getTerm(england));
+		assertSame(vocabulary.getTerm(england), vocabulary.getTerm(england));
+		assertEquals(2, vocabulary.size());
+
+		/* enough terms to grow the table several times */
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(i + 2, vocabulary.add("term" + i));
+		}
+		for (int i = 0; i < 10000; i++) {
+			char[] term = ("term" + i).toCharArray();
+			assertEquals(i + 2, vocabulary.add(term, term.length));
+			assertEquals("term" + i, vocabulary.getTerm(i + 2));
+		}
+		assertEquals(10002, vocabulary.size());
+
+		/* ids, that were not assigned */
+		for (int id : new int[] { -1, 10002, 100000 }) {
+			try {
+				vocabulary.getTerm(id);
+				fail("term of id " + id);
+			} catch (IndexOutOfBoundsException e) {
+			}
+		}
+	}
+
+	/**
+	 * Test that the shortest surface form of every term is kept
+	 */
+	public void testSurfaceForms() {
+		Vocabulary vocabulary = new Vocabulary();
+		char[] connect = "connect".toCharArray();
+		int id = vocabulary.add(connect, connect.length, "connections".toCharArray(), 11);
+		assertEquals("connections", vocabulary.getSurfaceForm(id));
+		vocabulary.addSurfaceForm(id, "connected".toCharArray(), 9);
+		vocabulary.addSurfaceForm(id, "connectivity");
+		assertEquals("connected", vocabulary.getSurfaceForm(id));
+		vocabulary.addSurfaceForm(id, connect, connect.length);
+		assertSame(vocabulary.getTerm(id), vocabulary.getSurfaceForm(id));
+
+		/* terms without surface forms, also after the arrays grew */
+		for (int i = 0; i < 100; i++) {
+			int termId = vocabulary.add("term" + i);
+			assertSame(vocabulary.getTerm(termId), vocabulary.getSurfaceForm(termId));
+		}
+		vocabulary.addSurfaceForm(100, "t99");
+		assertEquals("t99", vocabulary.getSurfaceForm(100));
+		assertEquals("connect", vocabulary.getSurfaceForm(id));
+	}
+
+	/**
+	 * Test that threads adding the same terms concurrently get the same ids
+	 * 
+	 * @throws Exception
+	 */
+	public void testConcurrency() throws Exception {
+		Vocabulary vocabulary = new Vocabulary();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<int[]>> results = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				results.add(executor.submit(() -> {
+					int[] ids = new int[5000];
+					for (int i = 0; i < ids.length; i++) {
+						char[] term = ("term" + i).toCharArray();
+						ids[i] = vocabulary.add(term, term.length);
+					}
+					return ids;
+				}));
+			}
+			int[] ids = results.get(0).get();
+			for (Future<int[]> result : results) {
+				assertTrue(Arrays.equals(ids, result.get()));
+			}
+			Set<Integer> distinctIds = new HashSet<>();
+			for (int i = 0; i < ids.length; i++) {
+				assertEquals("term" + i, vocabulary.getTerm(ids[i]));
+				distinctIds.add(ids[i]);
+			}
+			assertEquals(5000, distinctIds.size());
+			assertEquals(5000, vocabulary.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Test that the documents read by a corpus share the terms of its
+	 * vocabulary and that every corpus has its own one
+	 * 
+	 * @throws IOException
+	 */
+	public void testDocuments() throws IOException {
+		CorpusImpl corpus = new CorpusImpl();
+		DocumentImpl first = new DocumentImpl("first", corpus.getAnalyzer(), corpus.getVocabulary());
+		first.read(new ByteArrayInputStream("the bank of the bank".getBytes()));
+		DocumentImpl second = new DocumentImpl("second", Arrays.asList("bank", "england"), corpus.getVocabulary());
+
+		assertEquals(5, first.size());
+		assertEquals(Arrays.asList(1, 4), first.getTermPositions("bank"));
+		assertTrue(Arrays.equals(new int[] { 0, 3 }, first.getPositions("the")));
+		assertNull(first.getPositions("england"));
+		assertEquals(0, first.getTermCount("england"));
+		assertEquals(2, first.getMaximalFrequency());
+		assertEquals("of", first.getTerm(2));
+		assertEquals(first.getTermId(1), second.getTermId(0));
+		assertSame(first.getTerm(1), second.getTerm(0));
+
+		Set<String> terms = new HashSet<>();
+		for (String term : first) {
+			terms.add(term);
+		}
+		assertEquals(new HashSet<>(Arrays.asList("the", "bank", "of")), terms);
+
+		corpus.addDocument(first);
+		corpus.addDocument(second);
+		assertEquals(Arrays.asList(first, second), corpus.getDocumentsContainingAll("Bank"));
+		assertEquals(Arrays.asList(second), corpus.getDocumentsContainingAll("bank", "england"));
+		assertEquals(Arrays.asList(first), corpus.getDocumentsContainingAny("of", "unknownterm"));
+		assertTrue(corpus.getDocumentsContainingAll("bank", "unknownterm").isEmpty());
+		assertEquals(4, corpus.getVocabulary().size());
+
+		/* documents with their own vocabulary are found by their terms */
+		Corpus other = new CorpusImpl();
+		DocumentImpl third = new DocumentImpl("third", Arrays.asList("england"));
+		other.addDocument(third);
+		assertEquals(0, third.getTermId(0));
+		assertEquals(Arrays.asList(third), other.getDocumentsContainingAll("england"));
+		assertEquals(4, corpus.getVocabulary().size());
+	}
+
+}
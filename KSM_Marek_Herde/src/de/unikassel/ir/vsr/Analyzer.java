@@ -0,0 +1,226 @@
+package de.unikassel.ir.vsr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.unikassel.ir.vsr.Tokenizer.TokenHandler;
+
+/**
+ * Analysis of texts into the terms of the index: the text is split by a
+ * {@link Tokenizer}, which already lowercases the terms, and every term
+ * passes a chain of {@link TokenFilter}s, e.g. removing stop words and
+ * stemming. Documents and queries of a corpus have to be analyzed by the same
+ * analyzer (see {@link Corpus#getAnalyzer()}), so the terms of a query match
+ * the indexed terms.
+ * <p>
+ * Removed terms leave no gap, so the remaining terms of a document get
+ * consecutive positions and a phrase query matches the phrase without its
+ * stop words. An analyzer is immutable and can be shared between threads, if
+ * its filters can be shared.
+ * 
+ * @author Marek Herde
+ */
+public class Analyzer {
+
+	/**
+	 * Receiver of the terms of a text together with their surface forms
+	 */
+	public interface TermHandler {
+
+		/**
+		 * handling a term, the buffers are only valid during the call
+		 * 
+		 * @param buffer
+		 *            characters of the term starting at index 0
+		 * @param length
+		 *            number of characters of the term, at least 1
+		 * @param surface
+		 *            characters of the term as it occurred in the text, i.e.
+		 *            before the filters
+		 * @param surfaceLength
+		 *            number of characters of the surface form
+		 */
+		void term(char[] buffer, int length, char[] surface, int surfaceLength);
+	}
+
+	/** analyzer only splitting texts into lowercased terms */
+	public static final Analyzer DEFAULT = new Analyzer();
+
+	/** minimal number of characters of a term of the english analyzer */
+	public static final int MIN_TERM_LENGTH = 2;
+
+	/** maximal number of characters of a term of the english analyzer */
+	public static final int MAX_TERM_LENGTH = 64;
+
+	/** filters applied to every term in this order */
+	private TokenFilter[] filters;
+
+	/**
+	 * creation of an analyzer
+	 * 
+	 * @param filters
+	 *            filters applied to every term in this order
+	 */
+	public Analyzer(TokenFilter... filters) {
+		this.filters = filters.clone();
+	}
+
+	/**
+	 * Create an analyzer for english texts removing too short and too long
+	 * terms and the stop words of a file (one word per line) and stemming the
+	 * terms
+	 * 
+	 * @param stopWords
+	 *            file of stop words
+	 * @return analyzer
+	 * @throws IOException
+	 *             if the stop words can not be read
+	 */
+	public static Analyzer createEnglishAnalyzer(File stopWords) throws IOException {
+		return createEnglishAnalyzer(stopWords, new StemCache());
+	}
+
+	/**
+	 * Create an analyzer for english texts removing too short and too long
+	 * terms and the stop words of a file (one word per line) and stemming the
+	 * terms
+	 * 
+	 * @param stopWords
+	 *            file of stop words
+	 * @param stemCache
+	 *            cache of the stems of recent terms, e.g. to observe its hit
+	 *            rate
+	 * @return analyzer
+	 * @throws IOException
+	 *             if the stop words can not be read
+	 */
+	public static Analyzer createEnglishAnalyzer(File stopWords, StemCache stemCache) throws IOException {
+		/* the cheap length check runs first, so garbage is neither looked up nor stemmed */
+		return new Analyzer(new LengthFilter(MIN_TERM_LENGTH, MAX_TERM_LENGTH), StopWordFilter.read(stopWords),
+				new StemFilter(stemCache));
+	}
+
+	/**
+	 * Return an id of the chain of filters, e.g. to check that an index file
+	 * was written with the analyzer used for queries
+	 * 
+	 * @return ids of the filters in their order
+	 */
+	public String getId() {
+		StringBuilder id = new StringBuilder("Tokenizer");
+		for (TokenFilter filter : this.filters) {
+			id.append('|').append(filter.getId());
+		}
+		return id.toString();
+	}
+
+	/**
+	 * Analyze the text of a reader, the reader is not closed
+	 * 
+	 * @param reader
+	 * @param handler
+	 *            receiver of the terms, that pass all filters
+	 * @return number of terms passed to the handler
+	 * @throws IOException
+	 */
+	public int analyze(Reader reader, TokenHandler handler) throws IOException {
+		int[] count = new int[1];
+		new Tokenizer().tokenize(reader, (buffer, length) -> accept(buffer, length, handler, count));
+		return count[0];
+	}
+
+	/**
+	 * Analyze a text
+	 * 
+	 * @param text
+	 * @param handler
+	 *            receiver of the terms, that pass all filters
+	 * @return number of terms passed to the handler
+	 */
+	public int analyze(CharSequence text, TokenHandler handler) {
+		int[] count = new int[1];
+		new Tokenizer().tokenize(text, (buffer, length) -> accept(buffer, length, handler, count));
+		return count[0];
+	}
+
+	/**
+	 * Analyze the text of a reader passing the surface form of every term,
+	 * e.g. to show words instead of stems, the reader is not closed
+	 * 
+	 * @param reader
+	 * @param handler
+	 *            receiver of the terms, that pass all filters
+	 * @return number of terms passed to the handler
+	 * @throws IOException
+	 */
+	public int analyzeWithSurfaceForms(Reader reader, TermHandler handler) throws IOException {
+		int[] count = new int[1];
+		char[][] surface = new char[1][32];
+		new Tokenizer().tokenize(reader, (buffer, length) -> accept(buffer, length, surface, handler, count));
+		return count[0];
+	}
+
+	/**
+	 * Analyze a text passing the surface form of every term
+	 * 
+	 * @param text
+	 * @param handler
+	 *            receiver of the terms, that pass all filters
+	 * @return number of terms passed to the handler
+	 */
+	public int analyzeWithSurfaceForms(CharSequence text, TermHandler handler) {
+		int[] count = new int[1];
+		char[][] surface = new char[1][32];
+		new Tokenizer().tokenize(text, (buffer, length) -> accept(buffer, length, surface, handler, count));
+		return count[0];
+	}
+
+	/**
+	 * Return the terms of a text, e.g. of a query
+	 * 
+	 * @param text
+	 * @return terms passing all filters in their order of occurrence
+	 */
+	public String[] split(CharSequence text) {
+		List<String> terms = new ArrayList<>();
+		analyze(text, (buffer, length) -> terms.add(new String(buffer, 0, length)));
+		return terms.toArray(new String[terms.size()]);
+	}
+
+	/**
+	 * passing a term through the filters and to the handler, if no filter
+	 * removes it
+	 */
+	private void accept(char[] buffer, int length, TokenHandler handler, int[] count) {
+		for (int i = 0; i < this.filters.length && length > 0; i++) {
+			length = this.filters[i].filter(buffer, length);
+		}
+		if (length > 0) {
+			handler.token(buffer, length);
+			count[0]++;
+		}
+	}
+
+	/**
+	 * copying a term into the surface buffer, which grows when needed, before
+	 * passing it through the filters and to the handler
+	 */
+	private void accept(char[] buffer, int length, char[][] surface, TermHandler handler, int[] count) {
+		if (surface[0].length < length) {
+			surface[0] = new char[Math.max(length, 2 * surface[0].length)];
+		}
+		System.arraycopy(buffer, 0, surface[0], 0, length);
+		int surfaceLength = length;
+		for (int i = 0; i < this.filters.length && length > 0; i++) {
+			length = this.filters[i].filter(buffer, length);
+		}
+		if (length > 0) {
+			handler.term(buffer, length, surface[0], surfaceLength);
+			count[0]++;
+		}
+	}
+
+}
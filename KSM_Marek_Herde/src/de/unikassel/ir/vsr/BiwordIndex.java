@@ -0,0 +1,352 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Auxiliary index of pairs of adjacent frequent terms like "of the", whose
+ * postings contain the positions of the first term of the pair. Phrases of
+ * frequent terms are the worst case of phrase search, because every term
+ * has a long posting list; the posting list of a pair is much shorter than
+ * the ones of its terms. Pairs containing a rare term are not indexed, since
+ * the intersection of the postings is led by the rare term anyway.
+ * <p>
+ * The size is limited by the number of frequent terms and by a maximal
+ * number of positions: the pairs are counted in a first pass over the
+ * postings of the frequent terms and the most frequent pairs are indexed in a
+ * second pass, until the positions of the next pair would exceed the limit.
+ * The passes only read posting lists, so no document of a stored corpus is
+ * decoded. Added documents may not exceed the limit either, pairs that would
+ * exceed it are dropped from the index.
+ * 
+ * @author Marek Herde
+ */
+public class BiwordIndex {
+
+	/** frequent terms, pairs of them are indexed */
+	private Set<String> frequentTerms;
+
+	/** indexed pairs, keyed by "first second" */
+	private Map<String, Pair> pairs = new ConcurrentHashMap<>();
+
+	/** tombstones of the deleted documents */
+	private BitSet deletedDocs;
+
+	/** creates the underlying posting lists */
+	private Supplier<PostingList> createPostingList;
+
+	/** number of positions of all indexed pairs */
+	private long positionCount = 0;
+
+	/** maximal number of positions of all indexed pairs */
+	private long maxPositions;
+
+	/**
+	 * creation of the index of the pairs of frequent terms of an index
+	 * 
+	 * @param index
+	 *            index providing the positional postings of the terms
+	 * @param frequentTerms
+	 *            terms whose pairs are indexed
+	 * @param maxPositions
+	 *            maximal number of positions of all indexed pairs
+	 * @param deletedDocs
+	 *            tombstones of the deleted documents of the index
+	 * @param createPostingList
+	 *            creation of empty posting lists
+	 */
+	public BiwordIndex(InvertedIndex index, Collection<String> frequentTerms, long maxPositions, BitSet deletedDocs,
+			Supplier<PostingList> createPostingList) {
+		this.frequentTerms = new HashSet<>(frequentTerms);
+		this.maxPositions = maxPositions;
+		this.deletedDocs = deletedDocs;
+		this.createPostingList = createPostingList;
+
+		/* counting the occurrences of all pairs */
+		Map<String, long[]> counts = new HashMap<>();
+		TermScan scan = new TermScan(index, frequentTerms);
+		while (scan.next()) {
+			for (int i = 0; i + 1 < scan.length; i++) {
+				if (scan.terms[i] != null && scan.terms[i + 1] != null) {
+					counts.computeIfAbsent(scan.terms[i] + ' ' + scan.terms[i + 1], key -> new long[1])[0]++;
+				}
+			}
+		}
+
+		/* selecting the most frequent pairs within the limit */
+		List<Map.Entry<String, long[]>> pairs = new ArrayList<>(counts.entrySet());
+		pairs.sort((first, second) -> Long.compare(second.getValue()[0], first.getValue()[0]));
+		for (Map.Entry<String, long[]> pair : pairs) {
+			if (this.positionCount + pair.getValue()[0] > maxPositions) {
+				break;
+			}
+			this.positionCount += pair.getValue()[0];
+			this.pairs.put(pair.getKey(), new Pair(pair.getKey(), pair.getValue()[0]));
+		}
+
+		/* filling the posting lists of the selected pairs */
+		scan = new TermScan(index, frequentTerms);
+		while (scan.next()) {
+			addPostings(scan.docId, scan.terms, scan.length, false);
+		}
+		for (Pair pair : this.pairs.values()) {
+			pair.postings.trimToSize();
+		}
+	}
+
+	/**
+	 * Return the posting list of a pair of terms
+	 * 
+	 * @param first
+	 * @param second
+	 * @return posting list containing the positions of the first term or
+	 *         null, if the pair is not indexed
+	 */
+	public PostingList getPostingList(String first, String second) {
+		Pair pair = this.pairs.get(first + ' ' + second);
+		return pair != null ? pair.postings : null;
+	}
+
+	/**
+	 * Return the number of indexed pairs
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.pairs.size();
+	}
+
+	/**
+	 * Return the number of positions of all indexed pairs
+	 * 
+	 * @return
+	 */
+	public long getPositionCount() {
+		return this.positionCount;
+	}
+
+	/**
+	 * Appending the postings of a document added to the index, only pairs
+	 * already indexed are updated. If the positions of the document would
+	 * exceed the limit, its pairs with the most positions are dropped.
+	 * 
+	 * @param docId
+	 *            id of the document, greater than the ids of all indexed
+	 *            documents
+	 * @param doc
+	 */
+	public void addDocument(int docId, Document doc) {
+		String[] terms = getFrequentTerms(doc);
+		addPostings(docId, terms, terms.length, true);
+	}
+
+	/**
+	 * Counting the postings of a document marked as deleted
+	 * 
+	 * @param doc
+	 */
+	public void removeDocument(Document doc) {
+		String[] terms = getFrequentTerms(doc);
+		Set<Pair> marked = new HashSet<>();
+		for (int i = 0; i + 1 < terms.length; i++) {
+			Pair pair = getPair(terms, i);
+			if (pair != null && marked.add(pair)) {
+				pair.postings.markDeleted();
+			}
+		}
+	}
+
+	/**
+	 * Removing the postings of deleted documents
+	 */
+	public void purgeDeletedDocuments() {
+		for (Pair pair : this.pairs.values()) {
+			pair.postings.purge(this.createPostingList.get());
+		}
+	}
+
+	/**
+	 * adding the postings of a document to the posting lists of the indexed
+	 * pairs
+	 * 
+	 * @param terms
+	 *            frequent terms of the document by position, other terms are
+	 *            null
+	 * @param length
+	 *            number of positions
+	 * @param count
+	 *            true, if the positions are counted and limited
+	 */
+	private void addPostings(int docId, String[] terms, int length, boolean count) {
+
+		/* positions of every pair occurring in the document in ascending order */
+		Map<Pair, List<Integer>> positions = new HashMap<>();
+		for (int i = 0; i + 1 < length; i++) {
+			Pair pair = getPair(terms, i);
+			if (pair != null) {
+				positions.computeIfAbsent(pair, key -> new ArrayList<>()).add(i);
+			}
+		}
+
+		if (count) {
+			long added = 0;
+			for (List<Integer> pairPositions : positions.values()) {
+				added += pairPositions.size();
+			}
+
+			/* dropping the pairs with the most positions, until the document fits the limit */
+			List<Pair> largest = new ArrayList<>(positions.keySet());
+			largest.sort((first, second) -> Long.compare(second.positions, first.positions));
+			for (Pair pair : largest) {
+				if (this.positionCount + added <= this.maxPositions) {
+					break;
+				}
+				this.pairs.remove(pair.key);
+				this.positionCount -= pair.positions;
+				added -= positions.remove(pair).size();
+			}
+			this.positionCount += added;
+		}
+
+		for (Map.Entry<Pair, List<Integer>> entry : positions.entrySet()) {
+			entry.getKey().postings.addPosting(docId, entry.getValue());
+			if (count) {
+				entry.getKey().positions += entry.getValue().size();
+			}
+		}
+	}
+
+	/**
+	 * Return the indexed pair starting at a position
+	 */
+	private Pair getPair(String[] terms, int i) {
+		if (terms[i] == null || terms[i + 1] == null) {
+			return null;
+		}
+		return this.pairs.get(terms[i] + ' ' + terms[i + 1]);
+	}
+
+	/**
+	 * Return the terms of a document by position, terms that are not frequent
+	 * are null
+	 */
+	private String[] getFrequentTerms(Document doc) {
+		String[] terms = new String[doc.size()];
+		for (String term : doc) {
+			if (this.frequentTerms.contains(term)) {
+				for (int position : doc.getTermPositions(term)) {
+					if (position >= terms.length) {
+						terms = Arrays.copyOf(terms, position + 1);
+					}
+					terms[position] = term;
+				}
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * indexed pair with its postings
+	 */
+	private class Pair {
+
+		/** "first second" */
+		private final String key;
+
+		/** postings containing the positions of the first term */
+		private final LivePostingList postings;
+
+		/** number of positions */
+		private long positions;
+
+		private Pair(String key, long positions) {
+			this.key = key;
+			this.postings = new LivePostingList(createPostingList.get(), deletedDocs);
+			this.positions = positions;
+		}
+	}
+
+	/**
+	 * Pass over the documents containing frequent terms in ascending order of
+	 * their ids, that restores the positions of the frequent terms of every
+	 * document from their postings. Deleted documents are skipped.
+	 */
+	private class TermScan {
+
+		/** frequent terms */
+		private final String[] frequentTerms;
+
+		/** postings of the frequent terms, null if exhausted */
+		private final PostingIterator[] postings;
+
+		/** id of the current document */
+		private int docId;
+
+		/** frequent terms of the current document by position, other terms are null */
+		private String[] terms = new String[16];
+
+		/** number of positions of the current document up to its last frequent term */
+		private int length = 0;
+
+		private TermScan(InvertedIndex index, Collection<String> frequentTerms) {
+			this.frequentTerms = frequentTerms.toArray(new String[0]);
+			this.postings = new PostingIterator[this.frequentTerms.length];
+			for (int i = 0; i < this.postings.length; i++) {
+				PostingIterator posting = index.getTokenInfo(this.frequentTerms[i]).getPostingList().iterator();
+				this.postings[i] = posting.next() ? posting : null;
+			}
+		}
+
+		/**
+		 * moving to the next document that is not deleted
+		 * 
+		 * @return false, if there is no further document
+		 */
+		private boolean next() {
+			do {
+				Arrays.fill(this.terms, 0, this.length, null);
+				this.length = 0;
+
+				/* smallest document id of all postings */
+				this.docId = Integer.MAX_VALUE;
+				for (PostingIterator posting : this.postings) {
+					if (posting != null) {
+						this.docId = Math.min(this.docId, posting.getDocId());
+					}
+				}
+				if (this.docId == Integer.MAX_VALUE) {
+					return false;
+				}
+
+				/* placing the terms at their positions */
+				for (int i = 0; i < this.postings.length; i++) {
+					PostingIterator posting = this.postings[i];
+					if (posting != null && posting.getDocId() == this.docId) {
+						for (int j = 0; j < posting.getTermCount(); j++) {
+							int position = posting.getPosition(j);
+							if (position >= this.terms.length) {
+								this.terms = Arrays.copyOf(this.terms, Math.max(2 * this.terms.length, position + 1));
+							}
+							this.terms[position] = this.frequentTerms[i];
+							this.length = Math.max(this.length, position + 1);
+						}
+						if (!posting.next()) {
+							this.postings[i] = null;
+						}
+					}
+				}
+			} while (deletedDocs.get(this.docId));
+			return true;
+		}
+	}
+
+}
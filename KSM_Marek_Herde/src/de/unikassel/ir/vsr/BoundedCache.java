@@ -0,0 +1,76 @@
+package de.unikassel.ir.vsr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache with a maximal number of entries, when it is full the least recently
+ * used entry is replaced. All methods are synchronized, so the cache can be
+ * shared by the threads of the queries.
+ * 
+ * @author Marek Herde
+ */
+public class BoundedCache<K, V> {
+
+	/** entries in the order of their last access */
+	private final LinkedHashMap<K, V> entries;
+
+	/**
+	 * creation of an empty cache
+	 * 
+	 * @param capacity
+	 *            maximal number of entries, at least 1
+	 */
+	public BoundedCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Return the cached value of a key
+	 * 
+	 * @param key
+	 * @return value or null, if the key is not cached
+	 */
+	public synchronized V get(K key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * caching a value, the least recently used entry is removed if the cache
+	 * is full
+	 * 
+	 * @param key
+	 * @param value
+	 */
+	public synchronized void put(K key, V value) {
+		this.entries.put(key, value);
+	}
+
+	/**
+	 * removing all entries
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Return the number of cached entries
+	 * 
+	 * @return
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+}
@@ -0,0 +1,27 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * Statistics of a collection of documents the idf values are calculated
+ * from. An index split into several segments uses the statistics of all
+ * segments, so that the scores of the segments are comparable.
+ * 
+ * @author Marek Herde
+ */
+public interface CollectionStatistics {
+
+	/**
+	 * Return the number of documents, that are not removed
+	 * 
+	 * @return
+	 */
+	public int getCorpusSize();
+
+	/**
+	 * Return the number of documents, that are not removed and contain a token
+	 * 
+	 * @param token
+	 * @return document frequency of the token, 0 if it does not occur
+	 */
+	public int getDocumentFrequency(String token);
+
+}
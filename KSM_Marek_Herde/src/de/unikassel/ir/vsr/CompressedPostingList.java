@@ -0,0 +1,319 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Posting list compressed with variable byte encoding. Document ids are stored
+ * as gaps to the previous document id and positions as gaps to the previous
+ * position in the same document. Each posting is encoded as
+ * 
+ * <pre>
+ * docIdGap termCount positionsLength positionGap_1 ... positionGap_termCount
+ * </pre>
+ * 
+ * where positionsLength is the number of bytes of the position gaps, so
+ * postings can be iterated without decoding their positions. Every
+ * {@value #SKIP_INTERVAL} postings a skip pointer stores the byte offset of
+ * the next posting together with the document id of the posting before it,
+ * so {@link PostingIterator#advance(int)} jumps over whole intervals of
+ * postings instead of decoding them.
+ * 
+ * @author Marek Herde
+ */
+public class CompressedPostingList implements PostingList {
+
+	/** initial capacity of the byte array */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** number of postings between two skip pointers */
+	public static final int SKIP_INTERVAL = 64;
+
+	/** encoded postings */
+	private byte[] bytes;
+
+	/** number of used bytes */
+	private int length = 0;
+
+	/** number of postings */
+	private int size = 0;
+
+	/** document id of the last added posting */
+	private int lastDocId = -1;
+
+	/**
+	 * skip pointers, the i-th one points to the posting (i + 1) *
+	 * SKIP_INTERVAL: document id of the posting before it and byte offset of
+	 * the posting
+	 */
+	private int[] skipDocIds = new int[0];
+	private int[] skipOffsets = new int[0];
+
+	/** number of skip pointers */
+	private int skipCount = 0;
+
+	public CompressedPostingList() {
+		this.bytes = new byte[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void addPosting(int docId, List<Integer> positions) {
+
+		/* number of bytes needed by the position gaps */
+		int positionsLength = 0;
+		int lastPosition = 0;
+		for (int position : positions) {
+			positionsLength += getVByteLength(position - lastPosition);
+			lastPosition = position;
+		}
+
+		appendPosting(docId, positions.size(), positionsLength);
+
+		/* encoding position gaps */
+		lastPosition = 0;
+		for (int position : positions) {
+			writeVByte(position - lastPosition);
+			lastPosition = position;
+		}
+	}
+
+	@Override
+	public void addPosting(int docId, int[] positions, int count) {
+
+		/* number of bytes needed by the position gaps */
+		int positionsLength = 0;
+		for (int i = 0; i < count; i++) {
+			positionsLength += getVByteLength(positions[i] - (i > 0 ? positions[i - 1] : 0));
+		}
+
+		appendPosting(docId, count, positionsLength);
+
+		/* encoding position gaps */
+		for (int i = 0; i < count; i++) {
+			writeVByte(positions[i] - (i > 0 ? positions[i - 1] : 0));
+		}
+	}
+
+	/**
+	 * encoding document id gap, term frequency and length of the positions of
+	 * a new posting
+	 * 
+	 * @param docId
+	 * @param count
+	 *            number of positions
+	 * @param positionsLength
+	 *            number of bytes of the position gaps
+	 */
+	private void appendPosting(int docId, int count, int positionsLength) {
+
+		/* ensuring ascending order of document ids */
+		if (docId <= this.lastDocId) {
+			throw new IllegalArgumentException(
+					"document id " + docId + " is not greater than last document id " + this.lastDocId);
+		}
+
+		/* adding a skip pointer in front of every SKIP_INTERVAL-th posting */
+		if (this.size > 0 && this.size % SKIP_INTERVAL == 0) {
+			if (this.skipCount == this.skipDocIds.length) {
+				this.skipDocIds = Arrays.copyOf(this.skipDocIds, Math.max(4, 2 * this.skipCount));
+				this.skipOffsets = Arrays.copyOf(this.skipOffsets, this.skipDocIds.length);
+			}
+			this.skipDocIds[this.skipCount] = this.lastDocId;
+			this.skipOffsets[this.skipCount] = this.length;
+			this.skipCount++;
+		}
+
+		writeVByte(docId - this.lastDocId);
+		writeVByte(count);
+		writeVByte(positionsLength);
+
+		this.lastDocId = docId;
+		this.size++;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void trimToSize() {
+		this.bytes = Arrays.copyOf(this.bytes, this.length);
+		this.skipDocIds = Arrays.copyOf(this.skipDocIds, this.skipCount);
+		this.skipOffsets = Arrays.copyOf(this.skipOffsets, this.skipCount);
+	}
+
+	/**
+	 * Return the number of bytes used by the encoded postings
+	 * 
+	 * @return
+	 */
+	public int getByteLength() {
+		return this.length;
+	}
+
+	@Override
+	public PostingIterator iterator() {
+		return new PostingIterator() {
+
+			/* offset of the next byte to decode */
+			private int offset = 0;
+
+			/* number of decoded postings */
+			private int decoded = 0;
+
+			/* values of the current posting */
+			private int docId = -1;
+			private int termCount = 0;
+
+			/* offset of the current posting's position gaps */
+			private int positionsOffset = 0;
+
+			/* decoded positions of the current posting, filled on demand */
+			private int[] positions = new int[0];
+			private boolean positionsDecoded = false;
+
+			@Override
+			public boolean next() {
+				if (this.decoded == size) {
+					return false;
+				}
+				this.docId += readVByte();
+				this.termCount = readVByte();
+				int positionsLength = readVByte();
+
+				/* skipping positions, they are decoded only if requested */
+				this.positionsOffset = this.offset;
+				this.offset += positionsLength;
+				this.positionsDecoded = false;
+
+				this.decoded++;
+				return true;
+			}
+
+			@Override
+			public boolean advance(int target) {
+
+				if (this.decoded > 0 && this.docId >= target) {
+					return true;
+				}
+
+				/*
+				 * jumping to the last skip pointer ahead, whose preceding
+				 * document is below the target
+				 */
+				int skip = this.decoded / SKIP_INTERVAL;
+				if (skip < skipCount && skipDocIds[skip] < target) {
+					int low = skip;
+					int high = skipCount - 1;
+					while (low < high) {
+						int middle = (low + high + 1) >>> 1;
+						if (skipDocIds[middle] < target) {
+							low = middle;
+						} else {
+							high = middle - 1;
+						}
+					}
+					this.offset = skipOffsets[low];
+					this.docId = skipDocIds[low];
+					this.decoded = (low + 1) * SKIP_INTERVAL;
+				}
+
+				/* decoding postings one after another until target is reached */
+				while (next()) {
+					if (this.docId >= target) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public int getDocId() {
+				return this.docId;
+			}
+
+			@Override
+			public int getTermCount() {
+				return this.termCount;
+			}
+
+			@Override
+			public int getPosition(int i) {
+				if (!this.positionsDecoded) {
+					decodePositions();
+				}
+				return this.positions[i];
+			}
+
+			/**
+			 * decoding the position gaps of the current posting into the
+			 * reused positions array
+			 */
+			private void decodePositions() {
+				if (this.positions.length < this.termCount) {
+					this.positions = new int[Math.max(this.termCount, 2 * this.positions.length)];
+				}
+				int end = this.offset;
+				this.offset = this.positionsOffset;
+				int position = 0;
+				for (int i = 0; i < this.termCount; i++) {
+					position += readVByte();
+					this.positions[i] = position;
+				}
+				this.offset = end;
+				this.positionsDecoded = true;
+			}
+
+			/**
+			 * decoding the variable byte encoded value at the current offset
+			 */
+			private int readVByte() {
+				int value = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = bytes[this.offset++];
+					value |= (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * appending a non negative value with variable byte encoding, i.e. seven
+	 * bits per byte starting with the lowest bits, the highest bit marks that
+	 * another byte follows
+	 * 
+	 * @param value
+	 */
+	private void writeVByte(int value) {
+		if (this.length + 5 > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, Math.max(INITIAL_CAPACITY, 2 * this.bytes.length));
+		}
+		while ((value & ~0x7F) != 0) {
+			this.bytes[this.length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.bytes[this.length++] = (byte) value;
+	}
+
+	/**
+	 * calculation of the number of bytes needed for the variable byte encoding
+	 * of a value
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private static int getVByteLength(int value) {
+		int byteLength = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			byteLength++;
+		}
+		return byteLength;
+	}
+
+}
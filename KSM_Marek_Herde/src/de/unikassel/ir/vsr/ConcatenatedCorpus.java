@@ -0,0 +1,139 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only view on the corpora of several segments of an index. The
+ * documents of every segment get the ids of the segment shifted by the base
+ * id of the segment (see {@link ConcatenatedPostingList}).
+ * 
+ * @author Marek Herde
+ */
+public class ConcatenatedCorpus implements Corpus {
+
+	/** corpora of the segments */
+	private Corpus[] corpora;
+
+	/** base id of every segment, followed by the total number of ids */
+	private int[] baseIds;
+
+	/**
+	 * constructor of a view on the corpora of several segments, the base ids
+	 * are determined by the current sizes of the corpora
+	 * 
+	 * @param corpora
+	 *            corpora of the segments
+	 */
+	public ConcatenatedCorpus(Corpus[] corpora) {
+		this.corpora = corpora;
+		this.baseIds = new int[corpora.length + 1];
+		for (int i = 0; i < corpora.length; i++) {
+			this.baseIds[i + 1] = this.baseIds[i] + corpora[i].size();
+		}
+	}
+
+	/**
+	 * Return the base id of every segment followed by the total number of ids
+	 * 
+	 * @return
+	 */
+	public int[] getBaseIds() {
+		return this.baseIds;
+	}
+
+	@Override
+	public void addDocument(Document doc) {
+		throw new UnsupportedOperationException("documents are added to a segment");
+	}
+
+	@Override
+	public boolean removeDocument(Document doc) {
+		throw new UnsupportedOperationException("documents are removed from a segment");
+	}
+
+	@Override
+	public Iterator<Document> iterator() {
+		List<Document> documents = new ArrayList<>(this.size());
+		for (int docId = 0; docId < this.size(); docId++) {
+			documents.add(this.getDocument(docId));
+		}
+		return documents.iterator();
+	}
+
+	@Override
+	public Collection<Document> getDocumentsContainingAll(String... terms) {
+		/* every document belongs to one segment, so the results are disjoint */
+		Collection<Document> result = new ArrayList<>();
+		for (Corpus corpus : this.corpora) {
+			result.addAll(corpus.getDocumentsContainingAll(terms));
+		}
+		return result;
+	}
+
+	@Override
+	public Collection<Document> getDocumentsContainingAny(String... terms) {
+		Collection<Document> result = new ArrayList<>();
+		for (Corpus corpus : this.corpora) {
+			result.addAll(corpus.getDocumentsContainingAny(terms));
+		}
+		return result;
+	}
+
+	@Override
+	public Document getDocument(int docId) {
+		int segment = getSegment(docId);
+		return this.corpora[segment].getDocument(docId - this.baseIds[segment]);
+	}
+
+	@Override
+	public int getDocId(Document doc) {
+		for (int i = 0; i < this.corpora.length; i++) {
+			int docId = this.corpora[i].getDocId(doc);
+			if (docId != -1 && docId < this.baseIds[i + 1] - this.baseIds[i]) {
+				return this.baseIds[i] + docId;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * binary search for the segment containing a document id
+	 * 
+	 * @param docId
+	 * @return index of the segment
+	 */
+	private int getSegment(int docId) {
+		if (docId < 0 || docId >= this.size()) {
+			throw new IndexOutOfBoundsException("document id " + docId + ", size " + this.size());
+		}
+		int low = 0;
+		int high = this.corpora.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (this.baseIds[middle] <= docId) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public int size() {
+		return this.baseIds[this.corpora.length];
+	}
+
+	/**
+	 * Return the analyzer of the first segment, all segments of an index use
+	 * the same analyzer
+	 */
+	@Override
+	public Analyzer getAnalyzer() {
+		return this.corpora.length > 0 ? this.corpora[0].getAnalyzer() : Analyzer.DEFAULT;
+	}
+
+}
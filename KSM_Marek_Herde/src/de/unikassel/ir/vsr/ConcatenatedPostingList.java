@@ -0,0 +1,121 @@
+package de.unikassel.ir.vsr;
+
+import java.util.List;
+
+/**
+ * Read-only view on the posting lists of a token in several segments of an
+ * index. The document ids of every segment are shifted by the base id of the
+ * segment, so the postings of the segments are concatenated in the order of
+ * the segments.
+ * 
+ * @author Marek Herde
+ */
+public class ConcatenatedPostingList implements PostingList {
+
+	/** posting lists of the segments */
+	private PostingList[] postingLists;
+
+	/** base id of every segment, followed by the total number of ids */
+	private int[] baseIds;
+
+	/**
+	 * constructor of a view on the posting lists of several segments
+	 * 
+	 * @param postingLists
+	 *            posting lists of the segments
+	 * @param baseIds
+	 *            id added to the document ids of every segment, ascending and
+	 *            followed by an id greater than all shifted document ids
+	 */
+	public ConcatenatedPostingList(PostingList[] postingLists, int[] baseIds) {
+		this.postingLists = postingLists;
+		this.baseIds = baseIds;
+	}
+
+	@Override
+	public void addPosting(int docId, List<Integer> positions) {
+		throw new UnsupportedOperationException("postings are added to a segment");
+	}
+
+	@Override
+	public void addPosting(int docId, int[] positions, int count) {
+		throw new UnsupportedOperationException("postings are added to a segment");
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (PostingList postingList : this.postingLists) {
+			size += postingList.size();
+		}
+		return size;
+	}
+
+	@Override
+	public void trimToSize() {
+		/* posting lists of the segments are trimmed by their segments */
+	}
+
+	@Override
+	public PostingIterator iterator() {
+		return new PostingIterator() {
+
+			/* segment of the current posting */
+			private int segment = 0;
+
+			/* cursor within the current segment */
+			private PostingIterator current = postingLists.length > 0 ? postingLists[0].iterator() : null;
+
+			@Override
+			public boolean next() {
+				while (this.segment < postingLists.length) {
+					if (this.current.next()) {
+						return true;
+					}
+					nextSegment();
+				}
+				return false;
+			}
+
+			@Override
+			public boolean advance(int target) {
+				while (this.segment < postingLists.length) {
+
+					/* searching only segments that may contain the target */
+					if (target < baseIds[this.segment + 1]
+							&& this.current.advance(Math.max(0, target - baseIds[this.segment]))) {
+						return true;
+					}
+					nextSegment();
+				}
+				return false;
+			}
+
+			/**
+			 * moving the cursor before the first posting of the next segment
+			 */
+			private void nextSegment() {
+				this.segment++;
+				if (this.segment < postingLists.length) {
+					this.current = postingLists[this.segment].iterator();
+				}
+			}
+
+			@Override
+			public int getDocId() {
+				return baseIds[this.segment] + this.current.getDocId();
+			}
+
+			@Override
+			public int getTermCount() {
+				return this.current.getTermCount();
+			}
+
+			@Override
+			public int getPosition(int i) {
+				return this.current.getPosition(i);
+			}
+		};
+	}
+
+}
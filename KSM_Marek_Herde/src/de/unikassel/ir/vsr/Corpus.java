@@ -20,9 +20,19 @@ public interface Corpus extends Iterable<Document> {
 	 * @param doc the document to insert
 	 */
 	public void addDocument(Document doc);
+
+	/**
+	 * Remove a document from the collection. Its id is not reused and
+	 * getDocument() still returns it, but it is no longer returned by the
+	 * iterator and the lookups, and adding it again assigns a new id.
+	 * 
+	 * @param doc the document to remove
+	 * @return true, if the document was in the collection
+	 */
+	public boolean removeDocument(Document doc);
 	
 	/**
-	 * Iterator over all documents in this corpus
+	 * Iterator over all documents in this corpus, that are not removed
 	 * 
 	 * @return Iterator
 	 */
@@ -44,10 +54,34 @@ public interface Corpus extends Iterable<Document> {
 	 */
 	public Collection<Document> getDocumentsContainingAny(String... terms);
 
+	/**
+	 * Return the document with the given dense id
+	 * 
+	 * @param docId id assigned while adding the document, between 0 and size() - 1
+	 * @return the document
+	 */
+	public Document getDocument(int docId);
+	
+	/**
+	 * Return the dense id, that was assigned to a document while adding it
+	 * 
+	 * @param doc a document of this corpus
+	 * @return id of the document or -1, if the document is not in the corpus
+	 */
+	public int getDocId(Document doc);
+
 	/**
 	 * Return the number of documents in the corpus
 	 * 
 	 * @return number of documents in the corpus
 	 */
 	public int size();
+
+	/**
+	 * Return the analyzer of the documents of the corpus, queries have to be
+	 * analyzed by the same analyzer
+	 * 
+	 * @return analyzer of the documents
+	 */
+	public Analyzer getAnalyzer();
 }
@@ -2,97 +2,218 @@ package de.unikassel.ir.vsr;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class CorpusImpl implements Corpus {
 
+
 	/**
-	 * contains all documents
+	 * contains all documents, the index of a document is its dense id
 	 */
 	private List<Document> allDocuments = new ArrayList<Document>();
 	/**
-	 * mapping between term and documents, containing the mapped term
+	 * set of ids of the documents containing a term at the index of the id of
+	 * the term in the {@link Vocabulary}, null if no document contains the
+	 * term
+	 */
+	private ArrayList<RoaringBitmap> corpus = new ArrayList<>();
+	/**
+	 * dictionary of the term ids of this corpus, so the document sets are
+	 * indexed by the terms of this corpus only
+	 */
+	private final Vocabulary vocabulary = new Vocabulary();
+	/**
+	 * ids of the removed documents
+	 */
+	private RoaringBitmap removedDocIds = new RoaringBitmap();
+	/**
+	 * mapping between document and its dense id, removed documents are not
+	 * mapped
 	 */
-	private HashMap<String, List<Document>> corpus = new HashMap<>();
+	private HashMap<Document, Integer> docIds = new HashMap<>();
 	/**
 	 * number of documents in corpus
 	 */
 	private int size;
+	/**
+	 * analyzer of the documents
+	 */
+	private Analyzer analyzer;
+
+	/**
+	 * constructor of an empty corpus, whose documents are only split into
+	 * lowercased terms
+	 */
+	public CorpusImpl() {
+		this(Analyzer.DEFAULT);
+	}
+
+	/**
+	 * constructor of an empty corpus
+	 * 
+	 * @param analyzer
+	 *            analyzer of the documents
+	 */
+	public CorpusImpl(Analyzer analyzer) {
+		this.analyzer = analyzer;
+	}
 
 	@Override
 	public void addDocument(Document doc) {
 
+		/* assigning next dense id to the document */
+		int docId = allDocuments.size();
+		docIds.put(doc, docId);
+
 		/* adding document */
 		allDocuments.add(doc);
 
 		/* creating of mapping between term and its documents */
 		for (String term : doc) {
-			if (corpus.containsKey(term)) {
-				List<Document> documentList = corpus.get(term);
-				documentList.add(doc);
-			} else {
-				List<Document> documentList = new ArrayList<Document>();
-				documentList.add(doc);
-				corpus.put(term, documentList);
-
+			int termId = vocabulary.add(term);
+			while (corpus.size() <= termId) {
+				corpus.add(null);
 			}
+			RoaringBitmap documentSet = corpus.get(termId);
+			if (documentSet == null) {
+				documentSet = new RoaringBitmap();
+				corpus.set(termId, documentSet);
+			}
+			documentSet.add(docId);
 		}
 
 		/* increasing number of documents */
 		this.size++;
 	}
 
+	@Override
+	public boolean removeDocument(Document doc) {
+		Integer docId = this.docIds.remove(doc);
+		if (docId == null) {
+			return false;
+		}
+		this.removedDocIds.add(docId);
+		return true;
+	}
+
 	@Override
 	public Iterator<Document> iterator() {
 
-		/* returning iterator on the corpus */
-		return this.allDocuments.iterator();
+		/* iterator on the documents skipping the removed ones */
+		return new Iterator<Document>() {
+
+			private int docId = nextDocId(0);
+
+			@Override
+			public boolean hasNext() {
+				return this.docId < allDocuments.size();
+			}
+
+			@Override
+			public Document next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Document doc = allDocuments.get(this.docId);
+				this.docId = nextDocId(this.docId + 1);
+				return doc;
+			}
+		};
+	}
+
+	/**
+	 * Return the first id of a document that is not removed
+	 * 
+	 * @param docId
+	 *            smallest id to regard
+	 * @return id or the number of ids, if there is no such document
+	 */
+	private int nextDocId(int docId) {
+		while (docId < this.allDocuments.size() && this.removedDocIds.contains(docId)) {
+			docId++;
+		}
+		return docId;
 	}
 
 	@Override
 	public Collection<Document> getDocumentsContainingAll(String... terms) {
-		/* saves the documents that contains all given terms */
-		Collection<Document> result = new HashSet<>();
 
-		/* generating intersection of the query terms' documents list */
+		/* document sets of the query terms, no document contains an unknown term */
+		List<RoaringBitmap> documentSets = new ArrayList<>();
 		for (String term : terms) {
-			term = term.toLowerCase();
-			/* initial adding of a document list */
-			if (result.size() == 0) {
-				List<Document> docs = this.corpus.get(term);
-				if (docs != null)
-					result.addAll(docs);
-			} else {
-				/*
-				 * intersection of current result with the document list of
-				 * current term
-				 */
-				List<Document> docs = this.corpus.get(term);
-				if (docs != null)
-					result.retainAll(this.corpus.get(docs));
+			RoaringBitmap documentSet = getDocumentSet(term.toLowerCase());
+			if (documentSet == null) {
+				return new ArrayList<>();
 			}
+			documentSets.add(documentSet);
+		}
+		if (documentSets.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		/* intersection of the document sets starting with the smallest ones */
+		documentSets.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+		RoaringBitmap result = documentSets.get(0);
+		for (int i = 1; i < documentSets.size() && !result.isEmpty(); i++) {
+			result = result.and(documentSets.get(i));
 		}
 
-		return result;
+		return getDocuments(result);
 	}
 
 	@Override
 	public Collection<Document> getDocumentsContainingAny(String... terms) {
-		/* saves the documents that contains at least one given term */
-		Collection<Document> result = new ArrayList<>();
 
-		/* generating set union of query terms' document lists */
+		/* generating set union of query terms' document sets */
+		RoaringBitmap result = new RoaringBitmap();
 		for (String term : terms) {
-			term = term.toLowerCase();
-			List<Document> docs = this.corpus.get(term);
-			if (docs != null)
-				result.addAll(docs);
+			RoaringBitmap documentSet = getDocumentSet(term.toLowerCase());
+			if (documentSet != null) {
+				result = result.or(documentSet);
+			}
+		}
+
+		return getDocuments(result);
+	}
+
+	/**
+	 * Return the set of ids of the documents containing a term
+	 * 
+	 * @param term
+	 * @return document ids or null, if no document contains the term
+	 */
+	private RoaringBitmap getDocumentSet(String term) {
+		int termId = this.vocabulary.getId(term);
+		return termId >= 0 && termId < this.corpus.size() ? this.corpus.get(termId) : null;
+	}
+
+	/**
+	 * Return the documents of a set of document ids, that are not removed
+	 * 
+	 * @param documentSet
+	 * @return documents ordered by their ids
+	 */
+	private List<Document> getDocuments(RoaringBitmap documentSet) {
+		if (!this.removedDocIds.isEmpty()) {
+			documentSet = documentSet.andNot(this.removedDocIds);
 		}
+		List<Document> documents = new ArrayList<>(documentSet.getCardinality());
+		documentSet.forEach(docId -> documents.add(this.allDocuments.get(docId)));
+		return documents;
+	}
 
-		return result;
+	@Override
+	public Document getDocument(int docId) {
+		return this.allDocuments.get(docId);
+	}
+
+	@Override
+	public int getDocId(Document doc) {
+		return this.docIds.getOrDefault(doc, -1);
 	}
 
 	@Override
@@ -102,4 +223,20 @@ public class CorpusImpl implements Corpus {
 		return this.size;
 	}
 
+	@Override
+	public Analyzer getAnalyzer() {
+		return this.analyzer;
+	}
+
+	/**
+	 * Return the dictionary of the term ids of this corpus, documents read
+	 * with it share the strings of their terms with the corpus (see
+	 * {@link DocumentImpl#DocumentImpl(String, Analyzer, Vocabulary)})
+	 * 
+	 * @return
+	 */
+	public Vocabulary getVocabulary() {
+		return this.vocabulary;
+	}
+
 }
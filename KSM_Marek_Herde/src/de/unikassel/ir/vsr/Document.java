@@ -71,4 +71,16 @@ public interface Document extends Iterable<String> {
 	 * @return number of terms in the document
 	 */
 	public int size();
+
+	/**
+	 * Return a term of the document as it occurred in the text, e.g. the word
+	 * of a stem
+	 * 
+	 * @param term
+	 * @return shortest surface form of the term, the term itself if no surface
+	 *         form is known
+	 */
+	public default String getSurfaceForm(String term) {
+		return term;
+	}
 }
\ No newline at end of file
@@ -1,13 +1,14 @@
 package de.unikassel.ir.vsr;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class DocumentImpl implements Document {
 
@@ -16,13 +17,22 @@ public class DocumentImpl implements Document {
 	 */
 	private String id;
 	/**
-	 * mapping between term and an list of position where this term occurs
+	 * dictionary assigning the ids of the terms, the one of the corpus
+	 * reading this document or an own one
 	 */
-	protected HashMap<String, ArrayList<Integer>> termsIndex;
+	protected Vocabulary vocabulary;
 	/**
-	 * list containing all terms in their order of occurence
+	 * ids of all terms in their order of occurrence
 	 */
-	protected List<String> allTerms;
+	protected int[] termIds = new int[0];
+	/**
+	 * ids of the distinct terms of this document in ascending order
+	 */
+	protected int[] distinctTermIds = new int[0];
+	/**
+	 * positions of every distinct term in the order of distinctTermIds
+	 */
+	protected int[][] termPositions = new int[0][];
 	/**
 	 * represents size or rather number of words in this document
 	 */
@@ -35,22 +45,104 @@ public class DocumentImpl implements Document {
 	 * private double length of document vector
 	 */
 	protected double docLength = 0.;
+	/**
+	 * analyzer splitting the text of the document into terms
+	 */
+	protected Analyzer analyzer = Analyzer.DEFAULT;
 
 	/**
 	 * constructor initializing document id
 	 */
 	public DocumentImpl(String fileName) {
+		this(fileName, Analyzer.DEFAULT);
+	}
+
+	/**
+	 * constructor initializing document id and the analyzer of the text, that
+	 * should be the analyzer of the corpus (see {@link Corpus#getAnalyzer()})
+	 * 
+	 * @param fileName
+	 * @param analyzer
+	 *            analyzer splitting the text into terms
+	 */
+	public DocumentImpl(String fileName, Analyzer analyzer) {
+		this(fileName, analyzer, new Vocabulary());
+	}
+
+	/**
+	 * constructor initializing document id, the analyzer of the text and the
+	 * dictionary of the term ids, that should be the ones of the corpus (see
+	 * {@link CorpusImpl#getVocabulary()})
+	 * 
+	 * @param fileName
+	 * @param analyzer
+	 *            analyzer splitting the text into terms
+	 * @param vocabulary
+	 *            dictionary assigning the ids of the terms
+	 */
+	public DocumentImpl(String fileName, Analyzer analyzer, Vocabulary vocabulary) {
 		this.id = fileName;
+		this.analyzer = analyzer;
+		this.vocabulary = vocabulary;
 	}
 	
 	public DocumentImpl() {
+		this.vocabulary = new Vocabulary();
+	}
+
+	/**
+	 * constructor of a document, whose terms are already known, e.g. a
+	 * document stored in an index file
+	 * 
+	 * @param id
+	 * @param terms
+	 *            all terms in their order of occurrence
+	 */
+	public DocumentImpl(String id, List<String> terms) {
+		this(id, terms, new Vocabulary());
+	}
+
+	/**
+	 * constructor of a document, whose terms are already known, sharing the
+	 * dictionary of the term ids with its corpus
+	 * 
+	 * @param id
+	 * @param terms
+	 *            all terms in their order of occurrence
+	 * @param vocabulary
+	 *            dictionary assigning the ids of the terms
+	 */
+	public DocumentImpl(String id, List<String> terms, Vocabulary vocabulary) {
+		this.id = id;
+		this.vocabulary = vocabulary;
+		beginTerms();
+		for (String term : terms) {
+			addTermId(this.vocabulary.add(term));
+		}
+		endTerms();
 	}
 
 	@Override
 	public Iterator<String> iterator() {
 
-		/* simply return an iterator on the keys of the map */
-		return this.termsIndex.keySet().iterator();
+		/* iterator over the distinct term ids returning their terms */
+		return new Iterator<String>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < distinctTermIds.length;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return vocabulary.getTerm(distinctTermIds[this.next++]);
+			}
+		};
 	}
 
 	@Override
@@ -61,65 +153,84 @@ public class DocumentImpl implements Document {
 	@Override
 	public void read(InputStream input) throws IOException {
 
-		/* represents the current position of scanned words */
-		int currentPosition = 0;
-
-		/* reader to read document */
-		BufferedReader in = new BufferedReader(new InputStreamReader(input));
+		/* adding the analyzed terms while streaming through the document */
+		beginTerms();
+		this.analyzer.analyzeWithSurfaceForms(new InputStreamReader(input), this::addTerm);
+		endTerms();
 
-		/* stores all lines of the document */
-		ArrayList<String[]> lines = new ArrayList<>();
+	}
 
-		/* stores currentLine */
-		String currentLine;
+	/**
+	 * removing all terms before adding the terms of a text
+	 */
+	protected void beginTerms() {
+		this.termIds = new int[64];
+		this.size = 0;
+	}
 
-		/* reading all lines of document */
-		while ((currentLine = in.readLine()) != null) {
+	/**
+	 * adding a term at the next position of the document and its surface
+	 * form to the vocabulary, a known term creates no string
+	 * 
+	 * @param buffer
+	 *            characters of the term
+	 * @param length
+	 *            number of characters of the term
+	 * @param surface
+	 *            characters of the term as it occurred in the text
+	 * @param surfaceLength
+	 *            number of characters of the surface form
+	 */
+	protected void addTerm(char[] buffer, int length, char[] surface, int surfaceLength) {
+		addTermId(this.vocabulary.add(buffer, length, surface, surfaceLength));
+	}
 
-			/* adding line as array of terms */
-			lines.add(currentLine.trim().split("\\s+"));
+	/**
+	 * adding the id of a term at the next position, positions start with 0
+	 */
+	private void addTermId(int termId) {
+		if (this.size == this.termIds.length) {
+			this.termIds = Arrays.copyOf(this.termIds, 2 * this.size + 1);
 		}
+		this.termIds[this.size++] = termId;
+	}
 
-		/* initialization of the map */
-		this.termsIndex = new HashMap<>();
-		this.allTerms = new ArrayList<>();
-
-		/* iteration over all lines of the document */
-		for (String[] termsOfOneLine : lines) {
-
-			/* iteration over all terms of the current lime */
-			for (String term : termsOfOneLine) {
-				
-				this.allTerms.add(term);
-
-				/* if word is not listed in map */
-				if (!this.termsIndex.containsKey(term)) {
-
-					/* create an entry with a corresponding arraylist */
-					ArrayList<Integer> positions = new ArrayList<>();
-
-					/* adding position where the current word occurs */
-					positions.add(currentPosition);
-
-					this.termsIndex.put(term, positions);
-				} else {
-
-					/* getting corresponding position list */
-					ArrayList<Integer> positions = this.termsIndex.get(term);
-
-					/* adding position where the current word occurs */
-					positions.add(currentPosition);
-				}
-
-				/* increasing current position */
-				currentPosition++;
-				/* increasing number of scanned words */
-				this.size++;
+	/**
+	 * determining the distinct terms and their positions after the last term
+	 * was added
+	 */
+	protected void endTerms() {
+		this.termIds = Arrays.copyOf(this.termIds, this.size);
+
+		/* distinct term ids in ascending order */
+		int[] sortedIds = this.termIds.clone();
+		Arrays.sort(sortedIds);
+		int distinct = 0;
+		for (int i = 0; i < sortedIds.length; i++) {
+			if (i == 0 || sortedIds[i] != sortedIds[i - 1]) {
+				sortedIds[distinct++] = sortedIds[i];
 			}
 		}
+		this.distinctTermIds = Arrays.copyOf(sortedIds, distinct);
+
+		/* counting and collecting the positions of every distinct term */
+		int[] counts = new int[distinct];
+		int[] termIndexes = new int[this.size];
+		for (int position = 0; position < this.size; position++) {
+			termIndexes[position] = Arrays.binarySearch(this.distinctTermIds, this.termIds[position]);
+			counts[termIndexes[position]]++;
+		}
+		this.termPositions = new int[distinct][];
+		for (int i = 0; i < distinct; i++) {
+			this.termPositions[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int position = 0; position < this.size; position++) {
+			int i = termIndexes[position];
+			this.termPositions[i][counts[i]++] = position;
+		}
 
 		determineMaximalFrequency();
-
 	}
 
 	/**
@@ -127,9 +238,9 @@ public class DocumentImpl implements Document {
 	 */
 	protected void determineMaximalFrequency() {
 		/* iteration over all terms */
-		for (String term : this.termsIndex.keySet()) {
+		for (int[] positions : this.termPositions) {
 
-			int termCount = this.getTermCount(term);
+			int termCount = positions.length;
 
 			/*
 			 * if current term frequency is bigger than past maximal frequency
@@ -145,31 +256,82 @@ public class DocumentImpl implements Document {
 	@Override
 	public int getTermCount(String term) {
 
-		/* if this document contains the term */
-		if (this.termsIndex.containsKey(term)) {
-
-			/*
-			 * calculation of number of occurrences by getting number of
-			 * positions
-			 */
-			return this.termsIndex.get(term).size();
+		/*
+		 * calculation of number of occurrences by getting number of
+		 * positions, 0 if this document does not contain the term
+		 */
+		int[] positions = this.getPositions(term);
+		return positions != null ? positions.length : 0;
+	}
 
-			/* if this document does not contain the term */
-		} else {
+	@Override
+	public ArrayList<Integer> getTermPositions(String term) {
 
-			/* number of occurrences is 0 */
-			return 0;
+		/* copying the positions of the term into a list */
+		int[] positions = this.getPositions(term);
+		if (positions == null) {
+			return null;
 		}
+		ArrayList<Integer> positionList = new ArrayList<>(positions.length);
+		for (int position : positions) {
+			positionList.add(position);
+		}
+		return positionList;
+	}
+
+	/**
+	 * Return the positions of a term without copying them
+	 * 
+	 * @param term
+	 * @return ascending positions, that must not be changed, or null, if this
+	 *         document does not contain the term
+	 */
+	public int[] getPositions(String term) {
+
+		/* looking up the id of the term and the id in the sorted ids */
+		int termId = this.vocabulary.getId(term);
+		int i = termId >= 0 ? Arrays.binarySearch(this.distinctTermIds, termId) : -1;
+		return i >= 0 ? this.termPositions[i] : null;
+	}
+
+	/**
+	 * Return the term at a position
+	 * 
+	 * @param position
+	 *            position between 0 and size() - 1
+	 * @return term
+	 */
+	public String getTerm(int position) {
+		return this.vocabulary.getTerm(this.termIds[position]);
+	}
+
+	/**
+	 * Return the term at a position as it occurred in the text, i.e. the
+	 * shortest surface form of the term known to the vocabulary
+	 * 
+	 * @param position
+	 *            position between 0 and size() - 1
+	 * @return surface form
+	 */
+	public String getSurfaceForm(int position) {
+		return this.vocabulary.getSurfaceForm(this.termIds[position]);
 	}
 
 	@Override
-	public ArrayList<Integer> getTermPositions(String term) {
+	public String getSurfaceForm(String term) {
+		int termId = this.vocabulary.getId(term);
+		return termId >= 0 ? this.vocabulary.getSurfaceForm(termId) : term;
+	}
 
-		/*
-		 * returning list of positions by searching for the corresponding map
-		 * entry
-		 */
-		return this.termsIndex.get(term);
+	/**
+	 * Return the id of the term at a position (see {@link Vocabulary})
+	 * 
+	 * @param position
+	 *            position between 0 and size() - 1
+	 * @return term id
+	 */
+	public int getTermId(int position) {
+		return this.termIds[position];
 	}
 
 	@Override
@@ -194,11 +356,18 @@ public class DocumentImpl implements Document {
 	
 	@Override
 	public String toString(){
-		String toString = "";
-		for(String term : this.termsIndex.keySet()){
-			toString += term+"->positions: "+this.termsIndex.get(term)+" \n";
+		StringBuilder toString = new StringBuilder();
+		for(String term : this){
+			toString.append(term+"->positions: "+this.getTermPositions(term)+" \n");
 		}
-		return toString;
+		return toString.toString();
+	}
+
+	/**
+	 * @return maximal frequency of a term in this document
+	 */
+	public int getMaximalFrequency() {
+		return this.maximalFrequency;
 	}
 
 	/**
@@ -216,8 +385,15 @@ public class DocumentImpl implements Document {
 		this.docLength = docLength;
 	}
 	
+	/**
+	 * @return mapping between every term and its positions, created on demand
+	 */
 	public HashMap<String, ArrayList<Integer>> getTermsIndex(){
-		return this.termsIndex;
+		HashMap<String, ArrayList<Integer>> termsIndex = new HashMap<>();
+		for(String term : this){
+			termsIndex.put(term, this.getTermPositions(term));
+		}
+		return termsIndex;
 	}
 
 }
@@ -1,32 +1,18 @@
 package de.unikassel.ir.vsr;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Scanner;
 import java.util.Set;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
-import de.unikassel.ir.webapp.MyServlet;
-
 public class HTMLDocument extends DocumentImpl {
 
-	/**
-	 * global reference for the set containing all stop words, it is global
-	 * because the stop word set shall be calculated only once and not for every
-	 * new created HTMLDocument
-	 */
-	public static HashSet<String> stopwords = createStopWordSet();
-
 	/**
 	 * link to the HTMLDocument
 	 */
@@ -43,58 +29,24 @@ public class HTMLDocument extends DocumentImpl {
 	private org.jsoup.nodes.Document parsedHTMLdoc;
 
 	/**
-	 * calculates a set of stop words that are already stemmed
+	 * constructor initialized with an URL
 	 * 
-	 * @return set of stemmed stop words
+	 * @param url
 	 */
-	private static HashSet<String> createStopWordSet() {
-
-		/* porter stemmer */
-		Stemmer stemmer = new Stemmer();
-
-		/* contains stemmed stop words */
-		HashSet<String> stopWordsSet = new HashSet<String>();
-		try {
-
-			/* scanner to read file of stop words */
-			Scanner sc = new Scanner(new File(MyServlet.stopWordsPath), "UTF-8");
-			while (sc.hasNext()) {
-
-				/*
-				 * parsing stop word in correct form; for the german stopwords
-				 * the corresponding umlauts have to be added to the regex in
-				 * replaceAll
-				 */
-				/*
-				 * !! if numbers shall be included the expression in replaceAll,
-				 * it would be replaceAll("[^A-Za-z0-9 -]","") !!
-				 */
-				String stopword = sc.next().toLowerCase().trim().replaceAll("[^A-Za-z0-9 -]", "");
-
-				/* stemming stop word */
-				stemmer.add(stopword.toCharArray(), stopword.length());
-				stemmer.stem();
-				String token = stemmer.toString();
-
-				/* adding stemmed stop word to set */
-				stopWordsSet.add(token);
-			}
-
-			/* closing scanner after work */
-			sc.close();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-
-		return stopWordsSet;
+	public HTMLDocument(URL url) {
+		this(url, Analyzer.DEFAULT);
 	}
 
 	/**
-	 * constructor initialized with an URL
+	 * constructor initialized with an URL and the analyzer of the text
 	 * 
 	 * @param url
+	 * @param analyzer
+	 *            analyzer splitting the text into terms, e.g. removing stop
+	 *            words and stemming
 	 */
-	public HTMLDocument(URL url) {
+	public HTMLDocument(URL url, Analyzer analyzer) {
+		this.analyzer = analyzer;
 		this.url = url;
 		String urlString = this.url.toString();
 		if (urlString.endsWith("/")) {
@@ -109,11 +61,8 @@ public class HTMLDocument extends DocumentImpl {
 	@Override
 	public void read(InputStream input) throws IOException {
 
-		/* represents the current position of scanned words */
-		int currentPosition = 0;
-
-		/* resetting size */
-		this.size = 0;
+		/* removing the terms of a previous read */
+		beginTerms();
 
 		/*
 		 * ensuring that with every read the set of url will be updated, if
@@ -121,23 +70,13 @@ public class HTMLDocument extends DocumentImpl {
 		 */
 		this.links = null;
 
-		String html = "";
-
-		Scanner sc = new Scanner(input);
-
-		while (sc.hasNext()) {
-			html += sc.next() + " ";
-		}
-
-		sc.close();
-		html.trim();
-
-		/* parsing HTML document with JSoup parser */
+		/* parsing HTML document with JSoup parser, streaming the input */
 		try {
-			this.parsedHTMLdoc = Jsoup.parse(html, this.url.toString());
+			this.parsedHTMLdoc = Jsoup.parse(input, null, this.url.toString());
 		} catch (IllegalArgumentException e) {
 			this.parsedHTMLdoc = null;
 			System.err.println("ERROR: URL " + this.url + " could not be parsed.");
+			endTerms();
 			return;
 		}
 		parsedHTMLdoc.setBaseUri(this.url.toString());
@@ -145,66 +84,17 @@ public class HTMLDocument extends DocumentImpl {
 		/* removing java script and things not displayed on website */
 		parsedHTMLdoc.select("script,.hidden,style,span").remove();
 
-		/* initialization of the map containing all terms and its positions */
-		this.termsIndex = new HashMap<>();
-		this.allTerms = new ArrayList<>();
-
-		/* all elements of the parsed HTML document */
-		Elements elements = parsedHTMLdoc.getAllElements();
-		/* text of the parsed HTML document */
-		String text = parsedHTMLdoc.text();
-
-		/*
-		 * iteration over all elements in order to add text titles and alt tags
-		 * to the whole text
-		 */
-		for (Element element : elements) {
-			if (element.attr("title") != null) {
-				text += " " + element.attr("title");
-			}
-			if (element.attr("alt") != null) {
-				text += " " + element.attr("alt");
-			}
-		}
-
-		/* porter stemmer */
-		Stemmer stemmer = new Stemmer();
-
-		/*
-		 * iteration over all terms of the HTML document, many replacements are
-		 * done before and also a split; for the german websites the
-		 * corresponding umlauts have to be added to the regex in replaceAll
-		 */
 		/*
-		 * !! if numbers shall be included the expression in replaceAll, it
-		 * would be replaceAll("[^A-Za-z0-9 -]","") !!
+		 * analyzing the text of the parsed HTML document followed by the
+		 * titles and alt tags of all elements; for the german websites the
+		 * corresponding umlauts have to be kept by the tokenizer
 		 */
-		for (String term : text.toLowerCase().trim().replaceAll("[^A-Za-z0-9 -]", "").split("\\s+|-")) {
-
-			/* stemming term to a token */
-			String token = term;
-
-			/* checking whether token is a stop word */
-			if (token.length() > 0) {
-
-				/*
-				 * getting position list, if token already exists or creating a
-				 * new one
-				 */
-				ArrayList<Integer> positionsOfToken = this.termsIndex.getOrDefault(token, new ArrayList<Integer>());
-
-				/* adding current position to position list */
-				positionsOfToken.add(currentPosition);
-
-				/* adding token to data structure representing this document */
-				this.termsIndex.put(token, positionsOfToken);
-				this.allTerms.add(token);
-
-				/* increasing size and currentPosition by one */
-				currentPosition++;
-				this.size++;
-			}
+		this.analyzer.analyzeWithSurfaceForms(parsedHTMLdoc.text(), this::addTerm);
+		for (Element element : parsedHTMLdoc.getAllElements()) {
+			this.analyzer.analyzeWithSurfaceForms(element.attr("title"), this::addTerm);
+			this.analyzer.analyzeWithSurfaceForms(element.attr("alt"), this::addTerm);
 		}
+		endTerms();
 	}
 
 	/**
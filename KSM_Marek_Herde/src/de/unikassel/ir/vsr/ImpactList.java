@@ -0,0 +1,97 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Impact ordered view on the postings of one token: the normalized weights
+ * (tf-idf weight divided by the document length) of all documents containing
+ * the token can be read descending by weight and looked up by document id.
+ * 
+ * @author Marek Herde
+ */
+public class ImpactList {
+
+	/** ids of the documents containing the token, ascending */
+	private int[] docIds;
+
+	/** normalized weights aligned with docIds */
+	private double[] weights;
+
+	/** indices into docIds ordered descending by weight */
+	private int[] impactOrder;
+
+	/**
+	 * creation of the impact ordered view
+	 * 
+	 * @param docIds
+	 *            ids of the documents containing the token, ascending
+	 * @param weights
+	 *            normalized weights of the token in these documents
+	 */
+	public ImpactList(int[] docIds, double[] weights) {
+		this.docIds = docIds;
+		this.weights = weights;
+
+		/* sorting indices descending by weight, ascending by id for ties */
+		Integer[] order = new Integer[docIds.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i, Integer j) {
+				int comp = Double.compare(weights[j], weights[i]);
+				return comp != 0 ? comp : Integer.compare(i, j);
+			}
+		});
+
+		this.impactOrder = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			this.impactOrder[i] = order[i];
+		}
+	}
+
+	/**
+	 * Return the number of documents containing the token
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.docIds.length;
+	}
+
+	/**
+	 * Return the id of the document with the rank-th highest weight
+	 * 
+	 * @param rank
+	 *            starting with 0
+	 * @return
+	 */
+	public int getDocIdByImpact(int rank) {
+		return this.docIds[this.impactOrder[rank]];
+	}
+
+	/**
+	 * Return the rank-th highest weight
+	 * 
+	 * @param rank
+	 *            starting with 0
+	 * @return
+	 */
+	public double getWeightByImpact(int rank) {
+		return this.weights[this.impactOrder[rank]];
+	}
+
+	/**
+	 * Return the normalized weight of the token in a document
+	 * 
+	 * @param docId
+	 * @return weight, 0 if the document does not contain the token
+	 */
+	public double getWeight(int docId) {
+		int i = Arrays.binarySearch(this.docIds, docId);
+		return i >= 0 ? this.weights[i] : 0.;
+	}
+
+}
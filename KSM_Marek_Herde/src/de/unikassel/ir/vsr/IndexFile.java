@@ -0,0 +1,426 @@
+package de.unikassel.ir.vsr;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file format of an index. The file consists of the sections
+ * 
+ * <pre>
+ * posting blocks | position blocks | document store | document table | term dictionary | analyzer | footer
+ * </pre>
+ * 
+ * <ul>
+ * <li>posting and position blocks: skip pointers and postings of every
+ * token, see {@link MappedPostingList}</li>
+ * <li>document store: id (e.g. the URL) and the dictionary ordinals of all
+ * terms of every document in their order of occurrence</li>
+ * <li>document table: length of the document vector, maximal term frequency
+ * and offset in the document store of every document</li>
+ * <li>term dictionary: front coded tokens in ascending order (see
+ * {@link TermDictionary}) followed by the document frequency, idf, upper
+ * bound, the offsets of the posting and position block and the surface form
+ * (the shortest one of its documents, see
+ * {@link Document#getSurfaceForm(String)}, empty if it is the token itself)
+ * of every token</li>
+ * <li>analyzer: id of the analyzer of the documents (see
+ * {@link Analyzer#getId()}), a file is only opened with the same analyzer,
+ * since queries have to be analyzed like the documents</li>
+ * <li>footer: offsets of the sections, number of tokens and documents,
+ * version and magic number</li>
+ * </ul>
+ * 
+ * The sections are written in this order, so every offset is known when it
+ * is written and the surface forms are collected from the documents before
+ * the dictionary is written.
+ * <p>
+ * A file is opened by mapping it into memory, so the postings are held by the
+ * page cache of the operating system instead of the Java heap and opening an
+ * index only reads the term dictionary and the document table.
+ * 
+ * @author Marek Herde
+ */
+public class IndexFile {
+
+	/** magic number at the end of every index file */
+	private static final int MAGIC = 0x4B534D49;
+
+	/** version of the file format */
+	private static final int VERSION = 6;
+
+	/** number of bytes of the footer */
+	private static final int FOOTER_SIZE = 5 * Long.BYTES + 4 * Integer.BYTES;
+
+	/** number of bytes of a document table entry */
+	private static final int DOCUMENT_ENTRY_SIZE = Double.BYTES + Integer.BYTES + Long.BYTES;
+
+	private IndexFile() {
+	}
+
+	/**
+	 * Writing an index to a file, removed documents are not written and the
+	 * remaining documents get new dense ids. The sections are streamed to a
+	 * temporary file next to the file, the position blocks pass a second one,
+	 * so writing needs no memory for the encoded index. The temporary file
+	 * replaces the file at the end, so an index can be written to the file it
+	 * was opened from.
+	 * 
+	 * @param index
+	 *            index to write
+	 * @param file
+	 *            file to create or overwrite
+	 * @throws IOException
+	 *             if the file cannot be written or would be too large to be
+	 *             mapped into memory
+	 */
+	public static void write(InvertedIndexImpl index, File file) throws IOException {
+		synchronized (index) {
+			index.refresh();
+
+			/* new ids of the documents, that are not deleted */
+			int[] newDocIds = new int[index.corpus.size()];
+			int docCount = 0;
+			for (int docId = 0; docId < newDocIds.length; docId++) {
+				newDocIds[docId] = index.deletedDocs.get(docId) ? -1 : docCount++;
+			}
+
+			/* tokens with postings in ascending order */
+			List<String> terms = new ArrayList<>();
+			for (Map.Entry<String, TokenInfo> entry : index.tokenHash.entrySet()) {
+				if (entry.getValue().getPostingList().size() > 0) {
+					terms.add(entry.getKey());
+				}
+			}
+			Collections.sort(terms);
+			Map<String, Integer> ordinals = new HashMap<>();
+			for (int i = 0; i < terms.size(); i++) {
+				ordinals.put(terms.get(i), i);
+			}
+
+			File directory = file.getAbsoluteFile().getParentFile();
+			File indexFile = File.createTempFile("index", ".tmp", directory);
+			File positionsFile = File.createTempFile("index", ".positions", directory);
+			try {
+				try (CountingOutputStream counter = new CountingOutputStream(
+						new BufferedOutputStream(new FileOutputStream(indexFile)));
+						DataOutputStream out = new DataOutputStream(counter)) {
+
+					/* posting blocks go to the file, position blocks are appended after them */
+					long[] postingsOffsets = new long[terms.size()];
+					long[] positionsOffsets = new long[terms.size()];
+					try (CountingOutputStream positions = new CountingOutputStream(
+							new BufferedOutputStream(new FileOutputStream(positionsFile)))) {
+						for (int ordinal = 0; ordinal < terms.size(); ordinal++) {
+							postingsOffsets[ordinal] = counter.getCount();
+							positionsOffsets[ordinal] = positions.getCount();
+							writePostings(index.tokenHash.get(terms.get(ordinal)).getPostingList(), newDocIds, out,
+									positions);
+						}
+					}
+					long positionsOffset = counter.getCount();
+					Files.copy(positionsFile.toPath(), out);
+
+					/* document store, the surface forms of the tokens are collected meanwhile */
+					long documentStoreOffset = counter.getCount();
+					long[] documentOffsets = new long[docCount];
+					String[] surfaceForms = new String[terms.size()];
+					for (int docId = 0; docId < newDocIds.length; docId++) {
+						if (newDocIds[docId] == -1) {
+							continue;
+						}
+						Document document = index.corpus.getDocument(docId);
+						documentOffsets[newDocIds[docId]] = counter.getCount() - documentStoreOffset;
+
+						/* ordinals of the terms ordered by their positions */
+						int[] sequence = new int[document.size()];
+						for (String term : document) {
+							int ordinal = ordinals.get(term);
+							for (int position : document.getTermPositions(term)) {
+								sequence[position] = ordinal;
+							}
+							String surfaceForm = document.getSurfaceForm(term);
+							String known = surfaceForms[ordinal];
+							if (known == null || surfaceForm.length() < known.length()) {
+								surfaceForms[ordinal] = surfaceForm;
+							}
+						}
+						writeString(out, document.getId());
+						writeVByte(out, sequence.length);
+						for (int ordinal : sequence) {
+							writeVByte(out, ordinal);
+						}
+					}
+
+					/* document table */
+					long documentTableOffset = counter.getCount();
+					for (int docId = 0; docId < newDocIds.length; docId++) {
+						if (newDocIds[docId] != -1) {
+							out.writeDouble(index.docLengths[docId]);
+							out.writeInt(index.maximalFrequencies[docId]);
+							out.writeLong(documentOffsets[newDocIds[docId]]);
+						}
+					}
+
+					/* term dictionary */
+					long dictionaryOffset = counter.getCount();
+					new TermDictionary(terms).write(out);
+					for (int ordinal = 0; ordinal < terms.size(); ordinal++) {
+						String term = terms.get(ordinal);
+						TokenInfo tokenInfo = index.tokenHash.get(term);
+						out.writeInt(tokenInfo.getPostingList().size());
+						out.writeDouble(tokenInfo.getIdf());
+						out.writeDouble(tokenInfo.getUpperBound());
+						out.writeLong(postingsOffsets[ordinal]);
+						out.writeLong(positionsOffsets[ordinal]);
+						String surfaceForm = surfaceForms[ordinal];
+						writeString(out, surfaceForm == null || surfaceForm.equals(term) ? "" : surfaceForm);
+					}
+
+					/* analyzer followed by the footer */
+					long analyzerOffset = counter.getCount();
+					writeString(out, index.corpus.getAnalyzer().getId());
+					out.writeLong(positionsOffset);
+					out.writeLong(dictionaryOffset);
+					out.writeLong(documentTableOffset);
+					out.writeLong(documentStoreOffset);
+					out.writeLong(analyzerOffset);
+					out.writeInt(terms.size());
+					out.writeInt(docCount);
+					out.writeInt(VERSION);
+					out.writeInt(MAGIC);
+					if (counter.getCount() > Integer.MAX_VALUE) {
+						throw new IOException(file + " exceeds the " + Integer.MAX_VALUE
+								+ " bytes of a memory mapped index file");
+					}
+				}
+				Files.move(indexFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				indexFile.delete();
+				positionsFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * writing the posting block of a token and its position block, the
+	 * postings are encoded first to know the offsets of the skip pointers
+	 * 
+	 * @param postingList
+	 *            postings of the token
+	 * @param newDocIds
+	 *            new id of every document, -1 if it is deleted
+	 * @param postings
+	 *            output of the posting block
+	 * @param positions
+	 *            output of the position block
+	 * @throws IOException
+	 */
+	private static void writePostings(PostingList postingList, int[] newDocIds, OutputStream postings,
+			CountingOutputStream positions) throws IOException {
+		ByteArrayOutputStream positionGaps = new ByteArrayOutputStream();
+		ByteArrayOutputStream termPostings = new ByteArrayOutputStream();
+		ByteArrayOutputStream skipTable = new ByteArrayOutputStream();
+		DataOutputStream skipTableOut = new DataOutputStream(skipTable);
+		long positionsStart = positions.getCount();
+		int count = 0;
+		int lastDocId = -1;
+		PostingIterator posting = postingList.iterator();
+		while (posting.next()) {
+			int docId = newDocIds[posting.getDocId()];
+			if (count > 0 && count % MappedPostingList.SKIP_INTERVAL == 0) {
+				skipTableOut.writeInt(lastDocId);
+				skipTableOut.writeInt(termPostings.size());
+				skipTableOut.writeInt((int) (positions.getCount() - positionsStart));
+			}
+			count++;
+
+			/* encoding position gaps first to know their length */
+			positionGaps.reset();
+			for (int i = 0; i < posting.getTermCount(); i++) {
+				writeVByte(positionGaps, posting.getPosition(i) - (i > 0 ? posting.getPosition(i - 1) : 0));
+			}
+
+			writeVByte(termPostings, docId - lastDocId);
+			writeVByte(termPostings, posting.getTermCount());
+			writeVByte(termPostings, positionGaps.size());
+			positionGaps.writeTo(positions);
+			lastDocId = docId;
+		}
+		skipTableOut.flush();
+		skipTable.writeTo(postings);
+		termPostings.writeTo(postings);
+	}
+
+	/**
+	 * Opening an index file by mapping it into memory. The returned index
+	 * supports removing, but not adding documents.
+	 * 
+	 * @param file
+	 *            file written by {@link #write(InvertedIndexImpl, File)}
+	 * @return index, whose postings are read from the file
+	 * @throws IOException
+	 *             if the file cannot be read or is no index file
+	 */
+	public static PhraseSearchIndex open(File file) throws IOException {
+		return open(file, Analyzer.DEFAULT);
+	}
+
+	/**
+	 * Opening an index file by mapping it into memory. The returned index
+	 * supports removing, but not adding documents.
+	 * 
+	 * @param file
+	 *            file written by {@link #write(InvertedIndexImpl, File)}
+	 * @param analyzer
+	 *            analyzer of the indexed documents, used to analyze queries
+	 * @return index, whose postings are read from the file
+	 * @throws IOException
+	 *             if the file cannot be read, is no index file or was written
+	 *             with another analyzer
+	 */
+	public static PhraseSearchIndex open(File file, Analyzer analyzer) throws IOException {
+		MappedByteBuffer buffer;
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				FileChannel channel = randomAccessFile.getChannel()) {
+			if (channel.size() < FOOTER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is no index file");
+			}
+
+			/* the mapping stays valid after closing the channel */
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		/* reading footer */
+		MappedInput footer = new MappedInput(buffer, buffer.capacity() - FOOTER_SIZE);
+		int positionsOffset = (int) footer.readLong();
+		int dictionaryOffset = (int) footer.readLong();
+		int documentTableOffset = (int) footer.readLong();
+		int documentStoreOffset = (int) footer.readLong();
+		int analyzerOffset = (int) footer.readLong();
+		int termCount = footer.readInt();
+		int docCount = footer.readInt();
+		int version = footer.readInt();
+		if (footer.readInt() != MAGIC || version != VERSION) {
+			throw new IOException(file + " is no index file of version " + VERSION);
+		}
+
+		/* the terms of the documents have to match the terms of the queries */
+		String analyzerId = new MappedInput(buffer, analyzerOffset).readString();
+		if (!analyzerId.equals(analyzer.getId())) {
+			throw new IOException(file + " was written with analyzer " + analyzerId + " instead of "
+					+ analyzer.getId());
+		}
+
+		/* reading document table */
+		double[] docLengths = new double[docCount];
+		int[] maximalFrequencies = new int[docCount];
+		int[] documentOffsets = new int[docCount];
+		MappedInput documentTable = new MappedInput(buffer, documentTableOffset);
+		for (int docId = 0; docId < docCount; docId++) {
+			docLengths[docId] = documentTable.readDouble();
+			maximalFrequencies[docId] = documentTable.readInt();
+			documentOffsets[docId] = documentStoreOffset + (int) documentTable.readLong();
+		}
+		if (documentTable.getOffset() != documentTableOffset + docCount * DOCUMENT_ENTRY_SIZE) {
+			throw new IOException(file + " is corrupted");
+		}
+
+		/* reading term dictionary, the postings stay in the file */
+		MappedInput dictionary = new MappedInput(buffer, dictionaryOffset);
+		TermDictionary termDictionary = TermDictionary.read(dictionary);
+		if (termDictionary.size() != termCount) {
+			throw new IOException(file + " is corrupted");
+		}
+		StoredTokenMap tokens = new StoredTokenMap(buffer, termDictionary);
+		for (int i = 0; i < termCount; i++) {
+			int size = dictionary.readInt();
+			double idf = dictionary.readDouble();
+			double upperBound = dictionary.readDouble();
+			int postingsOffset = (int) dictionary.readLong();
+			int termPositionsOffset = positionsOffset + (int) dictionary.readLong();
+			int surfaceFormOffset = dictionary.getOffset();
+			int surfaceFormLength = dictionary.readVByte();
+			dictionary.seek(dictionary.getOffset() + surfaceFormLength);
+			tokens.setEntry(i, size, idf, upperBound, postingsOffset, termPositionsOffset,
+					surfaceFormLength > 0 ? surfaceFormOffset : -1);
+		}
+
+		/* the token infos are created by the first lookup of their tokens */
+		StoredCorpus corpus = new StoredCorpus(buffer, documentOffsets, termDictionary, tokens, analyzer);
+		PhraseSearchIndex index = new PhraseSearchIndex(corpus, docLengths, maximalFrequencies);
+		index.termDictionary = termDictionary;
+		index.tokenHash = tokens;
+		tokens.setIndex(index);
+
+		return index;
+	}
+
+	/**
+	 * writing a string as variable byte encoded length followed by its UTF-8
+	 * bytes
+	 */
+	private static void writeString(OutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVByte(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * writing a non negative value with variable byte encoding (see
+	 * {@link CompressedPostingList})
+	 */
+	private static void writeVByte(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * output stream counting the written bytes, so the offsets of the sections
+	 * are known while they are written
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+		private long getCount() {
+			return this.count;
+		}
+	}
+
+}
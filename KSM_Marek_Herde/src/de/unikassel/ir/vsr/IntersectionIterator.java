@@ -0,0 +1,144 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cursor over the ids of the documents contained in all of several posting
+ * lists. The posting lists are ordered by their size, the shortest one leads
+ * and proposes candidates, the other ones are moved forward to a candidate
+ * with {@link PostingIterator#advance(int)}. If a list does not contain the
+ * candidate, the document id it stopped at becomes the next candidate
+ * (leapfrogging). Since advance() skips postings by galloping search or skip
+ * pointers, the costs depend on the length of the shortest list and not on
+ * the length of the longest one.
+ * 
+ * @author Marek Herde
+ */
+public class IntersectionIterator {
+
+	/** cursors of the posting lists ordered ascending by size */
+	private PostingIterator[] iterators;
+
+	/** posting lists in the order of the cursors */
+	private PostingList[] postingLists;
+
+	/** id of the current document, -1 before the first call of next() */
+	private int docId = -1;
+
+	/** flag whether there is no further document */
+	private boolean exhausted;
+
+	/**
+	 * creation of a cursor positioned before the first common document
+	 * 
+	 * @param postingLists
+	 *            posting lists to intersect, there is no document if the
+	 *            collection is empty
+	 */
+	public IntersectionIterator(Collection<? extends PostingList> postingLists) {
+		List<PostingList> lists = new ArrayList<>(postingLists);
+		lists.sort(Comparator.comparingInt(PostingList::size));
+		this.postingLists = lists.toArray(new PostingList[0]);
+		this.iterators = new PostingIterator[this.postingLists.length];
+		for (int i = 0; i < this.iterators.length; i++) {
+			this.iterators[i] = this.postingLists[i].iterator();
+		}
+		this.exhausted = this.iterators.length == 0 || this.postingLists[0].size() == 0;
+	}
+
+	/**
+	 * Move the cursor to the next document contained in all posting lists
+	 * 
+	 * @return false, if there is no further document
+	 */
+	public boolean next() {
+		if (this.exhausted || !this.iterators[0].next()) {
+			this.exhausted = true;
+			return false;
+		}
+		return align(this.iterators[0].getDocId());
+	}
+
+	/**
+	 * Move the cursor forward to the first common document whose id is
+	 * greater than or equal to the target
+	 * 
+	 * @param target
+	 * @return false, if there is no such document
+	 */
+	public boolean advance(int target) {
+		if (this.exhausted) {
+			return false;
+		}
+		if (this.docId >= target) {
+			return true;
+		}
+		if (!this.iterators[0].advance(target)) {
+			this.exhausted = true;
+			return false;
+		}
+		return align(this.iterators[0].getDocId());
+	}
+
+	/**
+	 * moving all cursors to the first common document starting with a
+	 * candidate of the leading cursor
+	 * 
+	 * @param candidate
+	 *            current document id of the leading cursor
+	 * @return false, if there is no common document
+	 */
+	private boolean align(int candidate) {
+		int i = 1;
+		while (i < this.iterators.length) {
+			if (!this.iterators[i].advance(candidate)) {
+				this.exhausted = true;
+				return false;
+			}
+			int docId = this.iterators[i].getDocId();
+			if (docId == candidate) {
+				i++;
+			} else {
+				/* the rarest list continues with the document the other list stopped at */
+				if (!this.iterators[0].advance(docId)) {
+					this.exhausted = true;
+					return false;
+				}
+				candidate = this.iterators[0].getDocId();
+				i = 1;
+			}
+		}
+		this.docId = candidate;
+		return true;
+	}
+
+	/**
+	 * Return the id of the current document
+	 * 
+	 * @return
+	 */
+	public int getDocId() {
+		return this.docId;
+	}
+
+	/**
+	 * Return the cursor of a posting list positioned at the current document,
+	 * e.g. to read the positions of a token
+	 * 
+	 * @param postingList
+	 *            one of the intersected posting lists
+	 * @return cursor or null, if the posting list is not intersected
+	 */
+	public PostingIterator getPostingIterator(PostingList postingList) {
+		for (int i = 0; i < this.postingLists.length; i++) {
+			if (this.postingLists[i] == postingList) {
+				return this.iterators[i];
+			}
+		}
+		return null;
+	}
+
+}
@@ -4,6 +4,7 @@
 package de.unikassel.ir.vsr;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Interface for an "Inverted Index" on a corpus of Documents.
@@ -16,7 +17,7 @@ import java.util.Iterator;
 public interface InvertedIndex {
 	
 	/**
-	 * Return the size of the Corpus (= number of Documents)
+	 * Return the size of the Corpus (= number of Documents, that are not removed)
 	 * @return
 	 */
 	public int getCorpusSize();
@@ -36,6 +37,73 @@ public interface InvertedIndex {
 	 */
 	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query);
 	
+	/**
+	 * Return the k Documents with the highest cosine similarity for a query
+	 * ordered descending by similarity score as SearchResultItems
+	 * @param query
+	 * @param k maximal number of results, at least 1
+	 * @return Iterator for at most k SearchResultItems of query
+	 */
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k);
+	
+	/**
+	 * Add a Document to the index (and to its Corpus, if it is not contained).
+	 * Idf values and Document lengths are recalculated with the next query.
+	 * @param doc Document, that is not yet indexed
+	 */
+	public void addDocument(Document doc);
+	
+	/**
+	 * Remove a Document from the index. The Document is marked as deleted and
+	 * not returned by any query, its postings are purged later.
+	 * @param doc
+	 * @return false, if the Document was not indexed or is already removed
+	 */
+	public boolean removeDocument(Document doc);
+	
+	/**
+	 * Replace an indexed Document by a new version of it
+	 * @param oldDoc Document to remove
+	 * @param newDoc Document to add
+	 */
+	public void updateDocument(Document oldDoc, Document newDoc);
+	
+	/**
+	 * Return all terms of the index, that start with a prefix
+	 * @param prefix
+	 * @return terms in ascending order
+	 */
+	public List<String> getTermsWithPrefix(String prefix);
+	
+	/**
+	 * Return all terms of the index in a range
+	 * @param from smallest term of the range (inclusive)
+	 * @param to end of the range (exclusive), null for no end
+	 * @return terms in ascending order
+	 */
+	public List<String> getTermsInRange(String from, String to);
+	
+	/**
+	 * Return the terms of the index matching a wildcard pattern (see
+	 * {@link WildcardPattern}), if there are too many, the terms with the
+	 * highest document frequencies are returned
+	 * @param pattern e.g. "inter*", "*ing" or "te?t"
+	 * @param maxExpansions maximal number of terms
+	 * @return terms in ascending order
+	 */
+	public List<String> getTermsMatching(String pattern, int maxExpansions);
+	
+	/**
+	 * Return the terms of the index within a maximal edit distance of a term
+	 * (see {@link LevenshteinAutomaton}), if there are too many, the closest
+	 * and most frequent terms are returned
+	 * @param term e.g. a misspelled query term
+	 * @param maxDistance maximal Levenshtein distance
+	 * @param maxExpansions maximal number of terms
+	 * @return terms ordered by ascending distance
+	 */
+	public List<String> getTermsWithinDistance(String term, int maxDistance, int maxExpansions);
+	
 	/**
 	 * Return the TokenInfo for a given term
 	 * @param term
@@ -1,20 +1,82 @@
 package de.unikassel.ir.vsr;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 
-public class InvertedIndexImpl implements InvertedIndex {
+public class InvertedIndexImpl implements InvertedIndex, CollectionStatistics {
+
+	/**
+	 * Strategies to evaluate a top-k cosine similarity query
+	 */
+	public static enum Evaluation {
+		EXHAUSTIVE, // term-at-a-time, every posting is scored
+		MAX_SCORE, // document-at-a-time with MaxScore pruning
+		IMPACT_ORDERED // postings read descending by weight, early termination
+	}
+
+	/** queries with at most this number of tokens are evaluated impact ordered */
+	public static final int MAX_IMPACT_ORDERED_TOKENS = 3;
+
+	/** number of documents ranked by cosine similarity per result of a proximity ranked query */
+	public static final int PROXIMITY_CANDIDATES = 4;
+
+	/** relative boost of a document containing the query tokens at adjacent positions */
+	public static final double PROXIMITY_WEIGHT = 0.5;
+
+	/** minimal number of documents or tokens processed by one build task */
+	protected static final int MIN_CHUNK_SIZE = 16;
+
+	/** fraction of deleted documents, from which on their postings are purged */
+	protected static final double PURGE_RATIO = 0.2;
+
+	/** maximal number of cached impact lists and document sets each */
+	public static final int CACHE_CAPACITY = 1024;
 
 	/** data structure of the inverted index */
-	protected HashMap<String, TokenInfo> tokenHash;
+	protected Map<String, TokenInfo> tokenHash;
 	/** reference to corpus containing all documents */
 	protected Corpus corpus;
 	/** save maximal term frequency of a term in a document */
 	protected int maximalTermFrequency = 0;
 	/** inverted index string representation */
 	protected String invertedIndex = "";
+	/** length of every document vector indexed by document id */
+	protected double[] docLengths;
+	/** maximal term frequency of every document indexed by document id */
+	protected int[] maximalFrequencies;
+	/** flag whether postings are stored compressed */
+	protected boolean compressPostings;
+	/** tombstones: ids of documents removed from the index */
+	protected final BitSet deletedDocs = new BitSet();
+	/** number of deleted documents, whose postings are purged */
+	protected int purgedDocs = 0;
+	/** flag whether idf values and document lengths have to be recalculated */
+	protected volatile boolean outdated = false;
+	/** impact ordered postings of the recently queried tokens */
+	protected final BoundedCache<String, ImpactList> impactLists = new BoundedCache<>(CACHE_CAPACITY);
+	/** sets of the ids of the documents containing the recently queried tokens */
+	protected final BoundedCache<String, RoaringBitmap> documentSets = new BoundedCache<>(CACHE_CAPACITY);
+	/** score accumulator of every thread, reused by all its queries */
+	protected final ThreadLocal<ScoreAccumulator> accumulators = ThreadLocal.withInitial(ScoreAccumulator::new);
+	/** statistics the idf values are calculated from, the index itself by default */
+	protected CollectionStatistics statistics = this;
+	/** sorted dictionary of all tokens, created on demand */
+	protected volatile TermDictionary termDictionary;
+	/** sorted dictionary of all reversed tokens for suffix lookups, created on demand */
+	protected volatile TermDictionary reversedTermDictionary;
 
 	/**
 	 * creation of an index given a corpus of documents
@@ -23,121 +85,628 @@ public class InvertedIndexImpl implements InvertedIndex {
 	 *            contains all documents
 	 */
 	public InvertedIndexImpl(Corpus corpus) {
+		this(corpus, false);
+	}
+
+	/**
+	 * creation of an index given a corpus of documents
+	 * 
+	 * @param corpus:
+	 *            contains all documents
+	 * @param compressPostings:
+	 *            if true, postings and positions are stored gap and variable
+	 *            byte encoded (see {@link CompressedPostingList})
+	 */
+	public InvertedIndexImpl(Corpus corpus, boolean compressPostings) {
 		/* creating of hash map that stores inverted index */
 		this.tokenHash = new HashMap<>();
 
+		/* choice of posting list representation */
+		this.compressPostings = compressPostings;
+
 		/* reference to corpus containing all documents */
 		this.corpus = corpus;
 
-		/* processing index creation */
-		createInvertedIndex();
-		calculateIDF();
-		calculateDocumentLengths();
+		/* processing index creation in parallel */
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		createInvertedIndex(pool);
+		publish(calculateWeights(pool));
+	}
+
+	/**
+	 * creation of an index given a corpus of documents, whose idf values are
+	 * calculated from the statistics of a larger collection, e.g. a segment of
+	 * a {@link SegmentedIndex}. Idf values, document lengths and upper bounds
+	 * are calculated once by the first query, so the statistics may include
+	 * the documents of this index after its creation.
+	 * 
+	 * @param corpus
+	 *            contains all documents
+	 * @param compressPostings
+	 *            if true, postings and positions are stored compressed
+	 * @param statistics
+	 *            statistics of a collection containing the documents of this
+	 *            index
+	 */
+	public InvertedIndexImpl(Corpus corpus, boolean compressPostings, CollectionStatistics statistics) {
+		this.tokenHash = new HashMap<>();
+		this.compressPostings = compressPostings;
+		this.corpus = corpus;
+		this.statistics = statistics;
+		createInvertedIndex(ForkJoinPool.commonPool());
+
+		/* reserving entries for the documents, filled by refresh() */
+		this.docLengths = new double[corpus.size()];
+		this.maximalFrequencies = new int[corpus.size()];
+		this.outdated = true;
+	}
+
+	/**
+	 * creation of an index without tokens, whose document lengths are already
+	 * known, e.g. an index read from a file. The tokens are set afterwards,
+	 * e.g. the {@link StoredTokenMap} of the file.
+	 * 
+	 * @param corpus
+	 *            contains all documents
+	 * @param docLengths
+	 *            length of every document vector indexed by document id
+	 * @param maximalFrequencies
+	 *            maximal term frequency of every document indexed by document
+	 *            id
+	 */
+	protected InvertedIndexImpl(Corpus corpus, double[] docLengths, int[] maximalFrequencies) {
+		this.tokenHash = new HashMap<>();
+		this.corpus = corpus;
+		this.docLengths = docLengths;
+		this.maximalFrequencies = maximalFrequencies;
 	}
 
 	/**
 	 * creates an inverted index by filling the map tokenHash (analog to slide
-	 * 28, lecture 03)
+	 * 28, lecture 03), the postings of every token are stored in a posting list
+	 * ordered by the dense document ids of the corpus. The corpus is split into
+	 * chunks of consecutive document ids, a partial index is built for every
+	 * chunk in parallel and afterwards the partial posting lists of every token
+	 * are concatenated in the order of the chunks.
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 */
+	private void createInvertedIndex(ForkJoinPool pool) {
+
+		/* building partial indices of all chunks */
+		int chunkSize = getChunkSize(this.corpus.size(), pool);
+		List<Callable<Map<String, PostingList>>> chunkTasks = new ArrayList<>();
+		for (int from = 0; from < this.corpus.size(); from += chunkSize) {
+			int to = Math.min(from + chunkSize, this.corpus.size());
+			int chunkStart = from;
+			chunkTasks.add(() -> createPartialIndex(chunkStart, to));
+		}
+		List<Map<String, PostingList>> partialIndices = invokeAll(pool, chunkTasks);
+
+		/*
+		 * creating token infos of all tokens sequentially, so the hash map is
+		 * not modified by the merging tasks
+		 */
+		for (Map<String, PostingList> partialIndex : partialIndices) {
+			for (String token : partialIndex.keySet()) {
+				if (!this.tokenHash.containsKey(token)) {
+					this.tokenHash.put(token, createTokenInfo());
+				}
+			}
+		}
+
+		/* merging partial posting lists of disjoint sets of tokens in parallel */
+		List<String> tokens = new ArrayList<>(this.tokenHash.keySet());
+		chunkSize = getChunkSize(tokens.size(), pool);
+		List<Callable<Void>> mergeTasks = new ArrayList<>();
+		for (int from = 0; from < tokens.size(); from += chunkSize) {
+			List<String> tokenChunk = tokens.subList(from, Math.min(from + chunkSize, tokens.size()));
+			mergeTasks.add(() -> {
+				/* buffer for the positions of a posting */
+				int[] positions = new int[16];
+				for (String token : tokenChunk) {
+					PostingList postingList = this.tokenHash.get(token).getPostingList();
+
+					/* appending partial posting lists in the order of the chunks */
+					for (Map<String, PostingList> partialIndex : partialIndices) {
+						PostingList partialList = partialIndex.get(token);
+						if (partialList == null) {
+							continue;
+						}
+						PostingIterator posting = partialList.iterator();
+						while (posting.next()) {
+							if (positions.length < posting.getTermCount()) {
+								positions = new int[2 * posting.getTermCount()];
+							}
+							for (int i = 0; i < posting.getTermCount(); i++) {
+								positions[i] = posting.getPosition(i);
+							}
+							postingList.addPosting(posting.getDocId(), positions, posting.getTermCount());
+						}
+					}
+
+					/* releasing unused capacity of the posting list */
+					postingList.trimToSize();
+				}
+				return null;
+			});
+		}
+		invokeAll(pool, mergeTasks);
+	}
+
+	/**
+	 * creates the posting lists of a chunk of documents
+	 * 
+	 * @param from
+	 *            id of the first document of the chunk
+	 * @param to
+	 *            id after the last document of the chunk
+	 * @return mapping between token and its postings within the chunk
 	 */
-	private void createInvertedIndex() {
+	private Map<String, PostingList> createPartialIndex(int from, int to) {
+		Map<String, PostingList> partialIndex = new HashMap<>();
 
-		/* iteration over all documents */
-		for (Document currentDoc : this.corpus) {
+		/* iteration over the documents of the chunk in the order of their ids */
+		for (int docId = from; docId < to; docId++) {
+			Document currentDoc = this.corpus.getDocument(docId);
 
 			/* iteration over all tokens in the current document */
 			for (String currentToken : currentDoc) {
 
-				/*
-				 * getting already existing token info or creating new token
-				 * info
-				 */
-				TokenInfo tokenInfo = this.tokenHash.getOrDefault(currentToken, new TokenInfoImpl());
-
-				/*
-				 * adding a new token occurrence to the list of all occurrences
-				 * of the current token
-				 */
-				tokenInfo.getTokenOccurrenceList().add(new TokenOccurrenceImpl(currentDoc, tokenInfo, currentToken));
+				/* getting already existing or creating new posting list */
+				PostingList postingList = partialIndex.get(currentToken);
+				if (postingList == null) {
+					postingList = new PostingListImpl();
+					partialIndex.put(currentToken, postingList);
+				}
 
-				/*
-				 * adding current token together with its info to the hash map
-				 * representing inverted index
-				 */
-				tokenHash.put(currentToken, tokenInfo);
+				/* adding a new posting to the postings of the current token */
+				addPosting(postingList, docId, currentDoc, currentToken);
 			}
 		}
+
+		return partialIndex;
 	}
 
 	/**
-	 * calculation of idf for every token (analog to to slide 29, lecture 03)
+	 * appending the posting of a token in a document, the positions of a
+	 * {@link DocumentImpl} are copied from its array without boxing them
 	 */
-	private void calculateIDF() {
+	private static void addPosting(PostingList postingList, int docId, Document doc, String token) {
+		if (doc instanceof DocumentImpl) {
+			int[] positions = ((DocumentImpl) doc).getPositions(token);
+			postingList.addPosting(docId, positions, positions.length);
+		} else {
+			postingList.addPosting(docId, doc.getTermPositions(token));
+		}
+	}
 
-		/* iteration over all tokens */
-		for (String token : tokenHash.keySet()) {
+	/**
+	 * creation of a token info without postings
+	 * 
+	 * @return token info, whose posting list hides deleted documents
+	 */
+	protected TokenInfo createTokenInfo() {
+		return createTokenInfo(createPostingList());
+	}
 
-			/* getting tokenInfo */
-			TokenInfo tokenInfo = this.getTokenInfo(token);
+	/**
+	 * creation of a token info of existing postings, e.g. the postings of an
+	 * index file
+	 * 
+	 * @param postings
+	 * @return token info, whose posting list hides deleted documents
+	 */
+	protected TokenInfo createTokenInfo(PostingList postings) {
+		return new TokenInfoImpl(new LivePostingList(postings, this.deletedDocs), this.corpus);
+	}
 
-			/* number of token's document frequency */
-			double occurrences = tokenInfo.getTokenOccurrenceList().size();
+	/**
+	 * creation of an empty posting list in the configured representation
+	 * 
+	 * @return compressed or uncompressed posting list
+	 */
+	protected PostingList createPostingList() {
+		if (this.compressPostings) {
+			return new CompressedPostingList();
+		} else {
+			return new PostingListImpl();
+		}
+	}
+
+	/**
+	 * idf values, document lengths and upper bounds calculated without
+	 * changing the index, so queries use the old ones until all of them are
+	 * published by {@link InvertedIndexImpl#publish(Weights)}
+	 */
+	private static class Weights {
+
+		/** idf of every token */
+		private final Map<String, Double> idfs;
+
+		/** length of every document vector indexed by document id */
+		private final double[] docLengths;
+
+		/** maximal term frequency of every document indexed by document id */
+		private final int[] maximalFrequencies;
+
+		/** maximal normalized weight of every token */
+		private final Map<String, Double> upperBounds;
+
+		private Weights(int tokenCount, int docCount) {
+			this.idfs = new ConcurrentHashMap<>(tokenCount);
+			this.docLengths = new double[docCount];
+			this.maximalFrequencies = new int[docCount];
+			this.upperBounds = new ConcurrentHashMap<>(tokenCount);
+		}
+	}
+
+	/**
+	 * calculation of the idf values, document lengths and upper bounds from
+	 * the current postings and statistics, the index is not changed
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 * @return weights to publish
+	 */
+	private Weights calculateWeights(ForkJoinPool pool) {
+		Weights weights = new Weights(this.tokenHash.size(), this.corpus.size());
+		calculateIDF(pool, weights);
+		calculateDocumentLengths(pool, weights);
+		calculateUpperBounds(pool, weights);
+		return weights;
+	}
 
-			/* calculating and setting inverted documented frequency */
-			tokenInfo.setIdf(Math.log(this.getCorpusSize() / occurrences));
+	/**
+	 * replacing the idf values, document lengths and upper bounds by new ones
+	 * and discarding everything derived from the old ones
+	 * 
+	 * @param weights
+	 */
+	private void publish(Weights weights) {
+		for (Map.Entry<String, TokenInfo> entry : this.tokenHash.entrySet()) {
+			TokenInfo tokenInfo = entry.getValue();
+			tokenInfo.setIdf(weights.idfs.get(entry.getKey()));
+			tokenInfo.setUpperBound(weights.upperBounds.get(entry.getKey()));
+			((TokenInfoImpl) tokenInfo).resetTokenOccurrenceList();
 		}
+		this.docLengths = weights.docLengths;
+		this.maximalFrequencies = weights.maximalFrequencies;
+		for (int docId = 0; docId < weights.docLengths.length; docId++) {
+			if (!this.deletedDocs.get(docId)) {
+				((DocumentImpl) this.corpus.getDocument(docId)).setDocLength(weights.docLengths[docId]);
+			}
+		}
+
+		this.impactLists.clear();
+		this.documentSets.clear();
+		this.maximalTermFrequency = 0;
+		this.invertedIndex = "";
+	}
+
+	/**
+	 * calculation of idf for every token (analog to to slide 29, lecture 03),
+	 * disjoint sets of tokens are processed in parallel
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 * @param weights
+	 *            weights receiving the idf values
+	 */
+	private void calculateIDF(ForkJoinPool pool, Weights weights) {
+		double corpusSize = this.statistics.getCorpusSize();
+		forEachTokenInfo(pool, (token, tokenInfo) -> {
+
+			/* number of token's document frequency */
+			double occurrences = this.statistics.getDocumentFrequency(token);
+
+			/* calculating inverted documented frequency */
+			weights.idfs.put(token, Math.log(corpusSize / occurrences));
+		});
 	}
 
 	/**
 	 * calculation of the lengths of all documents' vectors (analog to slide 31,
-	 * lecture 03)
+	 * lecture 03). Every document length is calculated from the terms of the
+	 * document, so chunks of documents are processed in parallel and every
+	 * document length is written once.
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 * @param weights
+	 *            weights containing the idf values and receiving the
+	 *            document lengths
 	 */
-	private void calculateDocumentLengths() {
+	private void calculateDocumentLengths(ForkJoinPool pool, Weights weights) {
+		int chunkSize = getChunkSize(this.corpus.size(), pool);
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int from = 0; from < this.corpus.size(); from += chunkSize) {
+			int chunkStart = from;
+			int to = Math.min(from + chunkSize, this.corpus.size());
+			tasks.add(() -> {
+				for (int docId = chunkStart; docId < to; docId++) {
+
+					/* deleted documents keep length 0 */
+					if (this.deletedDocs.get(docId)) {
+						continue;
+					}
+
+					/* cast, because we were not allowed to extend interface */
+					DocumentImpl document = (DocumentImpl) this.corpus.getDocument(docId);
+					weights.maximalFrequencies[docId] = document.getMaximalFrequency();
+
+					/* summing squared weights of all terms of the document */
+					double docLength = 0.;
+					for (String term : document) {
+						double weight = weights.idfs.get(term) * document.getTF(term);
+						docLength += Math.pow(weight, 2);
+					}
+
+					/* length is root of the summed squared weights */
+					weights.docLengths[docId] = Math.sqrt(docLength);
+				}
+				return null;
+			});
+		}
+		invokeAll(pool, tasks);
+	}
 
-		/* iteration over all tokens */
-		for (String token : tokenHash.keySet()) {
+	/**
+	 * calculation of the maximal normalized weight of every token, used as
+	 * upper bound for the contribution of a token to a cosine similarity
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 * @param weights
+	 *            weights containing the idf values and document lengths and
+	 *            receiving the upper bounds
+	 */
+	private void calculateUpperBounds(ForkJoinPool pool, Weights weights) {
+		forEachTokenInfo(pool, (token, tokenInfo) -> {
+			double idf = weights.idfs.get(token);
+
+			/* maximum over all documents containing the token */
+			double upperBound = 0.;
+			PostingIterator posting = tokenInfo.getPostingList().iterator();
+			while (posting.next()) {
+				int docId = posting.getDocId();
+				if (weights.docLengths[docId] != 0.) {
+					double documentTF = (double) posting.getTermCount() / weights.maximalFrequencies[docId];
+					upperBound = Math.max(upperBound, idf * documentTF / weights.docLengths[docId]);
+				}
+			}
+			weights.upperBounds.put(token, upperBound);
+		});
+	}
 
-			/* getting token info of the current token */
-			TokenInfo tokenInfo = this.getTokenInfo(token);
+	/**
+	 * processing all tokens and their token infos, disjoint chunks of tokens in
+	 * parallel
+	 * 
+	 * @param pool
+	 *            pool executing the tasks
+	 * @param action
+	 *            action applied to every token and its token info
+	 */
+	private void forEachTokenInfo(ForkJoinPool pool, BiConsumer<String, TokenInfo> action) {
+		List<Map.Entry<String, TokenInfo>> tokenInfos = new ArrayList<>(this.tokenHash.entrySet());
+		int chunkSize = getChunkSize(tokenInfos.size(), pool);
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int from = 0; from < tokenInfos.size(); from += chunkSize) {
+			List<Map.Entry<String, TokenInfo>> chunk = tokenInfos.subList(from,
+					Math.min(from + chunkSize, tokenInfos.size()));
+			tasks.add(() -> {
+				for (Map.Entry<String, TokenInfo> entry : chunk) {
+					action.accept(entry.getKey(), entry.getValue());
+				}
+				return null;
+			});
+		}
+		invokeAll(pool, tasks);
+	}
 
-			/* iteration over all documents that contain current token */
-			for (TokenOccurrence tokenOccurence : tokenInfo.getTokenOccurrenceList()) {
+	/**
+	 * calculation of the size of the chunks, a few chunks per thread of the
+	 * pool to balance the load
+	 * 
+	 * @param numberOfElements
+	 *            number of elements to split
+	 * @param pool
+	 * @return chunk size
+	 */
+	private static int getChunkSize(int numberOfElements, ForkJoinPool pool) {
+		int numberOfChunks = 4 * pool.getParallelism();
+		return Math.max(MIN_CHUNK_SIZE, (numberOfElements + numberOfChunks - 1) / numberOfChunks);
+	}
 
-				/* getting current document */
-				/* cast, because we were not allowed to extend interface */
-				DocumentImpl document = (DocumentImpl) tokenOccurence.getDocument();
+	/**
+	 * executing tasks in the pool and waiting for their results
+	 * 
+	 * @param pool
+	 * @param tasks
+	 * @return results of the tasks in the order of the tasks
+	 */
+	private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+		List<T> results = new ArrayList<>(tasks.size());
+		for (Future<T> future : pool.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("index creation was interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("index creation failed", e.getCause());
+			}
+		}
+		return results;
+	}
 
-				/* getting last value for the length of this document */
-				double currentDocLenght = document.getDocLength();
+	@Override
+	public synchronized void addDocument(Document doc) {
 
-				/* increasing document's length */
-				double newDocLenght = currentDocLenght + Math.pow(tokenOccurence.getWeight(), 2);
+		/*
+		 * adding document to the corpus, which assigns the next id, also to a
+		 * removed document
+		 */
+		if (this.corpus.getDocId(doc) == -1) {
+			this.corpus.addDocument(doc);
+		}
+		int docId = this.corpus.getDocId(doc);
+		if (docId < this.maximalFrequencies.length) {
+			throw new IllegalArgumentException("document " + doc.getId() + " is already indexed");
+		}
 
-				/* setting new document's length */
-				document.setDocLength(newDocLenght);
+		/*
+		 * appending postings, the new id is greater than all ids in the
+		 * posting lists
+		 */
+		for (String token : doc) {
+			TokenInfo tokenInfo = this.tokenHash.get(token);
+			if (tokenInfo == null) {
+				tokenInfo = createTokenInfo();
+				this.tokenHash.put(token, tokenInfo);
+				this.termDictionary = null;
+				this.reversedTermDictionary = null;
 			}
+			addPosting(tokenInfo.getPostingList(), docId, doc, token);
 		}
 
-		/* iteration over all documents in the corpus */
-		for (Document document : this.corpus) {
+		/* reserving entries for the document, filled by refresh() */
+		this.docLengths = Arrays.copyOf(this.docLengths, this.corpus.size());
+		this.maximalFrequencies = Arrays.copyOf(this.maximalFrequencies, this.corpus.size());
+
+		this.outdated = true;
+	}
+
+	@Override
+	public synchronized boolean removeDocument(Document doc) {
 
-			/* cast, because we were not allowed to extend interface */
-			DocumentImpl currentDoc = (DocumentImpl) document;
+		/* only indexed documents that are not yet deleted can be removed */
+		int docId = this.corpus.getDocId(doc);
+		if (docId == -1 || docId >= this.maximalFrequencies.length || this.deletedDocs.get(docId)) {
+			return false;
+		}
 
-			double currentDocLength = currentDoc.getDocLength();
+		/* setting tombstone and updating document frequencies */
+		this.deletedDocs.set(docId);
+		this.corpus.removeDocument(doc);
+		for (String token : doc) {
+			((LivePostingList) this.tokenHash.get(token).getPostingList()).markDeleted();
+		}
 
-			/* length is root of the current stored length */
-			currentDoc.setDocLength(Math.sqrt(currentDocLength));
+		/* purging postings if there are many deleted documents since the last purge */
+		if (this.deletedDocs.cardinality() - this.purgedDocs >= PURGE_RATIO * this.corpus.size()) {
+			this.purgeDeletedDocuments();
 		}
+
+		this.outdated = true;
+		return true;
+	}
+
+	@Override
+	public synchronized void updateDocument(Document oldDoc, Document newDoc) {
+		this.removeDocument(oldDoc);
+		this.addDocument(newDoc);
+	}
+
+	/**
+	 * Removing the postings of all deleted documents from the posting lists
+	 * and tokens only occurring in deleted documents from the index. The ids
+	 * of the deleted documents are not reused. The posting lists are rebuilt,
+	 * so no query may run concurrently.
+	 */
+	public synchronized void purgeDeletedDocuments() {
+		Iterator<TokenInfo> tokenInfos = this.tokenHash.values().iterator();
+		while (tokenInfos.hasNext()) {
+			LivePostingList postingList = (LivePostingList) tokenInfos.next().getPostingList();
+			if (postingList.size() == 0) {
+				tokenInfos.remove();
+				this.termDictionary = null;
+				this.reversedTermDictionary = null;
+			} else {
+				postingList.purge(createPostingList());
+			}
+		}
+		this.purgedDocs = this.deletedDocs.cardinality();
+		this.outdated = true;
+	}
+
+	/**
+	 * recalculation of idf values, document lengths and upper bounds after
+	 * documents were added or removed. Queries running concurrently use the
+	 * old values until the new ones are published, other queries wait for
+	 * them.
+	 */
+	protected void refresh() {
+		/* checking flag without lock, so up to date indices are not blocked */
+		if (!this.outdated) {
+			return;
+		}
+		synchronized (this) {
+			if (this.outdated) {
+				recalculate();
+			}
+		}
+	}
+
+	/**
+	 * recalculation of everything derived from the weights of the tokens, the
+	 * lock has to be held
+	 */
+	private void recalculate() {
+		publish(calculateWeights(ForkJoinPool.commonPool()));
+
+		/* cleared last, so queries checking the flag see the published weights */
+		this.outdated = false;
+	}
+
+	/**
+	 * Return the corpus containing all documents of the index
+	 * 
+	 * @return
+	 */
+	public Corpus getCorpus() {
+		return this.corpus;
 	}
 
 	@Override
 	public int getCorpusSize() {
-		/* number of documents */
-		return this.corpus.size();
+		/* number of documents that are not deleted */
+		return this.corpus.size() - this.deletedDocs.cardinality();
+	}
+
+	@Override
+	public int getDocumentFrequency(String token) {
+		TokenInfo tokenInfo = this.tokenHash.get(token);
+		return tokenInfo == null ? 0 : tokenInfo.getPostingList().size();
+	}
+
+	/**
+	 * Setting the statistics the idf values are calculated from, e.g. the
+	 * statistics of all segments of an index. Idf values and document lengths
+	 * are recalculated with the next query.
+	 * 
+	 * @param statistics
+	 *            statistics of a collection containing the documents of this
+	 *            index
+	 */
+	public synchronized void setStatistics(CollectionStatistics statistics) {
+		this.statistics = statistics;
+		this.outdated = true;
+	}
+
+	/**
+	 * Marking idf values and document lengths as outdated, because the
+	 * statistics they are calculated from have changed
+	 */
+	public void invalidate() {
+		this.outdated = true;
 	}
 
 	@Override
 	public int getMaxFrequency() {
+		refresh();
 
 		if (this.maximalTermFrequency == 0) {
 			/*
@@ -159,9 +728,10 @@ public class InvertedIndexImpl implements InvertedIndex {
 				 * order to determine maximal frequency in a corpus' document of
 				 * this term
 				 */
-				for (TokenOccurrence occ : getTokenInfo(token).getTokenOccurrenceList()) {
+				PostingIterator posting = getTokenInfo(token).getPostingList().iterator();
+				while (posting.next()) {
 					/* frequency in the current document of the current token */
-					int newFrequency = occ.getDocument().getTermCount(token);
+					int newFrequency = posting.getTermCount();
 					/* determining whether new frequency is greater or not */
 					if (newFrequency > maxFrequencyOfCurrentTerm)
 						maxFrequencyOfCurrentTerm = newFrequency;
@@ -179,103 +749,716 @@ public class InvertedIndexImpl implements InvertedIndex {
 	}
 
 	/**
-	 * analog to slide 36 + 37, lecture 03
+	 * analog to slide 36 + 37, lecture 03, the scalar products are calculated
+	 * term-at-a-time in a score accumulator indexed by document id
 	 */
 	@Override
 	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query) {
+		refresh();
+
+		/* tf-idf values of the query */
+		return getCosineSimilarities(new QueryVector(query, this)).iterator();
+	}
+
+	/**
+	 * ranking of all documents containing a token of a query vector
+	 * 
+	 * @param queryVector
+	 * @return found documents ordered descending by similarity score
+	 */
+	protected SortedSet<SearchResultItem> getCosineSimilarities(QueryVector queryVector) {
 		/*
 		 * contains all found documents including similarities ordered by their
 		 * cosines similarity w.r.t. query
 		 */
 		SortedSet<SearchResultItem> results = new TreeSet<>();
 
-		/* mapping between document and cosines similarity score */
-		HashMap<Document, Double> similaritiesMap = new HashMap<>();
+		/* scalar products of the documents with the query */
+		ScoreAccumulator accumulator = this.accumulators.get();
+		try {
+			accumulateScalarProducts(queryVector, accumulator);
+
+			/* iteration over all found documents */
+			for (int i = 0; i < accumulator.getTouchedCount(); i++) {
+				int docId = accumulator.getTouchedDocId(i);
+
+				/* adding document and its similarity score to result list */
+				double score = getCosineSimilarity(accumulator.getScore(docId), queryVector, docId);
+				results.add(new SearchResultItemImpl(this.corpus.getDocument(docId), score));
+			}
+		} finally {
+
+			/* resetting accumulator for the next query of this thread */
+			accumulator.clear();
+		}
+
+		return results;
+	}
 
-		/* mapping between token and tf-idf values of the query */
-		HashMap<String, Double> queryMap = new HashMap<>();
+	/**
+	 * analog to getCosineSimilarities(String[]), but only the k best documents
+	 * are kept in a bounded heap instead of sorting all found documents.
+	 * Short queries are evaluated impact ordered, longer queries with MaxScore
+	 * pruning.
+	 */
+	@Override
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k) {
+		refresh();
 
-		/* counter for the most frequent token in the query */
-		double maxFrequency = 0.;
+		/* tf-idf values of the query */
+		QueryVector queryVector = new QueryVector(query, this);
 
-		/* determining frequency for every token in query */
-		for (String token : query) {
+		/* choice of evaluation depending on query length */
+		return getCosineSimilarities(queryVector, k, getEvaluation(queryVector)).iterator();
+	}
 
-			/* ignoring difference between upper and lower case */
-			token = token.toLowerCase();
+	/**
+	 * analog to getCosineSimilarities(String[], int), but documents
+	 * containing several query tokens close to each other are preferred: the
+	 * PROXIMITY_CANDIDATES * k best documents by cosine similarity are
+	 * re-ranked with their score multiplied by 1 + PROXIMITY_WEIGHT * (m - 1)
+	 * / span, where span is the minimal distance between the first and the
+	 * last position of a window containing all m query tokens of the document
+	 * (see {@link ProximityMatcher#getMinimalSpan(int[][], int[], int)}).
+	 * 
+	 * @param query
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @return Iterator for at most k SearchResultItems of query
+	 */
+	public Iterator<? extends SearchResultItem> getProximityRankedResults(String[] query, int k) {
+		refresh();
 
-			/* increasing counter of current token */
-			double tokenCounter = queryMap.getOrDefault(token, 0.) + 1;
+		/* tf-idf values of the query */
+		return getProximityRankedResults(new QueryVector(query, this), k).iterator();
+	}
 
-			if (maxFrequency < tokenCounter) {
-				/* determining maximal frequency of token in the query */
-				maxFrequency = tokenCounter;
+	/**
+	 * proximity ranking of a query vector
+	 * 
+	 * @param queryVector
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @return at most k search result items ordered descending by boosted
+	 *         similarity score
+	 */
+	protected List<SearchResultItem> getProximityRankedResults(QueryVector queryVector, int k) {
+		List<SearchResultItem> results = getCosineSimilarities(queryVector, PROXIMITY_CANDIDATES * k,
+				getEvaluation(queryVector));
+
+		/* visiting the candidates ascending by document id, so the cursors only move forward */
+		List<SearchResultItem> candidates = new ArrayList<>(results);
+		candidates.sort((first, second) -> Integer.compare(this.corpus.getDocId(first.getDocument()),
+				this.corpus.getDocId(second.getDocument())));
+		PostingIterator[] postings = new PostingIterator[queryVector.size()];
+		for (int i = 0; i < postings.length; i++) {
+			postings[i] = queryVector.getTokenInfo(i).getPostingList().iterator();
+		}
+		int[][] positions = new int[postings.length][16];
+		int[] counts = new int[postings.length];
+		for (SearchResultItem candidate : candidates) {
+			int docId = this.corpus.getDocId(candidate.getDocument());
+
+			/* positions of the query tokens contained in the document */
+			int m = 0;
+			for (PostingIterator posting : postings) {
+				if (posting.advance(docId) && posting.getDocId() == docId) {
+					if (positions[m].length < posting.getTermCount()) {
+						positions[m] = new int[posting.getTermCount()];
+					}
+					for (int j = 0; j < posting.getTermCount(); j++) {
+						positions[m][j] = posting.getPosition(j);
+					}
+					counts[m++] = posting.getTermCount();
+				}
+			}
+			if (m > 1) {
+				int span = ProximityMatcher.getMinimalSpan(positions, counts, m);
+				double boost = 1 + PROXIMITY_WEIGHT * (m - 1) / Math.max(span, m - 1);
+				candidate.setSimilarityScore(candidate.getSimilarityScore() * boost);
 			}
+		}
+
+		/* the k best documents by boosted score */
+		results.sort(null);
+		return results.subList(0, Math.min(k, results.size()));
+	}
 
-			/* adding token with new tokenCounter value */
-			queryMap.put(token, tokenCounter);
+	/**
+	 * choice of the evaluation strategy depending on query length
+	 * 
+	 * @param queryVector
+	 * @return impact ordered evaluation for short queries, MaxScore otherwise
+	 */
+	protected static Evaluation getEvaluation(QueryVector queryVector) {
+		if (queryVector.size() <= MAX_IMPACT_ORDERED_TOKENS) {
+			return Evaluation.IMPACT_ORDERED;
+		} else {
+			return Evaluation.MAX_SCORE;
 		}
+	}
 
-		/*
-		 * determining scalar product of all documents with the query, only
-		 * documents with at least one token contained by the query are regarded
-		 */
-		for (String token : queryMap.keySet()) {
+	/**
+	 * Return the k Documents with the highest cosine similarity for a query
+	 * using the given evaluation strategy, all strategies return the same
+	 * similarity scores
+	 * 
+	 * @param query
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @param evaluation
+	 *            strategy to evaluate the query
+	 * @return Iterator for at most k SearchResultItems of query
+	 */
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k, Evaluation evaluation) {
+		refresh();
+		return getCosineSimilarities(new QueryVector(query, this), k, evaluation).iterator();
+	}
+
+	/**
+	 * evaluation of a query vector with the given strategy
+	 * 
+	 * @param queryVector
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @param evaluation
+	 *            strategy to evaluate the query
+	 * @return at most k search result items ordered descending by similarity
+	 *         score
+	 */
+	protected List<SearchResultItem> getCosineSimilarities(QueryVector queryVector, int k, Evaluation evaluation) {
+
+		/* heap containing the k best documents */
+		TopKHeap topK = new TopKHeap(k);
+
+		switch (evaluation) {
+		case EXHAUSTIVE:
+			evaluateExhaustive(queryVector, topK);
+			break;
+		case MAX_SCORE:
+			evaluateMaxScore(queryVector, topK);
+			break;
+		case IMPACT_ORDERED:
+			evaluateImpactOrdered(queryVector, topK);
+			break;
+		}
+
+		return getSearchResults(topK);
+	}
+
+	/**
+	 * exhaustive term-at-a-time evaluation of a query, all found documents are
+	 * offered to the heap
+	 * 
+	 * @param queryVector
+	 * @param topK
+	 *            heap receiving the k best documents
+	 */
+	protected void evaluateExhaustive(QueryVector queryVector, TopKHeap topK) {
+
+		/* scalar products of the documents with the query */
+		ScoreAccumulator accumulator = this.accumulators.get();
+		try {
+			accumulateScalarProducts(queryVector, accumulator);
+
+			/* offering all found documents to the heap */
+			for (int i = 0; i < accumulator.getTouchedCount(); i++) {
+				int docId = accumulator.getTouchedDocId(i);
+				double score = getCosineSimilarity(accumulator.getScore(docId), queryVector, docId);
+				topK.offer(docId, score);
+			}
+		} finally {
+
+			/* resetting accumulator for the next query of this thread */
+			accumulator.clear();
+		}
+	}
+
+	/**
+	 * document-at-a-time evaluation of a query with MaxScore pruning: the
+	 * query tokens are sorted ascending by the upper bound of their
+	 * contribution. The tokens whose summed upper bounds cannot exceed the
+	 * score of the k-th best document are non-essential, only documents
+	 * containing an essential token are candidates and the postings of
+	 * non-essential tokens are only looked up while the candidate can still
+	 * reach the heap.
+	 * 
+	 * @param queryVector
+	 * @param topK
+	 *            heap receiving the k best documents
+	 */
+	protected void evaluateMaxScore(QueryVector queryVector, TopKHeap topK) {
+
+		/* number of query tokens occurring in the corpus */
+		int n = 0;
+		for (int i = 0; i < queryVector.size(); i++) {
+			if (queryVector.getTokenInfo(i).getPostingList().size() > 0) {
+				n++;
+			}
+		}
 
-			/* needed values to calculate tf-idf */
-			TokenInfo tokenInfo = this.getTokenInfo(token);
-			double idf = (tokenInfo.getTokenOccurrenceList().size() != 0) ? tokenInfo.getIdf() : 0.;
-			double tokenCounter = queryMap.get(token);
-			/* normalizing frequency of every token */
-			tokenCounter /= maxFrequency;
+		/* cursors, token infos and upper bounds of these tokens */
+		PostingIterator[] postings = new PostingIterator[n];
+		TokenInfo[] tokenInfos = new TokenInfo[n];
+		double[] queryWeights = new double[n];
+		double[] upperBounds = new double[n];
+		int j = 0;
+		for (int i = 0; i < queryVector.size(); i++) {
+			TokenInfo tokenInfo = queryVector.getTokenInfo(i);
+			if (tokenInfo.getPostingList().size() > 0) {
+				tokenInfos[j] = tokenInfo;
+				queryWeights[j] = queryVector.getWeight(i);
+				upperBounds[j] = getContribution(queryWeights[j], tokenInfo.getUpperBound(), queryVector);
+				j++;
+			}
+		}
+
+		/* insertion sort ascending by upper bound, queries are short */
+		for (int i = 1; i < n; i++) {
+			for (j = i; j > 0 && upperBounds[j - 1] > upperBounds[j]; j--) {
+				swap(tokenInfos, j, j - 1);
+				swap(queryWeights, j, j - 1);
+				swap(upperBounds, j, j - 1);
+			}
+		}
 
-			/* calculation of tf-idf value for current token */
-			queryMap.put(token, idf * tokenCounter);
+		/* summed upper bounds of the tokens 0 to i and current documents */
+		double[] summedUpperBounds = new double[n];
+		int[] currentDocIds = new int[n];
+		for (int i = 0; i < n; i++) {
+			summedUpperBounds[i] = (i > 0 ? summedUpperBounds[i - 1] : 0.) + upperBounds[i];
+			postings[i] = tokenInfos[i].getPostingList().iterator();
+			currentDocIds[i] = postings[i].next() ? postings[i].getDocId() : Integer.MAX_VALUE;
+		}
+
+		/* index of the first essential token */
+		int firstEssential = 0;
+
+		while (true) {
+
+			/* tokens that cannot lift a document into the heap on their own */
+			double threshold = topK.getThreshold();
+			while (firstEssential < n && summedUpperBounds[firstEssential] < threshold) {
+				firstEssential++;
+			}
+			if (firstEssential == n) {
+				break;
+			}
+
+			/* next candidate is the smallest document of an essential token */
+			int candidate = Integer.MAX_VALUE;
+			for (int i = firstEssential; i < n; i++) {
+				candidate = Math.min(candidate, currentDocIds[i]);
+			}
+			if (candidate == Integer.MAX_VALUE) {
+				break;
+			}
+
+			/* scoring candidate with the essential tokens */
+			double score = 0.;
+			for (int i = n - 1; i >= firstEssential; i--) {
+				if (currentDocIds[i] == candidate) {
+					score += getContribution(queryWeights[i], getNormalizedWeight(tokenInfos[i], postings[i]),
+							queryVector);
+					currentDocIds[i] = postings[i].next() ? postings[i].getDocId() : Integer.MAX_VALUE;
+				}
+			}
+
+			/*
+			 * adding contributions of non-essential tokens while the candidate
+			 * can still reach the heap
+			 */
+			for (int i = firstEssential - 1; i >= 0 && score + summedUpperBounds[i] >= threshold; i--) {
+				if (currentDocIds[i] < candidate) {
+					currentDocIds[i] = postings[i].advance(candidate) ? postings[i].getDocId() : Integer.MAX_VALUE;
+				}
+				if (currentDocIds[i] == candidate) {
+					score += getContribution(queryWeights[i], getNormalizedWeight(tokenInfos[i], postings[i]),
+							queryVector);
+				}
+			}
+
+			topK.offer(candidate, score);
+		}
+	}
+
+	/**
+	 * impact ordered evaluation of a query (threshold algorithm): the impact
+	 * lists of all query tokens are read in parallel descending by weight,
+	 * every newly seen document is scored completely by looking up its weights
+	 * in all impact lists. The evaluation stops as soon as the k-th best score
+	 * is greater than the summed contributions of the next entries of all
+	 * lists, because no unseen document can reach the heap anymore.
+	 * 
+	 * @param queryVector
+	 * @param topK
+	 *            heap receiving the k best documents
+	 */
+	protected void evaluateImpactOrdered(QueryVector queryVector, TopKHeap topK) {
+
+		/* impact lists and query weights of the tokens */
+		int n = queryVector.size();
+		ImpactList[] lists = new ImpactList[n];
+		double[] queryWeights = new double[n];
+		for (int i = 0; i < n; i++) {
+			lists[i] = getImpactList(queryVector.getToken(i), queryVector.getTokenInfo(i));
+			queryWeights[i] = queryVector.getWeight(i);
+		}
+
+		/* rank of the next entry to read in every list */
+		int[] ranks = new int[n];
+
+		/* accumulator of the current thread, used to mark seen documents */
+		ScoreAccumulator seen = this.accumulators.get();
+		try {
+			seen.ensureCapacity(this.corpus.size());
+
+			while (true) {
+
+				/* reading next entry of every list */
+				boolean entriesLeft = false;
+				for (int i = 0; i < n; i++) {
+					if (ranks[i] < lists[i].size()) {
+						entriesLeft = true;
+						int docId = lists[i].getDocIdByImpact(ranks[i]++);
+
+						/* scoring unseen document with random access to all lists */
+						if (!seen.isTouched(docId)) {
+							seen.add(docId, 0.);
+							double score = 0.;
+							for (int j = 0; j < n; j++) {
+								score += getContribution(queryWeights[j], lists[j].getWeight(docId), queryVector);
+							}
+							topK.offer(docId, score);
+						}
+					}
+				}
+				if (!entriesLeft) {
+					break;
+				}
+
+				/* maximal score of a document that has not been seen so far */
+				double remaining = 0.;
+				for (int i = 0; i < n; i++) {
+					if (ranks[i] < lists[i].size()) {
+						remaining += getContribution(queryWeights[i], lists[i].getWeightByImpact(ranks[i]), queryVector);
+					}
+				}
+
+				/* early termination */
+				if (topK.isFull() && topK.getThreshold() > remaining) {
+					break;
+				}
+			}
+		} finally {
+
+			/* resetting accumulator for the next query of this thread */
+			seen.clear();
+		}
+	}
+
+	/**
+	 * Return the set of ids of the documents containing a token, that are
+	 * not removed. The sets of the recently requested tokens are cached and
+	 * must not be modified.
+	 * 
+	 * @param token
+	 * @return set of document ids, empty for unknown tokens
+	 */
+	public RoaringBitmap getDocumentSet(String token) {
+		TokenInfo tokenInfo = getTokenInfo(token);
+		RoaringBitmap documentSet = this.documentSets.get(token);
+		if (documentSet == null) {
+			documentSet = RoaringBitmap.of(tokenInfo.getPostingList());
+
+			/* tokens not in the index are not cached */
+			if (!documentSet.isEmpty()) {
+				this.documentSets.put(token, documentSet);
+			}
+		}
+		return documentSet;
+	}
+
+	/**
+	 * Return the set of ids of all documents, that are not removed
+	 * 
+	 * @return
+	 */
+	public synchronized RoaringBitmap getLiveDocumentSet() {
+		RoaringBitmap deleted = new RoaringBitmap();
+		for (int docId = this.deletedDocs.nextSetBit(0); docId >= 0; docId = this.deletedDocs.nextSetBit(docId + 1)) {
+			deleted.add(docId);
+		}
+		return RoaringBitmap.range(this.corpus.size()).andNot(deleted);
+	}
+
+	/**
+	 * creation of a matcher for the documents containing a phrase
+	 * 
+	 * @param phrase
+	 *            terms of the phrase in lower case
+	 * @return matcher positioned before the first document
+	 */
+	protected PhraseMatcher createPhraseMatcher(List<String> phrase) {
+		List<PostingList> postingLists = new ArrayList<>();
+		for (String term : phrase) {
+			postingLists.add(getTokenInfo(term).getPostingList());
+		}
+		return new PhraseMatcher(postingLists);
+	}
+
+	/**
+	 * Return the impact ordered postings of a token, the lists of the recently
+	 * requested tokens are cached
+	 * 
+	 * @param token
+	 * @param tokenInfo
+	 *            token info of the token
+	 * @return impact list
+	 */
+	protected ImpactList getImpactList(String token, TokenInfo tokenInfo) {
+		ImpactList impactList = this.impactLists.get(token);
+		if (impactList == null) {
+
+			/* document ids and normalized weights of all postings */
+			int size = tokenInfo.getPostingList().size();
+			int[] docIds = new int[size];
+			double[] weights = new double[size];
+			PostingIterator posting = tokenInfo.getPostingList().iterator();
+			for (int i = 0; posting.next(); i++) {
+				docIds[i] = posting.getDocId();
+				weights[i] = getNormalizedWeight(tokenInfo, posting);
+			}
+
+			impactList = new ImpactList(docIds, weights);
+
+			/* tokens not in the index are not cached */
+			if (size > 0) {
+				this.impactLists.put(token, impactList);
+			}
+		}
+		return impactList;
+	}
+
+	/**
+	 * calculation of the contribution of a token to the cosine similarity
+	 * 
+	 * @param queryWeight
+	 *            tf-idf weight of the token in the query
+	 * @param normalizedWeight
+	 *            tf-idf weight of the token in the document divided by the
+	 *            document length
+	 * @param queryVector
+	 * @return contribution to the cosine similarity
+	 */
+	private static double getContribution(double queryWeight, double normalizedWeight, QueryVector queryVector) {
+		if (queryVector.getLength() > 0)
+			return queryWeight * normalizedWeight / queryVector.getLength();
+		return 0.;
+	}
+
+	/**
+	 * swapping two elements of an array
+	 */
+	private static <T> void swap(T[] array, int i, int j) {
+		T tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
+	/**
+	 * swapping two elements of an array
+	 */
+	private static void swap(double[] array, int i, int j) {
+		double tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
+	/**
+	 * creation of search result items for the documents of a heap
+	 * 
+	 * @param topK
+	 *            heap, that is emptied
+	 * @return search result items ordered descending by similarity score
+	 */
+	protected List<SearchResultItem> getSearchResults(TopKHeap topK) {
+		double[] scores = new double[topK.size()];
+		int[] docIds = topK.drainSorted(scores);
+
+		List<SearchResultItem> results = new ArrayList<>(docIds.length);
+		for (int i = 0; i < docIds.length; i++) {
+			results.add(new SearchResultItemImpl(this.corpus.getDocument(docIds[i]), scores[i]));
+		}
+		return results;
+	}
+
+	/**
+	 * determining scalar product of all documents with the query, only
+	 * documents with at least one token contained by the query are regarded.
+	 * The accumulator of the current thread has to be cleared in a finally
+	 * block after reading the scores.
+	 * 
+	 * @param queryVector
+	 * @param accumulator
+	 *            empty accumulator receiving the scalar products
+	 */
+	protected void accumulateScalarProducts(QueryVector queryVector, ScoreAccumulator accumulator) {
+		accumulator.ensureCapacity(this.corpus.size());
+
+		for (int i = 0; i < queryVector.size(); i++) {
+			TokenInfo tokenInfo = queryVector.getTokenInfo(i);
+			double queryWeight = queryVector.getWeight(i);
 
 			/* iteration over all documents that contain the current token */
-			for (TokenOccurrence tokenOccurrence : tokenInfo.getTokenOccurrenceList()) {
+			PostingIterator posting = tokenInfo.getPostingList().iterator();
+			while (posting.next()) {
 
 				/*
 				 * successive calculation of the scalar product between current
 				 * document and current token
 				 */
-				Document document = tokenOccurrence.getDocument();
-				double currentScore = similaritiesMap.getOrDefault(document, 0.);
-				double newScore = currentScore + queryMap.get(token) * tokenOccurrence.getWeight();
-				similaritiesMap.put(document, newScore);
+				accumulator.add(posting.getDocId(), queryWeight * getWeight(tokenInfo, posting));
 			}
 		}
+	}
 
-		/* calculation of the query vector length */
-		double queryLength = 0.;
-		for (double tokenTfIdf : queryMap.values()) {
-			queryLength += Math.pow(tokenTfIdf, 2);
-		}
-		queryLength = Math.sqrt(queryLength);
+	/**
+	 * calculation of cosines similarity between a document and query
+	 * 
+	 * @param scalarProduct
+	 *            scalar product of document and query vector
+	 * @param queryVector
+	 * @param docId
+	 * @return cosine similarity
+	 */
+	protected double getCosineSimilarity(double scalarProduct, QueryVector queryVector, int docId) {
+		if (queryVector.getLength() > 0)
+			return scalarProduct / (queryVector.getLength() * this.docLengths[docId]);
+		return scalarProduct;
+	}
 
-		/* iteration over all found documents */
-		for (Document document : similaritiesMap.keySet()) {
-			/* cast, because we were not allowed to extend interface */
-			DocumentImpl currentDoc = (DocumentImpl) document;
+	/**
+	 * calculation of the tf-idf weight of a token w.r.t. the document of the
+	 * current posting
+	 * 
+	 * @param tokenInfo
+	 *            token info of the token
+	 * @param posting
+	 *            posting list cursor positioned at a posting of the token
+	 * @return tf-idf weight
+	 */
+	protected double getWeight(TokenInfo tokenInfo, PostingIterator posting) {
 
-			/*
-			 * calculation of cosines similarity between current document and
-			 * query
-			 */
-			double score = similaritiesMap.get(document);
-			if (queryLength > 0)
-				score = score / (queryLength * currentDoc.getDocLength());
+		/* normalizing term frequency with maximal frequency of the document */
+		double documentTF = (double) posting.getTermCount() / this.maximalFrequencies[posting.getDocId()];
+
+		return tokenInfo.getIdf() * documentTF;
+	}
+
+	/**
+	 * calculation of the tf-idf weight of a token w.r.t. the document of the
+	 * current posting divided by the length of the document vector
+	 * 
+	 * @param tokenInfo
+	 *            token info of the token
+	 * @param posting
+	 *            posting list cursor positioned at a posting of the token
+	 * @return normalized tf-idf weight, 0 for documents of length 0
+	 */
+	protected double getNormalizedWeight(TokenInfo tokenInfo, PostingIterator posting) {
+		double docLength = this.docLengths[posting.getDocId()];
+		if (docLength == 0.)
+			return 0.;
+		return getWeight(tokenInfo, posting) / docLength;
+	}
+
+	/**
+	 * Return the dictionary of all tokens, it is created with the first
+	 * request after tokens were added or purged
+	 * 
+	 * @return dictionary, that may contain tokens only occurring in removed
+	 *         documents
+	 */
+	public TermDictionary getTermDictionary() {
+		refresh();
+		TermDictionary dictionary = this.termDictionary;
+		if (dictionary == null) {
+			synchronized (this) {
+				if (this.termDictionary == null) {
+					this.termDictionary = new TermDictionary(new TreeSet<>(this.tokenHash.keySet()));
+				}
+				dictionary = this.termDictionary;
+			}
+		}
+		return dictionary;
+	}
 
-			/* adding document and its similarity score to result list */
-			SearchResultItem result = new SearchResultItemImpl(document, score);
-			results.add(result);
+	/**
+	 * Return the dictionary of all reversed tokens, it is created with the
+	 * first request after tokens were added or purged
+	 * 
+	 * @return dictionary, that may contain tokens only occurring in removed
+	 *         documents
+	 */
+	public TermDictionary getReversedTermDictionary() {
+		TermDictionary dictionary = getTermDictionary();
+		TermDictionary reversedDictionary = this.reversedTermDictionary;
+		if (reversedDictionary == null) {
+			synchronized (this) {
+				if (this.reversedTermDictionary == null) {
+					SortedSet<String> reversedTerms = new TreeSet<>();
+					for (String term : dictionary.getTermsInRange("", null)) {
+						reversedTerms.add(WildcardPattern.reverse(term));
+					}
+					this.reversedTermDictionary = new TermDictionary(reversedTerms);
+				}
+				reversedDictionary = this.reversedTermDictionary;
+			}
 		}
+		return reversedDictionary;
+	}
+
+	@Override
+	public List<String> getTermsWithPrefix(String prefix) {
+		return removeDeletedTerms(getTermDictionary().getTermsWithPrefix(prefix));
+	}
+
+	@Override
+	public List<String> getTermsInRange(String from, String to) {
+		return removeDeletedTerms(getTermDictionary().getTermsInRange(from, to));
+	}
+
+	@Override
+	public List<String> getTermsMatching(String pattern, int maxExpansions) {
+		List<String> terms = new WildcardPattern(pattern).getMatchingTerms(getTermDictionary(),
+				getReversedTermDictionary());
+		return WildcardPattern.selectMostFrequent(terms, maxExpansions, this::getDocumentFrequency);
+	}
+
+	@Override
+	public List<String> getTermsWithinDistance(String term, int maxDistance, int maxExpansions) {
+		LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxDistance);
+		List<String> terms = automaton.getMatchingTerms(getTermDictionary());
+		return automaton.selectClosest(terms, maxExpansions, this::getDocumentFrequency);
+	}
 
-		return results.iterator();
+	/**
+	 * removing tokens, that only occur in removed documents
+	 * 
+	 * @param terms
+	 * @return remaining terms
+	 */
+	private List<String> removeDeletedTerms(List<String> terms) {
+		if (!this.deletedDocs.isEmpty()) {
+			terms.removeIf(term -> getDocumentFrequency(term) == 0);
+		}
+		return terms;
 	}
 
 	@Override
 	public TokenInfo getTokenInfo(String term) {
+		refresh();
 
 		/*
 		 * return token info present, otherwise creation of an empty token info
@@ -285,6 +1468,7 @@ public class InvertedIndexImpl implements InvertedIndex {
 
 	@Override
 	public String toString() {
+		refresh();
 		if (this.invertedIndex.equals("")) {
 			/* String representation of inverted index */
 			this.invertedIndex = "[\n";
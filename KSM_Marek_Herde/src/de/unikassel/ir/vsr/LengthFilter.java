@@ -0,0 +1,43 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * Filter removing terms, that are shorter or longer than given limits, e.g.
+ * single characters or long strings of digits and garbage of web pages
+ * 
+ * @author Marek Herde
+ */
+public class LengthFilter implements TokenFilter {
+
+	/** minimal number of characters of a term */
+	private int minLength;
+
+	/** maximal number of characters of a term */
+	private int maxLength;
+
+	/**
+	 * creation of a filter keeping terms within the limits
+	 * 
+	 * @param minLength
+	 *            minimal number of characters of a term, at least 1
+	 * @param maxLength
+	 *            maximal number of characters of a term
+	 */
+	public LengthFilter(int minLength, int maxLength) {
+		if (minLength < 1 || maxLength < minLength) {
+			throw new IllegalArgumentException("length limits " + minLength + ", " + maxLength);
+		}
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	public int filter(char[] buffer, int length) {
+		return length >= this.minLength && length <= this.maxLength ? length : 0;
+	}
+
+	@Override
+	public String getId() {
+		return "LengthFilter(" + this.minLength + "," + this.maxLength + ")";
+	}
+
+}
@@ -0,0 +1,267 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Automaton accepting all strings within a maximal Levenshtein distance of a
+ * term. A state is the row of the edit distance matrix for the characters
+ * read so far, limited to maxDistance + 1. A state, whose entries all exceed
+ * the maximal distance, cannot reach an accepting state anymore, so all
+ * terms starting with the characters read so far can be skipped. The
+ * automaton is walked over a sorted {@link TermDictionary}, so only the
+ * dictionary terms sharing a prefix with a possible match are visited.
+ * 
+ * @author Marek Herde
+ */
+public class LevenshteinAutomaton {
+
+	/** term to match */
+	private String term;
+
+	/** maximal number of insertions, deletions and substitutions */
+	private int maxDistance;
+
+	/**
+	 * creation of an automaton
+	 * 
+	 * @param term
+	 *            term to match
+	 * @param maxDistance
+	 *            maximal edit distance, at least 0
+	 */
+	public LevenshteinAutomaton(String term, int maxDistance) {
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("maximal distance has to be at least 0, but is " + maxDistance);
+		}
+		this.term = term;
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Return the start state, i.e. the state before reading a character
+	 * 
+	 * @return
+	 */
+	public int[] start() {
+		int[] state = new int[this.term.length() + 1];
+		for (int i = 0; i < state.length; i++) {
+			state[i] = Math.min(i, this.maxDistance + 1);
+		}
+		return state;
+	}
+
+	/**
+	 * Return the state reached by reading a character
+	 * 
+	 * @param state
+	 * @param c
+	 * @return new state
+	 */
+	public int[] step(int[] state, char c) {
+		int[] next = new int[state.length];
+		next[0] = Math.min(state[0] + 1, this.maxDistance + 1);
+		for (int i = 1; i < state.length; i++) {
+			int substitution = state[i - 1] + (this.term.charAt(i - 1) == c ? 0 : 1);
+			int distance = Math.min(substitution, Math.min(state[i] + 1, next[i - 1] + 1));
+			next[i] = Math.min(distance, this.maxDistance + 1);
+		}
+		return next;
+	}
+
+	/**
+	 * Return whether the characters read so far are within the maximal
+	 * distance of the term
+	 * 
+	 * @param state
+	 * @return
+	 */
+	public boolean isAccepting(int[] state) {
+		return state[state.length - 1] <= this.maxDistance;
+	}
+
+	/**
+	 * Return whether an accepting state can be reached from a state
+	 * 
+	 * @param state
+	 * @return
+	 */
+	public boolean canMatch(int[] state) {
+		for (int distance : state) {
+			if (distance <= this.maxDistance) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return the edit distance between the term and a string
+	 * 
+	 * @param string
+	 * @return distance or maxDistance + 1, if it exceeds the maximal distance
+	 */
+	public int getDistance(String string) {
+		int[] state = start();
+		for (int i = 0; i < string.length() && canMatch(state); i++) {
+			state = step(state, string.charAt(i));
+		}
+		return canMatch(state) ? state[state.length - 1] : this.maxDistance + 1;
+	}
+
+	/**
+	 * Return all terms of a dictionary within the maximal distance. The terms
+	 * are visited in ascending order keeping the states of their prefixes, so
+	 * a term only needs the steps for the characters it does not share with
+	 * its predecessor. If a prefix cannot match anymore, the walk continues
+	 * with the first term not starting with it.
+	 * 
+	 * @param dictionary
+	 * @return matching terms in ascending order
+	 */
+	public List<String> getMatchingTerms(TermDictionary dictionary) {
+		List<String> terms = new ArrayList<>();
+
+		/* states[i] is the state after reading the first i characters */
+		List<int[]> states = new ArrayList<>();
+		states.add(start());
+		String previous = "";
+
+		/* block of the current term, decoded once for all its terms */
+		List<String> block = null;
+		int blockIndex = -1;
+
+		int ordinal = 0;
+		while (ordinal < dictionary.size()) {
+			if (ordinal / TermDictionary.BLOCK_SIZE != blockIndex) {
+				blockIndex = ordinal / TermDictionary.BLOCK_SIZE;
+				block = dictionary.getBlock(blockIndex);
+			}
+			String current = block.get(ordinal % TermDictionary.BLOCK_SIZE);
+
+			/* reusing the states of the prefix shared with the previous term */
+			int shared = 0;
+			while (shared < Math.min(previous.length(), current.length()) && shared + 1 < states.size()
+					&& previous.charAt(shared) == current.charAt(shared)) {
+				shared++;
+			}
+			while (states.size() > shared + 1) {
+				states.remove(states.size() - 1);
+			}
+
+			/* reading the remaining characters until the prefix is dead */
+			int length = shared;
+			int[] state = states.get(length);
+			while (length < current.length() && canMatch(state)) {
+				state = step(state, current.charAt(length++));
+				states.add(state);
+			}
+			previous = current;
+
+			if (canMatch(state)) {
+				if (isAccepting(state)) {
+					terms.add(current);
+				}
+				ordinal++;
+			} else {
+				/* skipping all terms starting with the dead prefix */
+				String successor = getSuccessor(current.substring(0, length));
+				ordinal = successor == null ? dictionary.size() : dictionary.ceiling(successor);
+				states.remove(states.size() - 1);
+				previous = current.substring(0, length - 1);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Return the closest terms, terms with equal distance are ordered by
+	 * their document frequency
+	 * 
+	 * @param terms
+	 *            distinct terms
+	 * @param maxExpansions
+	 *            maximal number of terms to return
+	 * @param documentFrequency
+	 *            document frequency of a term, terms with frequency 0 are
+	 *            dropped
+	 * @return terms ordered by ascending distance
+	 */
+	public List<String> selectClosest(Collection<String> terms, int maxExpansions,
+			ToIntFunction<String> documentFrequency) {
+
+		/* distance and document frequency of every term are computed once */
+		List<Candidate> candidates = new ArrayList<>();
+		for (String term : terms) {
+			int frequency = documentFrequency.applyAsInt(term);
+			if (frequency > 0) {
+				candidates.add(new Candidate(term, getDistance(term), frequency));
+			}
+		}
+		candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.distance)
+				.thenComparing(Comparator.comparingInt((Candidate candidate) -> candidate.frequency).reversed())
+				.thenComparing(candidate -> candidate.term));
+
+		List<String> selected = new ArrayList<>();
+		for (Candidate candidate : candidates.subList(0, Math.min(maxExpansions, candidates.size()))) {
+			selected.add(candidate.term);
+		}
+		return selected;
+	}
+
+	/**
+	 * term with its sort keys
+	 */
+	private static class Candidate {
+
+		private final String term;
+
+		private final int distance;
+
+		private final int frequency;
+
+		private Candidate(String term, int distance, int frequency) {
+			this.term = term;
+			this.distance = distance;
+			this.frequency = frequency;
+		}
+	}
+
+	/**
+	 * Return the smallest string greater than all strings starting with a
+	 * prefix
+	 * 
+	 * @param prefix
+	 * @return successor or null, if there is none
+	 */
+	private static String getSuccessor(String prefix) {
+		int end = prefix.length();
+		while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+			end--;
+		}
+		if (end == 0) {
+			return null;
+		}
+		return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+	}
+
+	/**
+	 * Return the maximal edit distance used for a query term, that depends
+	 * on its length: 0 for up to 2, 1 for up to 5 and 2 for longer terms
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public static int getMaxDistance(String term) {
+		return term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+	}
+
+	@Override
+	public String toString() {
+		return this.term + "~" + this.maxDistance;
+	}
+
+}
@@ -0,0 +1,156 @@
+package de.unikassel.ir.vsr;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Posting list hiding the postings of deleted documents. Deleted documents
+ * are marked in a set of tombstones shared by all posting lists of an index,
+ * their postings stay in the underlying posting list until it is purged.
+ * 
+ * @author Marek Herde
+ */
+public class LivePostingList implements PostingList {
+
+	/** underlying posting list including postings of deleted documents */
+	private PostingList postings;
+
+	/** ids of deleted documents */
+	private BitSet deletedDocs;
+
+	/** number of postings belonging to deleted documents */
+	private int deletedCount = 0;
+
+	/**
+	 * constructor wrapping a posting list
+	 * 
+	 * @param postings
+	 *            underlying posting list
+	 * @param deletedDocs
+	 *            tombstones of the deleted documents
+	 */
+	public LivePostingList(PostingList postings, BitSet deletedDocs) {
+		this.postings = postings;
+		this.deletedDocs = deletedDocs;
+	}
+
+	@Override
+	public void addPosting(int docId, List<Integer> positions) {
+		this.postings.addPosting(docId, positions);
+	}
+
+	@Override
+	public void addPosting(int docId, int[] positions, int count) {
+		this.postings.addPosting(docId, positions, count);
+	}
+
+	/**
+	 * Return the number of postings of documents that are not deleted (=
+	 * document frequency of the token)
+	 */
+	@Override
+	public int size() {
+		return this.postings.size() - this.deletedCount;
+	}
+
+	@Override
+	public void trimToSize() {
+		this.postings.trimToSize();
+	}
+
+	/**
+	 * Counting a posting, whose document was marked as deleted
+	 */
+	public void markDeleted() {
+		this.deletedCount++;
+	}
+
+	/**
+	 * Return the number of postings of deleted documents
+	 * 
+	 * @return
+	 */
+	public int getDeletedCount() {
+		return this.deletedCount;
+	}
+
+	/**
+	 * Removing the postings of deleted documents by copying all other
+	 * postings into a new posting list
+	 * 
+	 * @param emptyList
+	 *            empty posting list replacing the underlying posting list
+	 */
+	public void purge(PostingList emptyList) {
+		if (this.deletedCount > 0) {
+			int[] positions = new int[16];
+			PostingIterator posting = this.iterator();
+			while (posting.next()) {
+				if (positions.length < posting.getTermCount()) {
+					positions = new int[2 * posting.getTermCount()];
+				}
+				for (int i = 0; i < posting.getTermCount(); i++) {
+					positions[i] = posting.getPosition(i);
+				}
+				emptyList.addPosting(posting.getDocId(), positions, posting.getTermCount());
+			}
+			emptyList.trimToSize();
+			this.postings = emptyList;
+			this.deletedCount = 0;
+		}
+	}
+
+	@Override
+	public PostingIterator iterator() {
+		PostingIterator postingIterator = this.postings.iterator();
+
+		/* without deleted postings no filtering is needed */
+		if (this.deletedCount == 0) {
+			return postingIterator;
+		}
+
+		return new PostingIterator() {
+
+			@Override
+			public boolean next() {
+				/* skipping postings of deleted documents */
+				while (postingIterator.next()) {
+					if (!deletedDocs.get(postingIterator.getDocId())) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public boolean advance(int target) {
+				if (!postingIterator.advance(target)) {
+					return false;
+				}
+				/* skipping postings of deleted documents */
+				while (deletedDocs.get(postingIterator.getDocId())) {
+					if (!postingIterator.next()) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public int getDocId() {
+				return postingIterator.getDocId();
+			}
+
+			@Override
+			public int getTermCount() {
+				return postingIterator.getTermCount();
+			}
+
+			@Override
+			public int getPosition(int i) {
+				return postingIterator.getPosition(i);
+			}
+		};
+	}
+
+}
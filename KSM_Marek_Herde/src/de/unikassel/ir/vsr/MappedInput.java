@@ -0,0 +1,106 @@
+package de.unikassel.ir.vsr;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor reading values of an index file (see {@link IndexFile}) from a
+ * buffer. Only absolute reads are used, so the cursors of several threads
+ * may share one buffer.
+ * 
+ * @author Marek Herde
+ */
+class MappedInput {
+
+	/** buffer containing the index file */
+	private final ByteBuffer buffer;
+
+	/** offset of the next byte to read */
+	private int offset;
+
+	/**
+	 * constructor of a cursor
+	 * 
+	 * @param buffer
+	 *            buffer containing the index file
+	 * @param offset
+	 *            offset of the first byte to read
+	 */
+	MappedInput(ByteBuffer buffer, int offset) {
+		this.buffer = buffer;
+		this.offset = offset;
+	}
+
+	/**
+	 * Return the offset of the next byte to read
+	 * 
+	 * @return
+	 */
+	int getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * Moving the cursor to an offset
+	 * 
+	 * @param offset
+	 */
+	void seek(int offset) {
+		this.offset = offset;
+	}
+
+	/**
+	 * decoding a variable byte encoded value (see
+	 * {@link CompressedPostingList})
+	 * 
+	 * @return
+	 */
+	int readVByte() {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = this.buffer.get(this.offset++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	byte readByte() {
+		return this.buffer.get(this.offset++);
+	}
+
+	int readInt() {
+		int value = this.buffer.getInt(this.offset);
+		this.offset += Integer.BYTES;
+		return value;
+	}
+
+	long readLong() {
+		long value = this.buffer.getLong(this.offset);
+		this.offset += Long.BYTES;
+		return value;
+	}
+
+	double readDouble() {
+		double value = this.buffer.getDouble(this.offset);
+		this.offset += Double.BYTES;
+		return value;
+	}
+
+	/**
+	 * decoding a string stored as variable byte encoded length followed by
+	 * its UTF-8 bytes
+	 * 
+	 * @return
+	 */
+	String readString() {
+		byte[] bytes = new byte[readVByte()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = this.buffer.get(this.offset++);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,216 @@
+package de.unikassel.ir.vsr;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Read-only posting list of an index file (see {@link IndexFile}), that is
+ * decoded directly from the memory mapped file. The postings of a token are
+ * stored in a posting block as
+ * 
+ * <pre>
+ * docIdGap termCount positionsLength
+ * </pre>
+ * 
+ * and the position gaps of all postings in a separate position block, where
+ * positionsLength is the number of bytes of the position gaps of a posting.
+ * All values are variable byte encoded, so iterating the documents of the
+ * token does not touch its positions. The posting block starts with a skip
+ * pointer for every {@value #SKIP_INTERVAL} postings, i.e. three ints: the
+ * document id of the posting before the skip target and the offsets of the
+ * target within the postings and the position block, so
+ * {@link PostingIterator#advance(int)} jumps over whole intervals of
+ * postings.
+ * 
+ * @author Marek Herde
+ */
+public class MappedPostingList implements PostingList {
+
+	/** number of postings between two skip pointers */
+	public static final int SKIP_INTERVAL = 64;
+
+	/** number of bytes of a skip pointer */
+	private static final int SKIP_ENTRY_SIZE = 3 * Integer.BYTES;
+
+	/** buffer containing the index file */
+	private ByteBuffer buffer;
+
+	/** offset of the skip pointers at the start of the posting block */
+	private int skipOffset;
+
+	/** number of skip pointers */
+	private int skipCount;
+
+	/** offset of the postings behind the skip pointers */
+	private int postingsOffset;
+
+	/** offset of the position block */
+	private int positionsOffset;
+
+	/** number of postings */
+	private int size;
+
+	/**
+	 * constructor of a posting list stored in a buffer
+	 * 
+	 * @param buffer
+	 *            buffer containing the index file
+	 * @param postingsOffset
+	 *            offset of the posting block
+	 * @param positionsOffset
+	 *            offset of the position block
+	 * @param size
+	 *            number of postings
+	 */
+	public MappedPostingList(ByteBuffer buffer, int postingsOffset, int positionsOffset, int size) {
+		this.buffer = buffer;
+		this.skipOffset = postingsOffset;
+		this.skipCount = size > 0 ? (size - 1) / SKIP_INTERVAL : 0;
+		this.postingsOffset = postingsOffset + this.skipCount * SKIP_ENTRY_SIZE;
+		this.positionsOffset = positionsOffset;
+		this.size = size;
+	}
+
+	@Override
+	public void addPosting(int docId, List<Integer> positions) {
+		throw new UnsupportedOperationException("postings of an index file are read-only");
+	}
+
+	@Override
+	public void addPosting(int docId, int[] positions, int count) {
+		throw new UnsupportedOperationException("postings of an index file are read-only");
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void trimToSize() {
+		/* postings are stored in the file */
+	}
+
+	/**
+	 * Return the document id of the posting before the target of a skip
+	 * pointer
+	 * 
+	 * @param skip
+	 *            index of the skip pointer
+	 * @return
+	 */
+	private int getSkipDocId(int skip) {
+		return this.buffer.getInt(this.skipOffset + skip * SKIP_ENTRY_SIZE);
+	}
+
+	@Override
+	public PostingIterator iterator() {
+		return new PostingIterator() {
+
+			/* cursors in the posting and position block */
+			private MappedInput postings = new MappedInput(buffer, postingsOffset);
+			private MappedInput positionsInput = new MappedInput(buffer, positionsOffset);
+
+			/* number of decoded postings */
+			private int decoded = 0;
+
+			/* values of the current posting */
+			private int docId = -1;
+			private int termCount = 0;
+
+			/* offset of the current posting's position gaps */
+			private int currentPositionsOffset = 0;
+
+			/* offset of the next posting's position gaps */
+			private int nextPositionsOffset = positionsOffset;
+
+			/* decoded positions of the current posting, filled on demand */
+			private int[] positions = new int[0];
+			private boolean positionsDecoded = false;
+
+			@Override
+			public boolean next() {
+				if (this.decoded == size) {
+					return false;
+				}
+				this.docId += this.postings.readVByte();
+				this.termCount = this.postings.readVByte();
+
+				/* skipping positions, they are decoded only if requested */
+				this.currentPositionsOffset = this.nextPositionsOffset;
+				this.nextPositionsOffset += this.postings.readVByte();
+				this.positionsDecoded = false;
+
+				this.decoded++;
+				return true;
+			}
+
+			@Override
+			public boolean advance(int target) {
+
+				if (this.decoded > 0 && this.docId >= target) {
+					return true;
+				}
+
+				/*
+				 * jumping to the last skip pointer ahead, whose preceding
+				 * document is below the target
+				 */
+				int skip = this.decoded / SKIP_INTERVAL;
+				if (skip < skipCount && getSkipDocId(skip) < target) {
+					int low = skip;
+					int high = skipCount - 1;
+					while (low < high) {
+						int middle = (low + high + 1) >>> 1;
+						if (getSkipDocId(middle) < target) {
+							low = middle;
+						} else {
+							high = middle - 1;
+						}
+					}
+					int entry = skipOffset + low * SKIP_ENTRY_SIZE;
+					this.docId = buffer.getInt(entry);
+					this.postings.seek(postingsOffset + buffer.getInt(entry + Integer.BYTES));
+					this.nextPositionsOffset = positionsOffset + buffer.getInt(entry + 2 * Integer.BYTES);
+					this.decoded = (low + 1) * SKIP_INTERVAL;
+				}
+
+				/* decoding postings one after another until target is reached */
+				while (next()) {
+					if (this.docId >= target) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public int getDocId() {
+				return this.docId;
+			}
+
+			@Override
+			public int getTermCount() {
+				return this.termCount;
+			}
+
+			@Override
+			public int getPosition(int i) {
+				if (!this.positionsDecoded) {
+					if (this.positions.length < this.termCount) {
+						this.positions = new int[Math.max(this.termCount, 2 * this.positions.length)];
+					}
+					this.positionsInput.seek(this.currentPositionsOffset);
+					int position = 0;
+					for (int j = 0; j < this.termCount; j++) {
+						position += this.positionsInput.readVByte();
+						this.positions[j] = position;
+					}
+					this.positionsDecoded = true;
+				}
+				return this.positions[i];
+			}
+		};
+	}
+
+}
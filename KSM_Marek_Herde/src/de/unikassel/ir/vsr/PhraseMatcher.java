@@ -0,0 +1,76 @@
+package de.unikassel.ir.vsr;
+
+import java.util.List;
+
+/**
+ * Cursor over the documents containing a phrase. The postings are
+ * intersected by document id first, so only the positions of documents
+ * containing all terms are compared (see {@link PositionalMatcher}): since
+ * the positions of every term are ascending, the position of the i-th term
+ * following a start position is searched from the one found for the
+ * previous start position, so a document costs linear time in its number of
+ * positions. A component of the phrase may also be a pair of terms (see
+ * {@link BiwordIndex}), that is expected at an offset from the start.
+ * 
+ * @author Marek Herde
+ */
+public class PhraseMatcher extends PositionalMatcher {
+
+	/** offset of every component from the start of the phrase */
+	private int[] offsets;
+
+	/**
+	 * creation of a cursor positioned before the first document containing
+	 * the phrase
+	 * 
+	 * @param postingLists
+	 *            posting lists of the terms in the order of the phrase, a
+	 *            term occurring several times has the same posting list
+	 */
+	public PhraseMatcher(List<? extends PostingList> postingLists) {
+		super(postingLists);
+		this.offsets = new int[postingLists.size()];
+		for (int i = 0; i < this.offsets.length; i++) {
+			this.offsets[i] = i;
+		}
+	}
+
+	/**
+	 * creation of a cursor positioned before the first document containing
+	 * the components of a phrase at the given offsets
+	 * 
+	 * @param postingLists
+	 *            posting lists of the components of the phrase
+	 * @param offsets
+	 *            ascending offsets of the components from the start of the
+	 *            phrase, the first offset is 0
+	 */
+	public PhraseMatcher(List<? extends PostingList> postingLists, int[] offsets) {
+		super(postingLists);
+		this.offsets = offsets.clone();
+	}
+
+	@Override
+	protected void match() {
+		/* pointers[i] only moves forward */
+		int[] pointers = new int[size()];
+		for (int j = 0; j < this.counts[0]; j++) {
+			int start = this.positions[0][j];
+			boolean match = true;
+			for (int i = 1; i < size() && match; i++) {
+				while (pointers[i] < this.counts[i] && this.positions[i][pointers[i]] < start + this.offsets[i]) {
+					pointers[i]++;
+				}
+				if (pointers[i] == this.counts[i]) {
+					/* no further occurrence in this document */
+					return;
+				}
+				match = this.positions[i][pointers[i]] == start + this.offsets[i];
+			}
+			if (match) {
+				addMatch(start);
+			}
+		}
+	}
+
+}
@@ -2,13 +2,15 @@ package de.unikassel.ir.vsr;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class PhraseSearchIndex extends InvertedIndexImpl implements PhraseSearch {
 
+	/** index of pairs of frequent terms, null if there is none */
+	protected volatile BiwordIndex biwordIndex;
+
 	@Override
 	public Map<Document, List<Integer>> searchPhrase(List<String> phrase) {
 
@@ -19,104 +21,23 @@ public class PhraseSearchIndex extends InvertedIndexImpl implements PhraseSearch
 		if (phrase == null || phrase.isEmpty())
 			return result;
 
-		/*
-		 * creating list for every term in phrase, lists are sorted after
-		 * document and position
-		 */
-		List<List<Pair>> lists = this.createSortedLists(phrase);
-
-		/* if no possible phrase was found -> return */
-		if (lists.isEmpty()) {
-			return result;
+		/* ignoring capitalization */
+		List<String> terms = new ArrayList<>();
+		for (String token : phrase) {
+			terms.add(token.toLowerCase());
 		}
-	
-		/* pointers as index referencing pair in a term's list */
-		int[] pointers = new int[phrase.size()];
-		Arrays.fill(pointers, 0);
-
-		/* itertation over all possible positions of the phrase's first term */
-		while (pointers[0] < lists.get(0).size()) {
-
-			/* match as base */
-			boolean match = true;
-
-			/*
-			 * iteration over the all terms apart from the first in the phrase
-			 */
-			for (int j = 1; j < pointers.length; j++) {
-
-				/*
-				 * pairs of the j-1./j. term's list at index pointers[j -
-				 * 1]/pointers[j]
-				 */
-				Pair pair_j_1 = lists.get(j - 1).get(pointers[j - 1]);
-				Pair pair_j = lists.get(j).get(pointers[j]);
-
-				/* document id's of the above pairs */
-				String dk_j_1 = pair_j_1.getDocument().getId().toString();
-				String dk_j = pair_j.getDocument().getId().toString();
-
-				/* positions of the above pairs */
-				int pk_j_1 = pair_j_1.getPosition();
-				int pk_j = pair_j.getPosition();
-
-				/*
-				 * while there is no match between the documents or the current
-				 * document of the j. term has lower order than the current
-				 * document of j-1. terms, look for next pair of position and
-				 * document in j. term list
-				 */
-				while (!(dk_j.compareTo(dk_j_1) > 0 || (dk_j.equals(dk_j_1) && pk_j >= pk_j_1 + 1))) {
-					/* if we have not reached end of j. term list */
-					if (pointers[j] < lists.get(j).size() - 1) {
-						/* increasing pointer of j. term */
-						pointers[j]++;
-						/*
-						 * setting new values for pair and corresponding
-						 * document as well as position
-						 */
-						pair_j = lists.get(j).get(pointers[j]);
-						dk_j = pair_j.getDocument().getId().toString();
-						pk_j = pair_j.getPosition();
-					} else {
-						/*
-						 * if the document of the j-1. token has a higher order
-						 * and we have already reached the end of the list of
-						 * the j. token, we can return result, because there
-						 * can't be a further match
-						 */
-						return result;
-					}
-				}
-
-				/*
-				 * documents are different or the positions are not successive
-				 * -> no match
-				 */
-				if (!dk_j.equals(dk_j_1) || pk_j != pk_j_1 + 1) {
-					match = false;
-					break;
-				}
-			}
 
-			/*
-			 * no mismatch -> add found document with first position of phrase
-			 */
-			if (match) {
-				/* get pair of first term */
-				Pair resultPair = lists.get(0).get(pointers[0]);
-
-				/*
-				 * adding new position and add document with updated positions
-				 * to result
-				 */
-				List<Integer> positions = result.getOrDefault(resultPair.getDocument(), new ArrayList<Integer>());
-				positions.add(resultPair.getPosition());
-				result.put(resultPair.getDocument(), positions);
+		/*
+		 * intersecting the postings by document id and comparing the
+		 * positions only in the documents containing all terms
+		 */
+		PhraseMatcher matcher = createPhraseMatcher(terms);
+		while (matcher.next()) {
+			List<Integer> positions = new ArrayList<>(matcher.getTermCount());
+			for (int i = 0; i < matcher.getTermCount(); i++) {
+				positions.add(matcher.getPosition(i));
 			}
-
-			/* go for next entry of first term's list */
-			pointers[0]++;
+			result.put(this.corpus.getDocument(matcher.getDocId()), positions);
 		}
 
 		return result;
@@ -124,118 +45,162 @@ public class PhraseSearchIndex extends InvertedIndexImpl implements PhraseSearch
 	}
 
 	/**
-	 * Creating a list of lists of pairs sorted by document id and position
-	 * 
-	 * @param phrase
-	 *            determine number of lists and content of these lists
-	 * @return list of lists sorted after document id and position of a pair
+	 * creation of a matcher for a phrase, adjacent terms whose pair is
+	 * contained in the biword index are matched by the postings of the pair
 	 */
-	private List<List<Pair>> createSortedLists(List<String> phrase) {
-
-		/* list that contains all sorted lists */
-		List<List<Pair>> lists = new ArrayList<>();
-
-		/* for every token in phrase create list */
-		for (String token : phrase) {
-
-			/* ignoring capitalization */
-			token = token.toLowerCase();
-
-			/*
-			 * if invertedIndex does not contain that token, phrase is not in
-			 * corpus
-			 */
-			if (this.tokenHash.get(token) == null) {
-				return new ArrayList<>();
-			}
-
-			/*
-			 * contains the pairs of document and position regarding the current
-			 * token
-			 */
-			List<Pair> sortedList = new ArrayList<>();
-
-			/* filling sortedList with these pairs of document and position */
-			for (TokenOccurrence occ : this.tokenHash.get(token).getTokenOccurrenceList()) {
-				/*
-				 * adding for every position in document a pair of this document
-				 * and position to list
-				 */
-				for (int position : occ.getPositions()) {
-					sortedList.add(new Pair(occ.getDocument(), position));
-				}
+	@Override
+	protected PhraseMatcher createPhraseMatcher(List<String> phrase) {
+		BiwordIndex biwordIndex = this.biwordIndex;
+		if (biwordIndex == null) {
+			return super.createPhraseMatcher(phrase);
+		}
+		refresh();
+
+		/* components of the phrase and their offsets from its start */
+		List<PostingList> postingLists = new ArrayList<>();
+		int[] offsets = new int[phrase.size()];
+		int i = 0;
+		while (i < phrase.size()) {
+			offsets[postingLists.size()] = i;
+			PostingList pair = i + 1 < phrase.size() ? biwordIndex.getPostingList(phrase.get(i), phrase.get(i + 1))
+					: null;
+			if (pair != null) {
+				postingLists.add(pair);
+				i += 2;
+			} else {
+				postingLists.add(getTokenInfo(phrase.get(i)).getPostingList());
+				i++;
 			}
-
-			/* sorting list regarding comparedTo() in class Pair */
-			Collections.sort(sortedList);
-
-			lists.add(sortedList);
 		}
-
-		return lists;
-
+		return new PhraseMatcher(postingLists, Arrays.copyOf(offsets, postingLists.size()));
 	}
 
 	/**
-	 * Class representing datastructure to store document and position of a
-	 * term.
+	 * Building an index of the pairs of adjacent frequent terms, that is used
+	 * by phrase searches and kept up to date when documents are added or
+	 * removed (see {@link BiwordIndex})
 	 * 
-	 * @author marekherde
-	 *
+	 * @param frequentTerms
+	 *            number of terms with the highest document frequency, whose
+	 *            pairs are indexed
+	 * @param maxPositions
+	 *            maximal number of positions of all pairs
 	 */
-	private class Pair implements Comparable<Pair> {
+	public synchronized void buildBiwordIndex(int frequentTerms, long maxPositions) {
+		refresh();
+		List<String> tokens = new ArrayList<>(this.tokenHash.keySet());
+		tokens.sort((first, second) -> Integer.compare(getDocumentFrequency(second), getDocumentFrequency(first)));
+		this.biwordIndex = new BiwordIndex(this, tokens.subList(0, Math.min(frequentTerms, tokens.size())),
+				maxPositions, this.deletedDocs, this::createPostingList);
+	}
 
-		private Document doc;
-		private int position;
+	/**
+	 * Return the index of pairs of frequent terms
+	 * 
+	 * @return biword index or null, if it was not built
+	 */
+	public BiwordIndex getBiwordIndex() {
+		return this.biwordIndex;
+	}
 
-		public Pair(Document doc, int position) {
-			this.doc = doc;
-			this.position = position;
+	@Override
+	public synchronized void addDocument(Document doc) {
+		super.addDocument(doc);
+		if (this.biwordIndex != null) {
+			this.biwordIndex.addDocument(this.corpus.getDocId(doc), doc);
 		}
+	}
 
-		public Document getDocument() {
-			return this.doc;
+	@Override
+	public synchronized boolean removeDocument(Document doc) {
+		boolean removed = super.removeDocument(doc);
+		if (removed && this.biwordIndex != null) {
+			this.biwordIndex.removeDocument(doc);
 		}
+		return removed;
+	}
 
-		public int getPosition() {
-			return this.position;
+	@Override
+	public synchronized void purgeDeletedDocuments() {
+		super.purgeDeletedDocuments();
+		if (this.biwordIndex != null) {
+			this.biwordIndex.purgeDeletedDocuments();
 		}
+	}
 
-		@Override
-		public int compareTo(Pair o) {
-			/* comparison of document ids */
-			int comp = this.getDocument().getId().compareTo(o.getDocument().getId());
+	/**
+	 * Constructor based on super constructor of InvertedIndexImpl
+	 * 
+	 * @param corpus
+	 */
+	public PhraseSearchIndex(Corpus corpus) {
+		super(corpus);
+	}
 
-			/* not equal -> ascending lexicographically order */
-			if (comp != 0) {
-				return comp;
-			} else {
-				/* ascending order of positions */
-				return this.getPosition() > o.getPosition() ? +1 : this.getPosition() < o.getPosition() ? -1 : 0;
-			}
-		}
+	/**
+	 * Constructor based on super constructor of InvertedIndexImpl
+	 * 
+	 * @param corpus
+	 * @param compressPostings
+	 *            if true, postings and positions are stored compressed
+	 */
+	public PhraseSearchIndex(Corpus corpus, boolean compressPostings) {
+		super(corpus, compressPostings);
+	}
 
-		@Override
-		public String toString() {
-			return "(" + this.getDocument().getId() + ", " + this.getPosition() + ")";
-		}
+	/**
+	 * Constructor based on super constructor of InvertedIndexImpl, whose idf
+	 * values are calculated from the statistics of a larger collection
+	 * 
+	 * @param corpus
+	 * @param compressPostings
+	 *            if true, postings and positions are stored compressed
+	 * @param statistics
+	 *            statistics of a collection containing the documents of this
+	 *            index
+	 */
+	public PhraseSearchIndex(Corpus corpus, boolean compressPostings, CollectionStatistics statistics) {
+		super(corpus, compressPostings, statistics);
+	}
 
+	/**
+	 * Constructor based on super constructor of InvertedIndexImpl, that also
+	 * builds an index of pairs of frequent terms to speed up phrase searches
+	 * (see {@link #buildBiwordIndex(int, long)})
+	 * 
+	 * @param corpus
+	 * @param compressPostings
+	 *            if true, postings and positions are stored compressed
+	 * @param frequentTerms
+	 *            number of terms with the highest document frequency, whose
+	 *            pairs are indexed
+	 * @param maxBiwordPositions
+	 *            maximal number of positions of all pairs
+	 */
+	public PhraseSearchIndex(Corpus corpus, boolean compressPostings, int frequentTerms, long maxBiwordPositions) {
+		super(corpus, compressPostings);
+		buildBiwordIndex(frequentTerms, maxBiwordPositions);
 	}
 
 	/**
-	 * Constructor based on super constructor of InvertedIndexImpl
+	 * Constructor of an index read from a file (see {@link IndexFile})
 	 * 
 	 * @param corpus
+	 * @param docLengths
+	 *            length of every document vector indexed by document id
+	 * @param maximalFrequencies
+	 *            maximal term frequency of every document indexed by document
+	 *            id
 	 */
-	public PhraseSearchIndex(Corpus corpus) {
-		super(corpus);
+	protected PhraseSearchIndex(Corpus corpus, double[] docLengths, int[] maximalFrequencies) {
+		super(corpus, docLengths, maximalFrequencies);
 	}
 
 	@Override
 	public Map<Document, List<Integer>> searchPhrase(String phrase) {
 
-		/* splitting phrase regarding blank */
-		String[] terms = phrase.toLowerCase().trim().replaceAll("[^A-Za-z0-9 -]", "").split("\\s+|-");
+		/* analyzing phrase like the text of the documents */
+		String[] terms = this.corpus.getAnalyzer().split(phrase);
 
 		/* call searchPhrase() with list of terms */
 		return this.searchPhrase(Arrays.asList(terms));
@@ -244,32 +209,32 @@ public class PhraseSearchIndex extends InvertedIndexImpl implements PhraseSearch
 
 	@Override
 	public List<String> getContext(String phrase, Document doc, int pos) {
-		/* splitting phrase in terms */
-		String[] terms = phrase.trim().split("\\s+");
+		/* number of terms of the analyzed phrase, at least the term at pos */
+		int length = Math.max(1, this.corpus.getAnalyzer().split(phrase).length);
 
-		/* cast to get term index of document */
+		/* cast to get the terms of the document by their positions */
 		DocumentImpl document = (DocumentImpl) doc;
-		List<String> allTerms = document.allTerms;
 
 		/* start and end positions before phrase */
 		int beforeEndPosition = pos - 1;
 		int beforeStartPosition = Math.max(0, beforeEndPosition - 4);
 		/* start and end positions after phrase */
-		int afterStartPosition = pos + terms.length;
-		int afterEndPosition = Math.min(allTerms.size() - 1, afterStartPosition + 4);
+		int afterStartPosition = pos + length;
+		int afterEndPosition = Math.min(document.size() - 1, afterStartPosition + 4);
 
 		StringBuilder before = new StringBuilder();
 		StringBuilder after = new StringBuilder();
 
+		/* terms are shown as surface forms instead of stems */
 		/* iteration over the terms before phrase */
-		for (int i = beforeStartPosition; i <= beforeEndPosition && i < allTerms.size(); i++) {
-			before.append(allTerms.get(i));
+		for (int i = beforeStartPosition; i <= beforeEndPosition && i < document.size(); i++) {
+			before.append(document.getSurfaceForm(i));
 			before.append(" ");
 		}
 
 		/* iteration over the terms after phrase */
 		for (int i = afterStartPosition; i <= afterEndPosition && i >= 0; i++) {
-			after.append(allTerms.get(i));
+			after.append(document.getSurfaceForm(i));
 			after.append(" ");
 		}
 
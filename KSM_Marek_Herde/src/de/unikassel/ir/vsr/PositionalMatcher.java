@@ -0,0 +1,149 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cursor over the documents, in which the positions of several terms
+ * satisfy a condition, e.g. a phrase or a proximity condition. The posting
+ * lists of the terms are intersected by document id first (see
+ * {@link IntersectionIterator}), only for the documents containing all terms
+ * the positions are copied into int arrays and checked by
+ * {@link #match()}. The cursor is a {@link PostingIterator}, whose positions
+ * are the start positions of the occurrences found in a document.
+ * 
+ * @author Marek Herde
+ */
+public abstract class PositionalMatcher implements PostingIterator {
+
+	/** posting lists of the terms in the order of the query */
+	private PostingList[] postingLists;
+
+	/** intersection of the posting lists */
+	private IntersectionIterator intersection;
+
+	/** positions of every term in the current candidate document */
+	protected int[][] positions;
+
+	/** number of positions of every term in the current candidate document */
+	protected int[] counts;
+
+	/** start positions of the occurrences in the current document */
+	private int[] matches = new int[16];
+
+	/** number of occurrences in the current document */
+	private int matchCount = 0;
+
+	/**
+	 * creation of a cursor positioned before the first matching document
+	 * 
+	 * @param postingLists
+	 *            posting lists of the terms in the order of the query, a term
+	 *            occurring several times has the same posting list
+	 */
+	protected PositionalMatcher(List<? extends PostingList> postingLists) {
+		this.postingLists = postingLists.toArray(new PostingList[0]);
+		this.intersection = new IntersectionIterator(postingLists);
+		this.positions = new int[this.postingLists.length][16];
+		this.counts = new int[this.postingLists.length];
+	}
+
+	@Override
+	public boolean next() {
+		while (this.intersection.next()) {
+			if (readPositions()) {
+				return true;
+			}
+		}
+		this.matchCount = 0;
+		return false;
+	}
+
+	@Override
+	public boolean advance(int target) {
+		if (this.matchCount > 0 && this.intersection.getDocId() >= target) {
+			return true;
+		}
+		if (!this.intersection.advance(target)) {
+			this.matchCount = 0;
+			return false;
+		}
+		return readPositions() || next();
+	}
+
+	@Override
+	public int getDocId() {
+		return this.intersection.getDocId();
+	}
+
+	/**
+	 * Return the number of occurrences in the current document
+	 */
+	@Override
+	public int getTermCount() {
+		return this.matchCount;
+	}
+
+	/**
+	 * Return the start position of an occurrence in the current document
+	 * 
+	 * @param i
+	 *            number of the occurrence, ascending by position
+	 */
+	@Override
+	public int getPosition(int i) {
+		return this.matches[i];
+	}
+
+	/**
+	 * copying the positions of all terms in the current document of the
+	 * intersection and determining the occurrences
+	 * 
+	 * @return false, if there is no occurrence in the document
+	 */
+	private boolean readPositions() {
+		for (int i = 0; i < this.postingLists.length; i++) {
+			PostingIterator posting = this.intersection.getPostingIterator(this.postingLists[i]);
+			int count = posting.getTermCount();
+			if (this.positions[i].length < count) {
+				this.positions[i] = new int[Math.max(count, 2 * this.positions[i].length)];
+			}
+			for (int j = 0; j < count; j++) {
+				this.positions[i][j] = posting.getPosition(j);
+			}
+			this.counts[i] = count;
+		}
+		this.matchCount = 0;
+		match();
+		return this.matchCount > 0;
+	}
+
+	/**
+	 * adding an occurrence, the start positions have to be added ascending
+	 * 
+	 * @param start
+	 */
+	protected void addMatch(int start) {
+		if (this.matchCount == this.matches.length) {
+			this.matches = Arrays.copyOf(this.matches, 2 * this.matchCount);
+		}
+		this.matches[this.matchCount++] = start;
+	}
+
+	/**
+	 * Return the number of terms
+	 * 
+	 * @return
+	 */
+	protected int size() {
+		return this.postingLists.length;
+	}
+
+	/**
+	 * determining the occurrences in the current document from
+	 * {@link #positions} and {@link #counts} and adding them by
+	 * {@link #addMatch(int)}
+	 */
+	protected abstract void match();
+
+}
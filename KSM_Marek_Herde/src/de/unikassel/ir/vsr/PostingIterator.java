@@ -0,0 +1,55 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * PostingIterator
+ * Cursor over the postings of a {@link PostingList}. The cursor is positioned
+ * before the first posting, so next() has to be called before reading a
+ * posting.
+ * 
+ * @author Marek Herde
+ */
+public interface PostingIterator {
+
+	/**
+	 * Move the cursor to the next posting
+	 * 
+	 * @return false, if there is no further posting
+	 */
+	public boolean next();
+
+	/**
+	 * Move the cursor forward to the first posting whose document id is
+	 * greater than or equal to the target, the cursor is never moved backwards
+	 * 
+	 * @param target
+	 *            document id to look for
+	 * @return false, if there is no such posting
+	 */
+	public boolean advance(int target);
+
+	/**
+	 * Return the dense document id of the current posting
+	 * 
+	 * @return
+	 */
+	public int getDocId();
+
+	/**
+	 * Return the frequency of the token in the document of the current
+	 * posting
+	 * 
+	 * @return
+	 */
+	public int getTermCount();
+
+	/**
+	 * Return the i-th position (counted ascending from 0) of the token in the
+	 * document of the current posting
+	 * 
+	 * @param i
+	 *            index between 0 and getTermCount() - 1
+	 * @return
+	 */
+	public int getPosition(int i);
+
+}
@@ -0,0 +1,61 @@
+package de.unikassel.ir.vsr;
+
+import java.util.List;
+
+/**
+ * PostingList
+ * Belongs to one Token and contains the dense ids of all Documents containing the token
+ * together with the positions of the token in these Documents.
+ * Postings are ordered <em>ascending</em> by document id!
+ * 
+ * @author Marek Herde
+ */
+public interface PostingList {
+
+	/**
+	 * Append a posting for a document, the document id has to be greater than
+	 * the id of the last added posting
+	 * 
+	 * @param docId
+	 *            dense id of the document (see {@link Corpus#getDocId(Document)})
+	 * @param positions
+	 *            positions of the token in the document (ascending, starting
+	 *            with 0)
+	 */
+	public void addPosting(int docId, List<Integer> positions);
+
+	/**
+	 * Append a posting for a document, the document id has to be greater than
+	 * the id of the last added posting
+	 * 
+	 * @param docId
+	 *            dense id of the document (see {@link Corpus#getDocId(Document)})
+	 * @param positions
+	 *            array containing the positions of the token in the document
+	 *            (ascending, starting with 0)
+	 * @param count
+	 *            number of positions to read from the array
+	 */
+	public void addPosting(int docId, int[] positions, int count);
+
+	/**
+	 * Return the number of postings (= document frequency of the token)
+	 * 
+	 * @return
+	 */
+	public int size();
+
+	/**
+	 * Release all capacity that is not needed after the last posting was
+	 * added
+	 */
+	public void trimToSize();
+
+	/**
+	 * Return a cursor over all postings ordered ascending by document id
+	 * 
+	 * @return
+	 */
+	public PostingIterator iterator();
+
+}
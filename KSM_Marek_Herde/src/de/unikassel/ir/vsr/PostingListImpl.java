@@ -0,0 +1,191 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PostingListImpl implements PostingList {
+
+	/** initial capacity of the arrays */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/** dense ids of all documents containing the token */
+	private int[] docIds;
+
+	/**
+	 * offsets into the positions array, the positions of the i-th posting are
+	 * stored from positionOffsets[i] to positionOffsets[i + 1] - 1, so the term
+	 * frequency of the i-th posting is the difference of both offsets
+	 */
+	private int[] positionOffsets;
+
+	/** positions of all postings one after another */
+	private int[] positions;
+
+	/** number of postings */
+	private int size = 0;
+
+	public PostingListImpl() {
+		this.docIds = new int[INITIAL_CAPACITY];
+		this.positionOffsets = new int[INITIAL_CAPACITY + 1];
+		this.positions = new int[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void addPosting(int docId, List<Integer> positions) {
+
+		/* copying positions into the primitive array */
+		int offset = appendPosting(docId, positions.size());
+		for (int position : positions) {
+			this.positions[offset++] = position;
+		}
+	}
+
+	@Override
+	public void addPosting(int docId, int[] positions, int count) {
+
+		/* copying positions into the primitive array */
+		int offset = appendPosting(docId, count);
+		System.arraycopy(positions, 0, this.positions, offset, count);
+	}
+
+	/**
+	 * appending a posting without its positions
+	 * 
+	 * @param docId
+	 * @param count
+	 *            number of positions of the posting
+	 * @return offset, where the positions of the posting have to be stored
+	 */
+	private int appendPosting(int docId, int count) {
+
+		/* ensuring ascending order of document ids */
+		if (this.size > 0 && docId <= this.docIds[this.size - 1]) {
+			throw new IllegalArgumentException("document id " + docId + " is not greater than last document id "
+					+ this.docIds[this.size - 1]);
+		}
+
+		/* growing arrays of postings if necessary */
+		if (this.size == this.docIds.length) {
+			int capacity = Math.max(INITIAL_CAPACITY, 2 * this.docIds.length);
+			this.docIds = Arrays.copyOf(this.docIds, capacity);
+			this.positionOffsets = Arrays.copyOf(this.positionOffsets, capacity + 1);
+		}
+
+		/* growing array of positions if necessary */
+		int offset = this.positionOffsets[this.size];
+		int end = offset + count;
+		if (end > this.positions.length) {
+			this.positions = Arrays.copyOf(this.positions, Math.max(end, 2 * this.positions.length));
+		}
+
+		this.docIds[this.size] = docId;
+		this.positionOffsets[this.size + 1] = end;
+		this.size++;
+
+		return offset;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void trimToSize() {
+		this.docIds = Arrays.copyOf(this.docIds, this.size);
+		this.positionOffsets = Arrays.copyOf(this.positionOffsets, this.size + 1);
+		this.positions = Arrays.copyOf(this.positions, this.positionOffsets[this.size]);
+	}
+
+	/**
+	 * Return the document id of the i-th posting
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public int getDocId(int i) {
+		return this.docIds[i];
+	}
+
+	/**
+	 * Return the term frequency of the i-th posting
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public int getTermCount(int i) {
+		return this.positionOffsets[i + 1] - this.positionOffsets[i];
+	}
+
+	/**
+	 * Return the j-th position of the i-th posting
+	 * 
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public int getPosition(int i, int j) {
+		return this.positions[this.positionOffsets[i] + j];
+	}
+
+	@Override
+	public PostingIterator iterator() {
+		return new PostingIterator() {
+
+			/* index of the current posting */
+			private int current = -1;
+
+			@Override
+			public boolean next() {
+				return ++this.current < size;
+			}
+
+			@Override
+			public boolean advance(int target) {
+
+				/* current posting already fulfills target */
+				if (this.current >= 0 && this.current < size && docIds[this.current] >= target) {
+					return true;
+				}
+
+				/* galloping search for a range containing the target */
+				int low = this.current + 1;
+				int bound = 1;
+				while (low + bound < size && docIds[low + bound] < target) {
+					low += bound;
+					bound *= 2;
+				}
+
+				/* binary search for the first document id not below target */
+				int high = Math.min(low + bound, size);
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (docIds[middle] < target) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+
+				this.current = low;
+				return this.current < size;
+			}
+
+			@Override
+			public int getDocId() {
+				return docIds[this.current];
+			}
+
+			@Override
+			public int getTermCount() {
+				return positionOffsets[this.current + 1] - positionOffsets[this.current];
+			}
+
+			@Override
+			public int getPosition(int i) {
+				return positions[positionOffsets[this.current] + i];
+			}
+		};
+	}
+
+}
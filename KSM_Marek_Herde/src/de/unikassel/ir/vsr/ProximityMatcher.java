@@ -0,0 +1,161 @@
+package de.unikassel.ir.vsr;
+
+import java.util.List;
+
+/**
+ * Cursor over the documents containing several terms within a window of
+ * positions: NEAR/k requires the terms in any order within k positions, i.e.
+ * the first and the last position of a window differ by at most k, ordered
+ * NEAR/k additionally requires the terms in the order of the query.
+ * <p>
+ * The positions of the terms are merged as streams: for unordered windows
+ * the cursor at the smallest position is moved forward until one of the
+ * cursors is exhausted, for ordered windows every term follows the position
+ * chosen for its predecessor. Since no cursor moves backwards, a document
+ * costs linear time in its number of positions for a fixed number of terms,
+ * the combinations of positions are never enumerated.
+ * 
+ * @author Marek Herde
+ */
+public class ProximityMatcher extends PositionalMatcher {
+
+	/** maximal difference between the first and the last position */
+	private int maxDistance;
+
+	/** flag whether the terms have to occur in the order of the query */
+	private boolean ordered;
+
+	/** minimal span of a window in the current document */
+	private int minimalSpan;
+
+	/**
+	 * creation of a cursor positioned before the first matching document
+	 * 
+	 * @param postingLists
+	 *            posting lists of distinct terms in the order of the query
+	 * @param maxDistance
+	 *            maximal difference between the first and the last position
+	 *            of a window, at least 0
+	 * @param ordered
+	 *            true, if the terms have to occur in the order of the query
+	 */
+	public ProximityMatcher(List<? extends PostingList> postingLists, int maxDistance, boolean ordered) {
+		super(postingLists);
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("maximal distance has to be at least 0, but is " + maxDistance);
+		}
+		this.maxDistance = maxDistance;
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Return the smallest difference between the first and the last position
+	 * of a window in the current document
+	 * 
+	 * @return
+	 */
+	public int getMinimalSpan() {
+		return this.minimalSpan;
+	}
+
+	@Override
+	protected void match() {
+		if (this.ordered) {
+			this.minimalSpan = matchOrdered();
+		} else {
+			this.minimalSpan = getMinimalSpan(this.positions, this.counts, size(), this.maxDistance, this);
+		}
+	}
+
+	/**
+	 * determining the ordered windows, for every position of the first term
+	 * the following terms take their next position behind the predecessor
+	 * 
+	 * @return minimal span of a window
+	 */
+	private int matchOrdered() {
+		int minimalSpan = Integer.MAX_VALUE;
+
+		/* pointers[i] only moves forward, since the start positions ascend */
+		int[] pointers = new int[size()];
+		for (int j = 0; j < this.counts[0]; j++) {
+			int start = this.positions[0][j];
+			int previous = start;
+			boolean match = true;
+			for (int i = 1; i < size() && match; i++) {
+				while (pointers[i] < this.counts[i] && this.positions[i][pointers[i]] <= previous) {
+					pointers[i]++;
+				}
+				if (pointers[i] == this.counts[i]) {
+					/* no further window in this document */
+					return minimalSpan;
+				}
+				previous = this.positions[i][pointers[i]];
+				match = previous - start <= this.maxDistance;
+			}
+			if (match) {
+				addMatch(start);
+				minimalSpan = Math.min(minimalSpan, previous - start);
+			}
+		}
+		return minimalSpan;
+	}
+
+	/**
+	 * Return the smallest difference between the first and the last position
+	 * of a window containing every term, e.g. to prefer documents containing
+	 * the terms of a query close to each other
+	 * 
+	 * @param positions
+	 *            ascending positions of every term in a document
+	 * @param counts
+	 *            number of positions of every term, at least 1
+	 * @param n
+	 *            number of terms
+	 * @return minimal span, 0 for a single term
+	 */
+	public static int getMinimalSpan(int[][] positions, int[] counts, int n) {
+		return getMinimalSpan(positions, counts, n, Integer.MAX_VALUE, null);
+	}
+
+	/**
+	 * merging the positions of all terms: the window is spanned by the
+	 * current position of every term, the term at the smallest position is
+	 * moved forward, until one of the terms has no further position
+	 * 
+	 * @param matcher
+	 *            matcher receiving the start positions of the windows within
+	 *            maxDistance or null
+	 * @return minimal span of a window
+	 */
+	private static int getMinimalSpan(int[][] positions, int[] counts, int n, int maxDistance,
+			ProximityMatcher matcher) {
+		int minimalSpan = Integer.MAX_VALUE;
+		int lastStart = -1;
+		int[] pointers = new int[n];
+		while (true) {
+			int first = 0;
+			int last = positions[0][pointers[0]];
+			for (int i = 1; i < n; i++) {
+				int position = positions[i][pointers[i]];
+				if (position < positions[first][pointers[first]]) {
+					first = i;
+				}
+				last = Math.max(last, position);
+			}
+			int start = positions[first][pointers[first]];
+			int span = last - start;
+			if (span <= maxDistance) {
+				minimalSpan = Math.min(minimalSpan, span);
+				if (matcher != null && start != lastStart) {
+					matcher.addMatch(start);
+					lastStart = start;
+				}
+			}
+			if (++pointers[first] == counts[first]) {
+				return minimalSpan;
+			}
+		}
+	}
+
+}
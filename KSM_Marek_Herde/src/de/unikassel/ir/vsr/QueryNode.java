@@ -0,0 +1,289 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Node of the tree of a boolean query, created by {@link QueryParser} and
+ * evaluated by {@link QueryPlanner}. The leaves are terms, phrases and field
+ * restrictions, the inner nodes combine their children with AND, OR and NOT.
+ * 
+ * @author Marek Herde
+ */
+public abstract class QueryNode {
+
+	/**
+	 * Return the terms of the query, that are not negated, e.g. to show their
+	 * contexts in the found documents
+	 * 
+	 * @return terms in the order of their first occurrence
+	 */
+	public Set<String> getTerms() {
+		Set<String> terms = new LinkedHashSet<>();
+		collectTerms(terms);
+		return terms;
+	}
+
+	/**
+	 * adding the terms, that are not negated, to a set
+	 * 
+	 * @param terms
+	 */
+	protected abstract void collectTerms(Set<String> terms);
+
+	/**
+	 * Leaf matching the documents containing a term
+	 */
+	public static class Term extends QueryNode {
+
+		private String term;
+
+		public Term(String term) {
+			this.term = term;
+		}
+
+		public String getTerm() {
+			return this.term;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			terms.add(this.term);
+		}
+
+		@Override
+		public String toString() {
+			return this.term;
+		}
+	}
+
+	/**
+	 * Leaf matching the documents containing terms at consecutive positions
+	 */
+	public static class Phrase extends QueryNode {
+
+		private List<String> terms;
+
+		/**
+		 * @param terms
+		 *            at least two terms in the order of the phrase
+		 */
+		public Phrase(List<String> terms) {
+			this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+		}
+
+		public List<String> getPhrase() {
+			return this.terms;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			terms.addAll(this.terms);
+		}
+
+		@Override
+		public String toString() {
+			return "\"" + String.join(" ", this.terms) + "\"";
+		}
+	}
+
+	/**
+	 * Leaf matching the documents containing terms within a window of
+	 * positions, see {@link ProximityMatcher}
+	 */
+	public static class Near extends QueryNode {
+
+		private List<String> terms;
+
+		private int maxDistance;
+
+		private boolean ordered;
+
+		/**
+		 * @param terms
+		 *            at least two distinct terms
+		 * @param maxDistance
+		 *            maximal difference between the first and the last
+		 *            position of a window
+		 * @param ordered
+		 *            true, if the terms have to occur in the given order
+		 */
+		public Near(List<String> terms, int maxDistance, boolean ordered) {
+			this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+			this.maxDistance = maxDistance;
+			this.ordered = ordered;
+		}
+
+		public List<String> getNearTerms() {
+			return this.terms;
+		}
+
+		public int getMaxDistance() {
+			return this.maxDistance;
+		}
+
+		public boolean isOrdered() {
+			return this.ordered;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			terms.addAll(this.terms);
+		}
+
+		@Override
+		public String toString() {
+			return String.join(" " + (this.ordered ? "O" : "") + "NEAR/" + this.maxDistance + " ", this.terms);
+		}
+	}
+
+	/**
+	 * Leaf matching the documents whose field contains a value, the only
+	 * field besides the text is the URL (id) of a document
+	 */
+	public static class Field extends QueryNode {
+
+		private String field;
+
+		private String value;
+
+		/**
+		 * @param field
+		 *            name of the field, see {@link QueryParser#FIELD_URL}
+		 * @param value
+		 *            substring the field has to contain, in lower case
+		 */
+		public Field(String field, String value) {
+			this.field = field;
+			this.value = value;
+		}
+
+		public String getField() {
+			return this.field;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Return whether a document matches the restriction
+		 * 
+		 * @param doc
+		 * @return
+		 */
+		public boolean matches(Document doc) {
+			return doc.getId().toLowerCase().contains(this.value);
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+		}
+
+		@Override
+		public String toString() {
+			return this.field + ":" + this.value;
+		}
+	}
+
+	/**
+	 * Inner node matching the documents matched by all its children
+	 */
+	public static class And extends QueryNode {
+
+		private List<QueryNode> children;
+
+		public And(List<QueryNode> children) {
+			this.children = Collections.unmodifiableList(new ArrayList<>(children));
+		}
+
+		public List<QueryNode> getChildren() {
+			return this.children;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			for (QueryNode child : this.children) {
+				child.collectTerms(terms);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "(" + join(this.children, " AND ") + ")";
+		}
+	}
+
+	/**
+	 * Inner node matching the documents matched by at least one of its
+	 * children
+	 */
+	public static class Or extends QueryNode {
+
+		private List<QueryNode> children;
+
+		public Or(List<QueryNode> children) {
+			this.children = Collections.unmodifiableList(new ArrayList<>(children));
+		}
+
+		public List<QueryNode> getChildren() {
+			return this.children;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			for (QueryNode child : this.children) {
+				child.collectTerms(terms);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "(" + join(this.children, " OR ") + ")";
+		}
+	}
+
+	/**
+	 * Inner node matching the documents not matched by its child
+	 */
+	public static class Not extends QueryNode {
+
+		private QueryNode child;
+
+		public Not(QueryNode child) {
+			this.child = child;
+		}
+
+		public QueryNode getChild() {
+			return this.child;
+		}
+
+		@Override
+		protected void collectTerms(Set<String> terms) {
+			/* terms of negated nodes do not occur in the found documents */
+		}
+
+		@Override
+		public String toString() {
+			return "NOT " + this.child;
+		}
+	}
+
+	/**
+	 * concatenation of the string representations of nodes
+	 */
+	private static String join(List<QueryNode> nodes, String separator) {
+		StringBuilder builder = new StringBuilder();
+		for (QueryNode node : nodes) {
+			if (builder.length() > 0) {
+				builder.append(separator);
+			}
+			builder.append(node);
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,347 @@
+package de.unikassel.ir.vsr;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser of boolean queries like <code>oil AND (price OR export) NOT
+ * "crude oil" url:reuters</code> into a tree of {@link QueryNode}s. The
+ * grammar is
+ * 
+ * <pre>
+ * query   = and { "OR" and }
+ * and     = unary { [ "AND" ] unary }
+ * unary   = ( "NOT" | "-" ) unary | primary
+ * primary = "(" query ")" | phrase | [ field ":" ] ( word | phrase )
+ * </pre>
+ * 
+ * so adjacent clauses are combined with AND, which binds stronger than OR.
+ * The operators have to be written in upper case, words and phrases are
+ * analyzed like the text of the documents (see {@link Analyzer}).
+ * 
+ * @author Marek Herde
+ */
+public class QueryParser {
+
+	/** field of the document text, the default field */
+	public static final String FIELD_TEXT = "text";
+
+	/** field of the URL (id) of a document */
+	public static final String FIELD_URL = "url";
+
+	/** query to parse */
+	private String query;
+
+	/** maximal distance of NEAR without a given distance */
+	public static final int DEFAULT_NEAR_DISTANCE = 10;
+
+	/** pattern of the proximity operators */
+	private static final Pattern NEAR_OPERATOR = Pattern.compile("(O?)NEAR(?:/(\\d{1,6}))?");
+
+	/** position of the next character to read */
+	private int position;
+
+	/** analyzer of the words and phrases */
+	private Analyzer analyzer;
+
+	/**
+	 * creation of a parser for a query, whose words are only lowercased
+	 * 
+	 * @param query
+	 */
+	public QueryParser(String query) {
+		this(query, Analyzer.DEFAULT);
+	}
+
+	/**
+	 * creation of a parser for a query
+	 * 
+	 * @param query
+	 * @param analyzer
+	 *            analyzer of the words and phrases, the analyzer of the corpus
+	 */
+	public QueryParser(String query, Analyzer analyzer) {
+		this.query = query;
+		this.analyzer = analyzer;
+	}
+
+	/**
+	 * Parse a query
+	 * 
+	 * @param query
+	 * @return root of the query tree
+	 * @throws ParseException
+	 *             if the query is not well-formed
+	 */
+	public static QueryNode parse(String query) throws ParseException {
+		return new QueryParser(query).parse();
+	}
+
+	/**
+	 * Parse a query, whose words and phrases are analyzed like the documents
+	 * 
+	 * @param query
+	 * @param analyzer
+	 *            analyzer of the corpus
+	 * @return root of the query tree
+	 * @throws ParseException
+	 *             if the query is not well-formed or contains a word, that is
+	 *             removed by the analyzer, e.g. a stop word
+	 */
+	public static QueryNode parse(String query, Analyzer analyzer) throws ParseException {
+		return new QueryParser(query, analyzer).parse();
+	}
+
+	/**
+	 * Parse the query of this parser
+	 * 
+	 * @return root of the query tree
+	 * @throws ParseException
+	 *             if the query is not well-formed
+	 */
+	public QueryNode parse() throws ParseException {
+		this.position = 0;
+		QueryNode root = parseOr();
+		skipWhitespace();
+		if (this.position < this.query.length()) {
+			throw new ParseException("unexpected '" + this.query.charAt(this.position) + "'", this.position);
+		}
+		return root;
+	}
+
+	/**
+	 * query = and { "OR" and }
+	 */
+	private QueryNode parseOr() throws ParseException {
+		List<QueryNode> children = new ArrayList<>();
+		children.add(parseAnd());
+		while (readOperator("OR")) {
+			children.add(parseAnd());
+		}
+		return children.size() == 1 ? children.get(0) : new QueryNode.Or(children);
+	}
+
+	/**
+	 * and = unary { [ "AND" ] unary }
+	 */
+	private QueryNode parseAnd() throws ParseException {
+		List<QueryNode> children = new ArrayList<>();
+		children.add(parseUnary());
+		while (true) {
+			skipWhitespace();
+			if (this.position == this.query.length() || this.query.charAt(this.position) == ')'
+					|| isOperator("OR")) {
+				break;
+			}
+			readOperator("AND");
+			children.add(parseUnary());
+		}
+		return children.size() == 1 ? children.get(0) : new QueryNode.And(children);
+	}
+
+	/**
+	 * unary = ( "NOT" | "-" ) unary | near
+	 */
+	private QueryNode parseUnary() throws ParseException {
+		skipWhitespace();
+		if (readOperator("NOT")) {
+			return new QueryNode.Not(parseUnary());
+		}
+		if (this.position < this.query.length() && this.query.charAt(this.position) == '-') {
+			this.position++;
+			return new QueryNode.Not(parseUnary());
+		}
+		return parseNear();
+	}
+
+	/**
+	 * near = primary { ( "NEAR/" k | "ONEAR/" k ) primary }
+	 */
+	private QueryNode parseNear() throws ParseException {
+		int start = this.position;
+		QueryNode first = parsePrimary();
+		Matcher operator = readNearOperator();
+		if (operator == null) {
+			return first;
+		}
+		String symbol = operator.group();
+		boolean ordered = !operator.group(1).isEmpty();
+		int maxDistance = operator.group(2) != null ? Integer.parseInt(operator.group(2)) : DEFAULT_NEAR_DISTANCE;
+
+		List<String> terms = new ArrayList<>();
+		terms.add(getNearTerm(first, start));
+		do {
+			start = this.position;
+			String term = getNearTerm(parsePrimary(), start);
+			if (terms.contains(term)) {
+				throw new ParseException("repeated term " + term + " in " + symbol, start);
+			}
+			terms.add(term);
+			operator = readNearOperator();
+			if (operator != null && !operator.group().equals(symbol)) {
+				throw new ParseException("mixed proximity operators " + symbol + " and " + operator.group(),
+						this.position);
+			}
+		} while (operator != null);
+		return new QueryNode.Near(terms, maxDistance, ordered);
+	}
+
+	/**
+	 * Return the term of an operand of a proximity operator
+	 */
+	private static String getNearTerm(QueryNode operand, int start) throws ParseException {
+		if (!(operand instanceof QueryNode.Term)) {
+			throw new ParseException("operand of NEAR has to be a single term, but is " + operand, start);
+		}
+		return ((QueryNode.Term) operand).getTerm();
+	}
+
+	/**
+	 * reading a proximity operator, if it is the next word
+	 * 
+	 * @return match of the operator or null, if the next word is no proximity
+	 *         operator
+	 */
+	private Matcher readNearOperator() {
+		skipWhitespace();
+		int start = this.position;
+		String word = readWord();
+		Matcher operator = NEAR_OPERATOR.matcher(word);
+		if (operator.matches()) {
+			return operator;
+		}
+		this.position = start;
+		return null;
+	}
+
+	/**
+	 * primary = "(" query ")" | phrase | [ field ":" ] ( word | phrase )
+	 */
+	private QueryNode parsePrimary() throws ParseException {
+		skipWhitespace();
+		if (this.position == this.query.length()) {
+			throw new ParseException("unexpected end of query", this.position);
+		}
+		char c = this.query.charAt(this.position);
+		if (c == '(') {
+			this.position++;
+			QueryNode node = parseOr();
+			skipWhitespace();
+			if (this.position == this.query.length() || this.query.charAt(this.position) != ')') {
+				throw new ParseException("missing ')'", this.position);
+			}
+			this.position++;
+			return node;
+		}
+		if (c == ')' || isOperator("AND") || isOperator("OR")) {
+			throw new ParseException("missing term before '" + c + "'", this.position);
+		}
+		if (c == '"') {
+			return createTextNode(readPhrase(), this.position);
+		}
+
+		int start = this.position;
+		String word = readWord();
+		int colon = word.indexOf(':');
+		if (colon <= 0) {
+			return createTextNode(word, start);
+		}
+
+		/* field restriction, the value is a word or phrase */
+		String field = word.substring(0, colon).toLowerCase();
+		String value = word.substring(colon + 1);
+		if (value.isEmpty() && this.position < this.query.length() && this.query.charAt(this.position) == '"') {
+			value = readPhrase();
+		}
+		switch (field) {
+		case FIELD_TEXT:
+			return createTextNode(value, start);
+		case FIELD_URL:
+			if (value.trim().isEmpty()) {
+				throw new ParseException("missing value of field " + field, start);
+			}
+			return new QueryNode.Field(FIELD_URL, value.trim().toLowerCase());
+		default:
+			throw new ParseException("unknown field " + field, start);
+		}
+	}
+
+	/**
+	 * Return a term or phrase node for text, that is analyzed like the text
+	 * of a document, e.g. 'e-mail' becomes the phrase "e mail"
+	 */
+	private QueryNode createTextNode(String text, int start) throws ParseException {
+		List<String> terms = Arrays.asList(this.analyzer.split(text));
+		if (terms.isEmpty()) {
+			throw new ParseException("no indexed term in '" + text + "'", start);
+		}
+		return terms.size() == 1 ? new QueryNode.Term(terms.get(0)) : new QueryNode.Phrase(terms);
+	}
+
+	/**
+	 * reading a quoted phrase
+	 * 
+	 * @return phrase without the quotes
+	 */
+	private String readPhrase() throws ParseException {
+		int start = this.position;
+		int end = this.query.indexOf('"', start + 1);
+		if (end == -1) {
+			throw new ParseException("missing '\"'", start);
+		}
+		this.position = end + 1;
+		return this.query.substring(start + 1, end);
+	}
+
+	/**
+	 * reading all characters up to the next whitespace, parenthesis or quote
+	 */
+	private String readWord() {
+		int start = this.position;
+		while (this.position < this.query.length()) {
+			char c = this.query.charAt(this.position);
+			if (Character.isWhitespace(c) || c == '(' || c == ')' || c == '"') {
+				break;
+			}
+			this.position++;
+		}
+		return this.query.substring(start, this.position);
+	}
+
+	/**
+	 * Return whether the next word is an operator
+	 */
+	private boolean isOperator(String operator) {
+		int end = this.position + operator.length();
+		if (!this.query.startsWith(operator, this.position)) {
+			return false;
+		}
+		return end == this.query.length() || Character.isWhitespace(this.query.charAt(end))
+				|| this.query.charAt(end) == '(' || this.query.charAt(end) == '"';
+	}
+
+	/**
+	 * reading an operator, if it is the next word
+	 * 
+	 * @return false, if the next word is not the operator
+	 */
+	private boolean readOperator(String operator) {
+		skipWhitespace();
+		if (isOperator(operator)) {
+			this.position += operator.length();
+			return true;
+		}
+		return false;
+	}
+
+	private void skipWhitespace() {
+		while (this.position < this.query.length() && Character.isWhitespace(this.query.charAt(this.position))) {
+			this.position++;
+		}
+	}
+
+}
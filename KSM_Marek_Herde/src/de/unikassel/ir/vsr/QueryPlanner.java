@@ -0,0 +1,320 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cost based planner and executor of boolean queries. The size of the result
+ * of every node of a query is estimated from the document frequencies of its
+ * terms assuming the terms to occur independently. The planner reorders the
+ * clauses of a conjunction by their estimated size, so the most selective
+ * clause is evaluated first, and moves negated clauses and field
+ * restrictions to the end, where they only filter the remaining candidates.
+ * <p>
+ * Every node is evaluated on the candidates left by the clauses evaluated
+ * before. A term is intersected with the candidates by a bitmap AND, if both
+ * have a similar density, otherwise every candidate is looked up in the
+ * posting list of the term with {@link PostingIterator#advance(int)}, that
+ * skips the postings in between, so rare candidates never decode a long
+ * posting list.
+ * 
+ * @author Marek Herde
+ */
+public class QueryPlanner {
+
+	/**
+	 * ratio between the document frequency of a term and the number of
+	 * candidates, from which on the candidates are looked up in the posting
+	 * list instead of intersecting the document sets
+	 */
+	public static final int SKIP_RATIO = 16;
+
+	/** index containing the postings */
+	private InvertedIndexImpl index;
+
+	/**
+	 * creation of a planner for queries on an index
+	 * 
+	 * @param index
+	 */
+	public QueryPlanner(InvertedIndexImpl index) {
+		this.index = index;
+	}
+
+	/**
+	 * Return the estimated number of documents matching a query
+	 * 
+	 * @param node
+	 *            root of the query tree
+	 * @return estimated number of documents, at most the number of documents
+	 *         of the index
+	 */
+	public int estimate(QueryNode node) {
+		int corpusSize = this.index.getCorpusSize();
+		return corpusSize == 0 ? 0 : (int) Math.ceil(getSelectivity(node) * corpusSize);
+	}
+
+	/**
+	 * Return the estimated fraction of the documents matching a query
+	 */
+	private double getSelectivity(QueryNode node) {
+		int corpusSize = this.index.getCorpusSize();
+		if (corpusSize == 0) {
+			return 0;
+		}
+		if (node instanceof QueryNode.Term) {
+			return (double) getDocumentFrequency(((QueryNode.Term) node).getTerm()) / corpusSize;
+		}
+		if (node instanceof QueryNode.Phrase || node instanceof QueryNode.Near) {
+			/* a phrase or window occurs at most in the documents of its rarest term */
+			int documentFrequency = corpusSize;
+			for (String term : getPositionalTerms(node)) {
+				documentFrequency = Math.min(documentFrequency, getDocumentFrequency(term));
+			}
+			return (double) documentFrequency / corpusSize;
+		}
+		if (node instanceof QueryNode.Field) {
+			/* nothing is known about the field values */
+			return 1;
+		}
+		if (node instanceof QueryNode.Not) {
+			return 1 - getSelectivity(((QueryNode.Not) node).getChild());
+		}
+		if (node instanceof QueryNode.And) {
+			double selectivity = 1;
+			for (QueryNode child : ((QueryNode.And) node).getChildren()) {
+				selectivity *= getSelectivity(child);
+			}
+			return selectivity;
+		}
+		double missing = 1;
+		for (QueryNode child : ((QueryNode.Or) node).getChildren()) {
+			missing *= 1 - getSelectivity(child);
+		}
+		return 1 - missing;
+	}
+
+	/**
+	 * Return the query tree in the order of evaluation: nested conjunctions
+	 * and disjunctions are flattened, the clauses of a conjunction are
+	 * ordered ascending by their estimated size followed by the field
+	 * restrictions and the negated clauses, the clauses of a disjunction are
+	 * ordered descending by their estimated size.
+	 * 
+	 * @param node
+	 *            root of the query tree
+	 * @return root of the planned query tree
+	 */
+	public QueryNode plan(QueryNode node) {
+		if (node instanceof QueryNode.Not) {
+			QueryNode child = plan(((QueryNode.Not) node).getChild());
+
+			/* double negation */
+			return child instanceof QueryNode.Not ? ((QueryNode.Not) child).getChild() : new QueryNode.Not(child);
+		}
+		if (node instanceof QueryNode.And) {
+			List<QueryNode> children = new ArrayList<>();
+			for (QueryNode child : ((QueryNode.And) node).getChildren()) {
+				child = plan(child);
+				if (child instanceof QueryNode.And) {
+					children.addAll(((QueryNode.And) child).getChildren());
+				} else {
+					children.add(child);
+				}
+			}
+			children.sort(Comparator.comparingInt(this::getPhase).thenComparingDouble(this::getSelectivity));
+			return new QueryNode.And(children);
+		}
+		if (node instanceof QueryNode.Or) {
+			List<QueryNode> children = new ArrayList<>();
+			for (QueryNode child : ((QueryNode.Or) node).getChildren()) {
+				child = plan(child);
+				if (child instanceof QueryNode.Or) {
+					children.addAll(((QueryNode.Or) child).getChildren());
+				} else {
+					children.add(child);
+				}
+			}
+			/* the largest set first, so the union grows least often */
+			children.sort(Comparator.comparingDouble(this::getSelectivity).reversed());
+			return new QueryNode.Or(children);
+		}
+		return node;
+	}
+
+	/**
+	 * Return the phase a clause of a conjunction is evaluated in: clauses
+	 * using the postings first, then field restrictions, that have to look
+	 * at every candidate, and negated clauses last
+	 */
+	private int getPhase(QueryNode node) {
+		if (node instanceof QueryNode.Not) {
+			return 2;
+		}
+		return node instanceof QueryNode.Field ? 1 : 0;
+	}
+
+	/**
+	 * Return the ids of the documents matching a planned query
+	 * 
+	 * @param plan
+	 *            root of a query tree returned by {@link #plan(QueryNode)}
+	 * @return set of document ids
+	 */
+	public RoaringBitmap execute(QueryNode plan) {
+		return evaluate(plan, null);
+	}
+
+	/**
+	 * Return the ids of the documents matching a query, the query is planned
+	 * before
+	 * 
+	 * @param query
+	 *            root of the query tree
+	 * @return set of document ids
+	 */
+	public RoaringBitmap search(QueryNode query) {
+		return execute(plan(query));
+	}
+
+	/**
+	 * evaluation of a node on the candidates left by the nodes evaluated
+	 * before
+	 * 
+	 * @param node
+	 * @param candidates
+	 *            ids of the documents that may match, null for all documents
+	 * @return ids of the candidates matching the node
+	 */
+	private RoaringBitmap evaluate(QueryNode node, RoaringBitmap candidates) {
+		if (candidates != null && candidates.isEmpty()) {
+			return candidates;
+		}
+		if (node instanceof QueryNode.Term) {
+			return evaluateTerm(((QueryNode.Term) node).getTerm(), candidates);
+		}
+		if (node instanceof QueryNode.Phrase || node instanceof QueryNode.Near) {
+			return evaluatePositional(node, candidates);
+		}
+		if (node instanceof QueryNode.Field) {
+			QueryNode.Field field = (QueryNode.Field) node;
+			RoaringBitmap result = new RoaringBitmap();
+			Corpus corpus = this.index.getCorpus();
+			getLiveDocuments(candidates).forEach(docId -> {
+				if (field.matches(corpus.getDocument(docId))) {
+					result.add(docId);
+				}
+			});
+			return result;
+		}
+		if (node instanceof QueryNode.Not) {
+			/* the excluded documents are only searched among the candidates */
+			RoaringBitmap live = getLiveDocuments(candidates);
+			return live.andNot(evaluate(((QueryNode.Not) node).getChild(), live));
+		}
+		if (node instanceof QueryNode.And) {
+			RoaringBitmap result = candidates;
+			for (QueryNode child : ((QueryNode.And) node).getChildren()) {
+				result = evaluate(child, result);
+				if (result.isEmpty()) {
+					break;
+				}
+			}
+			return result;
+		}
+		RoaringBitmap result = new RoaringBitmap();
+		for (QueryNode child : ((QueryNode.Or) node).getChildren()) {
+			result = result.or(evaluate(child, candidates));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the candidates containing a term
+	 */
+	private RoaringBitmap evaluateTerm(String term, RoaringBitmap candidates) {
+		if (candidates == null) {
+			return this.index.getDocumentSet(term);
+		}
+		PostingList postingList = this.index.getTokenInfo(term).getPostingList();
+		if ((long) candidates.getCardinality() * SKIP_RATIO > postingList.size()) {
+			return candidates.and(this.index.getDocumentSet(term));
+		}
+
+		/* few candidates: skipping through the posting list */
+		RoaringBitmap result = new RoaringBitmap();
+		PostingIterator posting = postingList.iterator();
+		for (int docId : candidates.toArray()) {
+			if (!posting.advance(docId)) {
+				break;
+			}
+			if (posting.getDocId() == docId) {
+				result.add(docId);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the candidates containing the terms of a phrase at consecutive
+	 * positions or within a window
+	 */
+	private RoaringBitmap evaluatePositional(QueryNode node, RoaringBitmap candidates) {
+		List<PostingList> postingLists = new ArrayList<>();
+		int minDocumentFrequency = Integer.MAX_VALUE;
+		for (String term : getPositionalTerms(node)) {
+			PostingList postingList = this.index.getTokenInfo(term).getPostingList();
+			postingLists.add(postingList);
+			minDocumentFrequency = Math.min(minDocumentFrequency, postingList.size());
+		}
+		PostingIterator matcher;
+		if (node instanceof QueryNode.Near) {
+			QueryNode.Near near = (QueryNode.Near) node;
+			matcher = new ProximityMatcher(postingLists, near.getMaxDistance(), near.isOrdered());
+		} else {
+			matcher = this.index.createPhraseMatcher(((QueryNode.Phrase) node).getPhrase());
+		}
+		RoaringBitmap result = new RoaringBitmap();
+		if (candidates == null || (long) candidates.getCardinality() * SKIP_RATIO > minDocumentFrequency) {
+			while (matcher.next()) {
+				if (candidates == null || candidates.contains(matcher.getDocId())) {
+					result.add(matcher.getDocId());
+				}
+			}
+		} else {
+			/* few candidates: skipping to every candidate */
+			for (int docId : candidates.toArray()) {
+				if (!matcher.advance(docId)) {
+					break;
+				}
+				if (matcher.getDocId() == docId) {
+					result.add(docId);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the terms of a phrase or window
+	 */
+	private static List<String> getPositionalTerms(QueryNode node) {
+		if (node instanceof QueryNode.Near) {
+			return ((QueryNode.Near) node).getNearTerms();
+		}
+		return ((QueryNode.Phrase) node).getPhrase();
+	}
+
+	/**
+	 * Return the candidates or the ids of all documents that are not removed
+	 */
+	private RoaringBitmap getLiveDocuments(RoaringBitmap candidates) {
+		return candidates != null ? candidates : this.index.getLiveDocumentSet();
+	}
+
+	private int getDocumentFrequency(String term) {
+		return this.index.getTokenInfo(term).getPostingList().size();
+	}
+
+}
@@ -0,0 +1,149 @@
+package de.unikassel.ir.vsr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tf-idf vector of a query: the distinct query tokens with their token infos
+ * and weights as well as the length of the vector.
+ * 
+ * @author Marek Herde
+ */
+public class QueryVector {
+
+	/** distinct tokens of the query */
+	private String[] tokens;
+
+	/** token infos of the distinct tokens */
+	private TokenInfo[] tokenInfos;
+
+	/** tf-idf weights of the distinct tokens */
+	private double[] weights;
+
+	/** length of the query vector */
+	private double length = 0.;
+
+	/**
+	 * calculation of the tf-idf vector of a query (analog to slide 36,
+	 * lecture 03)
+	 * 
+	 * @param query
+	 *            tokens of the query
+	 * @param index
+	 *            index providing the idf of the tokens
+	 */
+	public QueryVector(String[] query, InvertedIndex index) {
+
+		/* mapping between token and its frequency in the query */
+		Map<String, Integer> queryMap = new LinkedHashMap<>();
+
+		/* counter for the most frequent token in the query */
+		double maxFrequency = 0.;
+
+		/* determining frequency for every token in query */
+		for (String token : query) {
+
+			/* ignoring difference between upper and lower case */
+			token = token.toLowerCase();
+
+			/* increasing counter of current token */
+			int tokenCounter = queryMap.getOrDefault(token, 0) + 1;
+			queryMap.put(token, tokenCounter);
+
+			/* determining maximal frequency of token in the query */
+			maxFrequency = Math.max(maxFrequency, tokenCounter);
+		}
+
+		this.tokens = new String[queryMap.size()];
+		this.tokenInfos = new TokenInfo[queryMap.size()];
+		this.weights = new double[queryMap.size()];
+
+		int i = 0;
+		for (Map.Entry<String, Integer> entry : queryMap.entrySet()) {
+
+			/* needed values to calculate tf-idf */
+			TokenInfo tokenInfo = index.getTokenInfo(entry.getKey());
+			double idf = (tokenInfo.getPostingList().size() != 0) ? tokenInfo.getIdf() : 0.;
+
+			/* calculation of tf-idf value with normalized frequency */
+			this.tokens[i] = entry.getKey();
+			this.tokenInfos[i] = tokenInfo;
+			this.weights[i] = idf * entry.getValue() / maxFrequency;
+
+			this.length += Math.pow(this.weights[i], 2);
+			i++;
+		}
+
+		this.length = Math.sqrt(this.length);
+	}
+
+	/**
+	 * creation of a query vector with the tokens and weights of another query
+	 * vector, but the token infos of another index, e.g. a segment of the
+	 * index the weights were calculated with
+	 * 
+	 * @param queryVector
+	 *            query vector providing tokens, weights and length
+	 * @param index
+	 *            index providing the token infos
+	 */
+	public QueryVector(QueryVector queryVector, InvertedIndex index) {
+		this.tokens = queryVector.tokens;
+		this.weights = queryVector.weights;
+		this.length = queryVector.length;
+
+		this.tokenInfos = new TokenInfo[this.tokens.length];
+		for (int i = 0; i < this.tokens.length; i++) {
+			this.tokenInfos[i] = index.getTokenInfo(this.tokens[i]);
+		}
+	}
+
+	/**
+	 * Return the number of distinct tokens
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.tokens.length;
+	}
+
+	/**
+	 * Return the i-th distinct token
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public String getToken(int i) {
+		return this.tokens[i];
+	}
+
+	/**
+	 * Return the token info of the i-th distinct token
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public TokenInfo getTokenInfo(int i) {
+		return this.tokenInfos[i];
+	}
+
+	/**
+	 * Return the tf-idf weight of the i-th distinct token
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public double getWeight(int i) {
+		return this.weights[i];
+	}
+
+	/**
+	 * Return the length of the query vector
+	 * 
+	 * @return
+	 */
+	public double getLength() {
+		return this.length;
+	}
+
+}
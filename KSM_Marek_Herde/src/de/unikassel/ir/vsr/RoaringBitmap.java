@@ -0,0 +1,622 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non negative document ids in the layout of roaring
+ * bitmaps. The ids are partitioned by their upper 16 bits into chunks of
+ * 65536 ids, every chunk is stored in a container: a sorted array of the
+ * lower 16 bits, if the chunk contains at most {@value #ARRAY_LIMIT} ids,
+ * otherwise a bitmap of 1024 words. Sparse sets therefore need two bytes per
+ * id and dense sets one bit per possible id, and AND, OR and ANDNOT of two
+ * bitmap containers are word-level operations.
+ * 
+ * @author Marek Herde
+ */
+public class RoaringBitmap {
+
+	/** maximal number of ids of an array container */
+	public static final int ARRAY_LIMIT = 4096;
+
+	/** number of words of a bitmap container */
+	private static final int WORDS = 1024;
+
+	/** upper 16 bits of the ids of every container in ascending order */
+	private char[] keys = new char[0];
+
+	/** containers of the chunks */
+	private Container[] containers = new Container[0];
+
+	/** number of containers */
+	private int size = 0;
+
+	/**
+	 * creation of an empty set
+	 */
+	public RoaringBitmap() {
+	}
+
+	/**
+	 * Return the set of the document ids of a posting list
+	 * 
+	 * @param postingList
+	 * @return
+	 */
+	public static RoaringBitmap of(PostingList postingList) {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		PostingIterator posting = postingList.iterator();
+		while (posting.next()) {
+			bitmap.add(posting.getDocId());
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Adding an id, ids added in ascending order are appended to the last
+	 * container
+	 * 
+	 * @param id
+	 *            non negative id
+	 */
+	public void add(int id) {
+		if (id < 0) {
+			throw new IllegalArgumentException("id " + id + " is negative");
+		}
+		char key = (char) (id >>> 16);
+		int i = this.size > 0 && this.keys[this.size - 1] == key ? this.size - 1
+				: Arrays.binarySearch(this.keys, 0, this.size, key);
+		if (i < 0) {
+			i = -i - 1;
+			insertContainer(i, key, new ArrayContainer());
+		}
+		this.containers[i] = this.containers[i].add((char) id);
+	}
+
+	/**
+	 * inserting a container at an index keeping the keys sorted
+	 */
+	private void insertContainer(int i, char key, Container container) {
+		if (this.size == this.keys.length) {
+			int capacity = Math.max(4, 2 * this.size);
+			this.keys = Arrays.copyOf(this.keys, capacity);
+			this.containers = Arrays.copyOf(this.containers, capacity);
+		}
+		System.arraycopy(this.keys, i, this.keys, i + 1, this.size - i);
+		System.arraycopy(this.containers, i, this.containers, i + 1, this.size - i);
+		this.keys[i] = key;
+		this.containers[i] = container;
+		this.size++;
+	}
+
+	/**
+	 * Return whether the set contains an id
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public boolean contains(int id) {
+		int i = Arrays.binarySearch(this.keys, 0, this.size, (char) (id >>> 16));
+		return id >= 0 && i >= 0 && this.containers[i].contains((char) id);
+	}
+
+	/**
+	 * Return the number of ids
+	 * 
+	 * @return
+	 */
+	public int getCardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < this.size; i++) {
+			cardinality += this.containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Return whether the set is empty
+	 * 
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Return the intersection with another set
+	 * 
+	 * @param other
+	 * @return new set
+	 */
+	public RoaringBitmap and(RoaringBitmap other) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < this.size && j < other.size) {
+			if (this.keys[i] < other.keys[j]) {
+				i++;
+			} else if (this.keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Container container = this.containers[i].and(other.containers[j]);
+				if (container.cardinality() > 0) {
+					result.insertContainer(result.size, this.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the union with another set
+	 * 
+	 * @param other
+	 * @return new set
+	 */
+	public RoaringBitmap or(RoaringBitmap other) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < this.size || j < other.size) {
+			if (j == other.size || (i < this.size && this.keys[i] < other.keys[j])) {
+				result.insertContainer(result.size, this.keys[i], this.containers[i].copy());
+				i++;
+			} else if (i == this.size || this.keys[i] > other.keys[j]) {
+				result.insertContainer(result.size, other.keys[j], other.containers[j].copy());
+				j++;
+			} else {
+				result.insertContainer(result.size, this.keys[i], this.containers[i].or(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the ids of this set, that are not contained in another set
+	 * 
+	 * @param other
+	 * @return new set
+	 */
+	public RoaringBitmap andNot(RoaringBitmap other) {
+		RoaringBitmap result = new RoaringBitmap();
+		int j = 0;
+		for (int i = 0; i < this.size; i++) {
+			while (j < other.size && other.keys[j] < this.keys[i]) {
+				j++;
+			}
+			Container container;
+			if (j < other.size && other.keys[j] == this.keys[i]) {
+				container = this.containers[i].andNot(other.containers[j]);
+			} else {
+				container = this.containers[i].copy();
+			}
+			if (container.cardinality() > 0) {
+				result.insertContainer(result.size, this.keys[i], container);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the set of all ids from 0 to n - 1
+	 * 
+	 * @param n
+	 * @return
+	 */
+	public static RoaringBitmap range(int n) {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		for (int start = 0; start < n; start += 1 << 16) {
+			int end = Math.min(n - start, 1 << 16);
+			long[] words = new long[WORDS];
+			Arrays.fill(words, 0, end >>> 6, -1L);
+			if ((end & 63) != 0) {
+				words[end >>> 6] = (1L << (end & 63)) - 1;
+			}
+			bitmap.insertContainer(bitmap.size, (char) (start >>> 16), new BitmapContainer(words, end).optimize());
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Performing an action for all ids in ascending order
+	 * 
+	 * @param action
+	 */
+	public void forEach(IntConsumer action) {
+		for (int i = 0; i < this.size; i++) {
+			this.containers[i].forEach(this.keys[i] << 16, action);
+		}
+	}
+
+	/**
+	 * Return all ids
+	 * 
+	 * @return ids in ascending order
+	 */
+	public int[] toArray() {
+		int[] ids = new int[getCardinality()];
+		int[] count = { 0 };
+		forEach(id -> ids[count[0]++] = id);
+		return ids;
+	}
+
+	/**
+	 * Return an iterator over all ids in ascending order
+	 * 
+	 * @return
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+
+			/* index of the current container */
+			private int container = 0;
+
+			/* ids of the current container */
+			private int[] ids = new int[0];
+
+			/* index of the next id in ids */
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (this.next == this.ids.length && this.container < size) {
+					int[] ids = new int[containers[this.container].cardinality()];
+					int[] count = { 0 };
+					containers[this.container].forEach(keys[this.container] << 16, id -> ids[count[0]++] = id);
+					this.ids = ids;
+					this.next = 0;
+					this.container++;
+				}
+				return this.next < this.ids.length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return this.ids[this.next++];
+			}
+		};
+	}
+
+	/**
+	 * Return the number of bytes used by the containers
+	 * 
+	 * @return
+	 */
+	public int getByteLength() {
+		int byteLength = 0;
+		for (int i = 0; i < this.size; i++) {
+			byteLength += Character.BYTES + this.containers[i].byteLength();
+		}
+		return byteLength;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof RoaringBitmap && Arrays.equals(toArray(), ((RoaringBitmap) obj).toArray());
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toArray());
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	/**
+	 * container of the ids of one chunk, identified by their lower 16 bits
+	 */
+	private static abstract class Container {
+
+		/**
+		 * Return the container after adding a value, that may be a new
+		 * container of another type
+		 */
+		abstract Container add(char value);
+
+		/**
+		 * Return a copy, that does not share values with this container
+		 */
+		abstract Container copy();
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		abstract int byteLength();
+
+		/**
+		 * Return the values as bitmap words, the words may be shared
+		 */
+		abstract long[] toWords();
+
+		/**
+		 * performing an action for all values in ascending order
+		 * 
+		 * @param high
+		 *            upper bits of the ids
+		 * @param action
+		 */
+		abstract void forEach(int high, IntConsumer action);
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract Container andNot(Container other);
+	}
+
+	/**
+	 * container of a sparse chunk: sorted array of the values
+	 */
+	private static class ArrayContainer extends Container {
+
+		private char[] values;
+
+		private int cardinality;
+
+		ArrayContainer() {
+			this(new char[4], 0);
+		}
+
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			int i = this.cardinality > 0 && this.values[this.cardinality - 1] < value ? -this.cardinality - 1
+					: Arrays.binarySearch(this.values, 0, this.cardinality, value);
+			if (i >= 0) {
+				return this;
+			}
+			if (this.cardinality == ARRAY_LIMIT) {
+				return new BitmapContainer(toWords(), this.cardinality).add(value);
+			}
+
+			/* inserting the value keeping the array sorted */
+			i = -i - 1;
+			if (this.cardinality == this.values.length) {
+				this.values = Arrays.copyOf(this.values, Math.min(ARRAY_LIMIT, 2 * this.cardinality));
+			}
+			System.arraycopy(this.values, i, this.values, i + 1, this.cardinality - i);
+			this.values[i] = value;
+			this.cardinality++;
+			return this;
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(this.values, this.cardinality), this.cardinality);
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(this.values, 0, this.cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return this.cardinality;
+		}
+
+		@Override
+		int byteLength() {
+			return this.cardinality * Character.BYTES;
+		}
+
+		@Override
+		long[] toWords() {
+			long[] words = new long[WORDS];
+			for (int i = 0; i < this.cardinality; i++) {
+				words[this.values[i] >>> 6] |= 1L << this.values[i];
+			}
+			return words;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for (int i = 0; i < this.cardinality; i++) {
+				action.accept(high | this.values[i]);
+			}
+		}
+
+		@Override
+		Container and(Container other) {
+			char[] result = new char[this.cardinality];
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				/* merging both sorted arrays */
+				ArrayContainer array = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < this.cardinality && j < array.cardinality) {
+					if (this.values[i] < array.values[j]) {
+						i++;
+					} else if (this.values[i] > array.values[j]) {
+						j++;
+					} else {
+						result[count++] = this.values[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < this.cardinality; i++) {
+					if (other.contains(this.values[i])) {
+						result[count++] = this.values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof BitmapContainer) {
+				return other.or(this);
+			}
+
+			/* merging both sorted arrays */
+			ArrayContainer array = (ArrayContainer) other;
+			char[] result = new char[this.cardinality + array.cardinality];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < this.cardinality || j < array.cardinality) {
+				if (j == array.cardinality || (i < this.cardinality && this.values[i] < array.values[j])) {
+					result[count++] = this.values[i++];
+				} else if (i == this.cardinality || this.values[i] > array.values[j]) {
+					result[count++] = array.values[j++];
+				} else {
+					result[count++] = this.values[i++];
+					j++;
+				}
+			}
+			ArrayContainer union = new ArrayContainer(result, count);
+			return count > ARRAY_LIMIT ? new BitmapContainer(union.toWords(), count) : union;
+		}
+
+		@Override
+		Container andNot(Container other) {
+			char[] result = new char[this.cardinality];
+			int count = 0;
+			for (int i = 0; i < this.cardinality; i++) {
+				if (!other.contains(this.values[i])) {
+					result[count++] = this.values[i];
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+	}
+
+	/**
+	 * container of a dense chunk: one bit for every possible value
+	 */
+	private static class BitmapContainer extends Container {
+
+		private long[] words;
+
+		private int cardinality;
+
+		BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		/**
+		 * creation of a container from words, whose cardinality is counted
+		 */
+		static Container of(long[] words) {
+			int cardinality = 0;
+			for (long word : words) {
+				cardinality += Long.bitCount(word);
+			}
+			return new BitmapContainer(words, cardinality).optimize();
+		}
+
+		/**
+		 * Return an array container, if the values fit into it
+		 */
+		Container optimize() {
+			if (this.cardinality > ARRAY_LIMIT) {
+				return this;
+			}
+			char[] values = new char[this.cardinality];
+			int[] count = { 0 };
+			forEach(0, value -> values[count[0]++] = (char) value);
+			return new ArrayContainer(values, this.cardinality);
+		}
+
+		@Override
+		Container add(char value) {
+			if (!contains(value)) {
+				this.words[value >>> 6] |= 1L << value;
+				this.cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container copy() {
+			return new BitmapContainer(this.words.clone(), this.cardinality);
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (this.words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return this.cardinality;
+		}
+
+		@Override
+		int byteLength() {
+			return WORDS * Long.BYTES;
+		}
+
+		@Override
+		long[] toWords() {
+			return this.words;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for (int i = 0; i < WORDS; i++) {
+				long word = this.words[i];
+				while (word != 0) {
+					action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			long[] otherWords = other.toWords();
+			long[] result = new long[WORDS];
+			for (int i = 0; i < WORDS; i++) {
+				result[i] = this.words[i] & otherWords[i];
+			}
+			return of(result);
+		}
+
+		@Override
+		Container or(Container other) {
+			long[] otherWords = other.toWords();
+			long[] result = new long[WORDS];
+			for (int i = 0; i < WORDS; i++) {
+				result[i] = this.words[i] | otherWords[i];
+			}
+			return of(result);
+		}
+
+		@Override
+		Container andNot(Container other) {
+			long[] otherWords = other.toWords();
+			long[] result = new long[WORDS];
+			for (int i = 0; i < WORDS; i++) {
+				result[i] = this.words[i] & ~otherWords[i];
+			}
+			return of(result);
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+
+/**
+ * Accumulator for the scores of documents during term-at-a-time scoring. The
+ * scores are stored in an array indexed by the dense document ids, the ids of
+ * all documents that got a score are remembered, so an accumulator can be
+ * cleared and reused for the next query without touching the whole array.
+ * 
+ * @author Marek Herde
+ */
+public class ScoreAccumulator {
+
+	/** score of every document indexed by document id */
+	private double[] scores = new double[0];
+
+	/** flag for every document whether it got a score */
+	private boolean[] touched = new boolean[0];
+
+	/** ids of all documents that got a score in the order of their first score */
+	private int[] touchedDocIds = new int[0];
+
+	/** number of documents that got a score */
+	private int touchedCount = 0;
+
+	/**
+	 * Ensuring that documents with ids up to numberOfDocuments - 1 can be
+	 * scored
+	 * 
+	 * @param numberOfDocuments
+	 */
+	public void ensureCapacity(int numberOfDocuments) {
+		if (this.scores.length < numberOfDocuments) {
+			this.scores = Arrays.copyOf(this.scores, numberOfDocuments);
+			this.touched = Arrays.copyOf(this.touched, numberOfDocuments);
+			this.touchedDocIds = Arrays.copyOf(this.touchedDocIds, numberOfDocuments);
+		}
+	}
+
+	/**
+	 * Adding a partial score to the score of a document
+	 * 
+	 * @param docId
+	 * @param score
+	 */
+	public void add(int docId, double score) {
+		if (!this.touched[docId]) {
+			this.touched[docId] = true;
+			this.touchedDocIds[this.touchedCount++] = docId;
+		}
+		this.scores[docId] += score;
+	}
+
+	/**
+	 * Return whether a document got a score since the last clear()
+	 * 
+	 * @param docId
+	 * @return
+	 */
+	public boolean isTouched(int docId) {
+		return this.touched[docId];
+	}
+
+	/**
+	 * Return the accumulated score of a document
+	 * 
+	 * @param docId
+	 * @return
+	 */
+	public double getScore(int docId) {
+		return this.scores[docId];
+	}
+
+	/**
+	 * Return the number of documents that got a score
+	 * 
+	 * @return
+	 */
+	public int getTouchedCount() {
+		return this.touchedCount;
+	}
+
+	/**
+	 * Return the id of the i-th document that got a score
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public int getTouchedDocId(int i) {
+		return this.touchedDocIds[i];
+	}
+
+	/**
+	 * Resetting the scores of all touched documents
+	 */
+	public void clear() {
+		for (int i = 0; i < this.touchedCount; i++) {
+			int docId = this.touchedDocIds[i];
+			this.scores[docId] = 0.;
+			this.touched[docId] = false;
+		}
+		this.touchedCount = 0;
+	}
+
+}
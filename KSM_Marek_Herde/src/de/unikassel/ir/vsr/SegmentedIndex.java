@@ -0,0 +1,874 @@
+package de.unikassel.ir.vsr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import de.unikassel.ir.vsr.InvertedIndexImpl.Evaluation;
+
+/**
+ * Index consisting of several segments (analog to a log-structured merge
+ * tree): new documents are added to a small write segment, which is flushed
+ * to the read-only segments as soon as it contains a given number of
+ * documents. Segments of similar size are merged into one segment in the
+ * background, so the number of segments grows logarithmically with the
+ * number of documents. Queries are evaluated on every segment and the results
+ * of the segments are merged. All segments calculate their idf values from
+ * the statistics of the whole index, so the similarity scores are the same as
+ * the scores of one index over all documents.
+ * 
+ * Queries run concurrently, adding, removing and merging documents exclude
+ * queries only while a segment is changed or replaced.
+ * 
+ * @author Marek Herde
+ */
+public class SegmentedIndex implements InvertedIndex, PhraseSearch, CollectionStatistics {
+
+	private static Logger log = Logger.getLogger(SegmentedIndex.class);
+
+	/** number of documents, from which on the write segment is flushed */
+	public static final int DEFAULT_FLUSH_THRESHOLD = 1000;
+
+	/** number of segments of similar size, that are merged */
+	public static final int DEFAULT_MERGE_FACTOR = 10;
+
+	/** number of documents, from which on the write segment is flushed */
+	private final int flushThreshold;
+	/** number of segments of similar size, that are merged */
+	private final int mergeFactor;
+	/** flag whether merged segments store their postings compressed */
+	private final boolean compressPostings;
+	/** read-only segments ordered by age, replaced as a whole when changed */
+	private volatile List<PhraseSearchIndex> segments = Collections.emptyList();
+	/** segment receiving new documents */
+	private volatile PhraseSearchIndex writeSegment;
+	/** lock shared by queries, exclusive for changes of the segments */
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/** flag whether the statistics of the segments have changed */
+	private volatile boolean outdated = false;
+	/** single thread merging segments in the background */
+	private final ExecutorService merger;
+	/** analyzer of the documents of all segments */
+	private final Analyzer analyzer;
+	/** number of frequent terms, whose pairs are indexed by the read-only segments, 0 for none */
+	private volatile int biwordTerms = 0;
+	/** maximal number of positions of all pairs of a segment */
+	private volatile long maxBiwordPositions;
+
+	/**
+	 * creation of an empty index with default flush threshold and merge factor
+	 */
+	public SegmentedIndex() {
+		this(DEFAULT_FLUSH_THRESHOLD, DEFAULT_MERGE_FACTOR, false);
+	}
+
+	/**
+	 * creation of an empty index
+	 * 
+	 * @param flushThreshold
+	 *            number of documents, from which on the write segment is
+	 *            flushed
+	 * @param mergeFactor
+	 *            number of segments of similar size, that are merged, at least
+	 *            2
+	 * @param compressPostings
+	 *            if true, merged segments store postings and positions
+	 *            compressed
+	 */
+	public SegmentedIndex(int flushThreshold, int mergeFactor, boolean compressPostings) {
+		this(new CorpusImpl(), flushThreshold, mergeFactor, compressPostings);
+	}
+
+	/**
+	 * creation of an index, whose first segment contains all documents of a
+	 * corpus, the segments use the analyzer of the corpus
+	 * 
+	 * @param corpus
+	 *            contains all documents of the first segment
+	 * @param flushThreshold
+	 *            number of documents, from which on the write segment is
+	 *            flushed
+	 * @param mergeFactor
+	 *            number of segments of similar size, that are merged, at least
+	 *            2
+	 * @param compressPostings
+	 *            if true, the first and merged segments store postings and
+	 *            positions compressed
+	 */
+	public SegmentedIndex(Corpus corpus, int flushThreshold, int mergeFactor, boolean compressPostings) {
+		if (flushThreshold < 1 || mergeFactor < 2) {
+			throw new IllegalArgumentException("flush threshold " + flushThreshold + ", merge factor " + mergeFactor);
+		}
+		this.flushThreshold = flushThreshold;
+		this.mergeFactor = mergeFactor;
+		this.compressPostings = compressPostings;
+		this.analyzer = corpus.getAnalyzer();
+		this.writeSegment = createSegment(new CorpusImpl(this.analyzer), false);
+
+		/* daemon thread, so a forgotten index does not keep the JVM alive */
+		this.merger = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "segment merger");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (corpus.size() > 0) {
+			this.segments = Collections.singletonList(createSegment(corpus, compressPostings));
+			this.outdated = true;
+		}
+	}
+
+	/**
+	 * creation of an index, whose first segment is an existing index, e.g. an
+	 * index read from a file (see {@link IndexFile}). The idf values and
+	 * document lengths of the index are kept, until documents are added or
+	 * removed.
+	 * 
+	 * @param segment
+	 *            index of the first segment
+	 * @param flushThreshold
+	 *            number of documents, from which on the write segment is
+	 *            flushed
+	 * @param mergeFactor
+	 *            number of segments of similar size, that are merged, at least
+	 *            2
+	 * @param compressPostings
+	 *            if true, merged segments store postings and positions
+	 *            compressed
+	 */
+	public SegmentedIndex(PhraseSearchIndex segment, int flushThreshold, int mergeFactor, boolean compressPostings) {
+		this(new CorpusImpl(segment.getCorpus().getAnalyzer()), flushThreshold, mergeFactor, compressPostings);
+
+		/* the statistics of the only segment are the statistics of this index */
+		segment.statistics = this;
+		this.segments = Collections.singletonList(segment);
+	}
+
+	/**
+	 * creation of a segment using the statistics of this index
+	 * 
+	 * @param corpus
+	 *            documents of the segment
+	 * @param compressPostings
+	 * @return segment
+	 */
+	private PhraseSearchIndex createSegment(Corpus corpus, boolean compressPostings) {
+		return new PhraseSearchIndex(corpus, compressPostings, this);
+	}
+
+	/**
+	 * Return all segments including the write segment
+	 * 
+	 * @return
+	 */
+	private List<PhraseSearchIndex> getAllSegments() {
+		List<PhraseSearchIndex> allSegments = new ArrayList<>(this.segments.size() + 1);
+		allSegments.addAll(this.segments);
+		allSegments.add(this.writeSegment);
+		return allSegments;
+	}
+
+	/**
+	 * acquiring the lock of a query, the idf values and document lengths of
+	 * all segments are recalculated before if the statistics have changed. The
+	 * lock has to be released by {@link #release()}.
+	 * 
+	 * @return all segments including the write segment
+	 */
+	private List<PhraseSearchIndex> acquire() {
+		this.lock.readLock().lock();
+
+		/* nested queries are already up to date */
+		if (this.outdated && this.lock.getReadHoldCount() == 1) {
+			this.lock.readLock().unlock();
+			this.lock.writeLock().lock();
+			try {
+				if (this.outdated) {
+					for (PhraseSearchIndex segment : getAllSegments()) {
+						segment.invalidate();
+						segment.refresh();
+					}
+					this.outdated = false;
+				}
+
+				/* downgrading to the lock of a query */
+				this.lock.readLock().lock();
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+
+		return getAllSegments();
+	}
+
+	/**
+	 * releasing the lock of a query
+	 */
+	private void release() {
+		this.lock.readLock().unlock();
+	}
+
+	/**
+	 * Return the number of read-only segments
+	 * 
+	 * @return
+	 */
+	public int getSegmentCount() {
+		return this.segments.size();
+	}
+
+	/**
+	 * Applying an action to every segment including the write segment under
+	 * the lock of a query, so no segment is changed or replaced meanwhile. The
+	 * document ids of a segment refer to the corpus of the segment and every
+	 * document belongs to one segment, e.g. the results of a boolean query
+	 * are the union of its results in all segments.
+	 * 
+	 * @param action
+	 *            action applied to the segments in the order of their age
+	 */
+	public void forEachSegment(Consumer<PhraseSearchIndex> action) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			for (PhraseSearchIndex segment : allSegments) {
+				action.accept(segment);
+			}
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Return a view on the corpora of all segments, that is only valid until
+	 * the segments are changed
+	 * 
+	 * @return corpus containing all documents
+	 */
+	public Corpus getCorpus() {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			Corpus[] corpora = new Corpus[allSegments.size()];
+			for (int i = 0; i < allSegments.size(); i++) {
+				corpora[i] = allSegments.get(i).corpus;
+			}
+			return new ConcatenatedCorpus(corpora);
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Return the analyzer of the documents of all segments
+	 * 
+	 * @return
+	 */
+	public Analyzer getAnalyzer() {
+		return this.analyzer;
+	}
+
+	/**
+	 * Return the number of documents of all segments, that are not removed.
+	 * The statistics are read by the segments while they are recalculated, so
+	 * they do not acquire the lock.
+	 */
+	@Override
+	public int getCorpusSize() {
+		int corpusSize = 0;
+		for (PhraseSearchIndex segment : getAllSegments()) {
+			corpusSize += segment.getCorpusSize();
+		}
+		return corpusSize;
+	}
+
+	@Override
+	public int getDocumentFrequency(String token) {
+		int documentFrequency = 0;
+		for (PhraseSearchIndex segment : getAllSegments()) {
+			documentFrequency += segment.getDocumentFrequency(token);
+		}
+		return documentFrequency;
+	}
+
+	@Override
+	public int getMaxFrequency() {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			int maxFrequency = 0;
+			for (PhraseSearchIndex segment : allSegments) {
+				maxFrequency = Math.max(maxFrequency, segment.getMaxFrequency());
+			}
+			return maxFrequency;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* query vector with the idf values of the whole index */
+			QueryVector queryVector = new QueryVector(query, this);
+
+			/* merging the rankings of all segments */
+			SortedSet<SearchResultItem> results = new TreeSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				results.addAll(segment.getCosineSimilarities(new QueryVector(queryVector, segment)));
+			}
+			return results.iterator();
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k) {
+		return getCosineSimilarities(query, k, null);
+	}
+
+	/**
+	 * Return the k Documents with the highest cosine similarity for a query
+	 * using the given evaluation strategy in every segment
+	 * 
+	 * @param query
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @param evaluation
+	 *            strategy to evaluate the query, null to choose it by query
+	 *            length
+	 * @return Iterator for at most k SearchResultItems of query
+	 */
+	public Iterator<? extends SearchResultItem> getCosineSimilarities(String[] query, int k, Evaluation evaluation) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* query vector with the idf values of the whole index */
+			QueryVector queryVector = new QueryVector(query, this);
+			if (evaluation == null) {
+				evaluation = InvertedIndexImpl.getEvaluation(queryVector);
+			}
+
+			/* the k best documents are among the k best documents of the segments */
+			List<SearchResultItem> results = new ArrayList<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				results.addAll(segment.getCosineSimilarities(new QueryVector(queryVector, segment), k, evaluation));
+			}
+			results.sort((a, b) -> Double.compare(b.getSimilarityScore(), a.getSimilarityScore()));
+			return results.subList(0, Math.min(k, results.size())).iterator();
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Return the k documents with the highest cosine similarity boosted by the
+	 * proximity of the query tokens (see
+	 * {@link InvertedIndexImpl#getProximityRankedResults(String[], int)}). The
+	 * candidates are the best documents of every segment, so they contain the
+	 * candidates of one index over all documents.
+	 * 
+	 * @param query
+	 * @param k
+	 *            maximal number of results, at least 1
+	 * @return Iterator for at most k SearchResultItems of query
+	 */
+	public Iterator<? extends SearchResultItem> getProximityRankedResults(String[] query, int k) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* query vector with the idf values of the whole index */
+			QueryVector queryVector = new QueryVector(query, this);
+
+			List<SearchResultItem> results = new ArrayList<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				results.addAll(segment.getProximityRankedResults(new QueryVector(queryVector, segment), k));
+			}
+			results.sort((a, b) -> Double.compare(b.getSimilarityScore(), a.getSimilarityScore()));
+			return results.subList(0, Math.min(k, results.size())).iterator();
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Return a token info, whose postings are the concatenated postings of
+	 * all segments. The document ids refer to a view on the corpora of the
+	 * segments, that is only valid until the segments are changed.
+	 */
+	@Override
+	public TokenInfo getTokenInfo(String term) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			Corpus[] corpora = new Corpus[allSegments.size()];
+			PostingList[] postingLists = new PostingList[allSegments.size()];
+			double upperBound = 0.;
+			for (int i = 0; i < allSegments.size(); i++) {
+				TokenInfo tokenInfo = allSegments.get(i).getTokenInfo(term);
+				corpora[i] = allSegments.get(i).corpus;
+				postingLists[i] = tokenInfo.getPostingList();
+				upperBound = Math.max(upperBound, tokenInfo.getUpperBound());
+			}
+
+			ConcatenatedCorpus corpus = new ConcatenatedCorpus(corpora);
+			TokenInfo tokenInfo = new TokenInfoImpl(new ConcatenatedPostingList(postingLists, corpus.getBaseIds()),
+					corpus);
+			tokenInfo.setIdf(Math.log(getCorpusSize() / (double) tokenInfo.getPostingList().size()));
+			tokenInfo.setUpperBound(upperBound);
+			return tokenInfo;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public List<String> getTermsWithPrefix(String prefix) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			SortedSet<String> terms = new TreeSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				terms.addAll(segment.getTermsWithPrefix(prefix));
+			}
+			return new ArrayList<>(terms);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public List<String> getTermsInRange(String from, String to) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			SortedSet<String> terms = new TreeSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				terms.addAll(segment.getTermsInRange(from, to));
+			}
+			return new ArrayList<>(terms);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public List<String> getTermsMatching(String pattern, int maxExpansions) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* the expansions are selected by the document frequencies of all segments */
+			Set<String> terms = new TreeSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				terms.addAll(segment.getTermsMatching(pattern, Integer.MAX_VALUE));
+			}
+			return WildcardPattern.selectMostFrequent(terms, maxExpansions, this::getDocumentFrequency);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public List<String> getTermsWithinDistance(String term, int maxDistance, int maxExpansions) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* the expansions are selected by the document frequencies of all segments */
+			Set<String> terms = new TreeSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				terms.addAll(segment.getTermsWithinDistance(term, maxDistance, Integer.MAX_VALUE));
+			}
+			return new LevenshteinAutomaton(term, maxDistance).selectClosest(terms, maxExpansions,
+					this::getDocumentFrequency);
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public Map<Document, List<Integer>> searchPhrase(List<String> phrase) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* every document belongs to one segment */
+			Map<Document, List<Integer>> result = new HashMap<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				result.putAll(segment.searchPhrase(phrase));
+			}
+			return result;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public Map<Document, List<Integer>> searchPhrase(String phrase) {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			Map<Document, List<Integer>> result = new HashMap<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				result.putAll(segment.searchPhrase(phrase));
+			}
+			return result;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public List<String> getContext(String phrase, Document doc, int pos) {
+		/* the context only depends on the document */
+		return this.writeSegment.getContext(phrase, doc, pos);
+	}
+
+	@Override
+	public void addDocument(Document doc) {
+		this.lock.writeLock().lock();
+		try {
+			for (PhraseSearchIndex segment : this.segments) {
+				if (contains(segment, doc)) {
+					throw new IllegalArgumentException("document " + doc.getId() + " is already indexed");
+				}
+			}
+			this.writeSegment.addDocument(doc);
+			this.outdated = true;
+
+			if (this.writeSegment.corpus.size() >= this.flushThreshold) {
+				flushWriteSegment();
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean removeDocument(Document doc) {
+		this.lock.writeLock().lock();
+		try {
+			for (PhraseSearchIndex segment : getAllSegments()) {
+				if (segment.removeDocument(doc)) {
+					this.outdated = true;
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void updateDocument(Document oldDoc, Document newDoc) {
+		this.lock.writeLock().lock();
+		try {
+			this.removeDocument(oldDoc);
+			this.addDocument(newDoc);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Flushing the write segment to the read-only segments, even if it
+	 * contains less documents than the flush threshold
+	 */
+	public void flush() {
+		this.lock.writeLock().lock();
+		try {
+			flushWriteSegment();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * appending the write segment to the read-only segments and scheduling a
+	 * merge, the write lock has to be held
+	 */
+	private void flushWriteSegment() {
+		if (this.writeSegment.corpus.size() == 0) {
+			return;
+		}
+
+		PhraseSearchIndex flushedSegment = this.writeSegment;
+		List<PhraseSearchIndex> newSegments = new ArrayList<>(this.segments);
+		newSegments.add(flushedSegment);
+		this.segments = newSegments;
+		this.writeSegment = createSegment(new CorpusImpl(this.analyzer), false);
+		this.outdated = true;
+
+		if (!this.merger.isShutdown()) {
+			this.merger.execute(() -> buildBiwordIndex(flushedSegment));
+			this.merger.execute(this::mergeSegments);
+		}
+	}
+
+	/**
+	 * Building an index of the pairs of adjacent frequent terms for every
+	 * read-only segment (see {@link PhraseSearchIndex#buildBiwordIndex(int, long)})
+	 * and for the segments flushed or merged later. The pair indices are built
+	 * in the merge thread, until then phrase searches use the postings of the
+	 * terms.
+	 * 
+	 * @param frequentTerms
+	 *            number of terms with the highest document frequency in a
+	 *            segment, whose pairs are indexed
+	 * @param maxPositions
+	 *            maximal number of positions of all pairs of a segment
+	 */
+	public void enableBiwordIndex(int frequentTerms, long maxPositions) {
+		this.lock.writeLock().lock();
+		try {
+			this.biwordTerms = frequentTerms;
+			this.maxBiwordPositions = maxPositions;
+			if (!this.merger.isShutdown()) {
+				for (PhraseSearchIndex segment : this.segments) {
+					this.merger.execute(() -> buildBiwordIndex(segment));
+				}
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * building the pair index of a read-only segment in the merge thread,
+	 * while queries use the segment without it. The lock of a query excludes
+	 * changes of the statistics, that the segment may be refreshed with.
+	 * 
+	 * @param segment
+	 */
+	private void buildBiwordIndex(PhraseSearchIndex segment) {
+		if (this.biwordTerms == 0) {
+			return;
+		}
+		this.lock.readLock().lock();
+		try {
+			/* segments merged meanwhile need no pair index */
+			if (this.segments.contains(segment) && segment.getBiwordIndex() == null) {
+				segment.buildBiwordIndex(this.biwordTerms, this.maxBiwordPositions);
+			}
+		} catch (RuntimeException e) {
+			log.error("building the biword index of a segment failed", e);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * merging segments of similar size until no tier of the merge policy
+	 * contains enough segments, running in the merge thread
+	 */
+	private void mergeSegments() {
+		try {
+			while (mergeSegments(this::selectSegmentsToMerge)) {
+			}
+		} catch (RuntimeException e) {
+			log.error("merging segments failed", e);
+		}
+	}
+
+	/**
+	 * Merging segments into one segment, the merged segment is built without
+	 * blocking queries. The idf values are calculated from the statistics of
+	 * this index, which are not changed by merging, so they are calculated
+	 * once for the merged segment.
+	 * 
+	 * @param selection
+	 *            choice of the segments to merge under the lock of a query,
+	 *            returning null if there are none
+	 * @return true, if segments were merged
+	 */
+	private boolean mergeSegments(Supplier<List<PhraseSearchIndex>> selection) {
+
+		/* choice of segments and their documents, that are not deleted */
+		List<PhraseSearchIndex> mergedSegments;
+		Corpus corpus = new CorpusImpl(this.analyzer);
+		this.lock.readLock().lock();
+		try {
+			mergedSegments = selection.get();
+			if (mergedSegments == null) {
+				return false;
+			}
+			for (PhraseSearchIndex segment : mergedSegments) {
+				for (Document doc : segment.corpus) {
+					if (contains(segment, doc)) {
+						corpus.addDocument(doc);
+					}
+				}
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+
+		/* building the postings of the merged segment without blocking queries */
+		PhraseSearchIndex merged = new PhraseSearchIndex(corpus, this.compressPostings, this);
+
+		this.lock.writeLock().lock();
+		try {
+			/* removing documents, that were deleted while merging */
+			for (Document doc : corpus) {
+				boolean deleted = true;
+				for (PhraseSearchIndex segment : mergedSegments) {
+					deleted &= !contains(segment, doc);
+				}
+				if (deleted) {
+					merged.removeDocument(doc);
+				}
+			}
+
+			/* replacing merged segments at the position of the oldest one */
+			List<PhraseSearchIndex> newSegments = new ArrayList<>(this.segments);
+			newSegments.set(newSegments.indexOf(mergedSegments.get(0)), merged);
+			newSegments.removeAll(mergedSegments);
+			this.segments = newSegments;
+
+			/* calculating the weights of the merged segment from the unchanged statistics */
+			merged.refresh();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+
+		/* the pairs of the merged segments are indexed again for the merged one */
+		buildBiwordIndex(merged);
+		return true;
+	}
+
+	/**
+	 * Merging all read-only segments and the write segment into one segment
+	 * and waiting for the merge, e.g. before the index is written to a file
+	 */
+	public void forceMerge() {
+		flush();
+		try {
+			this.merger.submit(() -> mergeSegments(() -> this.segments.size() > 1 ? this.segments : null)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("merging segments failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Writing the index to a file after merging all segments (see
+	 * {@link IndexFile#write(InvertedIndexImpl, File)}), documents added
+	 * during the merge are not written
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		forceMerge();
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			IndexFile.write(allSegments.get(0), file);
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Tiered merge policy: a segment belongs to tier t, if it contains less
+	 * than flushThreshold * mergeFactor^(t + 1) documents that are not
+	 * deleted. As soon as a tier contains mergeFactor segments, its oldest
+	 * segments are merged.
+	 * 
+	 * @return segments to merge or null, if no tier is full
+	 */
+	private List<PhraseSearchIndex> selectSegmentsToMerge() {
+		Map<Integer, List<PhraseSearchIndex>> tiers = new HashMap<>();
+		for (PhraseSearchIndex segment : this.segments) {
+
+			/* determining tier of the segment */
+			int tier = 0;
+			long bound = (long) this.flushThreshold * this.mergeFactor;
+			while (segment.getCorpusSize() >= bound) {
+				tier++;
+				bound *= this.mergeFactor;
+			}
+
+			List<PhraseSearchIndex> tierSegments = tiers.computeIfAbsent(tier, t -> new ArrayList<>());
+			tierSegments.add(segment);
+			if (tierSegments.size() == this.mergeFactor) {
+				return tierSegments;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * determining whether a segment contains a document, that is not deleted
+	 * 
+	 * @param segment
+	 * @param doc
+	 * @return
+	 */
+	private static boolean contains(PhraseSearchIndex segment, Document doc) {
+		int docId = segment.corpus.getDocId(doc);
+		return docId != -1 && docId < segment.maximalFrequencies.length && !segment.deletedDocs.get(docId);
+	}
+
+	/**
+	 * Waiting until all scheduled merges are finished
+	 */
+	public void waitForMerges() {
+		try {
+			this.merger.submit(() -> {
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("merging segments failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Stopping the merge thread after the scheduled merges
+	 */
+	public void close() {
+		this.merger.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		List<PhraseSearchIndex> allSegments = acquire();
+		try {
+			/* tokens of all segments */
+			Set<String> tokens = new LinkedHashSet<>();
+			for (PhraseSearchIndex segment : allSegments) {
+				tokens.addAll(segment.tokenHash.keySet());
+			}
+
+			/* String representation of inverted index */
+			StringBuilder invertedIndex = new StringBuilder("[\n");
+			for (String token : tokens) {
+				TokenInfo info = this.getTokenInfo(token);
+				if (info.getPostingList().size() == 0) {
+					continue;
+				}
+
+				/* printing token with its idf and its occurrences */
+				invertedIndex.append(String.format(" %-20s (%.15f) -> [", token, info.getIdf()));
+				for (TokenOccurrence occ : info.getTokenOccurrenceList()) {
+					if (occ != info.getTokenOccurrenceList().last())
+						invertedIndex.append(" " + occ.toString() + "; ");
+					else
+						invertedIndex.append(" " + occ.toString() + " ]\n");
+				}
+			}
+			invertedIndex.append("]");
+			return invertedIndex.toString();
+		} finally {
+			release();
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the stems of recently stemmed terms in front of the
+ * Porter {@link Stemmer}. Since the frequencies of terms follow Zipf's law,
+ * most terms of a text have been stemmed shortly before, so a small cache
+ * answers most requests without running the algorithm.
+ * <p>
+ * The cache is a two-way set associative table: the hash value of a term
+ * chooses a pair of slots, the term found or stemmed last is kept in the
+ * first slot and the older term is moved to the second slot, replacing the
+ * least recently used term of the pair. So the memory is bounded by the
+ * number of slots and two frequent terms of the same pair do not evict each
+ * other. A slot references an immutable entry, so
+ * threads can read and replace entries without locking; a lost update only
+ * causes a later miss. Hits compare the characters of the term with the
+ * entry and copy the stem, so no object is created.
+ * 
+ * @author Marek Herde
+ */
+public class StemCache {
+
+	/** default number of slots */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * term and its stem, immutable, so it is safely published to other
+	 * threads by its final fields
+	 */
+	private static class Entry {
+
+		private final char[] term;
+
+		private final char[] stem;
+
+		private Entry(char[] term, char[] stem) {
+			this.term = term;
+			this.stem = stem;
+		}
+	}
+
+	/** pairs of slots of the cache, the number of slots is a power of two */
+	private final Entry[] slots;
+
+	/** number of terms found in the cache */
+	private final LongAdder hits = new LongAdder();
+
+	/** number of terms stemmed by the algorithm */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * creation of a cache with the default number of slots
+	 */
+	public StemCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * creation of an empty cache
+	 * 
+	 * @param capacity
+	 *            maximal number of cached terms, rounded up to a power of two
+	 *            of at least 2
+	 */
+	public StemCache(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		this.slots = new Entry[Math.max(2, Integer.highestOneBit(capacity - 1) << 1)];
+	}
+
+	/**
+	 * Stem a term, the stem is written to the start of the buffer
+	 * 
+	 * @param buffer
+	 *            characters of the lowercased term starting at index 0
+	 * @param length
+	 *            number of characters of the term
+	 * @return number of characters of the stem, at most length
+	 */
+	public int stem(char[] buffer, int length) {
+		int slot = hash(buffer, length) & (this.slots.length - 2);
+		Entry first = this.slots[slot];
+		Entry entry = first;
+		if (entry == null || !equals(entry.term, buffer, length)) {
+			entry = this.slots[slot + 1];
+			if (entry != null && equals(entry.term, buffer, length)) {
+
+				/* moving the found term to the first slot */
+				this.slots[slot] = entry;
+				this.slots[slot + 1] = first;
+			} else {
+				entry = null;
+			}
+		}
+		if (entry != null) {
+			this.hits.increment();
+			System.arraycopy(entry.stem, 0, buffer, 0, entry.stem.length);
+			return entry.stem.length;
+		}
+		this.misses.increment();
+
+		/* running the algorithm in place and replacing the entry of the slot */
+		char[] term = Arrays.copyOf(buffer, length);
+		int stemLength = Stemmer.getThreadInstance().stem(buffer, 0, length, buffer);
+		this.slots[slot + 1] = first;
+		this.slots[slot] = new Entry(term, Arrays.copyOf(buffer, stemLength));
+		return stemLength;
+	}
+
+	/**
+	 * Return the number of terms found in the cache
+	 * 
+	 * @return
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Return the number of terms, that were not in the cache
+	 * 
+	 * @return
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Return the fraction of terms found in the cache
+	 * 
+	 * @return hit rate between 0 and 1, 0 if no term was stemmed
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long requests = hits + getMisses();
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	/**
+	 * Return the number of slots, i.e. the maximal number of cached terms
+	 * 
+	 * @return
+	 */
+	public int getCapacity() {
+		return this.slots.length;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("StemCache[capacity=%d, hits=%d, misses=%d, hit rate=%.3f]", getCapacity(), getHits(),
+				getMisses(), getHitRate());
+	}
+
+	/**
+	 * hash value of a term, mixed by a multiplication with the golden ratio
+	 * and spreading the high bits to the low bits used to choose the pair of
+	 * slots
+	 */
+	private static int hash(char[] buffer, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(char[] term, char[] buffer, int length) {
+		if (term.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (term[i] != buffer[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,47 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * Filter reducing terms to their stems by the Porter algorithm (see
+ * {@link Stemmer}), e.g. "connected" and "connection" both become "connect".
+ * The stems of recent terms are taken from a {@link StemCache}, which can be
+ * shared by several filters. The filter can be shared between threads.
+ * 
+ * @author Marek Herde
+ */
+public class StemFilter implements TokenFilter {
+
+	/** cache of the stems of recent terms */
+	private final StemCache cache;
+
+	/**
+	 * creation of a filter with its own cache of the default capacity
+	 */
+	public StemFilter() {
+		this(new StemCache());
+	}
+
+	/**
+	 * creation of a filter using a cache of stems
+	 * 
+	 * @param cache
+	 *            cache of the stems of recent terms
+	 */
+	public StemFilter(StemCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Return the cache of the stems of recent terms
+	 * 
+	 * @return
+	 */
+	public StemCache getCache() {
+		return this.cache;
+	}
+
+	@Override
+	public int filter(char[] buffer, int length) {
+		return this.cache.stem(buffer, length);
+	}
+
+}
@@ -42,15 +42,22 @@ import java.io.IOException;
  * The Stemmer class transforms a word into its root form. The input word can be
  * provided a character at time (by calling add()), or at once by calling one of
  * the various stem(something) methods.
+ *
+ * The stem(char[], int, int, char[]) and stem(CharSequence, char[]) methods
+ * stem a slice into a buffer of the caller without creating objects; with
+ * getThreadInstance() every thread reuses its own Stemmer.
  */
 
-class Stemmer {
+public class Stemmer {
 	private char[] b;
 	private int i, /* offset into b */
 			i_end, /* offset to end of stemmed word */
 			j, k;
 	private static final int INC = 50;
 
+	/* Stemmer of every thread, see getThreadInstance() */
+	private static final ThreadLocal<Stemmer> THREAD_INSTANCES = ThreadLocal.withInitial(Stemmer::new);
+
 	/* unit of size whereby b is increased */
 	public Stemmer() {
 		b = new char[INC];
@@ -114,6 +121,57 @@ class Stemmer {
 		return b;
 	}
 
+	/**
+	 * Returns the Stemmer of the current thread. A Stemmer keeps state between
+	 * its calls, so it must not be shared between threads, but a thread can
+	 * reuse its Stemmer for every word.
+	 */
+	public static Stemmer getThreadInstance() {
+		return THREAD_INSTANCES.get();
+	}
+
+	/**
+	 * Stems the lowercased word in w[offset, offset + wLen) and writes the stem
+	 * to the start of result, which may be w itself. The stem is never longer
+	 * than the word, so result needs room for wLen characters. Returns the
+	 * length of the stem. No object is created, unless the internal buffer has
+	 * to grow for a word longer than all words before.
+	 */
+	public int stem(char[] w, int offset, int wLen, char[] result) {
+		reset(wLen);
+		System.arraycopy(w, offset, b, 0, wLen);
+		i = wLen;
+		return stemInto(result);
+	}
+
+	/**
+	 * Stems a lowercased word and writes the stem to the start of result,
+	 * which needs room for word.length() characters. Returns the length of the
+	 * stem.
+	 */
+	public int stem(CharSequence word, char[] result) {
+		int wLen = word.length();
+		reset(wLen);
+		for (int c = 0; c < wLen; c++)
+			b[c] = word.charAt(c);
+		i = wLen;
+		return stemInto(result);
+	}
+
+	/* discards added characters and ensures room for wLen characters */
+	private void reset(int wLen) {
+		i = 0;
+		if (wLen > b.length)
+			b = new char[wLen + INC];
+	}
+
+	/* stems the word in b and copies the stem to result */
+	private int stemInto(char[] result) {
+		stem();
+		System.arraycopy(b, 0, result, 0, i_end);
+		return i_end;
+	}
+
 	/* cons(i) is true <=> b[i] is a consonant. */
 
 	private final boolean cons(int i) {
@@ -0,0 +1,133 @@
+package de.unikassel.ir.vsr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filter removing stop words like "the" or "of", which occur in almost every
+ * document and have the longest posting lists of the index. The filter has
+ * to precede stemming in the chain of an {@link Analyzer}, since the stop
+ * words are compared unstemmed.
+ * <p>
+ * The stop words are stored in an open addressing hash table, whose hash
+ * values are the ones of {@link String#hashCode()} computed over the buffer,
+ * so a term is looked up without creating a string.
+ * 
+ * @author Marek Herde
+ */
+public class StopWordFilter implements TokenFilter {
+
+	/** hash table of the stop words, at most half full, the length is a power of two */
+	private String[] table;
+
+	/** number of stop words */
+	private int size;
+
+	/** hash value of the set of stop words, part of the id of the filter */
+	private int setHash;
+
+	/**
+	 * creation of a filter removing the given stop words
+	 * 
+	 * @param stopWords
+	 *            stop words normalized by the {@link Tokenizer}
+	 */
+	public StopWordFilter(Collection<String> stopWords) {
+		Set<String> distinct = new HashSet<>(stopWords);
+		this.size = distinct.size();
+		this.setHash = distinct.hashCode();
+		this.table = new String[Integer.highestOneBit(Math.max(1, 2 * this.size)) << 1];
+		for (String stopWord : distinct) {
+			int slot = spread(stopWord.hashCode()) & (this.table.length - 1);
+			while (this.table[slot] != null) {
+				slot = (slot + 1) & (this.table.length - 1);
+			}
+			this.table[slot] = stopWord;
+		}
+	}
+
+	/**
+	 * Read the stop words of a file, e.g. one stop word per line, the words
+	 * are normalized like the text of documents, e.g. "a's" becomes "as"
+	 * 
+	 * @param file
+	 * @return filter removing the stop words of the file
+	 * @throws IOException
+	 */
+	public static StopWordFilter read(File file) throws IOException {
+		Set<String> stopWords = new HashSet<>();
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			new Tokenizer().tokenize(reader, (buffer, length) -> stopWords.add(new String(buffer, 0, length)));
+		}
+		return new StopWordFilter(stopWords);
+	}
+
+	/**
+	 * Return the number of stop words
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public int filter(char[] buffer, int length) {
+		return contains(buffer, length) ? 0 : length;
+	}
+
+	/**
+	 * Return the number and hash value of the stop words, so filters
+	 * removing other stop words have different ids
+	 */
+	@Override
+	public String getId() {
+		return "StopWordFilter(" + this.size + "," + Integer.toHexString(this.setHash) + ")";
+	}
+
+	/**
+	 * Return whether the term in a buffer is a stop word
+	 * 
+	 * @param buffer
+	 * @param length
+	 * @return
+	 */
+	private boolean contains(char[] buffer, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		for (int slot = spread(hash) & (this.table.length - 1);; slot = (slot + 1) & (this.table.length - 1)) {
+			String stopWord = this.table[slot];
+			if (stopWord == null) {
+				return false;
+			}
+			if (stopWord.length() == length) {
+				int i = 0;
+				while (i < length && stopWord.charAt(i) == buffer[i]) {
+					i++;
+				}
+				if (i == length) {
+					return true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * spreading the high bits of a hash value to the low bits used to choose
+	 * the slot
+	 */
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+}
@@ -0,0 +1,253 @@
+package de.unikassel.ir.vsr;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only corpus of an index file (see {@link IndexFile}). The documents
+ * are decoded from the document store of the memory mapped file, when they
+ * are requested for the first time. Lookups of documents and their ids do not
+ * block each other, so queries of several threads can share the corpus.
+ * 
+ * @author Marek Herde
+ */
+public class StoredCorpus implements Corpus {
+
+	/** buffer containing the index file */
+	private ByteBuffer buffer;
+
+	/** offset of every document in the document store */
+	private int[] documentOffsets;
+
+	/** dictionary of all tokens of the index file */
+	private TermDictionary terms;
+
+	/** token infos of the index, used to find documents containing terms */
+	private StoredTokenMap tokenHash;
+
+	/** documents decoded so far, indexed by document id */
+	private AtomicReferenceArray<Document> documents;
+
+	/** mapping between document id string and dense document id */
+	private volatile Map<String, Integer> docIds;
+
+	/** ids of the removed documents */
+	private BitSet removedDocIds = new BitSet();
+
+	/** analyzer the documents were analyzed with */
+	private Analyzer analyzer;
+
+	/** dictionary of the term ids of the decoded documents */
+	private final Vocabulary vocabulary = new Vocabulary();
+
+	/**
+	 * constructor of a corpus stored in a buffer
+	 * 
+	 * @param buffer
+	 *            buffer containing the index file
+	 * @param documentOffsets
+	 *            offset of every document in the document store
+	 * @param terms
+	 *            dictionary of all tokens
+	 * @param tokenHash
+	 *            token infos and surface forms of the index
+	 * @param analyzer
+	 *            analyzer the documents were analyzed with
+	 */
+	StoredCorpus(ByteBuffer buffer, int[] documentOffsets, TermDictionary terms, StoredTokenMap tokenHash,
+			Analyzer analyzer) {
+		this.buffer = buffer;
+		this.analyzer = analyzer;
+		this.documentOffsets = documentOffsets;
+		this.terms = terms;
+		this.tokenHash = tokenHash;
+		this.documents = new AtomicReferenceArray<>(documentOffsets.length);
+	}
+
+	@Override
+	public void addDocument(Document doc) {
+		throw new UnsupportedOperationException("the corpus of an index file is read-only");
+	}
+
+	/**
+	 * Removing a document from the iterator and the id mapping, the lookups
+	 * skip it, because the posting lists of the index hide removed documents
+	 */
+	@Override
+	public synchronized boolean removeDocument(Document doc) {
+		int docId = getDocId(doc);
+		if (docId == -1) {
+			return false;
+		}
+		getDocIds().remove(doc.getId());
+		this.removedDocIds.set(docId);
+		return true;
+	}
+
+	@Override
+	public Iterator<Document> iterator() {
+		return new Iterator<Document>() {
+
+			private int docId = nextDocId(0);
+
+			@Override
+			public boolean hasNext() {
+				return this.docId < size();
+			}
+
+			@Override
+			public Document next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Document doc = getDocument(this.docId);
+				this.docId = nextDocId(this.docId + 1);
+				return doc;
+			}
+		};
+	}
+
+	/**
+	 * Return the first id of a document that is not removed
+	 * 
+	 * @param docId
+	 *            smallest id to regard
+	 * @return id or the number of documents, if there is no such document
+	 */
+	private synchronized int nextDocId(int docId) {
+		int nextDocId = this.removedDocIds.nextClearBit(docId);
+		return Math.min(nextDocId, size());
+	}
+
+	@Override
+	public Collection<Document> getDocumentsContainingAll(String... terms) {
+		List<Document> result = new ArrayList<>();
+
+		/* posting lists of the terms, no document contains an unknown term */
+		List<PostingList> postingLists = new ArrayList<>();
+		for (String term : terms) {
+			TokenInfo tokenInfo = this.tokenHash.get(term.toLowerCase());
+			if (tokenInfo == null) {
+				return result;
+			}
+			postingLists.add(tokenInfo.getPostingList());
+		}
+
+		/* intersection of the posting lists starting with the shortest one */
+		IntersectionIterator intersection = new IntersectionIterator(postingLists);
+		while (intersection.next()) {
+			result.add(getDocument(intersection.getDocId()));
+		}
+		return result;
+	}
+
+	@Override
+	public Collection<Document> getDocumentsContainingAny(String... terms) {
+		RoaringBitmap documentSet = new RoaringBitmap();
+		for (String term : terms) {
+			TokenInfo tokenInfo = this.tokenHash.get(term.toLowerCase());
+			if (tokenInfo != null) {
+				documentSet = documentSet.or(RoaringBitmap.of(tokenInfo.getPostingList()));
+			}
+		}
+		List<Document> result = new ArrayList<>(documentSet.getCardinality());
+		documentSet.forEach(docId -> result.add(getDocument(docId)));
+		return result;
+	}
+
+	/**
+	 * Return a document, it is decoded from the document store with the first
+	 * request. Threads requesting the same document at once may both decode
+	 * it, but all of them get the instance published first.
+	 */
+	@Override
+	public Document getDocument(int docId) {
+		Document doc = this.documents.get(docId);
+		if (doc == null) {
+
+			/* reading id and term ordinals of the document */
+			MappedInput input = new MappedInput(this.buffer, this.documentOffsets[docId]);
+			String id = input.readString();
+			int[] ordinals = new int[input.readVByte()];
+			for (int i = 0; i < ordinals.length; i++) {
+				ordinals[i] = input.readVByte();
+			}
+			List<String> documentTerms = Arrays.asList(this.terms.getTerms(ordinals));
+			addSurfaceForms(ordinals, documentTerms);
+
+			/* publishing the document, unless another thread was faster */
+			this.documents.compareAndSet(docId, null, new DocumentImpl(id, documentTerms, this.vocabulary));
+			doc = this.documents.get(docId);
+		}
+		return doc;
+	}
+
+	/**
+	 * adding the stored surface forms of the terms of a document to the
+	 * vocabulary, so the document shows them and passes them on, e.g. when it
+	 * is merged into another index
+	 */
+	private void addSurfaceForms(int[] ordinals, List<String> documentTerms) {
+		for (int i = 0; i < ordinals.length; i++) {
+			int termId = this.vocabulary.add(documentTerms.get(i));
+			if (this.vocabulary.getSurfaceForm(termId) == documentTerms.get(i)) {
+				String surfaceForm = this.tokenHash.getSurfaceForm(ordinals[i]);
+				if (surfaceForm != null) {
+					this.vocabulary.addSurfaceForm(termId, surfaceForm);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the dense id of a document with the same id string as the given
+	 * document
+	 */
+	@Override
+	public int getDocId(Document doc) {
+		return getDocIds().getOrDefault(doc.getId(), -1);
+	}
+
+	/**
+	 * Return the mapping between document id string and dense document id,
+	 * that is created with the first request
+	 * 
+	 * @return
+	 */
+	private Map<String, Integer> getDocIds() {
+		Map<String, Integer> ids = this.docIds;
+		if (ids == null) {
+			synchronized (this) {
+				ids = this.docIds;
+				if (ids == null) {
+					ids = new ConcurrentHashMap<>(2 * size());
+					for (int docId = 0; docId < size(); docId++) {
+						ids.put(new MappedInput(this.buffer, this.documentOffsets[docId]).readString(), docId);
+					}
+					this.docIds = ids;
+				}
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	public int size() {
+		return this.documentOffsets.length;
+	}
+
+	@Override
+	public Analyzer getAnalyzer() {
+		return this.analyzer;
+	}
+
+}
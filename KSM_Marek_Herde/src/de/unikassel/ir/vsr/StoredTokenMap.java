@@ -0,0 +1,237 @@
+package de.unikassel.ir.vsr;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Token infos of an index file (see {@link IndexFile}), mapping every token
+ * of the term dictionary to the token info of its postings. A token is
+ * resolved to its ordinal by the {@link TermDictionary}, whose ordinal
+ * indexes a table of the document frequencies, idf values, upper bounds and
+ * offsets of the posting and position blocks and surface forms. The token
+ * info of a token is created with its first lookup, so opening an index
+ * creates no object per token.
+ * <p>
+ * The tokens of the file are fixed, new tokens cannot be added. Tokens are
+ * only removed, when the postings of deleted documents are purged, so no
+ * query runs meanwhile (see {@link InvertedIndexImpl#purgeDeletedDocuments()}).
+ * 
+ * @author Marek Herde
+ */
+class StoredTokenMap extends AbstractMap<String, TokenInfo> {
+
+	/** buffer containing the index file */
+	private final ByteBuffer buffer;
+
+	/** dictionary of all tokens of the index file */
+	private final TermDictionary terms;
+
+	/** document frequency of every token including deleted documents */
+	private final int[] sizes;
+
+	/** idf of every token when the file was written */
+	private final double[] idfs;
+
+	/** upper bound of every token when the file was written */
+	private final double[] upperBounds;
+
+	/** offset of the posting block of every token */
+	private final int[] postingsOffsets;
+
+	/** offset of the position block of every token */
+	private final int[] positionsOffsets;
+
+	/** offset of the surface form of every token, -1 if it has none */
+	private final int[] surfaceFormOffsets;
+
+	/** token infos created so far, indexed by ordinal */
+	private final AtomicReferenceArray<TokenInfo> tokenInfos;
+
+	/** ordinals of the removed tokens, only changed while purging */
+	private final BitSet removedTokens = new BitSet();
+
+	/** index creating the token infos, whose postings hide its deleted documents */
+	private InvertedIndexImpl index;
+
+	/**
+	 * creation of a map of the tokens of a dictionary, whose entries are set
+	 * by {@link #setEntry(int, int, double, double, int, int, int)}
+	 * 
+	 * @param buffer
+	 *            buffer containing the index file
+	 * @param terms
+	 *            dictionary of all tokens
+	 */
+	StoredTokenMap(ByteBuffer buffer, TermDictionary terms) {
+		this.buffer = buffer;
+		this.terms = terms;
+		this.sizes = new int[terms.size()];
+		this.idfs = new double[terms.size()];
+		this.upperBounds = new double[terms.size()];
+		this.postingsOffsets = new int[terms.size()];
+		this.positionsOffsets = new int[terms.size()];
+		this.surfaceFormOffsets = new int[terms.size()];
+		this.tokenInfos = new AtomicReferenceArray<>(terms.size());
+	}
+
+	/**
+	 * setting the entry of a token read from the term dictionary
+	 * 
+	 * @param ordinal
+	 *            ordinal of the token
+	 * @param size
+	 *            document frequency
+	 * @param idf
+	 * @param upperBound
+	 * @param postingsOffset
+	 *            offset of the posting block
+	 * @param positionsOffset
+	 *            offset of the position block
+	 * @param surfaceFormOffset
+	 *            offset of the surface form, -1 if the token has none
+	 */
+	void setEntry(int ordinal, int size, double idf, double upperBound, int postingsOffset, int positionsOffset,
+			int surfaceFormOffset) {
+		this.sizes[ordinal] = size;
+		this.idfs[ordinal] = idf;
+		this.upperBounds[ordinal] = upperBound;
+		this.postingsOffsets[ordinal] = postingsOffset;
+		this.positionsOffsets[ordinal] = positionsOffset;
+		this.surfaceFormOffsets[ordinal] = surfaceFormOffset;
+	}
+
+	/**
+	 * Return the surface form of a token stored in the file, it is decoded
+	 * with every call
+	 * 
+	 * @param ordinal
+	 *            ordinal of the token
+	 * @return surface form or null, if the token has none
+	 */
+	String getSurfaceForm(int ordinal) {
+		int offset = this.surfaceFormOffsets[ordinal];
+		return offset >= 0 ? new MappedInput(this.buffer, offset).readString() : null;
+	}
+
+	/**
+	 * setting the index creating the token infos, before the first lookup
+	 * 
+	 * @param index
+	 */
+	void setIndex(InvertedIndexImpl index) {
+		this.index = index;
+	}
+
+	@Override
+	public TokenInfo get(Object token) {
+		if (!(token instanceof String)) {
+			return null;
+		}
+		int ordinal = this.terms.getOrdinal((String) token);
+		return ordinal >= 0 && !isRemoved(ordinal) ? getTokenInfo(ordinal) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object token) {
+		return get(token) != null;
+	}
+
+	@Override
+	public int size() {
+		return this.terms.size() - this.removedTokens.cardinality();
+	}
+
+	@Override
+	public Set<Map.Entry<String, TokenInfo>> entrySet() {
+		return new AbstractSet<Map.Entry<String, TokenInfo>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, TokenInfo>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return StoredTokenMap.this.size();
+			}
+		};
+	}
+
+	/**
+	 * iterator over the tokens that are not removed in ascending order, the
+	 * tokens are decoded at once
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, TokenInfo>> {
+
+		private final List<String> tokens = terms.getTermsInRange("", null);
+
+		private int next = nextOrdinal(0);
+
+		private int current = -1;
+
+		@Override
+		public boolean hasNext() {
+			return this.next < this.tokens.size();
+		}
+
+		@Override
+		public Map.Entry<String, TokenInfo> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.current = this.next;
+			this.next = nextOrdinal(this.next + 1);
+			return new SimpleImmutableEntry<>(this.tokens.get(this.current), getTokenInfo(this.current));
+		}
+
+		@Override
+		public void remove() {
+			if (this.current == -1) {
+				throw new IllegalStateException();
+			}
+			removeToken(this.current);
+			this.current = -1;
+		}
+	}
+
+	/**
+	 * Return the token info of a token, it is created with the first request.
+	 * Threads requesting the same token at once may both create it, but all
+	 * of them get the instance published first.
+	 */
+	private TokenInfo getTokenInfo(int ordinal) {
+		TokenInfo tokenInfo = this.tokenInfos.get(ordinal);
+		if (tokenInfo == null) {
+			PostingList postings = new MappedPostingList(this.buffer, this.postingsOffsets[ordinal],
+					this.positionsOffsets[ordinal], this.sizes[ordinal]);
+			tokenInfo = this.index.createTokenInfo(postings);
+			tokenInfo.setIdf(this.idfs[ordinal]);
+			tokenInfo.setUpperBound(this.upperBounds[ordinal]);
+			this.tokenInfos.compareAndSet(ordinal, null, tokenInfo);
+			tokenInfo = this.tokenInfos.get(ordinal);
+		}
+		return tokenInfo;
+	}
+
+	private boolean isRemoved(int ordinal) {
+		return this.removedTokens.get(ordinal);
+	}
+
+	private int nextOrdinal(int ordinal) {
+		return this.removedTokens.nextClearBit(ordinal);
+	}
+
+	private void removeToken(int ordinal) {
+		this.removedTokens.set(ordinal);
+		this.tokenInfos.set(ordinal, null);
+	}
+
+}
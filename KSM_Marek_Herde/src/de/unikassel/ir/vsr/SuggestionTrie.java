@@ -0,0 +1,282 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable trie of terms and phrases for query autocompletion. Every node
+ * stores the most frequent completions of its prefix, so the suggestions for
+ * a prefix are found by walking down the prefix without visiting the subtree
+ * below it. Completions are weighted by their document frequency.
+ * 
+ * @author Marek Herde
+ */
+public class SuggestionTrie {
+
+	/** default number of completions stored at every node */
+	public static final int DEFAULT_SIZE = 10;
+
+	/** minimal number of documents a phrase has to occur in to be suggested */
+	public static final int MIN_PHRASE_FREQUENCY = 2;
+
+	/**
+	 * node of the trie
+	 */
+	private static class Node {
+
+		/** characters of the edges to the children in ascending order */
+		private char[] labels = new char[0];
+
+		/** children of the node */
+		private Node[] children = new Node[0];
+
+		/** most frequent completions of the prefix of the node */
+		private String[] completions;
+
+		/** document frequency of the completion ending at this node, 0 if none */
+		private int weight = 0;
+
+		/**
+		 * Return the child reached by a character
+		 * 
+		 * @param label
+		 * @return child or null, if there is none
+		 */
+		private Node getChild(char label) {
+			int i = Arrays.binarySearch(this.labels, label);
+			return i >= 0 ? this.children[i] : null;
+		}
+
+		/**
+		 * Return the child reached by a character, it is created if
+		 * necessary
+		 * 
+		 * @param label
+		 * @return
+		 */
+		private Node addChild(char label) {
+			int i = Arrays.binarySearch(this.labels, label);
+			if (i >= 0) {
+				return this.children[i];
+			}
+
+			/* inserting the child keeping the labels sorted */
+			i = -i - 1;
+			char[] labels = new char[this.labels.length + 1];
+			Node[] children = new Node[this.children.length + 1];
+			System.arraycopy(this.labels, 0, labels, 0, i);
+			System.arraycopy(this.children, 0, children, 0, i);
+			labels[i] = label;
+			children[i] = new Node();
+			System.arraycopy(this.labels, i, labels, i + 1, this.labels.length - i);
+			System.arraycopy(this.children, i, children, i + 1, this.children.length - i);
+			this.labels = labels;
+			this.children = children;
+			return children[i];
+		}
+	}
+
+	/** root of the trie, its prefix is the empty string */
+	private Node root = new Node();
+
+	/** document frequency of every completion */
+	private Map<String, Integer> weights;
+
+	/** number of completions stored at every node */
+	private int size;
+
+	/**
+	 * creation of a trie
+	 * 
+	 * @param weights
+	 *            document frequency of every term or phrase to suggest
+	 * @param size
+	 *            number of completions stored at every node
+	 */
+	public SuggestionTrie(Map<String, Integer> weights, int size) {
+		this.weights = new HashMap<>(weights);
+		this.size = size;
+
+		/* inserting completions */
+		for (Map.Entry<String, Integer> entry : this.weights.entrySet()) {
+			if (entry.getValue() > 0) {
+				Node node = this.root;
+				for (int i = 0; i < entry.getKey().length(); i++) {
+					node = node.addChild(entry.getKey().charAt(i));
+				}
+				node.weight = entry.getValue();
+			}
+		}
+
+		/* determining the most frequent completions of every node */
+		collectCompletions(this.root, new StringBuilder());
+	}
+
+	/**
+	 * Creation of a trie of all terms of an index and the phrases of two
+	 * terms occurring in at least {@value #MIN_PHRASE_FREQUENCY} documents,
+	 * removed documents are ignored
+	 * 
+	 * @param index
+	 * @param size
+	 *            number of completions stored at every node
+	 * @return
+	 */
+	public static SuggestionTrie create(InvertedIndexImpl index, int size) {
+		Map<String, Integer> weights = new HashMap<>();
+		Map<String, Integer> phraseFrequencies = new HashMap<>();
+		addFrequencies(index, weights, phraseFrequencies);
+		return create(weights, phraseFrequencies, size);
+	}
+
+	/**
+	 * Creation of a trie of all terms and frequent phrases of two terms of
+	 * all segments of an index
+	 * 
+	 * @param index
+	 * @param size
+	 *            number of completions stored at every node
+	 * @return
+	 */
+	public static SuggestionTrie create(SegmentedIndex index, int size) {
+		Map<String, Integer> weights = new HashMap<>();
+		Map<String, Integer> phraseFrequencies = new HashMap<>();
+		index.forEachSegment(segment -> addFrequencies(segment, weights, phraseFrequencies));
+		return create(weights, phraseFrequencies, size);
+	}
+
+	/**
+	 * adding the document frequencies of the terms and the phrases of two
+	 * terms of an index, removed documents are ignored. Terms are added as
+	 * their surface forms, so unstemmed terms are suggested.
+	 * 
+	 * @param index
+	 * @param weights
+	 *            document frequency of every term
+	 * @param phraseFrequencies
+	 *            document frequency of every phrase
+	 */
+	private static void addFrequencies(InvertedIndexImpl index, Map<String, Integer> weights,
+			Map<String, Integer> phraseFrequencies) {
+		Corpus corpus = index.getCorpus();
+
+		/*
+		 * counting the documents containing each phrase of two terms, the
+		 * surface form of a term is the shortest one of its documents
+		 */
+		Map<String, String> surfaceForms = new HashMap<>();
+		Map<List<String>, Integer> termPhraseFrequencies = new HashMap<>();
+		for (int docId = 0; docId < corpus.size(); docId++) {
+			if (index.deletedDocs.get(docId)) {
+				continue;
+			}
+			Document doc = corpus.getDocument(docId);
+			String[] sequence = new String[doc.size()];
+			for (String term : doc) {
+				surfaceForms.merge(term, doc.getSurfaceForm(term), (a, b) -> b.length() < a.length() ? b : a);
+				for (int position : doc.getTermPositions(term)) {
+					sequence[position] = term;
+				}
+			}
+			Set<List<String>> phrases = new HashSet<>();
+			for (int i = 1; i < sequence.length; i++) {
+				if (sequence[i - 1] != null && sequence[i] != null) {
+					phrases.add(Arrays.asList(sequence[i - 1], sequence[i]));
+				}
+			}
+			for (List<String> phrase : phrases) {
+				termPhraseFrequencies.merge(phrase, 1, Integer::sum);
+			}
+		}
+		termPhraseFrequencies.forEach((phrase, frequency) -> phraseFrequencies.merge(
+				surfaceForms.get(phrase.get(0)) + " " + surfaceForms.get(phrase.get(1)), frequency, Integer::sum));
+		for (String term : index.getTermDictionary().getTermsInRange("", null)) {
+			weights.merge(surfaceForms.getOrDefault(term, term), index.getDocumentFrequency(term), Integer::sum);
+		}
+	}
+
+	/**
+	 * creation of a trie of the terms and the phrases occurring in at least
+	 * {@value #MIN_PHRASE_FREQUENCY} documents
+	 */
+	private static SuggestionTrie create(Map<String, Integer> weights, Map<String, Integer> phraseFrequencies,
+			int size) {
+		for (Map.Entry<String, Integer> entry : phraseFrequencies.entrySet()) {
+			if (entry.getValue() >= MIN_PHRASE_FREQUENCY) {
+				weights.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return new SuggestionTrie(weights, size);
+	}
+
+	/**
+	 * determining the most frequent completions of a node and all nodes below
+	 * 
+	 * @param node
+	 * @param prefix
+	 *            prefix of the node
+	 * @return completions of the node
+	 */
+	private String[] collectCompletions(Node node, StringBuilder prefix) {
+		List<String> candidates = new ArrayList<>();
+		if (node.weight > 0) {
+			candidates.add(prefix.toString());
+		}
+		for (int i = 0; i < node.children.length; i++) {
+			prefix.append(node.labels[i]);
+			candidates.addAll(Arrays.asList(collectCompletions(node.children[i], prefix)));
+			prefix.setLength(prefix.length() - 1);
+		}
+
+		/* keeping the most frequent ones, equally frequent in ascending order */
+		candidates.sort((first, second) -> {
+			int comparison = Integer.compare(this.weights.get(second), this.weights.get(first));
+			return comparison != 0 ? comparison : first.compareTo(second);
+		});
+		node.completions = candidates.subList(0, Math.min(this.size, candidates.size())).toArray(new String[0]);
+		return node.completions;
+	}
+
+	/**
+	 * Return the most frequent completions of a prefix
+	 * 
+	 * @param prefix
+	 * @return completions ordered by descending document frequency
+	 */
+	public List<String> suggest(String prefix) {
+		Node node = this.root;
+		for (int i = 0; i < prefix.length() && node != null; i++) {
+			node = node.getChild(prefix.charAt(i));
+		}
+		if (node == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(Arrays.asList(node.completions));
+	}
+
+	/**
+	 * Return the document frequency of a completion
+	 * 
+	 * @param completion
+	 * @return document frequency, 0 if it is no completion
+	 */
+	public int getWeight(String completion) {
+		return this.weights.getOrDefault(completion, 0);
+	}
+
+	/**
+	 * Return the number of completions stored at every node
+	 * 
+	 * @return
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,394 @@
+package de.unikassel.ir.vsr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable dictionary of terms in ascending order, that maps every term to
+ * its ordinal (= rank in the order). The terms are front coded in blocks of
+ * {@value #BLOCK_SIZE} terms: the first term of a block is stored completely,
+ * every further term as length of the prefix shared with its predecessor
+ * followed by the remaining characters. A term is found by a binary search
+ * over the first terms of the blocks and a scan of one block, so exact,
+ * prefix and range lookups do not need a scan of all terms.
+ * 
+ * @author Marek Herde
+ */
+public class TermDictionary {
+
+	/** number of terms per block */
+	public static final int BLOCK_SIZE = 16;
+
+	/** front coded blocks */
+	private byte[] bytes;
+
+	/** offset of every block */
+	private int[] blockOffsets;
+
+	/** number of terms */
+	private int size;
+
+	/**
+	 * creation of a dictionary
+	 * 
+	 * @param terms
+	 *            distinct terms in ascending order
+	 */
+	public TermDictionary(Collection<String> terms) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.blockOffsets = new int[(terms.size() + BLOCK_SIZE - 1) / BLOCK_SIZE];
+
+		String previous = null;
+		for (String term : terms) {
+			if (previous != null && previous.compareTo(term) >= 0) {
+				throw new IllegalArgumentException("term " + term + " is not greater than term " + previous);
+			}
+
+			/* first term of a block is stored completely */
+			int shared = 0;
+			if (this.size % BLOCK_SIZE == 0) {
+				this.blockOffsets[this.size / BLOCK_SIZE] = out.size();
+			} else {
+				int maxShared = Math.min(previous.length(), term.length());
+				while (shared < maxShared && previous.charAt(shared) == term.charAt(shared)) {
+					shared++;
+				}
+				/* a surrogate pair is not split */
+				if (shared > 0 && Character.isHighSurrogate(term.charAt(shared - 1))) {
+					shared--;
+				}
+				writeVByte(out, shared);
+			}
+			byte[] suffix = term.substring(shared).getBytes(StandardCharsets.UTF_8);
+			writeVByte(out, suffix.length);
+			out.write(suffix, 0, suffix.length);
+
+			previous = term;
+			this.size++;
+		}
+
+		this.bytes = out.toByteArray();
+	}
+
+	/**
+	 * creation of a dictionary from its encoded blocks
+	 */
+	private TermDictionary(byte[] bytes, int[] blockOffsets, int size) {
+		this.bytes = bytes;
+		this.blockOffsets = blockOffsets;
+		this.size = size;
+	}
+
+	/**
+	 * Return the number of terms
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return the ordinal of a term
+	 * 
+	 * @param term
+	 * @return ordinal of the term or -1, if the dictionary does not contain it
+	 */
+	public int getOrdinal(String term) {
+		int ordinal = ceiling(term);
+		if (ordinal < this.size && getTerm(ordinal).equals(term)) {
+			return ordinal;
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the term with the given ordinal
+	 * 
+	 * @param ordinal
+	 *            between 0 and size() - 1
+	 * @return
+	 */
+	public String getTerm(int ordinal) {
+		if (ordinal < 0 || ordinal >= this.size) {
+			throw new IndexOutOfBoundsException("ordinal " + ordinal + ", size " + this.size);
+		}
+
+		/* decoding the block up to the term */
+		int[] offset = { this.blockOffsets[ordinal / BLOCK_SIZE] };
+		String term = readTerm(offset, null);
+		for (int i = 0; i < ordinal % BLOCK_SIZE; i++) {
+			term = readTerm(offset, term);
+		}
+		return term;
+	}
+
+	/**
+	 * Return the terms of several ordinals, e.g. of all term occurrences of a
+	 * document. Every block is decoded at most once and the same ordinal
+	 * yields the same string instance.
+	 * 
+	 * @param ordinals
+	 *            ordinals between 0 and size() - 1 in any order, may contain
+	 *            duplicates
+	 * @return terms in the order of the ordinals
+	 */
+	public String[] getTerms(int[] ordinals) {
+
+		/* visiting the ordinals in ascending order, the index in the low bits */
+		long[] order = new long[ordinals.length];
+		for (int i = 0; i < ordinals.length; i++) {
+			if (ordinals[i] < 0 || ordinals[i] >= this.size) {
+				throw new IndexOutOfBoundsException("ordinal " + ordinals[i] + ", size " + this.size);
+			}
+			order[i] = (long) ordinals[i] << 32 | i;
+		}
+		Arrays.sort(order);
+
+		String[] terms = new String[ordinals.length];
+		int[] offset = new int[1];
+		int decoded = -1;
+		String term = null;
+		for (long entry : order) {
+			int ordinal = (int) (entry >>> 32);
+
+			/* the terms of another block are decoded from its first term on */
+			if (decoded < 0 || decoded / BLOCK_SIZE != ordinal / BLOCK_SIZE) {
+				offset[0] = this.blockOffsets[ordinal / BLOCK_SIZE];
+				term = readTerm(offset, null);
+				decoded = ordinal - ordinal % BLOCK_SIZE;
+			}
+			while (decoded < ordinal) {
+				term = readTerm(offset, term);
+				decoded++;
+			}
+			terms[(int) entry] = term;
+		}
+		return terms;
+	}
+
+	/**
+	 * Return the ordinal of the smallest term greater than or equal to a
+	 * given term
+	 * 
+	 * @param term
+	 * @return ordinal or size(), if all terms are smaller
+	 */
+	public int ceiling(String term) {
+
+		/* binary search for the last block whose first term is not greater */
+		int low = 0;
+		int high = this.blockOffsets.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (decodeBlock(middle, 1).get(0).compareTo(term) <= 0) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		/* scanning the block */
+		if (this.blockOffsets.length > 0) {
+			List<String> block = decodeBlock(low, BLOCK_SIZE);
+			for (int i = 0; i < block.size(); i++) {
+				if (block.get(i).compareTo(term) >= 0) {
+					return low * BLOCK_SIZE + i;
+				}
+			}
+		}
+		return Math.min(this.size, (low + 1) * BLOCK_SIZE);
+	}
+
+	/**
+	 * Return all terms starting with a prefix
+	 * 
+	 * @param prefix
+	 * @return terms in ascending order
+	 */
+	public List<String> getTermsWithPrefix(String prefix) {
+		return collectTerms(ceiling(prefix), term -> term.startsWith(prefix));
+	}
+
+	/**
+	 * Return all terms of a range
+	 * 
+	 * @param from
+	 *            smallest term of the range (inclusive)
+	 * @param to
+	 *            end of the range (exclusive), null for no end
+	 * @return terms in ascending order
+	 */
+	public List<String> getTermsInRange(String from, String to) {
+		return collectTerms(ceiling(from), term -> to == null || term.compareTo(to) < 0);
+	}
+
+	/**
+	 * collecting the terms from an ordinal on as long as they fulfill a
+	 * condition
+	 * 
+	 * @param ordinal
+	 *            ordinal of the first term
+	 * @param condition
+	 * @return terms in ascending order
+	 */
+	private List<String> collectTerms(int ordinal, Predicate<String> condition) {
+		List<String> terms = new ArrayList<>();
+		for (int block = ordinal / BLOCK_SIZE; block < this.blockOffsets.length; block++) {
+			List<String> blockTerms = decodeBlock(block, BLOCK_SIZE);
+			for (int i = block == ordinal / BLOCK_SIZE ? ordinal % BLOCK_SIZE : 0; i < blockTerms.size(); i++) {
+				if (!condition.test(blockTerms.get(i))) {
+					return terms;
+				}
+				terms.add(blockTerms.get(i));
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Return all terms of a block
+	 * 
+	 * @param block
+	 *            index of the block, the terms with the ordinals from block *
+	 *            BLOCK_SIZE on
+	 * @return terms in ascending order
+	 */
+	List<String> getBlock(int block) {
+		return decodeBlock(block, BLOCK_SIZE);
+	}
+
+	/**
+	 * decoding the first terms of a block
+	 * 
+	 * @param block
+	 *            index of the block
+	 * @param count
+	 *            maximal number of terms to decode
+	 * @return decoded terms
+	 */
+	private List<String> decodeBlock(int block, int count) {
+		int end = Math.min(count, this.size - block * BLOCK_SIZE);
+		List<String> terms = new ArrayList<>(end);
+		int[] offset = { this.blockOffsets[block] };
+		String previous = null;
+		for (int i = 0; i < end; i++) {
+			previous = readTerm(offset, previous);
+			terms.add(previous);
+		}
+		return terms;
+	}
+
+	/**
+	 * decoding the next term of a block
+	 * 
+	 * @param offset
+	 *            offset of the term, moved behind the term
+	 * @param previous
+	 *            preceding term of the block, null for the first term
+	 * @return
+	 */
+	private String readTerm(int[] offset, String previous) {
+		int shared = previous == null ? 0 : readVByte(offset);
+		int length = readVByte(offset);
+		String term = new String(this.bytes, offset[0], length, StandardCharsets.UTF_8);
+		offset[0] += length;
+		return shared == 0 ? term : previous.substring(0, shared) + term;
+	}
+
+	/**
+	 * decoding a variable byte encoded value
+	 * 
+	 * @param offset
+	 *            offset of the value, moved behind the value
+	 * @return
+	 */
+	private int readVByte(int[] offset) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = this.bytes[offset[0]++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * appending a non negative value with variable byte encoding
+	 */
+	private static void writeVByte(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Return the number of bytes of the front coded blocks
+	 * 
+	 * @return
+	 */
+	public int getByteLength() {
+		return this.bytes.length;
+	}
+
+	/**
+	 * writing the dictionary as number of terms, number of bytes and the
+	 * front coded blocks
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(this.size);
+		out.writeInt(this.bytes.length);
+		out.write(this.bytes);
+	}
+
+	/**
+	 * reading a dictionary written by {@link #write(DataOutputStream)}, the
+	 * offsets of the blocks are restored by decoding the blocks once
+	 * 
+	 * @param in
+	 *            cursor positioned at the dictionary, moved behind it
+	 * @return
+	 */
+	static TermDictionary read(MappedInput in) {
+		int size = in.readInt();
+		byte[] bytes = new byte[in.readInt()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = in.readByte();
+		}
+
+		/* skipping through the terms to find the start of every block */
+		int[] blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		TermDictionary dictionary = new TermDictionary(bytes, blockOffsets, size);
+		int[] offset = { 0 };
+		for (int ordinal = 0; ordinal < size; ordinal++) {
+			if (ordinal % BLOCK_SIZE == 0) {
+				blockOffsets[ordinal / BLOCK_SIZE] = offset[0];
+			} else {
+				dictionary.readVByte(offset);
+			}
+			int length = dictionary.readVByte(offset);
+			offset[0] += length;
+		}
+		return dictionary;
+	}
+
+	@Override
+	public String toString() {
+		return getTermsInRange("", null).toString();
+	}
+
+}
@@ -0,0 +1,34 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * Filter of the terms produced by a {@link Tokenizer}, several filters form
+ * the chain of an {@link Analyzer}. A filter changes the term in place, so
+ * no string is created between the filters of a chain.
+ * 
+ * @author Marek Herde
+ */
+public interface TokenFilter {
+
+	/**
+	 * Filter a term, the filtered term is written to the start of the buffer
+	 * 
+	 * @param buffer
+	 *            characters of the term starting at index 0
+	 * @param length
+	 *            number of characters of the term, at least 1
+	 * @return number of characters of the filtered term, at most length, or
+	 *         0, if the term is removed
+	 */
+	public int filter(char[] buffer, int length);
+
+	/**
+	 * Return an id of the filter and its parameters, filters changing terms
+	 * differently have different ids (see {@link Analyzer#getId()})
+	 * 
+	 * @return id, the class name by default
+	 */
+	public default String getId() {
+		return getClass().getSimpleName();
+	}
+
+}
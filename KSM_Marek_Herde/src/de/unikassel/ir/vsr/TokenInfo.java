@@ -23,10 +23,30 @@ public interface TokenInfo {
 	 */
 	public double getIdf();
 
+	/**
+	 * Set the upper bound for the weight of this Token in a Document divided by
+	 * the length of the Document vector
+	 * @param upperBound
+	 */
+	void setUpperBound(double upperBound);
+
+	/**
+	 * Return the upper bound for the weight of this Token in a Document divided
+	 * by the length of the Document vector
+	 * @return 
+	 */
+	public double getUpperBound();
+
 	/**
 	 * Return the token occurrence list for this Token
 	 * @return 
 	 */
 	public TreeSet<TokenOccurrence> getTokenOccurrenceList();
 
+	/**
+	 * Return the posting list for this Token ordered ascending by document id
+	 * @return 
+	 */
+	public PostingList getPostingList();
+
 }
\ No newline at end of file
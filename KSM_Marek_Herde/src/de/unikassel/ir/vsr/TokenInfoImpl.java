@@ -1,17 +1,47 @@
 package de.unikassel.ir.vsr;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeSet;
 
 public class TokenInfoImpl implements TokenInfo {
 
-	/** list of all occurrences of the corresponding token */
+	/** postings of the corresponding token stored in primitive arrays */
+	private PostingList postings;
+
+	/** corpus resolving the document ids of the postings */
+	private Corpus corpus;
+
+	/**
+	 * list of all occurrences of the corresponding token, only created on
+	 * demand from the postings
+	 */
 	private TreeSet<TokenOccurrence> occList;
 
 	/** idf of the corresponding token */
 	double idf = 1;
 
+	/** maximal weight of the token divided by the document length */
+	double upperBound = 0;
+
+	/**
+	 * constructor of a token info without any occurrences
+	 */
 	public TokenInfoImpl() {
-		this.occList = new TreeSet<>();
+		this(new PostingListImpl(), null);
+	}
+
+	/**
+	 * constructor of a token info based on a posting list
+	 * 
+	 * @param postings
+	 *            postings of the token
+	 * @param corpus
+	 *            corpus the document ids of the postings refer to
+	 */
+	public TokenInfoImpl(PostingList postings, Corpus corpus) {
+		this.postings = postings;
+		this.corpus = corpus;
 	}
 
 	@Override
@@ -24,9 +54,61 @@ public class TokenInfoImpl implements TokenInfo {
 		return this.idf;
 	}
 
+	@Override
+	public void setUpperBound(double upperBound) {
+		this.upperBound = upperBound;
+	}
+
+	@Override
+	public double getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * Return the token occurrences as view on the posting list. The view is
+	 * created with the first call, so changes of the returned set are not
+	 * reflected by the posting list.
+	 */
 	@Override
 	public TreeSet<TokenOccurrence> getTokenOccurrenceList() {
+
+		if (this.occList == null) {
+			this.occList = new TreeSet<>();
+
+			/* creating a token occurrence for every posting */
+			PostingIterator postingIterator = this.postings.iterator();
+			while (postingIterator.next()) {
+
+				/* cast, because we were not allowed to extend interface */
+				DocumentImpl document = (DocumentImpl) this.corpus.getDocument(postingIterator.getDocId());
+
+				/* normalizing term frequency */
+				double documentTF = (double) postingIterator.getTermCount() / document.getMaximalFrequency();
+
+				/* copying positions of the posting */
+				List<Integer> positions = new ArrayList<>(postingIterator.getTermCount());
+				for (int i = 0; i < postingIterator.getTermCount(); i++) {
+					positions.add(postingIterator.getPosition(i));
+				}
+
+				this.occList.add(new TokenOccurrenceImpl(document, this, documentTF, positions));
+			}
+		}
+
 		return this.occList;
 	}
 
+	/**
+	 * Discarding the token occurrence view, so it is created again from the
+	 * postings with the next request
+	 */
+	void resetTokenOccurrenceList() {
+		this.occList = null;
+	}
+
+	@Override
+	public PostingList getPostingList() {
+		return this.postings;
+	}
+
 }
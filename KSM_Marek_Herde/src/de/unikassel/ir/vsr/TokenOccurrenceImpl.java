@@ -33,6 +33,22 @@ public class TokenOccurrenceImpl implements TokenOccurrence {
 
 	}
 
+	/**
+	 * constructor used for token occurrences created from a posting list
+	 * 
+	 * @param docRef
+	 * @param tokenInfo
+	 * @param documentTF
+	 *            normalized term frequency in the document
+	 * @param positions
+	 */
+	public TokenOccurrenceImpl(Document docRef, TokenInfo tokenInfo, double documentTF, List<Integer> positions) {
+		this.docRef = docRef;
+		this.tokenInfo = tokenInfo;
+		this.documentTF = documentTF;
+		this.positions = positions;
+	}
+
 	@Override
 	public int compareTo(TokenOccurrence o) {
 
@@ -0,0 +1,181 @@
+package de.unikassel.ir.vsr;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizer splitting a text into terms in a single pass over its
+ * characters: letters are lowercased, whitespace and '-' separate terms and
+ * all characters except ASCII letters and digits are removed, e.g.
+ * "Don't re-use" becomes the terms "dont", "re" and "use". This is the
+ * normalization of documents and queries formerly done by
+ * toLowerCase().replaceAll("[^A-Za-z0-9 -]", "").split("\\s+|-"), but
+ * without copying the text.
+ * <p>
+ * A term is collected in a buffer and passed to a {@link TokenHandler}, so
+ * no string is created unless the handler needs one. An instance reuses its
+ * buffers for every text and must not be shared between threads.
+ * 
+ * @author Marek Herde
+ */
+public class Tokenizer {
+
+	/**
+	 * Receiver of the terms of a text in their order of occurrence
+	 */
+	public interface TokenHandler {
+
+		/**
+		 * handling a term, the buffer is only valid during the call
+		 * 
+		 * @param buffer
+		 *            characters of the term starting at index 0
+		 * @param length
+		 *            number of characters of the term, at least 1
+		 */
+		void token(char[] buffer, int length);
+	}
+
+	/** size of the blocks read from a reader */
+	private static final int BLOCK_SIZE = 4096;
+
+	/** characters kept in addition to letters and digits */
+	private String keptCharacters;
+
+	/** block of characters read from a reader */
+	private char[] block;
+
+	/** characters of the current term */
+	private char[] token = new char[32];
+
+	/** number of characters of the current term */
+	private int length = 0;
+
+	/** number of terms of the current text */
+	private int count = 0;
+
+	/** receiver of the terms of the current text */
+	private TokenHandler handler;
+
+	/**
+	 * creation of a tokenizer keeping only letters and digits
+	 */
+	public Tokenizer() {
+		this("");
+	}
+
+	/**
+	 * creation of a tokenizer keeping some further characters, e.g. the
+	 * wildcards '*' and '?'
+	 * 
+	 * @param keptCharacters
+	 *            characters kept in addition to letters and digits
+	 */
+	public Tokenizer(String keptCharacters) {
+		this.keptCharacters = keptCharacters;
+	}
+
+	/**
+	 * Splitting the text of a reader into terms, the reader is read in blocks
+	 * and not closed
+	 * 
+	 * @param reader
+	 * @param handler
+	 *            receiver of the terms
+	 * @return number of terms
+	 * @throws IOException
+	 */
+	public int tokenize(Reader reader, TokenHandler handler) throws IOException {
+		if (this.block == null) {
+			this.block = new char[BLOCK_SIZE];
+		}
+		start(handler);
+		int read;
+		while ((read = reader.read(this.block, 0, this.block.length)) != -1) {
+			for (int i = 0; i < read; i++) {
+				consume(this.block[i]);
+			}
+		}
+		return finish();
+	}
+
+	/**
+	 * Splitting a text into terms
+	 * 
+	 * @param text
+	 * @param handler
+	 *            receiver of the terms
+	 * @return number of terms
+	 */
+	public int tokenize(CharSequence text, TokenHandler handler) {
+		start(handler);
+		for (int i = 0; i < text.length(); i++) {
+			consume(text.charAt(i));
+		}
+		return finish();
+	}
+
+	/**
+	 * Return the terms of a text, e.g. of a query
+	 * 
+	 * @param text
+	 * @return terms in their order of occurrence
+	 */
+	public String[] split(CharSequence text) {
+		List<String> terms = new ArrayList<>();
+		tokenize(text, (buffer, length) -> terms.add(new String(buffer, 0, length)));
+		return terms.toArray(new String[terms.size()]);
+	}
+
+	private void start(TokenHandler handler) {
+		this.handler = handler;
+		this.length = 0;
+		this.count = 0;
+	}
+
+	private int finish() {
+		emit();
+		this.handler = null;
+		return this.count;
+	}
+
+	/**
+	 * appending a character to the current term or ending the term at a
+	 * separator
+	 */
+	private void consume(char c) {
+		if (c >= 'A' && c <= 'Z') {
+			append((char) (c + ('a' - 'A')));
+		} else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+			append(c);
+		} else if (c == '-' || Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+			emit();
+		} else if (this.keptCharacters.indexOf(c) >= 0) {
+			append(c);
+		}
+		/* all other characters are removed without separating terms */
+	}
+
+	private void append(char c) {
+		if (this.length == this.token.length) {
+			char[] token = new char[2 * this.length];
+			System.arraycopy(this.token, 0, token, 0, this.length);
+			this.token = token;
+		}
+		this.token[this.length++] = c;
+	}
+
+	/**
+	 * passing the current term to the handler, if it is not empty
+	 */
+	private void emit() {
+		if (this.length > 0) {
+			this.handler.token(this.token, this.length);
+			this.length = 0;
+			this.count++;
+		}
+	}
+
+}
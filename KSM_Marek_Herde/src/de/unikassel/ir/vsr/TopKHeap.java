@@ -0,0 +1,156 @@
+package de.unikassel.ir.vsr;
+
+/**
+ * Bounded min-heap keeping the k documents with the highest scores. The
+ * document with the lowest score is at the root, so a new document only has
+ * to be compared with the root to decide whether it belongs to the top k.
+ * Documents with equal scores are ordered by their ids, the smaller id wins.
+ * 
+ * @author Marek Herde
+ */
+public class TopKHeap {
+
+	/** ids of the documents in heap order */
+	private int[] docIds;
+
+	/** scores of the documents in heap order */
+	private double[] scores;
+
+	/** number of documents in the heap */
+	private int size = 0;
+
+	/**
+	 * constructor of an empty heap
+	 * 
+	 * @param k
+	 *            maximal number of documents to keep, at least 1
+	 */
+	public TopKHeap(int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k has to be at least 1, but is " + k);
+		}
+		this.docIds = new int[k];
+		this.scores = new double[k];
+	}
+
+	/**
+	 * Offering a document to the heap, it is kept if the heap is not full or
+	 * if it is better than the worst document in the heap, which is removed
+	 * 
+	 * @param docId
+	 * @param score
+	 * @return true, if the document was added
+	 */
+	public boolean offer(int docId, double score) {
+		if (this.size < this.docIds.length) {
+			/* adding document as leaf and moving it up */
+			int i = this.size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (!isWorse(docId, score, this.docIds[parent], this.scores[parent])) {
+					break;
+				}
+				this.docIds[i] = this.docIds[parent];
+				this.scores[i] = this.scores[parent];
+				i = parent;
+			}
+			this.docIds[i] = docId;
+			this.scores[i] = score;
+			return true;
+		} else if (isWorse(this.docIds[0], this.scores[0], docId, score)) {
+			/* replacing worst document and moving new document down */
+			siftDown(docId, score);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the number of documents in the heap
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return whether the heap contains k documents
+	 * 
+	 * @return
+	 */
+	public boolean isFull() {
+		return this.size == this.docIds.length;
+	}
+
+	/**
+	 * Return the lowest score a document needs to enter the heap, i.e. the
+	 * score of the worst document if the heap is full
+	 * 
+	 * @return score threshold or negative infinity, if the heap is not full
+	 */
+	public double getThreshold() {
+		return this.isFull() ? this.scores[0] : Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Removing all documents from the heap and returning their ids ordered
+	 * descending by score
+	 * 
+	 * @param sortedScores
+	 *            array of at least size() elements receiving the scores
+	 *            ordered descending
+	 * @return document ids ordered descending by score
+	 */
+	public int[] drainSorted(double[] sortedScores) {
+		int[] sortedDocIds = new int[this.size];
+
+		/* removing worst document until heap is empty */
+		for (int i = this.size - 1; i >= 0; i--) {
+			sortedDocIds[i] = this.docIds[0];
+			sortedScores[i] = this.scores[0];
+			this.size--;
+			if (this.size > 0) {
+				siftDown(this.docIds[this.size], this.scores[this.size]);
+			}
+		}
+
+		return sortedDocIds;
+	}
+
+	/**
+	 * putting a document at the root and moving it down to its place
+	 * 
+	 * @param docId
+	 * @param score
+	 */
+	private void siftDown(int docId, double score) {
+		int i = 0;
+		while (2 * i + 1 < this.size) {
+			/* worse child of the current node */
+			int child = 2 * i + 1;
+			if (child + 1 < this.size
+					&& isWorse(this.docIds[child + 1], this.scores[child + 1], this.docIds[child], this.scores[child])) {
+				child++;
+			}
+			if (!isWorse(this.docIds[child], this.scores[child], docId, score)) {
+				break;
+			}
+			this.docIds[i] = this.docIds[child];
+			this.scores[i] = this.scores[child];
+			i = child;
+		}
+		this.docIds[i] = docId;
+		this.scores[i] = score;
+	}
+
+	/**
+	 * comparison of two documents regarding score and id
+	 * 
+	 * @return true, if the first document is worse than the second one
+	 */
+	private static boolean isWorse(int docId1, double score1, int docId2, double score2) {
+		return score1 < score2 || (score1 == score2 && docId1 > docId2);
+	}
+
+}
@@ -0,0 +1,320 @@
+package de.unikassel.ir.vsr;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary assigning every term a dense int id once, every corpus has its
+ * own one shared by the documents it reads (see
+ * {@link CorpusImpl#getVocabulary()}). Documents store the ids of their terms
+ * instead of strings, so the string of a term exists only once per corpus and
+ * comparisons of terms are comparisons of ints. The ids are freed with the
+ * corpus and its documents.
+ * <p>
+ * The terms are stored in an open addressing hash table, whose hash values
+ * are the ones of {@link String#hashCode()}, so a term can be looked up
+ * directly from the buffer of a {@link Tokenizer} without creating a string.
+ * Lookups do not lock: the table references immutable entries and is
+ * replaced as a whole when it grows, only adding a new term locks. Ids are
+ * never removed.
+ * <p>
+ * For every term the shortest surface form read so far is kept, i.e. the
+ * term as it occurred in the text before stemming, so snippets and
+ * suggestions show words instead of stems. The forms are bounded by the
+ * terms of the vocabulary and freed with it.
+ * 
+ * @author Marek Herde
+ */
+public class Vocabulary {
+
+	/** term and its id, immutable, so it is safely published by its final fields */
+	private static class Entry {
+
+		private final String term;
+
+		private final int id;
+
+		private Entry(String term, int id) {
+			this.term = term;
+			this.id = id;
+		}
+	}
+
+	/** hash table of the entries, at most half full, the length is a power of two */
+	private volatile Entry[] table = new Entry[64];
+
+	/** entry of every id */
+	private volatile Entry[] entries = new Entry[32];
+
+	/** shortest surface form of every id, null if none was added */
+	private volatile String[] surfaceForms = new String[32];
+
+	/** number of terms */
+	private volatile int size = 0;
+
+	/**
+	 * Return the id of a term
+	 * 
+	 * @param term
+	 * @return id or -1, if the term has no id
+	 */
+	public int getId(String term) {
+		Entry entry = find(this.table, term, term.hashCode());
+		if (entry == null) {
+
+			/* the term may have been added concurrently */
+			synchronized (this) {
+				entry = find(this.table, term, term.hashCode());
+			}
+		}
+		return entry != null ? entry.id : -1;
+	}
+
+	/**
+	 * Return the id of a term, a new term gets the next id
+	 * 
+	 * @param term
+	 * @return id of the term
+	 */
+	public int add(String term) {
+		Entry entry = find(this.table, term, term.hashCode());
+		if (entry != null) {
+			return entry.id;
+		}
+		synchronized (this) {
+			entry = find(this.table, term, term.hashCode());
+			return entry != null ? entry.id : insert(term, term.hashCode());
+		}
+	}
+
+	/**
+	 * Return the id of a term in a buffer, a new term gets the next id. Only
+	 * a new term creates a string.
+	 * 
+	 * @param buffer
+	 *            characters of the term starting at index 0
+	 * @param length
+	 *            number of characters of the term
+	 * @return id of the term
+	 */
+	public int add(char[] buffer, int length) {
+		int hash = hash(buffer, length);
+		Entry entry = find(this.table, buffer, length, hash);
+		if (entry != null) {
+			return entry.id;
+		}
+		synchronized (this) {
+			entry = find(this.table, buffer, length, hash);
+			return entry != null ? entry.id : insert(new String(buffer, 0, length), hash);
+		}
+	}
+
+	/**
+	 * Return the id of a term in a buffer, a new term gets the next id, and
+	 * adding the surface form of the term (see
+	 * {@link #addSurfaceForm(int, char[], int)})
+	 * 
+	 * @param buffer
+	 *            characters of the term starting at index 0
+	 * @param length
+	 *            number of characters of the term
+	 * @param surface
+	 *            characters of the term as it occurred in the text
+	 * @param surfaceLength
+	 *            number of characters of the surface form
+	 * @return id of the term
+	 */
+	public int add(char[] buffer, int length, char[] surface, int surfaceLength) {
+		int id = add(buffer, length);
+		addSurfaceForm(id, surface, surfaceLength);
+		return id;
+	}
+
+	/**
+	 * Adding a surface form of a term, it is only kept if it is shorter than
+	 * the known one. Only a kept form different from the term creates a
+	 * string.
+	 * 
+	 * @param id
+	 *            id returned by this dictionary
+	 * @param surface
+	 *            characters of the term as it occurred in the text
+	 * @param length
+	 *            number of characters of the surface form
+	 */
+	public void addSurfaceForm(int id, char[] surface, int length) {
+		String[] surfaceForms = this.surfaceForms;
+		String known = id < surfaceForms.length ? surfaceForms[id] : null;
+		if (known != null && known.length() <= length) {
+			return;
+		}
+		String term = getTerm(id);
+		String surfaceForm = equals(term, surface, length) ? term : new String(surface, 0, length);
+		synchronized (this) {
+			setSurfaceForm(id, surfaceForm);
+		}
+	}
+
+	/**
+	 * Adding a surface form of a term, it is only kept if it is shorter than
+	 * the known one
+	 * 
+	 * @param id
+	 *            id returned by this dictionary
+	 * @param surfaceForm
+	 *            term as it occurred in the text
+	 */
+	public void addSurfaceForm(int id, String surfaceForm) {
+		String term = getTerm(id);
+		synchronized (this) {
+			setSurfaceForm(id, term.equals(surfaceForm) ? term : surfaceForm);
+		}
+	}
+
+	/**
+	 * Return the shortest surface form of a term, lookups do not lock
+	 * 
+	 * @param id
+	 *            id returned by this dictionary
+	 * @return surface form or the term itself, if no form was added
+	 */
+	public String getSurfaceForm(int id) {
+		String[] surfaceForms = this.surfaceForms;
+		String surfaceForm = id >= 0 && id < surfaceForms.length ? surfaceForms[id] : null;
+		return surfaceForm != null ? surfaceForm : getTerm(id);
+	}
+
+	/**
+	 * Return the term of an id
+	 * 
+	 * @param id
+	 *            id returned by this dictionary
+	 * @return term, the same string for every call
+	 */
+	public String getTerm(int id) {
+		Entry[] entries = this.entries;
+		Entry entry = id >= 0 && id < entries.length ? entries[id] : null;
+		if (entry == null) {
+
+			/* the id may have been assigned concurrently */
+			synchronized (this) {
+				if (id < 0 || id >= this.size) {
+					throw new IndexOutOfBoundsException("id " + id + ", size " + this.size);
+				}
+				entry = this.entries[id];
+			}
+		}
+		return entry.term;
+	}
+
+	/**
+	 * Return the number of terms
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * keeping a surface form, if it is shorter than the known one, the lock
+	 * has to be held
+	 */
+	private void setSurfaceForm(int id, String surfaceForm) {
+		String known = this.surfaceForms[id];
+		if (known == null || surfaceForm.length() < known.length()) {
+			this.surfaceForms[id] = surfaceForm;
+		}
+	}
+
+	/**
+	 * adding a new term, the lock has to be held
+	 * 
+	 * @return id of the term
+	 */
+	private int insert(String term, int hash) {
+		Entry entry = new Entry(term, this.size);
+		if (entry.id == this.entries.length) {
+			this.entries = Arrays.copyOf(this.entries, 2 * entry.id);
+			this.surfaceForms = Arrays.copyOf(this.surfaceForms, 2 * entry.id);
+		}
+		this.entries[entry.id] = entry;
+
+		/* the table is replaced by a larger one, before it is more than half full */
+		Entry[] table = this.table;
+		if (2 * (entry.id + 1) > table.length) {
+			Entry[] largerTable = new Entry[2 * table.length];
+			for (Entry oldEntry : table) {
+				if (oldEntry != null) {
+					largerTable[getSlot(largerTable, oldEntry.term.hashCode())] = oldEntry;
+				}
+			}
+			largerTable[getSlot(largerTable, hash)] = entry;
+			this.table = largerTable;
+		} else {
+			table[getSlot(table, hash)] = entry;
+		}
+		this.size++;
+		return entry.id;
+	}
+
+	/**
+	 * Return the first free slot of the probe sequence of a hash value
+	 */
+	private static int getSlot(Entry[] table, int hash) {
+		int slot = spread(hash) & (table.length - 1);
+		while (table[slot] != null) {
+			slot = (slot + 1) & (table.length - 1);
+		}
+		return slot;
+	}
+
+	private static Entry find(Entry[] table, String term, int hash) {
+		for (int slot = spread(hash) & (table.length - 1);; slot = (slot + 1) & (table.length - 1)) {
+			Entry entry = table[slot];
+			if (entry == null || entry.term.equals(term)) {
+				return entry;
+			}
+		}
+	}
+
+	private static Entry find(Entry[] table, char[] buffer, int length, int hash) {
+		for (int slot = spread(hash) & (table.length - 1);; slot = (slot + 1) & (table.length - 1)) {
+			Entry entry = table[slot];
+			if (entry == null || equals(entry.term, buffer, length)) {
+				return entry;
+			}
+		}
+	}
+
+	/**
+	 * hash value of a term in a buffer, the same as {@link String#hashCode()}
+	 */
+	private static int hash(char[] buffer, int length) {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * mixing a hash value, so similar terms are spread over the table
+	 */
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(String term, char[] buffer, int length) {
+		if (term.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (term.charAt(i) != buffer[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
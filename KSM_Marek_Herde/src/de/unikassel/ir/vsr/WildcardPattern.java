@@ -0,0 +1,199 @@
+package de.unikassel.ir.vsr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pattern of a wildcard query: '*' stands for any sequence of characters
+ * (also the empty one) and '?' for exactly one character, e.g. "inter*",
+ * "*ing" or "te?t". The literal prefix and suffix of the pattern are used to
+ * look up candidate terms in a sorted term dictionary (prefix) or in the
+ * dictionary of the reversed terms (suffix), the candidates are then matched
+ * against the complete pattern.
+ * 
+ * @author Marek Herde
+ */
+public class WildcardPattern {
+
+	/** wildcard for any sequence of characters */
+	public static final char ANY_SEQUENCE = '*';
+
+	/** wildcard for exactly one character */
+	public static final char ANY_CHARACTER = '?';
+
+	/** pattern as given */
+	private String pattern;
+
+	/** code points of the pattern */
+	private int[] codePoints;
+
+	/**
+	 * creation of a pattern
+	 * 
+	 * @param pattern
+	 */
+	public WildcardPattern(String pattern) {
+		this.pattern = pattern;
+		this.codePoints = pattern.codePoints().toArray();
+	}
+
+	/**
+	 * Return whether a string contains wildcards
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public static boolean isWildcard(String term) {
+		return term.indexOf(ANY_SEQUENCE) >= 0 || term.indexOf(ANY_CHARACTER) >= 0;
+	}
+
+	/**
+	 * Return the characters in front of the first wildcard
+	 * 
+	 * @return
+	 */
+	public String getPrefix() {
+		int end = 0;
+		while (end < this.codePoints.length && !isWildcard(this.codePoints[end])) {
+			end++;
+		}
+		return new String(this.codePoints, 0, end);
+	}
+
+	/**
+	 * Return the characters behind the last wildcard
+	 * 
+	 * @return
+	 */
+	public String getSuffix() {
+		int start = this.codePoints.length;
+		while (start > 0 && !isWildcard(this.codePoints[start - 1])) {
+			start--;
+		}
+		return new String(this.codePoints, start, this.codePoints.length - start);
+	}
+
+	/**
+	 * Return whether a term matches the pattern
+	 * 
+	 * @param term
+	 * @return
+	 */
+	public boolean matches(String term) {
+		int[] text = term.codePoints().toArray();
+
+		/*
+		 * greedy matching, that returns to the last '*' on a mismatch and
+		 * lets it cover one more character
+		 */
+		int p = 0;
+		int t = 0;
+		int star = -1;
+		int starText = 0;
+		while (t < text.length) {
+			if (p < this.codePoints.length
+					&& (this.codePoints[p] == ANY_CHARACTER || this.codePoints[p] == text[t])) {
+				p++;
+				t++;
+			} else if (p < this.codePoints.length && this.codePoints[p] == ANY_SEQUENCE) {
+				star = p++;
+				starText = t;
+			} else if (star >= 0) {
+				p = star + 1;
+				t = ++starText;
+			} else {
+				return false;
+			}
+		}
+
+		/* remaining pattern may only consist of '*' */
+		while (p < this.codePoints.length && this.codePoints[p] == ANY_SEQUENCE) {
+			p++;
+		}
+		return p == this.codePoints.length;
+	}
+
+	/**
+	 * Return the terms of a sorted dictionary and the dictionary of the
+	 * reversed terms, that match the pattern. The longer one of prefix and
+	 * suffix is used to restrict the terms to check.
+	 * 
+	 * @param dictionary
+	 *            dictionary of the terms
+	 * @param reversedDictionary
+	 *            dictionary of the reversed terms
+	 * @return matching terms, not ordered
+	 */
+	public List<String> getMatchingTerms(TermDictionary dictionary, TermDictionary reversedDictionary) {
+		String prefix = getPrefix();
+		String suffix = getSuffix();
+		List<String> terms = new ArrayList<>();
+		if (prefix.length() >= suffix.length()) {
+			for (String term : dictionary.getTermsWithPrefix(prefix)) {
+				if (matches(term)) {
+					terms.add(term);
+				}
+			}
+		} else {
+			for (String reversedTerm : reversedDictionary.getTermsWithPrefix(reverse(suffix))) {
+				String term = reverse(reversedTerm);
+				if (matches(term)) {
+					terms.add(term);
+				}
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Return the terms with the highest document frequencies
+	 * 
+	 * @param terms
+	 *            distinct terms
+	 * @param maxExpansions
+	 *            maximal number of terms to return
+	 * @param documentFrequency
+	 *            document frequency of a term, terms with frequency 0 are
+	 *            dropped
+	 * @return terms in ascending order
+	 */
+	public static List<String> selectMostFrequent(Collection<String> terms, int maxExpansions,
+			ToIntFunction<String> documentFrequency) {
+		List<String> selected = new ArrayList<>();
+		for (String term : terms) {
+			if (documentFrequency.applyAsInt(term) > 0) {
+				selected.add(term);
+			}
+		}
+		if (selected.size() > maxExpansions) {
+			selected.sort(Comparator.comparingInt(documentFrequency).reversed().thenComparing(Comparator.naturalOrder()));
+			selected = new ArrayList<>(selected.subList(0, maxExpansions));
+		}
+		Collections.sort(selected);
+		return selected;
+	}
+
+	/**
+	 * reversing a string, surrogate pairs are kept
+	 * 
+	 * @param string
+	 * @return
+	 */
+	static String reverse(String string) {
+		return new StringBuilder(string).reverse().toString();
+	}
+
+	private static boolean isWildcard(int codePoint) {
+		return codePoint == ANY_SEQUENCE || codePoint == ANY_CHARACTER;
+	}
+
+	@Override
+	public String toString() {
+		return this.pattern;
+	}
+
+}
@@ -1,6 +1,9 @@
 package de.unikassel.ir.webapp;
 
+import java.io.File;
 import java.io.IOException;
+import java.text.ParseException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,6 +23,7 @@ public class MyServlet extends HttpServlet {
 	public static String corpusPath;
 	public static String stopWordsPath;
 	public static String jspPath;
+	public static String indexPath;
 	private SearchEngine searchEngine;
 
 	/**
@@ -34,6 +38,7 @@ public class MyServlet extends HttpServlet {
 		corpusPath = this.getServletContext().getRealPath("resources/texte");
 		stopWordsPath = this.getServletContext().getRealPath("resources/englishST.txt");
 		jspPath = this.getServletContext().getRealPath("index.jsp");
+		indexPath = this.getServletContext().getRealPath("resources") + File.separator + "web.index";
 		this.searchEngine = new SearchEngine();
 	}
 
@@ -62,7 +67,14 @@ public class MyServlet extends HttpServlet {
 			 * stores the corresponding documents and the context of the query
 			 * terms
 			 */
-			Map<String, List<String>> results = this.searchEngine.query(searchterm, operator);
+			Map<String, List<String>> results = new HashMap<>();
+			try {
+				results = this.searchEngine.query(searchterm, operator);
+			} catch (ParseException e) {
+				/* showing the error and its position in the typed query */
+				sites.append("<br/><b>Invalid query:</b> " + escape(e.getMessage()) + " at position "
+						+ e.getErrorOffset() + "<br/>");
+			}
 
 			/* printing found documents and contexts */
 			sites.append("<br/>");
@@ -84,6 +96,16 @@ public class MyServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * escaping the characters of a text, that have a meaning in HTML
+	 * 
+	 * @param text
+	 * @return
+	 */
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
 	/**
 	 * @see HttpServlet#doPost(HttpServletRequest request, HttpServletResponse
 	 *      response)
@@ -6,30 +6,44 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Logger;
 
 import de.unikassel.ir.spider.Crawler;
+import de.unikassel.ir.vsr.Analyzer;
 import de.unikassel.ir.vsr.Corpus;
 import de.unikassel.ir.vsr.CorpusImpl;
 import de.unikassel.ir.vsr.Document;
 import de.unikassel.ir.vsr.DocumentImpl;
+import de.unikassel.ir.vsr.IndexFile;
+import de.unikassel.ir.vsr.IntersectionIterator;
+import de.unikassel.ir.vsr.LevenshteinAutomaton;
 import de.unikassel.ir.vsr.PhraseSearchIndex;
+import de.unikassel.ir.vsr.PostingIterator;
+import de.unikassel.ir.vsr.PostingList;
+import de.unikassel.ir.vsr.QueryNode;
+import de.unikassel.ir.vsr.QueryParser;
+import de.unikassel.ir.vsr.QueryPlanner;
+import de.unikassel.ir.vsr.RoaringBitmap;
 import de.unikassel.ir.vsr.SearchResultItem;
-import de.unikassel.ir.vsr.TokenInfo;
-import de.unikassel.ir.vsr.TokenOccurrence;
+import de.unikassel.ir.vsr.SegmentedIndex;
+import de.unikassel.ir.vsr.StemCache;
+import de.unikassel.ir.vsr.SuggestionTrie;
+import de.unikassel.ir.vsr.Tokenizer;
+import de.unikassel.ir.vsr.WildcardPattern;
 
 /**
  * Search Engine Bean to use the query methods in JSPs
@@ -38,48 +52,139 @@ import de.unikassel.ir.vsr.TokenOccurrence;
  */
 public class SearchEngine {
 
+	private static Logger log = Logger.getLogger(SearchEngine.class);
+
 	/**
-	 * The corpus
+	 * number of documents returned by a ranked query
 	 */
-	private Corpus corpus;
+	public static final int PAGE_SIZE = 10;
+
 	/**
-	 * inverted index
+	 * maximal number of terms a wildcard or fuzzy term of a query is expanded
+	 * to
 	 */
-	private static PhraseSearchIndex index = initIndex();
+	public static final int MAX_EXPANSIONS = 50;
+
 	/**
-	 * corpus of crawled websites
+	 * number of most frequent terms, whose adjacent pairs are indexed to
+	 * speed up phrase queries
 	 */
-	private static Corpus webCorpus;
+	public static final int BIWORD_TERMS = 100;
 
 	/**
-	 * Creating of web corpus with help of crawler.
+	 * maximal number of positions of the indexed pairs of frequent terms
 	 */
-	private static PhraseSearchIndex initIndex() {
-		org.apache.log4j.Logger log = Logger.getLogger(SearchEngine.class);
-		BasicConfigurator.configure();
-		if (index == null) {
-			try {
-				log.debug("Start...");
-				// Create a Crawler, Start it and give it a URL to start with
-				Crawler spider = new Crawler(100, 10, 20);
-
-				URL url = new URL("https://www.w3schools.com/html/");
+	public static final long MAX_BIWORD_POSITIONS = 2000000;
 
-				log.debug("Spider initialized\n----------------------------------------------");
-				log.debug("Pushing " + url);
+	/**
+	 * number of crawled pages, from which on the write segment of the index
+	 * is flushed
+	 */
+	public static final int FLUSH_THRESHOLD = 20;
 
-				spider.addURL(null, url);
+	/**
+	 * number of segments of similar size, that are merged
+	 */
+	public static final int MERGE_FACTOR = 4;
 
-				// Wait until all the nPages have been downloaded and processed
-				spider.waitUntilDone();
+	/**
+	 * The corpus
+	 */
+	private CorpusImpl corpus;
+	/**
+	 * cache of the stems of the analyzer
+	 */
+	private static StemCache stemCache = new StemCache();
+	/**
+	 * analyzer of the crawled websites, the default corpus and the queries
+	 */
+	private static Analyzer analyzer = initAnalyzer();
+	/**
+	 * completions of typed prefixes, created with the index or after the
+	 * crawl, null until then
+	 */
+	private static volatile SuggestionTrie suggestions;
+	/**
+	 * inverted index of the crawled websites, that answers queries while the
+	 * crawler adds further websites
+	 */
+	private static SegmentedIndex index = initIndex();
 
-				// Return corpus.
-				webCorpus = spider.getDocumentsAsCorpus();
+	/**
+	 * Creating of the analyzer removing english stop words and stemming, if
+	 * the stop words are available, otherwise the terms are only lowercased
+	 */
+	private static Analyzer initAnalyzer() {
+		if (MyServlet.stopWordsPath != null) {
+			try {
+				return Analyzer.createEnglishAnalyzer(new File(MyServlet.stopWordsPath), stemCache);
+			} catch (IOException e) {
+				Logger.getLogger(SearchEngine.class).error("Stop words " + MyServlet.stopWordsPath
+						+ " could not be read, the terms are not stemmed", e);
+			}
+		}
+		return Analyzer.DEFAULT;
+	}
 
-				for (Document doc : webCorpus) {
-					log.debug("Doc: " + doc.getId());
+	/**
+	 * Creating of the index of the crawled websites. The index of a previous
+	 * start is loaded from the index file, otherwise the crawler runs in the
+	 * background and adds every processed website to the index, so queries
+	 * are answered while crawling. The complete index is written to the index
+	 * file for the next start.
+	 */
+	private static SegmentedIndex initIndex() {
+		org.apache.log4j.Logger log = Logger.getLogger(SearchEngine.class);
+		BasicConfigurator.configure();
+		if (index == null) {
+			/* loading the index of a previous start */
+			File indexFile = MyServlet.indexPath != null ? new File(MyServlet.indexPath) : null;
+			if (indexFile != null && indexFile.exists()) {
+				try {
+					PhraseSearchIndex storedIndex = IndexFile.open(indexFile, analyzer);
+					log.debug("Index loaded from " + indexFile);
+					SegmentedIndex webIndex = new SegmentedIndex(storedIndex, FLUSH_THRESHOLD, MERGE_FACTOR, true);
+					webIndex.enableBiwordIndex(BIWORD_TERMS, MAX_BIWORD_POSITIONS);
+					suggestions = SuggestionTrie.create(webIndex, SuggestionTrie.DEFAULT_SIZE);
+					return webIndex;
+				} catch (IOException e) {
+					log.error("Index file " + indexFile + " could not be loaded, crawling again", e);
 				}
-				return new PhraseSearchIndex(webCorpus);
+			}
+
+			try {
+				URL url = new URL("https://www.w3schools.com/html/");
+				SegmentedIndex webIndex = new SegmentedIndex(new CorpusImpl(analyzer), FLUSH_THRESHOLD,
+						MERGE_FACTOR, true);
+				webIndex.enableBiwordIndex(BIWORD_TERMS, MAX_BIWORD_POSITIONS);
+
+				Thread crawl = new Thread(() -> {
+					log.debug("Start...");
+					// Create a Crawler adding the websites to the index, Start it and give it a URL to start with
+					Crawler spider = new Crawler(100, 10, 20, analyzer, webIndex);
+
+					log.debug("Spider initialized\n----------------------------------------------");
+					log.debug("Pushing " + url);
+
+					spider.addURL(null, url);
+
+					// Wait until all the nPages have been downloaded and processed
+					spider.waitUntilDone();
+					log.debug(stemCache);
+					suggestions = SuggestionTrie.create(webIndex, SuggestionTrie.DEFAULT_SIZE);
+
+					/* storing index for the next start */
+					if (indexFile != null) {
+						try {
+							webIndex.write(indexFile);
+						} catch (IOException e) {
+							log.error("Index file " + indexFile + " could not be written", e);
+						}
+					}
+				}, "crawl");
+				crawl.setDaemon(true);
+				crawl.start();
+				return webIndex;
 			} catch (MalformedURLException e) {
 				// TODO Auto-generated catch block
 				System.err.println("ERROR: COULD NOT LOAD CORPUS.");
@@ -94,16 +199,23 @@ public class SearchEngine {
 	 * Constructor, sets the corpus
 	 */
 	public SearchEngine() {
-		/* check availability of web corpus */
-		if (index != null) {
-			this.corpus = webCorpus;
-		} else {
+		/* check availability of web index, whose corpus grows while crawling */
+		if (index == null) {
 			/* else load a default corpus */
-			this.corpus = new CorpusImpl();
+			this.corpus = new CorpusImpl(analyzer);
 			loadDefaultCorpus();
 		}
 	}
 
+	/**
+	 * Return the analyzer of the documents and queries
+	 * 
+	 * @return
+	 */
+	private Analyzer getAnalyzer() {
+		return index != null ? index.getAnalyzer() : this.corpus.getAnalyzer();
+	}
+
 	/**
 	 * Load Texts into the corpus
 	 */
@@ -115,7 +227,8 @@ public class SearchEngine {
 				FileInputStream stream;
 				try {
 					stream = new FileInputStream(file);
-					Document doc = new DocumentImpl(file.getName());
+					Document doc = new DocumentImpl(file.getName(), this.corpus.getAnalyzer(),
+							this.corpus.getVocabulary());
 					doc.read(stream);
 					stream.close();
 					corpus.addDocument(doc);
@@ -134,15 +247,21 @@ public class SearchEngine {
 	 * @param terms:
 	 *            query
 	 * @param mode:
-	 *            query type [RANKED, AND, OR, PHRASE]
+	 *            query type [RANKED, AND, OR, PHRASE, WILDCARD, FUZZY, BOOLEAN]
 	 * @return documents and context matching query terms
+	 * @throws ParseException
+	 *             if a boolean query is invalid
 	 */
-	public Map<String, List<String>> query(String terms, String mode) {
+	public Map<String, List<String>> query(String terms, String mode) throws ParseException {
 		/* stores result mapping between documents and contexts */
 		Map<String, List<String>> results = new HashMap<>();
 
-		/* preprocessing query */
-		String[] query = terms.toLowerCase().trim().replaceAll("[^A-Za-z0-9 -]", "").split("\\s+|-");
+		/*
+		 * analyzing query like the documents, wildcard terms are only
+		 * lowercased and keep their wildcards
+		 */
+		String[] query = "WILDCARD".equals(mode) ? new Tokenizer("*?").split(terms)
+				: this.getAnalyzer().split(terms);
 		/* printing preprocessed query */
 		System.out.println("Query: " + Arrays.toString(query));
 
@@ -156,12 +275,21 @@ public class SearchEngine {
 				results = this.testAndQuery(query);
 				break;
 			case "RANK":
-				results = this.testRankedQuery(query);
+				results = this.testRankedQuery(query, PAGE_SIZE, true);
+				break;
+			case "WILDCARD":
+				results = this.testWildcardQuery(query);
+				break;
+			case "FUZZY":
+				results = this.testFuzzyQuery(query);
 				break;
 			case "PHRASE":
 				System.out.println(terms);
 				results = this.testPhraseQuery(terms);
 				break;
+			case "BOOLEAN":
+				results = this.testBooleanQuery(terms);
+				break;
 			}
 		}
 		return results;
@@ -183,39 +311,33 @@ public class SearchEngine {
 		String[] uniqueTerms = set.toArray(new String[0]);
 
 		/*
-		 * determining documents containing all terms of query by using
-		 * intersection operator
+		 * determining documents containing all terms of query by
+		 * intersecting their posting lists starting with the rarest term,
+		 * every document belongs to one segment of the index
 		 */
-		Set<Document> intersect = null;
-		for (String term : uniqueTerms) {
-			TreeSet<TokenOccurrence> occurrences = index.getTokenInfo(term).getTokenOccurrenceList();
-			Set<Document> docs = new HashSet<>();
-			for (TokenOccurrence occ : occurrences) {
-				docs.add(occ.getDocument());
+		index.forEachSegment(segment -> {
+			List<PostingList> postingLists = new ArrayList<>();
+			for (String term : uniqueTerms) {
+				postingLists.add(segment.getTokenInfo(term).getPostingList());
 			}
-			if (intersect == null) {
-				intersect = docs;
-			} else {
-				intersect.retainAll(docs);
-			}
-		}
+			IntersectionIterator intersection = new IntersectionIterator(postingLists);
 
-		/* determining context of every term in corresponding document */
-		if (intersect != null) {
-			for (Document doc : intersect) {
+			/* determining context of every term in corresponding document */
+			while (intersection.next()) {
+				Document doc = segment.getCorpus().getDocument(intersection.getDocId());
 				List<String> contexts = new ArrayList<String>();
-				for (String term : uniqueTerms) {
-					List<Integer> positions = doc.getTermPositions(term);
-					for (int pos : positions) {
-						List<String> contextList = index.getContext(term, doc, pos);
-						String context = contextList.get(0) + " <b>" + term + "</b> " + contextList.get(1);
+				for (int i = 0; i < uniqueTerms.length; i++) {
+					PostingIterator posting = intersection.getPostingIterator(postingLists.get(i));
+					for (int j = 0; j < posting.getTermCount(); j++) {
+						List<String> contextList = index.getContext(uniqueTerms[i], doc, posting.getPosition(j));
+						String context = contextList.get(0) + " <b>" + doc.getSurfaceForm(uniqueTerms[i])
+								+ "</b> " + contextList.get(1);
 						contexts.add(context);
 					}
 				}
 				results.put(doc.getId(), contexts);
-
 			}
-		}
+		});
 
 		return results;
 
@@ -236,41 +358,76 @@ public class SearchEngine {
 		Set<String> set = new HashSet<String>(Arrays.asList(query));
 		String[] uniqueTerms = set.toArray(new String[0]);
 
-		/*
-		 * adding every document to map that contains at least on term of query
-		 * and creating context for every found query term in a document
-		 */
-		for (String term : uniqueTerms) {
-			TokenInfo info = index.getTokenInfo(term);
-			for (TokenOccurrence occ : info.getTokenOccurrenceList()) {
-				List<String> contexts = results.getOrDefault(occ.getDocument().getId(), new ArrayList<String>());
-				for (int pos : occ.getPositions()) {
-					List<String> contextList = index.getContext(term, occ.getDocument(), pos);
-					String context = contextList.get(0) + " <b>" + term + "</b> " + contextList.get(1);
-					contexts.add(context);
-				}
-				results.put(occ.getDocument().getId(), contexts);
+		index.forEachSegment(segment -> {
+			/* union of the document sets of all terms */
+			RoaringBitmap union = new RoaringBitmap();
+			for (String term : uniqueTerms) {
+				union = union.or(segment.getDocumentSet(term));
 			}
-		}
+
+			/*
+			 * adding every document to map that contains at least on term of
+			 * query and creating context for every found query term in a
+			 * document
+			 */
+			union.forEach(docId -> {
+				Document doc = segment.getCorpus().getDocument(docId);
+				results.put(doc.getId(), getContexts(doc, uniqueTerms));
+			});
+		});
 
 		return results;
 	}
 
 	/**
-	 * calculates mapping between documents ranked regarding the cosines
-	 * similarity w.r.t. query and context of found query terms
+	 * calculates mapping between the PAGE_SIZE best documents ranked regarding
+	 * the cosines similarity w.r.t. query and context of found query terms
 	 * 
 	 * @param terms
 	 * @return ranked list of documents and context of the found query terms
 	 */
 	public Map<String, List<String>> testRankedQuery(String[] query) {
-		/* stores result mapping between documents and contexts */
-		Map<String, List<String>> results = new HashMap<String, List<String>>();
+		return this.testRankedQuery(query, PAGE_SIZE);
+	}
 
+	/**
+	 * calculates mapping between the k best documents ranked regarding the
+	 * cosines similarity w.r.t. query and context of found query terms
+	 * 
+	 * @param terms
+	 * @param k
+	 *            maximal number of documents
+	 * @return ranked list of documents and context of the found query terms
+	 */
+	public Map<String, List<String>> testRankedQuery(String[] query, int k) {
+		return this.testRankedQuery(query, k, false);
+	}
+
+	/**
+	 * calculates mapping between the k best documents ranked regarding the
+	 * cosines similarity w.r.t. query and context of found query terms
+	 * 
+	 * @param terms
+	 * @param k
+	 *            maximal number of documents
+	 * @param proximity
+	 *            if true, documents containing the query terms close to each
+	 *            other are boosted
+	 * @return ranked list of documents and context of the found query terms
+	 */
+	public Map<String, List<String>> testRankedQuery(String[] query, int k, boolean proximity) {
 		/*
-		 * iterator over all found documents ordered by their cosines similarity
+		 * stores result mapping between documents and contexts, keeping the
+		 * order of the ranking
 		 */
-		Iterator<? extends SearchResultItem> searchResults = index.getCosineSimilarities(query);
+		Map<String, List<String>> results = new LinkedHashMap<String, List<String>>();
+
+		/*
+		 * iterator over the k best documents ordered by their cosines
+		 * similarity
+		 */
+		Iterator<? extends SearchResultItem> searchResults = proximity ? index.getProximityRankedResults(query, k)
+				: index.getCosineSimilarities(query, k);
 
 		/* adding found documents and contexts to result map */
 		while (searchResults.hasNext()) {
@@ -281,7 +438,8 @@ public class SearchEngine {
 				if (positions != null)
 					for (int pos : positions) {
 						List<String> contextList = index.getContext(term, item.getDocument(), pos);
-						String context = contextList.get(0) + " <b>" + term + "</b> " + contextList.get(1);
+						String context = contextList.get(0) + " <b>" + item.getDocument().getSurfaceForm(term)
+								+ "</b> " + contextList.get(1);
 						contexts.add(context);
 					}
 			}
@@ -291,6 +449,59 @@ public class SearchEngine {
 		return results;
 	}
 
+	/**
+	 * calculates mapping between the PAGE_SIZE best documents and the context
+	 * of the found query terms, where every term containing wildcards is
+	 * replaced by at most MAX_EXPANSIONS matching terms of the index
+	 * 
+	 * @param query
+	 *            terms, that may contain '*' and '?'
+	 * @return ranked list of documents and context of the found query terms
+	 */
+	public Map<String, List<String>> testWildcardQuery(String[] query) {
+		/* expanding wildcard terms with help of the term dictionary */
+		List<String> expandedQuery = new ArrayList<>();
+		for (String term : query) {
+			if (WildcardPattern.isWildcard(term)) {
+				expandedQuery.addAll(index.getTermsMatching(term, MAX_EXPANSIONS));
+			} else {
+				expandedQuery.add(term);
+			}
+		}
+		log.debug("Expanded query: " + expandedQuery);
+
+		/* no term of the index matches */
+		if (expandedQuery.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		return this.testRankedQuery(expandedQuery.toArray(new String[0]));
+	}
+
+	/**
+	 * calculates mapping between the PAGE_SIZE best documents and the context
+	 * of the found query terms, where every term is replaced by at most
+	 * MAX_EXPANSIONS terms of the index within an edit distance depending on
+	 * its length, so misspelled terms are found as well
+	 * 
+	 * @param query
+	 * @return ranked list of documents and context of the found query terms
+	 */
+	public Map<String, List<String>> testFuzzyQuery(String[] query) {
+		/* expanding terms with help of the term dictionary */
+		List<String> expandedQuery = new ArrayList<>();
+		for (String term : query) {
+			int maxDistance = LevenshteinAutomaton.getMaxDistance(term);
+			expandedQuery.addAll(index.getTermsWithinDistance(term, maxDistance, MAX_EXPANSIONS));
+		}
+		log.debug("Expanded query: " + expandedQuery);
+
+		/* no term of the index is close enough */
+		if (expandedQuery.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		return this.testRankedQuery(expandedQuery.toArray(new String[0]));
+	}
+
 	/**
 	 * Calculates mapping between documents ranked containing the given phrase
 	 * and determines also contexts of found phrase in a document.
@@ -323,6 +534,88 @@ public class SearchEngine {
 
 	}
 
+	/**
+	 * Determines mapping between documents matching a boolean query, e.g.
+	 * <code>oil AND (price OR export) NOT "crude oil"</code>, and the
+	 * contexts of its terms, that are not negated.
+	 * 
+	 * @param query
+	 *            query as typed, see {@link QueryParser}
+	 * @return mapping between found documents and context of query terms
+	 * @throws ParseException
+	 *             if the query is invalid
+	 */
+	public Map<String, List<String>> testBooleanQuery(String query) throws ParseException {
+		/* stores result mapping between documents and contexts */
+		Map<String, List<String>> results = new HashMap<>();
+
+		QueryNode root = QueryParser.parse(query, this.getAnalyzer());
+
+		/*
+		 * evaluating the query in every segment in the order of the estimated
+		 * costs
+		 */
+		index.forEachSegment(segment -> {
+			QueryPlanner planner = new QueryPlanner(segment);
+			QueryNode plan = planner.plan(root);
+			if (log.isDebugEnabled()) {
+				log.debug("Plan: " + plan + ", estimated documents: " + planner.estimate(plan));
+			}
+			RoaringBitmap documents = planner.execute(plan);
+
+			/* determining context of every term, that is not negated */
+			String[] terms = plan.getTerms().toArray(new String[0]);
+			documents.forEach(docId -> {
+				Document doc = segment.getCorpus().getDocument(docId);
+				results.put(doc.getId(), getContexts(doc, terms));
+			});
+		});
+
+		return results;
+	}
+
+	/**
+	 * Determines the contexts of every occurrence of the given terms in a
+	 * document
+	 * 
+	 * @param doc
+	 * @param terms
+	 * @return contexts with the highlighted terms
+	 */
+	private List<String> getContexts(Document doc, String[] terms) {
+		List<String> contexts = new ArrayList<String>();
+		for (String term : terms) {
+			List<Integer> positions = doc.getTermPositions(term);
+			if (positions != null) {
+				for (int pos : positions) {
+					List<String> contextList = index.getContext(term, doc, pos);
+					String context = contextList.get(0) + " <b>" + doc.getSurfaceForm(term) + "</b> "
+							+ contextList.get(1);
+					contexts.add(context);
+				}
+			}
+		}
+		return contexts;
+	}
+
+	/**
+	 * Return the most frequent terms and phrases of the index starting with
+	 * a typed prefix. The completions are precomputed, so a suggestion does
+	 * not need to process a query. There are no suggestions while the
+	 * crawler is running.
+	 * 
+	 * @param prefix
+	 *            typed prefix
+	 * @return completions ordered by descending document frequency
+	 */
+	public List<String> suggest(String prefix) {
+		SuggestionTrie trie = suggestions;
+		if (trie == null) {
+			return new ArrayList<>();
+		}
+		return trie.suggest(prefix.toLowerCase().replaceAll("^\\s+", "").replaceAll("\\s+", " "));
+	}
+
 	/**
 	 * Query for terms in the corpus
 	 * 
@@ -340,9 +633,9 @@ public class SearchEngine {
 		Collection<Document> docs;
 
 		if (andOperator) {
-			docs = corpus.getDocumentsContainingAll(termsRequest);
+			docs = getCorpus().getDocumentsContainingAll(termsRequest);
 		} else {
-			docs = corpus.getDocumentsContainingAny(termsRequest);
+			docs = getCorpus().getDocumentsContainingAny(termsRequest);
 		}
 
 		for (Document doc : docs) {
@@ -353,9 +646,10 @@ public class SearchEngine {
 	}
 
 	/**
-	 * @return the Corpus
+	 * @return the Corpus, a view on the crawled websites, that is only valid
+	 *         until further websites are added
 	 */
 	public Corpus getCorpus() {
-		return corpus;
+		return index != null ? index.getCorpus() : corpus;
 	}
 }
\ No newline at end of file
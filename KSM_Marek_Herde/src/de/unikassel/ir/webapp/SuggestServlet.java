@@ -0,0 +1,66 @@
+package de.unikassel.ir.webapp;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet returning the completions of a typed prefix as JSON array, used by
+ * the typeahead of the search form
+ * 
+ * @author Marek Herde
+ */
+@WebServlet("/SuggestServlet")
+public class SuggestServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	private SearchEngine searchEngine;
+
+	@Override
+	public void init() {
+		this.searchEngine = new SearchEngine();
+	}
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
+	 *      response)
+	 */
+	protected void doGet(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+
+		/* getting typed prefix */
+		String prefix = request.getParameter("prefix");
+		List<String> completions = this.searchEngine.suggest(prefix != null ? prefix : "");
+
+		/* printing completions as JSON array */
+		PrintWriter out = response.getWriter();
+		out.print('[');
+		for (int i = 0; i < completions.size(); i++) {
+			if (i > 0) {
+				out.print(',');
+			}
+			out.print('"');
+			for (char c : completions.get(i).toCharArray()) {
+				if (c == '"' || c == '\\') {
+					out.print('\\');
+					out.print(c);
+				} else if (c < 0x20) {
+					out.printf("\\u%04x", (int) c);
+				} else {
+					out.print(c);
+				}
+			}
+			out.print('"');
+		}
+		out.print(']');
+	}
+
+}